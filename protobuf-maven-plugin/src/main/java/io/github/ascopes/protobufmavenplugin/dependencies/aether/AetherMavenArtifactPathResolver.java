@@ -18,14 +18,11 @@ package io.github.ascopes.protobufmavenplugin.dependencies.aether;
 import io.github.ascopes.protobufmavenplugin.dependencies.DependencyResolutionDepth;
 import io.github.ascopes.protobufmavenplugin.dependencies.MavenArtifact;
 import io.github.ascopes.protobufmavenplugin.dependencies.MavenArtifactPathResolver;
-import io.github.ascopes.protobufmavenplugin.digests.Digest;
-import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
-import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
+import io.github.ascopes.protobufmavenplugin.fs.ExecutableStore;
+import io.github.ascopes.protobufmavenplugin.system.SessionResolutionCache;
 import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
@@ -56,7 +53,8 @@ final class AetherMavenArtifactPathResolver implements MavenArtifactPathResolver
   private final AetherArtifactMapper aetherArtifactMapper;
   private final AetherDependencyManagement aetherDependencyManagement;
   private final AetherResolver aetherResolver;
-  private final TemporarySpace temporarySpace;
+  private final ExecutableStore executableStore;
+  private final SessionResolutionCache sessionResolutionCache;
 
   @Inject
   AetherMavenArtifactPathResolver(
@@ -64,40 +62,47 @@ final class AetherMavenArtifactPathResolver implements MavenArtifactPathResolver
       AetherArtifactMapper aetherArtifactMapper,
       AetherDependencyManagement aetherDependencyManagement,
       AetherResolver aetherResolver,
-      TemporarySpace temporarySpace
+      ExecutableStore executableStore,
+      SessionResolutionCache sessionResolutionCache
   ) {
     this.mavenSession = mavenSession;
     this.aetherArtifactMapper = aetherArtifactMapper;
     this.aetherDependencyManagement = aetherDependencyManagement;
     this.aetherResolver = aetherResolver;
-    this.temporarySpace = temporarySpace;
+    this.executableStore = executableStore;
+    this.sessionResolutionCache = sessionResolutionCache;
   }
 
   @Override
   public Path resolveArtifact(MavenArtifact artifact) throws ResolutionException {
     log.debug("Resolving artifact \"{}\"", artifact);
     var unresolvedArtifact = aetherArtifactMapper.mapPmpArtifactToEclipseArtifact(artifact);
+    var key = List.of("artifact", unresolvedArtifact, aetherResolver.computeRemoteRepositories());
+
+    return sessionResolutionCache.computeIfAbsent(
+        key,
+        () -> resolveExecutableArtifact(artifact, unresolvedArtifact)
+    );
+  }
+
+  private Path resolveExecutableArtifact(
+      MavenArtifact artifact,
+      org.eclipse.aether.artifact.Artifact unresolvedArtifact
+  ) throws ResolutionException {
     var resolvedArtifact = aetherResolver.resolveArtifact(unresolvedArtifact);
     var originalPath = aetherArtifactMapper.mapEclipseArtifactToPath(resolvedArtifact);
 
     // GH-792: make a copy and set that as executable rather than changing what is in the
-    // repository, as this is racy between concurrent builds and deemed to be unsafe.
-    var digestPart = Digest.compute("SHA-1", artifact.toString()).toHexString();
-    var finalPath = temporarySpace.createTemporarySpace("artifacts")
-        .resolve(artifact.getArtifactId() + "-" + digestPart + ".exe");
-
+    // repository, as this is racy between concurrent builds and deemed to be unsafe. The copy
+    // is shared by every build on this machine, so it is only ever made once.
     try {
-      log.debug("Copying \"{}\" to \"{}\" and making executable", originalPath, finalPath);
-      Files.copy(originalPath, finalPath, StandardCopyOption.REPLACE_EXISTING);
-      FileUtils.makeExecutable(finalPath);
+      return executableStore.store(originalPath, artifact.getArtifactId() + ".exe");
     } catch (IOException ex) {
       throw new ResolutionException(
           "Failed to process downloaded artifact " + artifact + ": " + ex,
           ex
       );
     }
-
-    return finalPath;
   }
 
   @Override
@@ -119,6 +124,30 @@ final class AetherMavenArtifactPathResolver implements MavenArtifactPathResolver
         .map(aetherDependencyManagement::fillManagedAttributes)
         .toList();
 
+    if (includeProjectArtifacts) {
+      // Project artifacts may point into the reactor, which changes as the session progresses.
+      return resolveDependencyPaths(unresolvedDependencies, dependencyScopes);
+    }
+
+    // Dependency management is already applied to the dependencies, but the repositories that
+    // they are resolved from can still differ between projects.
+    var key = List.of(
+        "dependencies",
+        unresolvedDependencies,
+        Set.copyOf(dependencyScopes),
+        aetherResolver.computeRemoteRepositories()
+    );
+
+    return sessionResolutionCache.computeIfAbsent(
+        key,
+        () -> resolveDependencyPaths(unresolvedDependencies, dependencyScopes)
+    );
+  }
+
+  private List<Path> resolveDependencyPaths(
+      List<org.eclipse.aether.graph.Dependency> unresolvedDependencies,
+      Set<String> dependencyScopes
+  ) throws ResolutionException {
     return aetherResolver
         .resolveDependencies(unresolvedDependencies, dependencyScopes)
         .stream()
@@ -210,7 +210,7 @@ final class AetherResolver {
   // certain networking and authentication configurations are propagated
   // correctly without relying on Maven exposing the final configuration to
   // us immediately.
-  private List<RemoteRepository> computeRemoteRepositories() {
+  List<RemoteRepository> computeRemoteRepositories() {
     return repositorySystem.newResolutionRepositories(
         repositorySystemSession,
         mavenProject.getRemoteProjectRepositories()
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.digests;
+
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Accumulates a textual description of something, one named value per line, that a digest can
+ * be computed from.
+ *
+ * <p>Two descriptions only produce the same digest if the same values were added in the same
+ * order.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+public final class DigestDescription {
+  private final String algorithm;
+  private final StringBuilder text;
+
+  public DigestDescription(String algorithm) {
+    this.algorithm = algorithm;
+    text = new StringBuilder();
+  }
+
+  public void add(String name, @Nullable Object value) {
+    text.append(name).append('=').append(value).append('\n');
+  }
+
+  public void add(String name, Map<String, String> values) {
+    values.forEach((key, value) -> add(name, key + "=" + value));
+  }
+
+  public Digest digest() {
+    return Digest.compute(algorithm, text.toString());
+  }
+}
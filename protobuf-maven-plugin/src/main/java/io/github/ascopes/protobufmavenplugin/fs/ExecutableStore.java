@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.fs;
+
+import io.github.ascopes.protobufmavenplugin.digests.Digest;
+import io.github.ascopes.protobufmavenplugin.utils.VisibleForTestingOnly;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.sisu.Description;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content-addressed store of executables that is shared between every build on the machine.
+ *
+ * <p>Artifacts in the local Maven repository must not be made executable in place, as that is
+ * racy between concurrent builds (GH-792). Rather than copying them into each build directory,
+ * each distinct executable is stored once, named after the digest of its contents, and reused
+ * by every build that needs it.
+ *
+ * <p>The store lives in {@code .cache/protobuf-maven-plugin/executables} within the local
+ * Maven repository. Entries are never modified once created, so they can safely be used by
+ * concurrent builds.
+ *
+ * <p>The digest of each stored file is remembered against its location, size and modification
+ * time, so that unchanged files do not need to be read in full on every build.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Stores executables in a content-addressed location shared between builds")
+@MojoExecutionScoped
+@Named
+public final class ExecutableStore {
+
+  private static final String DIGESTS_DIRECTORY = "digests";
+  private static final String LOCK_FILE = ".lock";
+  private static final Logger log = LoggerFactory.getLogger(ExecutableStore.class);
+
+  private final Path storeDirectory;
+
+  @Inject
+  ExecutableStore(MavenSession mavenSession) {
+    this(mavenSession.getRepositorySession()
+        .getLocalRepository()
+        .getBasedir()
+        .toPath()
+        .resolve(".cache")
+        .resolve("protobuf-maven-plugin")
+        .resolve("executables"));
+  }
+
+  @VisibleForTestingOnly
+  ExecutableStore(Path storeDirectory) {
+    this.storeDirectory = storeDirectory;
+  }
+
+  /**
+   * Get the executable copy of the given file in the store, adding it if it is not already
+   * present.
+   *
+   * @param file the file to store.
+   * @param fileName the file name to give the stored executable.
+   * @return the path to the stored executable.
+   * @throws IOException if an IO error occurs.
+   */
+  public Path store(Path file, String fileName) throws IOException {
+    var digest = digestOf(file);
+    var entryDirectory = storeDirectory.resolve(digest);
+    var entry = entryDirectory.resolve(fileName);
+    var size = Files.size(file);
+
+    if (isComplete(entry, size)) {
+      log.debug("Reusing stored executable \"{}\" for \"{}\"", entry, file);
+      return entry;
+    }
+
+    Files.createDirectories(entryDirectory);
+
+    return FileUtils.withFileLock(entryDirectory.resolve(LOCK_FILE), () -> {
+      if (isComplete(entry, size)) {
+        log.debug("Executable \"{}\" was stored by another build", entry);
+        return entry;
+      }
+
+      // Move a complete copy into place, so that other builds never see a partially written
+      // or non-executable file.
+      var temporaryEntry = Files.createTempFile(entryDirectory, fileName, ".tmp");
+      try {
+        log.debug("Storing \"{}\" as executable \"{}\"", file, entry);
+        Files.copy(file, temporaryEntry, StandardCopyOption.REPLACE_EXISTING);
+        FileUtils.makeExecutable(temporaryEntry);
+        Files.move(
+            temporaryEntry,
+            entry,
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING
+        );
+      } finally {
+        Files.deleteIfExists(temporaryEntry);
+      }
+
+      return entry;
+    });
+  }
+
+  /**
+   * Determine whether the given file is an entry within this store.
+   *
+   * <p>Symbolic links are resolved first, so links to entries are also considered to be
+   * entries.
+   *
+   * @param file the file to check.
+   * @return {@code true} if the file is an entry within this store.
+   * @throws IOException if an IO error occurs.
+   */
+  public boolean contains(Path file) throws IOException {
+    return Files.isDirectory(storeDirectory)
+        && file.toRealPath().startsWith(storeDirectory.toRealPath());
+  }
+
+  private String digestOf(Path file) throws IOException {
+    var digestFile = digestFileFor(file);
+
+    if (digestFile != null) {
+      try {
+        var digest = Files.readString(digestFile, StandardCharsets.UTF_8).strip();
+        if (!digest.isEmpty()) {
+          log.trace("Using remembered digest {} for \"{}\"", digest, file);
+          return digest;
+        }
+      } catch (NoSuchFileException ex) {
+        log.trace("No digest has been remembered for \"{}\" yet", file);
+      } catch (IOException ex) {
+        log.debug("Failed to read the remembered digest of \"{}\", ignoring", file, ex);
+      }
+    }
+
+    String digest;
+    try (var inputStream = FileUtils.newBufferedInputStream(file)) {
+      digest = Digest.compute("SHA-256", inputStream).toHexString();
+    }
+
+    if (digestFile != null) {
+      rememberDigest(digestFile, digest);
+    }
+
+    return digest;
+  }
+
+  private @Nullable Path digestFileFor(Path file) throws IOException {
+    // Files nested within other file systems have no stable identity that we can key on.
+    if (!file.getFileSystem().equals(FileSystems.getDefault())) {
+      return null;
+    }
+
+    var normalizedFile = FileUtils.normalize(file);
+    var attributes = Files.readAttributes(normalizedFile, BasicFileAttributes.class);
+    var key = String.join(
+        "\n",
+        normalizedFile.toUri().toASCIIString(),
+        Long.toString(attributes.size()),
+        Long.toString(attributes.lastModifiedTime().toMillis())
+    );
+
+    return storeDirectory
+        .resolve(DIGESTS_DIRECTORY)
+        .resolve(Digest.compute("SHA-256", key).toHexString() + ".txt");
+  }
+
+  private static void rememberDigest(Path digestFile, String digest) {
+    try {
+      Files.createDirectories(digestFile.getParent());
+
+      // Move the complete file into place so concurrent builds never read a partial digest.
+      var temporaryFile = Files.createTempFile(
+          digestFile.getParent(),
+          digestFile.getFileName().toString(),
+          ".tmp"
+      );
+      try {
+        Files.writeString(temporaryFile, digest, StandardCharsets.UTF_8);
+        Files.move(
+            temporaryFile,
+            digestFile,
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING
+        );
+      } finally {
+        Files.deleteIfExists(temporaryFile);
+      }
+    } catch (IOException ex) {
+      log.debug("Failed to remember the digest of \"{}\", ignoring", digestFile, ex);
+    }
+  }
+
+  private static boolean isComplete(Path entry, long expectedSize) throws IOException {
+    return Files.isRegularFile(entry)
+        && Files.isExecutable(entry)
+        && Files.size(entry) == expectedSize;
+  }
+}
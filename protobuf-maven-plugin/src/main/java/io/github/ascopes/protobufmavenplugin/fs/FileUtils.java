@@ -16,11 +16,13 @@
 package io.github.ascopes.protobufmavenplugin.fs;
 
 import io.github.ascopes.protobufmavenplugin.utils.DeadCodeGenerated;
+import io.github.ascopes.protobufmavenplugin.utils.VisibleForTestingOnly;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.FileVisitResult;
@@ -30,6 +32,7 @@ import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.spi.FileSystemProvider;
@@ -39,7 +42,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,6 +60,11 @@ public final class FileUtils {
 
   private static final Logger log = LoggerFactory.getLogger(FileUtils.class);
 
+  // File locks are held on behalf of the whole JVM, so threads within the same JVM must also be
+  // kept from holding the same lock at the same time. Monitors are removed once nothing is using
+  // them, so that locking many different files does not leak memory in long-lived JVMs.
+  private static final ConcurrentMap<Path, LockMonitor> lockMonitors = new ConcurrentHashMap<>();
+
   @DeadCodeGenerated(reason = "static-only class.")
   private FileUtils() {
     throw new UnsupportedOperationException();
@@ -161,6 +173,53 @@ public final class FileUtils {
     return Collections.unmodifiableList(newPaths);
   }
 
+  public static Path resolveZipEntry(Path root, String entryName) throws IOException {
+    var normalizedRoot = normalize(root);
+    var path = normalize(normalizedRoot.resolve(entryName.replaceFirst("^/+", "")));
+
+    // Entry names are untrusted, so never allow them to escape the root.
+    if (!path.startsWith(normalizedRoot) || path.equals(normalizedRoot)) {
+      throw new IOException(
+          "Refusing to use ZIP entry \"" + entryName + "\" as it resolves outside "
+              + normalizedRoot
+      );
+    }
+
+    return path;
+  }
+
+  public static List<Path> extractZipEntries(
+      ZipFile zipFile,
+      Stream<ZipEntry> entries,
+      Path newRoot
+  ) throws IOException {
+    var iter = entries.iterator();
+    var newPaths = new ArrayList<Path>();
+
+    while (iter.hasNext()) {
+      var entry = iter.next();
+      var newPath = resolveZipEntry(newRoot, entry.getName());
+
+      log.trace("Extracting \"{}\" from \"{}\" to \"{}\"", entry, zipFile.getName(), newPath);
+
+      Files.createDirectories(newPath.getParent());
+
+      try (var inputStream = zipFile.getInputStream(entry)) {
+        Files.copy(inputStream, newPath, StandardCopyOption.REPLACE_EXISTING);
+      }
+
+      // Equivalent to StandardCopyOption.COPY_ATTRIBUTES when copying between file systems.
+      var lastModifiedTime = entry.getLastModifiedTime();
+      if (lastModifiedTime != null) {
+        Files.setLastModifiedTime(newPath, lastModifiedTime);
+      }
+
+      newPaths.add(newPath);
+    }
+
+    return Collections.unmodifiableList(newPaths);
+  }
+
   public static InputStream newBufferedInputStream(
       Path path,
       OpenOption... options
@@ -202,4 +261,75 @@ public final class FileUtils {
       log.trace("Ignoring error deleting non-existent path \"{}\"", path);
     }
   }
+
+  // Runs the operation while holding an exclusive lock on the given file, excluding both other
+  // processes and other threads in this JVM.
+  public static <T> T withFileLock(Path lockFile, LockedOperation<T> operation) throws IOException {
+    var normalizedLockFile = normalize(lockFile);
+
+    // The user count is only ever modified within compute calls, which are atomic for each key.
+    var monitor = lockMonitors.compute(normalizedLockFile, (file, existing) -> {
+      var result = existing == null ? new LockMonitor() : existing;
+      ++result.users;
+      return result;
+    });
+
+    try {
+      synchronized (monitor) {
+        try (
+            var channel = FileChannel.open(
+                normalizedLockFile,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE
+            )
+        ) {
+          // Released when the channel is closed.
+          channel.lock();
+          return operation.run();
+        }
+      }
+    } finally {
+      lockMonitors.computeIfPresent(
+          normalizedLockFile,
+          (file, existing) -> --existing.users == 0 ? null : existing
+      );
+    }
+  }
+
+  // Runs the action while holding an exclusive lock on the given file, excluding both other
+  // processes and other threads in this JVM.
+  public static void withFileLock(Path lockFile, LockedAction action) throws IOException {
+    withFileLock(lockFile, () -> {
+      action.run();
+      return lockFile;
+    });
+  }
+
+  @VisibleForTestingOnly
+  static boolean hasLockMonitor(Path lockFile) {
+    return lockMonitors.containsKey(normalize(lockFile));
+  }
+
+  private static final class LockMonitor {
+
+    private int users;
+  }
+
+  /**
+   * Operation to run while holding a file lock.
+   */
+  @FunctionalInterface
+  public interface LockedOperation<T> {
+
+    T run() throws IOException;
+  }
+
+  /**
+   * Action to run while holding a file lock.
+   */
+  @FunctionalInterface
+  public interface LockedAction {
+
+    void run() throws IOException;
+  }
 }
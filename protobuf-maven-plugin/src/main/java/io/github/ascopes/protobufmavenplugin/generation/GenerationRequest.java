@@ -18,8 +18,10 @@ package io.github.ascopes.protobufmavenplugin.generation;
 import io.github.ascopes.protobufmavenplugin.dependencies.DependencyResolutionDepth;
 import io.github.ascopes.protobufmavenplugin.dependencies.MavenArtifact;
 import io.github.ascopes.protobufmavenplugin.digests.Digest;
+import io.github.ascopes.protobufmavenplugin.generation.cache.RemoteGenerationCacheMode;
 import io.github.ascopes.protobufmavenplugin.plugins.distributions.ProtocPlugin;
 import io.github.ascopes.protobufmavenplugin.protoc.distributions.ProtocDistribution;
+import java.net.URI;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
@@ -78,6 +80,23 @@ public interface GenerationRequest {
    */
   Map<String, String> getEnvironmentVariables();
 
+  /**
+   * The directory to cache generated outputs in, keyed by the content of their inputs.
+   *
+   * @return the directory, or {@code null} if the generation cache is disabled.
+   * @since 5.2.0
+   */
+  @Nullable Path getGenerationCacheDirectory();
+
+  /**
+   * The maximum size of the generation cache, in megabytes, before the least recently used
+   * entries are evicted.
+   *
+   * @return the maximum size.
+   * @since 5.2.0
+   */
+  long getGenerationCacheMaxSize();
+
   /**
    * Additional user-defined Maven dependencies to include in the {@code protoc} import path.
    *
@@ -149,6 +168,39 @@ public interface GenerationRequest {
    */
   @Nullable Digest getProtocDigest();
 
+  /**
+   * Whether to invoke plugins directly from a single parse of the sources, rather than having
+   * {@code protoc} invoke them.
+   *
+   * @return the boolean preference.
+   * @since 5.2.0
+   */
+  boolean isProtocDirectPluginInvocation();
+
+  /**
+   * The maximum number of {@code protoc} processes to run at the same time.
+   *
+   * @return the maximum, or zero to use the number of available processors.
+   * @since 5.2.0
+   */
+  int getProtocMaxProcesses();
+
+  /**
+   * Whether to run independent generators in separate, concurrent {@code protoc} processes.
+   *
+   * @return the boolean preference.
+   * @since 5.2.0
+   */
+  boolean isProtocParallelTargets();
+
+  /**
+   * The maximum number of sources to pass to each {@code protoc} process.
+   *
+   * @return the maximum, or zero to compile all sources in a single process.
+   * @since 5.2.0
+   */
+  int getProtocShardSize();
+
   /**
    * The various {@code protoc} plugins to invoke.
    *
@@ -163,6 +215,30 @@ public interface GenerationRequest {
    */
   ProtocDistribution getProtoc();
 
+  /**
+   * How the remote generation cache may be used.
+   *
+   * @return the mode.
+   * @since 5.2.0
+   */
+  RemoteGenerationCacheMode getRemoteGenerationCacheMode();
+
+  /**
+   * The timeout for requests to the remote generation cache, in seconds.
+   *
+   * @return the timeout.
+   * @since 5.2.0
+   */
+  int getRemoteGenerationCacheTimeout();
+
+  /**
+   * The base URL of the remote generation cache.
+   *
+   * @return the URL, or {@code null} if the remote generation cache is disabled.
+   * @since 5.2.0
+   */
+  @Nullable URI getRemoteGenerationCacheUrl();
+
   /**
    * Sanctioned path to place executables in.
    *
@@ -270,6 +346,15 @@ public interface GenerationRequest {
    */
   boolean isIncrementalCompilationEnabled();
 
+  /**
+   * Whether to only make the dependency sources that are reachable from the imports of the
+   * compilable sources visible to {@code protoc}.
+   *
+   * @return the boolean preference.
+   * @since 5.2.0
+   */
+  boolean isLazyImports();
+
   /**
    * Whether to request the generation of "lite" sources.
    *
@@ -298,6 +383,15 @@ public interface GenerationRequest {
    */
   boolean isOutputDescriptorRetainOptions();
 
+  /**
+   * Whether to leave generated files with unchanged content untouched, rather than rewriting
+   * them on every build.
+   *
+   * @return the boolean preference.
+   * @since 5.2.0
+   */
+  boolean isPreserveUnchangedOutputs();
+
   /**
    * Whether to mark generated sources as candidates for compilation with the
    * {@code maven-compiler-plugin} and similar plugins.
@@ -15,40 +15,62 @@
  */
 package io.github.ascopes.protobufmavenplugin.generation;
 
+import static java.util.Objects.requireNonNullElse;
 import static java.util.function.Function.identity;
+import static java.util.function.Predicate.not;
 
 import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
+import io.github.ascopes.protobufmavenplugin.generation.cache.GenerationCacheKeyFactory;
+import io.github.ascopes.protobufmavenplugin.generation.cache.LocalGenerationCache;
+import io.github.ascopes.protobufmavenplugin.generation.cache.RemoteGenerationCache;
+import io.github.ascopes.protobufmavenplugin.generation.cache.RemoteGenerationCacheMode;
+import io.github.ascopes.protobufmavenplugin.generation.driver.PluginDriver;
+import io.github.ascopes.protobufmavenplugin.plugins.ImmutableResolvedProtocPlugin;
 import io.github.ascopes.protobufmavenplugin.plugins.ProtocPluginResolver;
 import io.github.ascopes.protobufmavenplugin.plugins.ResolvedProtocPlugin;
+import io.github.ascopes.protobufmavenplugin.plugins.distributions.ProtocPlugin;
 import io.github.ascopes.protobufmavenplugin.protoc.ImmutableProtocInvocation;
 import io.github.ascopes.protobufmavenplugin.protoc.ProtocExecutor;
 import io.github.ascopes.protobufmavenplugin.protoc.ProtocInvocation;
+import io.github.ascopes.protobufmavenplugin.protoc.ProtocInvocationPartitioner;
 import io.github.ascopes.protobufmavenplugin.protoc.ProtocResolver;
 import io.github.ascopes.protobufmavenplugin.protoc.targets.ImmutableDescriptorFileProtocTarget;
 import io.github.ascopes.protobufmavenplugin.protoc.targets.ImmutableLanguageProtocTarget;
 import io.github.ascopes.protobufmavenplugin.protoc.targets.ImmutablePluginProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.PluginProtocTarget;
 import io.github.ascopes.protobufmavenplugin.protoc.targets.ProtocTarget;
 import io.github.ascopes.protobufmavenplugin.sources.DescriptorListing;
 import io.github.ascopes.protobufmavenplugin.sources.FilesToCompile;
 import io.github.ascopes.protobufmavenplugin.sources.ProjectInputListing;
 import io.github.ascopes.protobufmavenplugin.sources.ProjectInputResolver;
 import io.github.ascopes.protobufmavenplugin.sources.SourceListing;
+import io.github.ascopes.protobufmavenplugin.sources.incremental.BuildFingerprint;
+import io.github.ascopes.protobufmavenplugin.sources.incremental.BuildFingerprintFactory;
 import io.github.ascopes.protobufmavenplugin.sources.incremental.IncrementalCacheManager;
+import io.github.ascopes.protobufmavenplugin.system.ConcurrentExecutor;
 import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
 import io.github.ascopes.protobufmavenplugin.utils.StringUtils;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.inject.Named;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.execution.scope.MojoExecutionScoped;
 import org.eclipse.sisu.Description;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -73,6 +95,14 @@ public final class ProtobufBuildOrchestrator {
   private final ProtocPluginResolver protocPluginResolver;
   private final IncrementalCacheManager incrementalCacheManager;
   private final ProtocExecutor protocExecutor;
+  private final ConcurrentExecutor concurrentExecutor;
+  private final BuildFingerprintFactory buildFingerprintFactory;
+  private final StagedOutputManager stagedOutputManager;
+  private final GenerationCacheKeyFactory generationCacheKeyFactory;
+  private final LocalGenerationCache localGenerationCache;
+  private final RemoteGenerationCache remoteGenerationCache;
+  private final ProtocInvocationPartitioner protocInvocationPartitioner;
+  private final PluginDriver pluginDriver;
 
   @Inject
   public ProtobufBuildOrchestrator(
@@ -81,7 +111,15 @@ public final class ProtobufBuildOrchestrator {
       ProjectInputResolver projectInputResolver,
       ProtocPluginResolver protocPluginResolver,
       IncrementalCacheManager incrementalCacheManager,
-      ProtocExecutor protocExecutor
+      ProtocExecutor protocExecutor,
+      ConcurrentExecutor concurrentExecutor,
+      BuildFingerprintFactory buildFingerprintFactory,
+      StagedOutputManager stagedOutputManager,
+      GenerationCacheKeyFactory generationCacheKeyFactory,
+      LocalGenerationCache localGenerationCache,
+      RemoteGenerationCache remoteGenerationCache,
+      ProtocInvocationPartitioner protocInvocationPartitioner,
+      PluginDriver pluginDriver
   ) {
     this.mavenSession = mavenSession;
     this.protocResolver = protocResolver;
@@ -89,6 +127,14 @@ public final class ProtobufBuildOrchestrator {
     this.protocPluginResolver = protocPluginResolver;
     this.incrementalCacheManager = incrementalCacheManager;
     this.protocExecutor = protocExecutor;
+    this.concurrentExecutor = concurrentExecutor;
+    this.buildFingerprintFactory = buildFingerprintFactory;
+    this.stagedOutputManager = stagedOutputManager;
+    this.generationCacheKeyFactory = generationCacheKeyFactory;
+    this.localGenerationCache = localGenerationCache;
+    this.remoteGenerationCache = remoteGenerationCache;
+    this.protocInvocationPartitioner = protocInvocationPartitioner;
+    this.pluginDriver = pluginDriver;
   }
 
   public GenerationResult generate(
@@ -107,9 +153,49 @@ public final class ProtobufBuildOrchestrator {
     }
 
     final var incrementalCompilation = shouldIncrementallyCompile(request);
-    final var protocPath = discoverProtocPath(request);
-    final var resolvedPlugins = protocPluginResolver.resolvePlugins(request);
-    final var projectInputs = projectInputResolver.resolveProjectInputs(request);
+    final var fingerprint = incrementalCompilation
+        ? buildFingerprintFactory.createFingerprint(request)
+        : null;
+
+    // If nothing has changed since the last successful build, we can skip resolving anything
+    // at all, which is where most of the time is spent on builds with no changes.
+    if (fingerprint != null && canSkipBuild(request, fingerprint)) {
+      log.info("Build configuration and inputs are unchanged, so nothing will be built this time");
+      registerSourceRoots(request, getUnresolvedPluginOutputDirectories(request));
+      attachOutputDescriptor(request);
+      return GenerationResult.NOTHING_TO_DO;
+    }
+
+    if (fingerprint == null) {
+      incrementalCacheManager.forgetBuildFingerprint();
+    } else {
+      incrementalCacheManager.beginBuild(fingerprint, isStagingOutputs(request));
+    }
+
+    // Resolving protoc, plugins and project inputs are independent of each other and can each
+    // be slow, so they overlap. Each stage fans its own work out across the pool and blocks until
+    // it completes, so the stages run on dedicated threads rather than parking pool workers.
+    // If any stage fails, the others are cancelled and the failure is reported immediately.
+    final var protocPathTask = concurrentExecutor.submitOnDedicatedThread(
+        "protoc resolver",
+        () -> discoverProtocPath(request)
+    );
+    final var resolvedPluginsTask = concurrentExecutor.submitOnDedicatedThread(
+        "plugin resolver",
+        () -> protocPluginResolver.resolvePlugins(request)
+    );
+    final var projectInputsTask = concurrentExecutor.submitOnDedicatedThread(
+        "project input resolver",
+        () -> projectInputResolver.resolveProjectInputs(request)
+    );
+
+    concurrentExecutor.awaitAllOrCancel(
+        List.of(protocPathTask, resolvedPluginsTask, projectInputsTask)
+    );
+
+    final var protocPath = getCompletedResult(protocPathTask);
+    final var resolvedPlugins = getCompletedResult(resolvedPluginsTask);
+    final var projectInputs = getCompletedResult(projectInputsTask);
 
     if (projectInputs.getCompilableProtoSources().isEmpty()
         && projectInputs.getCompilableDescriptorFiles().isEmpty()) {
@@ -127,44 +213,85 @@ public final class ProtobufBuildOrchestrator {
 
     // GH-438: We now register the source roots before generating anything. This ensures we still
     // call Javac with the sources even if we incrementally compile with zero changes.
-    registerSourceRoots(request, resolvedPlugins);
+    registerSourceRoots(request, getResolvedPluginOutputDirectories(request, resolvedPlugins));
 
     // Determine the sources we need to regenerate. This will be all the sources usually but
     // if incremental compilation is enabled then we will only output the files that have changed
     // unless we deem a full rebuild necessary.
-    var compilableFiles = computeFilesToCompile(projectInputs, incrementalCompilation);
+    var compilableFiles = computeFilesToCompile(
+        request,
+        resolvedPlugins,
+        projectInputs,
+        incrementalCompilation
+    );
     if (compilableFiles.isEmpty()) {
       // Nothing to compile. If we hit here, then we likely received inputs but were using
       // incremental compilation and nothing changed since the last build.
       incrementalCacheManager.updateIncrementalCache();
+      completeBuild(fingerprint);
+      attachOutputDescriptor(request);
       return GenerationResult.NOTHING_TO_DO;
     }
 
+    // If we are preserving unchanged outputs or caching outputs, protoc writes to staging
+    // directories instead, and we only move the files that changed into the real output
+    // directories afterwards.
+    final var stagingDirectories = isStagingOutputs(request)
+        ? stagedOutputManager.createStagingDirectories(
+            getGeneratedSourceDirectories(request, resolvedPlugins)
+        )
+        : Map.<Path, Path>of();
+
     var invocation = createProtocInvocation(
         request,
         protocPath,
         resolvedPlugins,
         projectInputs,
-        compilableFiles
+        compilableFiles,
+        stagingDirectories
     );
 
-    if (!protocExecutor.invoke(invocation)) {
+    // When generating directly into the output directories, we compare them before and after
+    // generating, so that we only record the files that protoc produced.
+    if (incrementalCompilation && !isStagingOutputs(request)) {
+      incrementalCacheManager.snapshotOutputDirectories(
+          getGeneratedSourceDirectories(request, resolvedPlugins)
+      );
+    }
+
+    if (!generateOutputs(request, invocation, stagingDirectories)) {
       return GenerationResult.PROTOC_FAILED;
     }
 
     // Since we've succeeded in the codegen phase, we can replace the old incremental cache
-    // with the new one.
-    incrementalCacheManager.updateIncrementalCache();
-
-    if (request.getOutputDescriptorFile() != null && request.isOutputDescriptorAttached()) {
-      request.getOutputDescriptorAttachmentRegistrar().registerAttachedArtifact(
-          mavenSession,
-          request.getOutputDescriptorFile(),
-          request.getOutputDescriptorAttachmentType(),
-          request.getOutputDescriptorAttachmentClassifier()
+    // with the new one. We also keep track of what we generated so that we can remove it
+    // if the sources are deleted in the future.
+    if (isStagingOutputs(request)) {
+      // If sources were deleted or the configuration changed, anything from the previous
+      // build that was not generated again is removed now, rather than before generating, so
+      // that files with unchanged content are left untouched.
+      var generatedFiles = stagedOutputManager.promoteStagedFiles(
+          stagingDirectories,
+          !incrementalCompilation && request.isCleanOutputDirectories(),
+          incrementalCompilation
+              ? incrementalCacheManager.getSupersededGeneratedFiles()
+              : List.of()
       );
+      if (incrementalCompilation) {
+        incrementalCacheManager.recordGeneratedFiles(generatedFiles);
+      }
+    } else if (incrementalCompilation) {
+      incrementalCacheManager.recordGeneratedFilesSinceSnapshot();
     }
 
+    if (incrementalCompilation && request.getOutputDescriptorFile() != null) {
+      incrementalCacheManager.recordOutputDescriptor(request.getOutputDescriptorFile());
+    }
+
+    incrementalCacheManager.updateIncrementalCache();
+    completeBuild(fingerprint);
+    attachOutputDescriptor(request);
+
     if (request.isEmbedSourcesInClassOutputs()) {
       embedSourcesInClassOutputs(
           request.getSourceRootRegistrar(),
@@ -175,6 +302,184 @@ public final class ProtobufBuildOrchestrator {
     return GenerationResult.PROTOC_SUCCEEDED;
   }
 
+  private boolean isStagingOutputs(GenerationRequest request) {
+    return request.isPreserveUnchangedOutputs()
+        || request.getGenerationCacheDirectory() != null
+        || getRemoteGenerationCacheUrl(request) != null;
+  }
+
+  private @Nullable URI getRemoteGenerationCacheUrl(GenerationRequest request) {
+    // We never want to reach out to the network in offline mode.
+    return mavenSession.isOffline() ? null : request.getRemoteGenerationCacheUrl();
+  }
+
+  private boolean generateOutputs(
+      GenerationRequest request,
+      ProtocInvocation invocation,
+      Map<Path, Path> stagingDirectories
+  ) throws IOException {
+    var cacheDirectory = request.getGenerationCacheDirectory();
+    var remoteCacheUrl = getRemoteGenerationCacheUrl(request);
+
+    if (cacheDirectory == null && remoteCacheUrl == null) {
+      return invokeProtoc(request, invocation);
+    }
+
+    // The generation caches only ever see the staging directories, so we know exactly which
+    // files each invocation produced.
+    var outputDirectories = List.copyOf(stagingDirectories.values());
+    var outputDescriptorFile = request.getOutputDescriptorFile();
+    var key = generationCacheKeyFactory.createKey(invocation, outputDirectories);
+
+    if (cacheDirectory != null) {
+      var restored = localGenerationCache.restore(
+          cacheDirectory,
+          key,
+          outputDirectories,
+          outputDescriptorFile
+      );
+
+      if (restored) {
+        log.info("Restored generated outputs from the generation cache (key {})", key);
+        return true;
+      }
+    }
+
+    var remoteTimeout = Duration.ofSeconds(request.getRemoteGenerationCacheTimeout());
+    var restoredFromRemote = remoteCacheUrl != null && remoteGenerationCache.restore(
+        remoteCacheUrl,
+        remoteTimeout,
+        key,
+        outputDirectories,
+        outputDescriptorFile
+    );
+
+    if (restoredFromRemote) {
+      log.info("Restored generated outputs from the remote generation cache (key {})", key);
+    } else {
+      log.debug("No generation cache entry exists for key {}, invoking protoc", key);
+
+      if (!invokeProtoc(request, invocation)) {
+        return false;
+      }
+
+      if (remoteCacheUrl != null
+          && request.getRemoteGenerationCacheMode() == RemoteGenerationCacheMode.READ_WRITE) {
+        remoteGenerationCache.store(
+            remoteCacheUrl,
+            remoteTimeout,
+            key,
+            outputDirectories,
+            outputDescriptorFile
+        );
+      }
+    }
+
+    // Entries restored from the remote cache are also stored locally, so that later builds
+    // do not need to fetch them again.
+    if (cacheDirectory != null) {
+      localGenerationCache.store(
+          cacheDirectory,
+          request.getGenerationCacheMaxSize() * 1024 * 1024,
+          key,
+          outputDirectories,
+          outputDescriptorFile
+      );
+    }
+
+    return true;
+  }
+
+  private boolean invokeProtoc(
+      GenerationRequest request,
+      ProtocInvocation invocation
+  ) throws IOException {
+    var hasPluginTargets = invocation.getTargets()
+        .stream()
+        .anyMatch(PluginProtocTarget.class::isInstance);
+
+    if (!request.isProtocDirectPluginInvocation() || !hasPluginTargets) {
+      var hasInProcessPlugins = invocation.getTargets()
+          .stream()
+          .filter(PluginProtocTarget.class::isInstance)
+          .map(PluginProtocTarget.class::cast)
+          .anyMatch(target -> target.getPlugin().isInProcess());
+
+      if (hasInProcessPlugins) {
+        log.warn(
+            "Some plugins are configured to run in-process, but this is only supported when "
+                + "protocDirectPluginInvocation is enabled. They will run in separate processes"
+        );
+      }
+
+      return invokeProtocProcesses(request, invocation);
+    }
+
+    var plan = pluginDriver.plan(invocation);
+    var protocInvocation = plan.getProtocInvocation();
+
+    if (protocInvocation.isPresent() && !invokeProtocProcesses(request, protocInvocation.get())) {
+      return false;
+    }
+
+    return pluginDriver.invokePlugins(plan, getMaxProcesses(request));
+  }
+
+  private boolean invokeProtocProcesses(
+      GenerationRequest request,
+      ProtocInvocation invocation
+  ) throws IOException {
+    var targetInvocations = request.isProtocParallelTargets()
+        ? protocInvocationPartitioner.partitionByTargets(invocation)
+        : List.of(invocation);
+
+    var invocations = new ArrayList<ProtocInvocation>();
+    for (var targetInvocation : targetInvocations) {
+      invocations.addAll(protocInvocationPartitioner.partitionBySources(
+          targetInvocation,
+          request.getProtocShardSize()
+      ));
+    }
+
+    return protocExecutor.invokeAll(invocations, getMaxProcesses(request));
+  }
+
+  private int getMaxProcesses(GenerationRequest request) {
+    return request.getProtocMaxProcesses() > 0
+        ? request.getProtocMaxProcesses()
+        : Runtime.getRuntime().availableProcessors();
+  }
+
+  private boolean canSkipBuild(
+      GenerationRequest request,
+      BuildFingerprint fingerprint
+  ) throws IOException {
+    if (request.isEmbedSourcesInClassOutputs()) {
+      // We would need to resolve the sources to be able to embed them again.
+      log.debug("Builds cannot be skipped when embedding sources in class outputs");
+      return false;
+    }
+
+    return incrementalCacheManager.isUpToDate(fingerprint);
+  }
+
+  private void completeBuild(@Nullable BuildFingerprint fingerprint) throws IOException {
+    if (fingerprint != null) {
+      incrementalCacheManager.completeBuild(fingerprint);
+    }
+  }
+
+  private void attachOutputDescriptor(GenerationRequest request) {
+    if (request.getOutputDescriptorFile() != null && request.isOutputDescriptorAttached()) {
+      request.getOutputDescriptorAttachmentRegistrar().registerAttachedArtifact(
+          mavenSession,
+          request.getOutputDescriptorFile(),
+          request.getOutputDescriptorAttachmentType(),
+          request.getOutputDescriptorAttachmentClassifier()
+      );
+    }
+  }
+
   private GenerationResult handleMissingInputs(GenerationRequest request) {
     var message = "No protobuf sources found. If this is unexpected, check your "
         + "configuration and try again.";
@@ -214,6 +519,15 @@ public final class ProtobufBuildOrchestrator {
     }
   }
 
+  private <T> T getCompletedResult(FutureTask<T> task) {
+    try {
+      return task.get();
+    } catch (ExecutionException | InterruptedException ex) {
+      // Unreachable, as the task will already have completed successfully at this point.
+      throw new IllegalStateException("Task " + task + " was not completed successfully", ex);
+    }
+  }
+
   private Path discoverProtocPath(GenerationRequest request) throws ResolutionException {
     return protocResolver.resolve(request.getProtoc(), request.getProtocDigest())
         .orElseThrow(() -> new ResolutionException("Protoc binary was not found"));
@@ -225,22 +539,19 @@ public final class ProtobufBuildOrchestrator {
       boolean incrementalCompilation
   ) throws IOException {
     var outputDirectories = Stream
-        .of(
-            // Project output directory.
-            Stream.of(request.getOutputDirectory()),
+        .concat(
+            getGeneratedSourceDirectories(request, resolvedProtocPlugins).stream(),
             // Output descriptor file location, if non-null.
             Optional.ofNullable(request.getOutputDescriptorFile())
                 .map(p -> p.toAbsolutePath().getParent())
-                .stream(),
-            // Custom output directories for plugins, if overriding the project defaults.
-            resolvedProtocPlugins.stream()
-                .map(ResolvedProtocPlugin::getOutputDirectory)
-                .filter(Objects::nonNull)
+                .stream()
         )
-        .flatMap(identity())
         .toList();
 
-    if (!incrementalCompilation && request.isCleanOutputDirectories()) {
+    // When staging outputs, stale files are removed after generation instead.
+    if (!incrementalCompilation
+        && request.isCleanOutputDirectories()
+        && !isStagingOutputs(request)) {
       for (var outputDirectory : outputDirectories) {
         log.info("Deleting outputs from previous build in \"{}\"", outputDirectory);
         FileUtils.deleteTree(outputDirectory);
@@ -253,31 +564,70 @@ public final class ProtobufBuildOrchestrator {
     }
   }
 
-  private void registerSourceRoots(
+  private Collection<Path> getGeneratedSourceDirectories(
       GenerationRequest request,
       Collection<ResolvedProtocPlugin> resolvedProtocPlugins
   ) {
-    var registrar = request.getSourceRootRegistrar();
-    Stream
+    return Stream
         .of(
-            // Project output directory, if we allow registration of compilation roots.
-            Stream.of(request.getOutputDirectory())
-                .filter(dir -> request.isRegisterAsCompilationRoot()),
-
-            // Custom output directories for plugins, if we explicitly allow them to be used as
-            // compilation roots, or if we do not override the behavior and the project default is
-            // to use them as compilation roots anyway.
+            // Project output directory.
+            Stream.of(request.getOutputDirectory()),
+            // Custom output directories for plugins, if overriding the project defaults.
             resolvedProtocPlugins.stream()
-                .filter(plugin -> plugin.getRegisterAsCompilationRoot()
-                    .orElseGet(request::isRegisterAsCompilationRoot))
                 .map(ResolvedProtocPlugin::getOutputDirectory)
                 .filter(Objects::nonNull)
         )
         .flatMap(identity())
+        .distinct()
+        .toList();
+  }
+
+  private void registerSourceRoots(
+      GenerationRequest request,
+      Stream<Path> pluginOutputDirectories
+  ) {
+    var registrar = request.getSourceRootRegistrar();
+    Stream
+        .concat(
+            // Project output directory, if we allow registration of compilation roots.
+            Stream.of(request.getOutputDirectory())
+                .filter(dir -> request.isRegisterAsCompilationRoot()),
+            pluginOutputDirectories
+        )
         .forEach(outputDirectory -> registrar.registerSourceRoot(mavenSession, outputDirectory));
   }
 
+  // Custom output directories for plugins, if we explicitly allow them to be used as
+  // compilation roots, or if we do not override the behavior and the project default is
+  // to use them as compilation roots anyway.
+  private Stream<Path> getResolvedPluginOutputDirectories(
+      GenerationRequest request,
+      Collection<ResolvedProtocPlugin> resolvedProtocPlugins
+  ) {
+    return resolvedProtocPlugins.stream()
+        .filter(plugin -> plugin.getRegisterAsCompilationRoot()
+            .orElseGet(request::isRegisterAsCompilationRoot))
+        .map(ResolvedProtocPlugin::getOutputDirectory)
+        .filter(Objects::nonNull);
+  }
+
+  // Equivalent of getResolvedPluginOutputDirectories for when we skip resolving plugins.
+  private Stream<Path> getUnresolvedPluginOutputDirectories(GenerationRequest request) {
+    return request.getProtocPlugins().stream()
+        .filter(not(ProtocPlugin::isSkip))
+        .filter(plugin -> requireNonNullElse(
+            plugin.isRegisterAsCompilationRoot(),
+            request.isRegisterAsCompilationRoot()
+        ))
+        .map(plugin -> requireNonNullElse(
+            plugin.getOutputDirectory(),
+            request.getOutputDirectory()
+        ));
+  }
+
   private FilesToCompile computeFilesToCompile(
+      GenerationRequest request,
+      Collection<ResolvedProtocPlugin> resolvedPlugins,
       ProjectInputListing projectInputs,
       boolean incrementalCompilation
   ) throws IOException {
@@ -289,7 +639,12 @@ public final class ProtobufBuildOrchestrator {
         .sum();
 
     var filesToCompile = incrementalCompilation
-        ? incrementalCacheManager.determineSourcesToCompile(projectInputs)
+        ? incrementalCacheManager.determineSourcesToCompile(
+            projectInputs,
+            request.getOutputDescriptorFile(),
+            resolvedPlugins.stream().anyMatch(ResolvedProtocPlugin::isAggregating),
+            isStagingOutputs(request)
+        )
         : FilesToCompile.allOf(projectInputs);
 
     if (filesToCompile.isEmpty()) {
@@ -319,15 +674,6 @@ public final class ProtobufBuildOrchestrator {
     }
 
     log.debug("Incremental compilation was enabled by the user");
-
-    if (request.getOutputDescriptorFile() != null) {
-      // Protoc does not selectively update an existing descriptor with differentiated
-      // changes. Using incremental compilation will result in behavior that is
-      // inconsistent, so do not allow it here.
-      log.warn("Incremental compilation will be disabled since descriptors will be generated");
-      return false;
-    }
-
     return true;
   }
 
@@ -352,7 +698,8 @@ public final class ProtobufBuildOrchestrator {
       Path protocPath,
       Collection<ResolvedProtocPlugin> resolvedPlugins,
       ProjectInputListing projectInputs,
-      FilesToCompile filesToCompile
+      FilesToCompile filesToCompile,
+      Map<Path, Path> stagingDirectories
   ) {
     var targets = new TreeSet<ProtocTarget>();
 
@@ -361,13 +708,22 @@ public final class ProtobufBuildOrchestrator {
         .map(language -> ImmutableLanguageProtocTarget.builder()
             .language(language)
             .lite(request.isLiteEnabled())
-            .outputPath(request.getOutputDirectory())
+            .outputPath(stagingDirectories.getOrDefault(
+                request.getOutputDirectory(),
+                request.getOutputDirectory()
+            ))
             .build())
         .forEach(targets::add);
 
     resolvedPlugins.stream()
         .map(plugin -> ImmutablePluginProtocTarget.builder()
-            .plugin(plugin)
+            .plugin(ImmutableResolvedProtocPlugin.builder()
+                .from(plugin)
+                .outputDirectory(stagingDirectories.getOrDefault(
+                    plugin.getOutputDirectory(),
+                    plugin.getOutputDirectory()
+                ))
+                .build())
             .build())
         .forEach(targets::add);
 
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation;
+
+import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
+import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
+import io.github.ascopes.protobufmavenplugin.utils.StringUtils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.sisu.Description;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Manager that lets {@code protoc} write generated files to staging directories first, and then
+ * only moves files whose content has changed into the real output directories.
+ *
+ * <p>This leaves files with unchanged content untouched, including their modification times,
+ * which allows tools such as the {@code maven-compiler-plugin} and IDE indexers to skip
+ * reprocessing them.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Stages generated outputs so that unchanged files are not rewritten")
+@MojoExecutionScoped
+@Named
+final class StagedOutputManager {
+
+  private static final Logger log = LoggerFactory.getLogger(StagedOutputManager.class);
+
+  private final TemporarySpace temporarySpace;
+
+  @Inject
+  StagedOutputManager(TemporarySpace temporarySpace) {
+    this.temporarySpace = temporarySpace;
+  }
+
+  /**
+   * Create an empty staging directory for each of the given output directories.
+   *
+   * @param outputDirectories the real output directories.
+   * @return a mapping of each real output directory to its staging directory.
+   * @throws IOException if an IO error occurs.
+   */
+  Map<Path, Path> createStagingDirectories(
+      Collection<Path> outputDirectories
+  ) throws IOException {
+    var stagingDirectories = new LinkedHashMap<Path, Path>();
+
+    for (var outputDirectory : outputDirectories) {
+      var stagingDirectory = temporarySpace.createTemporarySpace(
+          "staged-outputs",
+          Integer.toString(stagingDirectories.size())
+      );
+
+      // Ensure nothing from an earlier failed build is left lying around.
+      FileUtils.deleteTree(stagingDirectory);
+      Files.createDirectories(stagingDirectory);
+
+      log.debug("Staging outputs for \"{}\" in \"{}\"", outputDirectory, stagingDirectory);
+      stagingDirectories.put(outputDirectory, stagingDirectory);
+    }
+
+    return Collections.unmodifiableMap(stagingDirectories);
+  }
+
+  /**
+   * Move any staged files with changed content into their real output directories, then
+   * delete any of the given previously generated files that were not staged again.
+   *
+   * @param stagingDirectories the mapping of real output directories to staging directories.
+   * @param deleteStaleFiles {@code true} to delete any files in the real output directories
+   *     that were not staged. This should only be used when all sources were compiled.
+   * @param previouslyGeneratedFiles files generated by an earlier build that should be
+   *     deleted unless they were staged again.
+   * @return the paths within the real output directories of all files that were staged,
+   *     regardless of whether their content changed.
+   * @throws IOException if an IO error occurs.
+   */
+  Collection<Path> promoteStagedFiles(
+      Map<Path, Path> stagingDirectories,
+      boolean deleteStaleFiles,
+      Collection<Path> previouslyGeneratedFiles
+  ) throws IOException {
+    var stagedFiles = new ArrayList<Path>();
+    var changedFileCount = 0;
+
+    for (var entry : stagingDirectories.entrySet()) {
+      var outputDirectory = entry.getKey();
+      var stagingDirectory = entry.getValue();
+
+      for (var stagedFile : listFiles(stagingDirectory)) {
+        var outputFile = rebase(stagingDirectory, outputDirectory, stagedFile);
+        stagedFiles.add(outputFile);
+
+        if (isSameContent(stagedFile, outputFile)) {
+          log.trace("Generated file \"{}\" is unchanged", outputFile);
+          Files.delete(stagedFile);
+        } else {
+          log.trace("Generated file \"{}\" has changed", outputFile);
+          Files.createDirectories(outputFile.getParent());
+          Files.move(stagedFile, outputFile, StandardCopyOption.REPLACE_EXISTING);
+          ++changedFileCount;
+        }
+      }
+
+      FileUtils.deleteTree(stagingDirectory);
+    }
+
+    log.info(
+        "{} generated, {} changed since the last build",
+        StringUtils.pluralize(stagedFiles.size(), "file was", "files were"),
+        StringUtils.pluralize(changedFileCount, "file has", "files have")
+    );
+
+    if (deleteStaleFiles) {
+      deleteStaleFiles(stagingDirectories.keySet(), new HashSet<>(stagedFiles));
+    }
+
+    if (!previouslyGeneratedFiles.isEmpty()) {
+      deletePreviouslyGeneratedFiles(previouslyGeneratedFiles, stagedFiles);
+    }
+
+    return Collections.unmodifiableList(stagedFiles);
+  }
+
+  private void deleteStaleFiles(
+      Collection<Path> outputDirectories,
+      Set<Path> stagedFiles
+  ) throws IOException {
+    for (var outputDirectory : outputDirectories) {
+      if (!Files.isDirectory(outputDirectory)) {
+        continue;
+      }
+
+      for (var file : listFiles(outputDirectory)) {
+        if (!stagedFiles.contains(file)) {
+          log.debug("Deleting stale generated file \"{}\"", file);
+          Files.delete(file);
+        }
+      }
+    }
+  }
+
+  private void deletePreviouslyGeneratedFiles(
+      Collection<Path> previouslyGeneratedFiles,
+      Collection<Path> stagedFiles
+  ) throws IOException {
+    var normalizedStagedFiles = new HashSet<Path>();
+    stagedFiles.stream()
+        .map(FileUtils::normalize)
+        .forEach(normalizedStagedFiles::add);
+
+    for (var file : previouslyGeneratedFiles) {
+      if (!normalizedStagedFiles.contains(FileUtils.normalize(file))) {
+        log.debug("Deleting previously generated file \"{}\"", file);
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  // Only compares the content if the sizes match, as that is far cheaper to check.
+  private boolean isSameContent(Path stagedFile, Path outputFile) throws IOException {
+    return Files.isRegularFile(outputFile)
+        && Files.size(stagedFile) == Files.size(outputFile)
+        && Files.mismatch(stagedFile, outputFile) == -1;
+  }
+
+  private List<Path> listFiles(Path directory) throws IOException {
+    try (var files = Files.walk(directory)) {
+      return files.filter(Files::isRegularFile).toList();
+    }
+  }
+
+  private Path rebase(Path existingRoot, Path newRoot, Path path) {
+    var newPath = newRoot;
+    for (var part : existingRoot.relativize(path)) {
+      newPath = newPath.resolve(part.toString());
+    }
+    return newPath;
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.cache;
+
+import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import javax.inject.Named;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.sisu.Description;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Packs the outputs of a {@code protoc} invocation into a compressed archive, and unpacks them
+ * again.
+ *
+ * <p>Generated files are stored relative to their output directory, and output directories are
+ * identified by their position in the list of output directories, so archives can be unpacked
+ * into different locations than they were created from. A marker entry is written last, so that
+ * truncated or otherwise incomplete archives can be detected.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Packs and unpacks generation cache entries")
+@MojoExecutionScoped
+@Named
+final class GenerationCacheArchiver {
+
+  private static final String OUTPUTS_PREFIX = "outputs/";
+  private static final String DESCRIPTOR_ENTRY = "descriptor";
+  private static final String COMPLETE_ENTRY = "complete";
+  private static final Logger log = LoggerFactory.getLogger(GenerationCacheArchiver.class);
+
+  void pack(
+      List<Path> outputDirectories,
+      @Nullable Path outputDescriptorFile,
+      OutputStream outputStream
+  ) throws IOException {
+    var zipOutputStream = new ZipOutputStream(outputStream);
+
+    for (var index = 0; index < outputDirectories.size(); ++index) {
+      var outputDirectory = outputDirectories.get(index);
+      if (!Files.isDirectory(outputDirectory)) {
+        continue;
+      }
+
+      List<Path> files;
+      try (var stream = Files.walk(outputDirectory)) {
+        files = stream.filter(Files::isRegularFile).sorted().toList();
+      }
+
+      for (var file : files) {
+        var name = new StringBuilder(OUTPUTS_PREFIX).append(index);
+        for (var part : outputDirectory.relativize(file)) {
+          name.append('/').append(part);
+        }
+        writeEntry(name.toString(), file, zipOutputStream);
+      }
+    }
+
+    if (outputDescriptorFile != null) {
+      writeEntry(DESCRIPTOR_ENTRY, outputDescriptorFile, zipOutputStream);
+    }
+
+    zipOutputStream.putNextEntry(new ZipEntry(COMPLETE_ENTRY));
+    zipOutputStream.closeEntry();
+    zipOutputStream.finish();
+  }
+
+  void unpack(
+      InputStream inputStream,
+      List<Path> outputDirectories,
+      @Nullable Path outputDescriptorFile
+  ) throws IOException {
+    var zipInputStream = new ZipInputStream(inputStream);
+    ZipEntry entry;
+
+    while ((entry = zipInputStream.getNextEntry()) != null) {
+      if (entry.getName().equals(COMPLETE_ENTRY)) {
+        return;
+      }
+
+      var target = resolveEntry(entry.getName(), outputDirectories, outputDescriptorFile);
+      log.trace("Unpacking generation cache entry \"{}\" to \"{}\"", entry.getName(), target);
+      Files.createDirectories(target.toAbsolutePath().getParent());
+      Files.copy(zipInputStream, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    throw new IOException("Generation cache archive is incomplete");
+  }
+
+  private void writeEntry(
+      String name,
+      Path file,
+      ZipOutputStream zipOutputStream
+  ) throws IOException {
+    zipOutputStream.putNextEntry(new ZipEntry(name));
+    try (var inputStream = FileUtils.newBufferedInputStream(file)) {
+      inputStream.transferTo(zipOutputStream);
+    }
+    zipOutputStream.closeEntry();
+  }
+
+  private Path resolveEntry(
+      String name,
+      List<Path> outputDirectories,
+      @Nullable Path outputDescriptorFile
+  ) throws IOException {
+    if (name.equals(DESCRIPTOR_ENTRY) && outputDescriptorFile != null) {
+      return outputDescriptorFile;
+    }
+
+    if (name.startsWith(OUTPUTS_PREFIX)) {
+      var parts = name.substring(OUTPUTS_PREFIX.length()).split("/", 2);
+
+      try {
+        var outputDirectory = outputDirectories.get(Integer.parseInt(parts[0])).normalize();
+        var target = outputDirectory.resolve(parts[1]).normalize();
+
+        // Never allow entries to escape the output directory.
+        if (target.startsWith(outputDirectory) && !target.equals(outputDirectory)) {
+          return target;
+        }
+      } catch (IndexOutOfBoundsException | NumberFormatException ex) {
+        // Handled below.
+      }
+    }
+
+    throw new IOException("Unexpected entry \"" + name + "\" in generation cache archive");
+  }
+}
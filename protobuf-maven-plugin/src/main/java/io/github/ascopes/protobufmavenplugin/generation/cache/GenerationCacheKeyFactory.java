@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.cache;
+
+import io.github.ascopes.protobufmavenplugin.digests.Digest;
+import io.github.ascopes.protobufmavenplugin.digests.DigestDescription;
+import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
+import io.github.ascopes.protobufmavenplugin.plugins.ResolvedProtocPlugin;
+import io.github.ascopes.protobufmavenplugin.protoc.ProtocInvocation;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.DescriptorFileProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.LanguageProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.PluginProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.ProtocTarget;
+import io.github.ascopes.protobufmavenplugin.sources.ProtoImportScanner;
+import io.github.ascopes.protobufmavenplugin.system.ConcurrentExecutor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.TreeMap;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.apache.maven.plugin.MojoExecution;
+import org.eclipse.sisu.Description;
+
+/**
+ * Factory that computes keys for the generation cache.
+ *
+ * <p>Keys are derived from the content of everything that can influence the files
+ * {@code protoc} generates: the {@code protoc} and plugin executables, the arguments and
+ * targets, and every input file. Absolute paths are never included, so identical work in
+ * different worktrees or on different machines produces the same key.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Computes content-addressed keys for protoc invocations")
+@MojoExecutionScoped
+@Named
+public final class GenerationCacheKeyFactory {
+
+  private final ConcurrentExecutor concurrentExecutor;
+  private final MojoExecution mojoExecution;
+
+  @Inject
+  GenerationCacheKeyFactory(ConcurrentExecutor concurrentExecutor, MojoExecution mojoExecution) {
+    this.concurrentExecutor = concurrentExecutor;
+    this.mojoExecution = mojoExecution;
+  }
+
+  /**
+   * Compute the cache key for the given invocation.
+   *
+   * @param invocation the invocation.
+   * @param outputDirectories the output directories that the invocation targets. Outputs are
+   *     identified by their position in this list rather than by their path.
+   * @return the key, as a hex-encoded digest.
+   * @throws IOException if an IO error occurs reading any inputs.
+   */
+  public String createKey(
+      ProtocInvocation invocation,
+      List<Path> outputDirectories
+  ) throws IOException {
+    var key = new DigestDescription("SHA-256");
+
+    key.add("pluginVersion", mojoExecution.getVersion());
+    key.add("protoc", digestFile(invocation.getProtocPath()));
+    key.add("fatalWarnings", invocation.isFatalWarnings());
+    invocation.getArguments().forEach(argument -> key.add("argument", argument));
+    key.add("environment", new TreeMap<>(invocation.getEnvironmentVariables()));
+
+    for (var target : invocation.getTargets()) {
+      describeTarget(target, outputDirectories, key);
+    }
+
+    for (var importPath : invocation.getImportPaths()) {
+      key.add("importPath", "");
+      describeFileTree(importPath, key);
+    }
+
+    for (var sourcePath : invocation.getSourcePaths()) {
+      key.add("source", importNameOf(invocation.getImportPaths(), sourcePath));
+    }
+
+    for (var descriptorFile : invocation.getInputDescriptorFiles()) {
+      key.add("inputDescriptor", digestFile(descriptorFile));
+    }
+
+    invocation.getDescriptorSourceFiles()
+        .forEach(descriptorSourceFile -> key.add("descriptorSource", descriptorSourceFile));
+
+    return key.digest().toHexString();
+  }
+
+  private void describeTarget(
+      ProtocTarget target,
+      List<Path> outputDirectories,
+      DigestDescription key
+  ) throws IOException {
+    if (target instanceof LanguageProtocTarget languageTarget) {
+      key.add("language", languageTarget.getLanguage());
+      key.add("lite", languageTarget.isLite());
+      key.add("output", outputIndexOf(outputDirectories, languageTarget.getOutputPath()));
+    } else if (target instanceof PluginProtocTarget pluginTarget) {
+      var plugin = pluginTarget.getPlugin();
+      key.add("plugin", plugin.getOrder());
+      key.add("options", plugin.getOptions().orElse(null));
+      key.add("output", outputIndexOf(outputDirectories, plugin.getOutputDirectory()));
+      describePluginExecutable(plugin, key);
+    } else if (target instanceof DescriptorFileProtocTarget descriptorTarget) {
+      // The descriptor is restored to wherever the current build requests it, so its location
+      // is not part of the key.
+      key.add("descriptor", descriptorTarget.getOrder());
+      key.add("includeImports", descriptorTarget.isIncludeImports());
+      key.add("includeSourceInfo", descriptorTarget.isIncludeSourceInfo());
+      key.add("retainOptions", descriptorTarget.isRetainOptions());
+    } else {
+      throw new IllegalArgumentException("Unsupported target " + target);
+    }
+  }
+
+  // Launch scripts for JVM plugins embed paths that differ between machines, so we describe
+  // the application that they launch instead.
+  private void describePluginExecutable(
+      ResolvedProtocPlugin plugin,
+      DigestDescription key
+  ) throws IOException {
+    var maybeJavaApp = plugin.getJavaApp();
+
+    if (maybeJavaApp.isEmpty()) {
+      key.add("executable", digestFile(plugin.getPath()));
+      return;
+    }
+
+    var javaApp = maybeJavaApp.get();
+    key.add("jvmArgs", javaApp.getJvmArgs());
+    key.add("jvmConfigArgs", javaApp.getJvmConfigArgs());
+    key.add("mainClass", javaApp.getMainClass());
+    for (var dependency : javaApp.getDependencies()) {
+      key.add("classpath", "");
+      describeFileTree(dependency, key);
+    }
+  }
+
+  // Describes a single file, or every file within a directory, by their relative names
+  // and content.
+  private void describeFileTree(Path root, DigestDescription key) throws IOException {
+    if (Files.isRegularFile(root)) {
+      key.add("digest", digestFile(root));
+      return;
+    }
+
+    if (!Files.isDirectory(root)) {
+      return;
+    }
+
+    List<Path> files;
+    try (var stream = Files.walk(root)) {
+      files = stream.filter(Files::isRegularFile).sorted().toList();
+    }
+
+    var digests = files.stream()
+        .map(file -> concurrentExecutor.submit(() -> digestFile(file)))
+        .collect(concurrentExecutor.awaiting());
+
+    for (var index = 0; index < files.size(); ++index) {
+      key.add("file", ProtoImportScanner.importNameOf(root, files.get(index)));
+      key.add("digest", digests.get(index));
+    }
+  }
+
+  private String digestFile(Path file) throws IOException {
+    try (var inputStream = FileUtils.newBufferedInputStream(file)) {
+      return Digest.compute("SHA-256", inputStream).toHexString();
+    }
+  }
+
+  private String importNameOf(List<Path> importPaths, Path sourcePath) {
+    return importPaths.stream()
+        .filter(sourcePath::startsWith)
+        .findFirst()
+        .map(importPath -> ProtoImportScanner.importNameOf(importPath, sourcePath))
+        // Should not happen, as sources always reside in an import path, but if it does
+        // then we fall back to something that will only ever match this exact location.
+        .orElseGet(() -> sourcePath.toUri().toString());
+  }
+
+  private Object outputIndexOf(List<Path> outputDirectories, Path outputDirectory) {
+    var index = outputDirectories.indexOf(outputDirectory);
+    return index == -1 ? outputDirectory.toUri() : index;
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.cache;
+
+import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
+import io.github.ascopes.protobufmavenplugin.utils.StringUtils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.sisu.Description;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content-addressed cache of generated outputs, stored in a directory that can be shared
+ * between builds, branches, and worktrees on the same machine.
+ *
+ * <p>Each entry is a compressed archive named after its key. Entries are evicted in
+ * least-recently-used order once the total size of the cache exceeds the configured limit.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Stores and restores generated outputs in a local content-addressed cache")
+@MojoExecutionScoped
+@Named
+public final class LocalGenerationCache {
+
+  private static final String ENTRY_EXTENSION = ".zip";
+  private static final Logger log = LoggerFactory.getLogger(LocalGenerationCache.class);
+
+  private final GenerationCacheArchiver archiver;
+
+  @Inject
+  LocalGenerationCache(GenerationCacheArchiver archiver) {
+    this.archiver = archiver;
+  }
+
+  /**
+   * Restore the outputs for the given key, if present.
+   *
+   * @param cacheDirectory the cache directory.
+   * @param key the cache key.
+   * @param outputDirectories the output directories to restore generated files into.
+   * @param outputDescriptorFile the location to restore the output descriptor to, if any.
+   * @return {@code true} if the outputs were restored, or {@code false} if they were not
+   *     present in the cache.
+   * @throws IOException if an IO error occurs.
+   */
+  public boolean restore(
+      Path cacheDirectory,
+      String key,
+      List<Path> outputDirectories,
+      @Nullable Path outputDescriptorFile
+  ) throws IOException {
+    var entry = cacheDirectory.resolve(key + ENTRY_EXTENSION);
+
+    try (var inputStream = FileUtils.newBufferedInputStream(entry)) {
+      archiver.unpack(inputStream, outputDirectories, outputDescriptorFile);
+    } catch (NoSuchFileException ex) {
+      log.debug("No generation cache entry found at \"{}\"", entry);
+      return false;
+    } catch (IOException ex) {
+      // The entry may have been truncated or evicted by another build while we were reading it.
+      // Discard anything we unpacked and treat it as a miss.
+      log.warn("Ignoring unreadable generation cache entry \"{}\": {}", entry, ex.toString());
+      log.debug("Error reading generation cache entry", ex);
+      for (var outputDirectory : outputDirectories) {
+        FileUtils.deleteTree(outputDirectory);
+        Files.createDirectories(outputDirectory);
+      }
+      Files.deleteIfExists(entry);
+      return false;
+    }
+
+    // Mark the entry as recently used, so that it is evicted last.
+    Files.setLastModifiedTime(entry, FileTime.from(Instant.now()));
+    log.debug("Restored outputs from generation cache entry \"{}\"", entry);
+    return true;
+  }
+
+  /**
+   * Store the outputs for the given key, evicting old entries if the cache exceeds the given
+   * size.
+   *
+   * @param cacheDirectory the cache directory.
+   * @param maxSizeBytes the maximum total size of the cache, in bytes.
+   * @param key the cache key.
+   * @param outputDirectories the output directories holding the generated files.
+   * @param outputDescriptorFile the output descriptor, if any.
+   * @throws IOException if an IO error occurs.
+   */
+  public void store(
+      Path cacheDirectory,
+      long maxSizeBytes,
+      String key,
+      List<Path> outputDirectories,
+      @Nullable Path outputDescriptorFile
+  ) throws IOException {
+    Files.createDirectories(cacheDirectory);
+
+    // Write to a temporary file and then move it into place, so that concurrent builds never
+    // see a partially written entry.
+    var entry = cacheDirectory.resolve(key + ENTRY_EXTENSION);
+    var temporaryEntry = Files.createTempFile(cacheDirectory, key, ".tmp");
+
+    try {
+      try (var outputStream = FileUtils.newBufferedOutputStream(temporaryEntry)) {
+        archiver.pack(outputDirectories, outputDescriptorFile, outputStream);
+      }
+      Files.move(temporaryEntry, entry, StandardCopyOption.REPLACE_EXISTING);
+      log.debug("Stored outputs in generation cache entry \"{}\"", entry);
+    } finally {
+      Files.deleteIfExists(temporaryEntry);
+    }
+
+    evict(cacheDirectory, maxSizeBytes);
+  }
+
+  private void evict(Path cacheDirectory, long maxSizeBytes) throws IOException {
+    List<CacheEntry> entries;
+    try (var stream = Files.list(cacheDirectory)) {
+      entries = stream
+          .filter(file -> file.toString().endsWith(ENTRY_EXTENSION))
+          .map(this::describeEntry)
+          .flatMap(Optional::stream)
+          .sorted(Comparator.comparing(CacheEntry::lastUsed).reversed())
+          .toList();
+    }
+
+    var totalSize = 0L;
+    var evictedCount = 0;
+
+    for (var entry : entries) {
+      totalSize += entry.size();
+      if (totalSize > maxSizeBytes) {
+        log.trace("Evicting generation cache entry \"{}\"", entry.path());
+        Files.deleteIfExists(entry.path());
+        ++evictedCount;
+      }
+    }
+
+    if (evictedCount > 0) {
+      log.debug(
+          "Evicted {} to keep the generation cache within {} bytes",
+          StringUtils.pluralize(evictedCount, "entry", "entries"),
+          maxSizeBytes
+      );
+    }
+  }
+
+  private Optional<CacheEntry> describeEntry(Path file) {
+    try {
+      var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      return Optional.of(new CacheEntry(file, attributes.lastModifiedTime(), attributes.size()));
+    } catch (IOException ex) {
+      // Another build may have evicted the entry concurrently.
+      return Optional.empty();
+    }
+  }
+
+  private record CacheEntry(Path path, FileTime lastUsed, long size) {
+  }
+}
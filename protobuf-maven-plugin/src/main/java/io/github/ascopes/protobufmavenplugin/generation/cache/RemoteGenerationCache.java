@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.cache;
+
+import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
+import io.github.ascopes.protobufmavenplugin.urls.UrlFactory;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.sisu.Description;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content-addressed cache of generated outputs, stored on a remote HTTP server so that they can
+ * be shared between machines, such as CI agents.
+ *
+ * <p>Entries are fetched with {@code GET} and uploaded with {@code PUT} requests to
+ * {@code <base URL>/<key>.zip}, so any server that can store and serve static files can be used.
+ *
+ * <p>The remote cache is only ever an optimisation. Any failure to reach the server is logged
+ * and treated as a miss, so that the build falls back to generating the outputs locally. The
+ * same applies to servers that stop sending the response body, or send it too slowly to finish
+ * within the timeout.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Stores and restores generated outputs in a remote content-addressed cache")
+@MojoExecutionScoped
+@Named
+public final class RemoteGenerationCache {
+
+  private static final String ENTRY_EXTENSION = ".zip";
+  private static final Logger log = LoggerFactory.getLogger(RemoteGenerationCache.class);
+
+  private final UrlFactory urlFactory;
+  private final GenerationCacheArchiver archiver;
+
+  @Inject
+  RemoteGenerationCache(UrlFactory urlFactory, GenerationCacheArchiver archiver) {
+    this.urlFactory = urlFactory;
+    this.archiver = archiver;
+  }
+
+  /**
+   * Restore the outputs for the given key, if present.
+   *
+   * @param baseUri the base URI of the remote cache.
+   * @param timeout the timeout for the request, including reading the entire response body.
+   * @param key the cache key.
+   * @param outputDirectories the output directories to restore generated files into.
+   * @param outputDescriptorFile the location to restore the output descriptor to, if any.
+   * @return {@code true} if the outputs were restored, or {@code false} if they were not
+   *     present in the cache or could not be retrieved.
+   * @throws IOException if an IO error occurs discarding partially restored outputs.
+   */
+  public boolean restore(
+      URI baseUri,
+      Duration timeout,
+      String key,
+      List<Path> outputDirectories,
+      @Nullable Path outputDescriptorFile
+  ) throws IOException {
+    var entryUri = entryUri(baseUri, key);
+    var deadline = System.nanoTime() + timeout.toNanos();
+
+    try {
+      var connection = openConnection(entryUri, timeout);
+      try (var inputStream = new DeadlineInputStream(connection.getInputStream(), deadline)) {
+        archiver.unpack(inputStream, outputDirectories, outputDescriptorFile);
+      }
+    } catch (FileNotFoundException ex) {
+      log.debug("No remote generation cache entry found at \"{}\"", entryUri);
+      return false;
+    } catch (IOException ex) {
+      log.warn(
+          "Failed to fetch remote generation cache entry \"{}\", outputs will be generated "
+              + "locally instead: {}",
+          entryUri,
+          ex.toString()
+      );
+      log.debug("Error fetching remote generation cache entry", ex);
+
+      // Discard anything we unpacked before the failure.
+      for (var outputDirectory : outputDirectories) {
+        FileUtils.deleteTree(outputDirectory);
+        Files.createDirectories(outputDirectory);
+      }
+      return false;
+    }
+
+    log.debug("Restored outputs from remote generation cache entry \"{}\"", entryUri);
+    return true;
+  }
+
+  /**
+   * Upload the outputs for the given key.
+   *
+   * <p>Failures are logged and otherwise ignored.
+   *
+   * @param baseUri the base URI of the remote cache.
+   * @param timeout the timeout for the request.
+   * @param key the cache key.
+   * @param outputDirectories the output directories holding the generated files.
+   * @param outputDescriptorFile the output descriptor, if any.
+   */
+  public void store(
+      URI baseUri,
+      Duration timeout,
+      String key,
+      List<Path> outputDirectories,
+      @Nullable Path outputDescriptorFile
+  ) {
+    var entryUri = entryUri(baseUri, key);
+
+    try {
+      var connection = openConnection(entryUri, timeout);
+      connection.setDoOutput(true);
+
+      // The connection buffers the request body itself, so we pack straight into it.
+      try (var outputStream = connection.getOutputStream()) {
+        archiver.pack(outputDirectories, outputDescriptorFile, outputStream);
+      }
+
+      // Sends the request, and discards the response body.
+      connection.getInputStream().close();
+
+      log.info("Uploaded generated outputs to remote generation cache entry \"{}\"", entryUri);
+    } catch (IOException ex) {
+      log.warn(
+          "Failed to upload remote generation cache entry \"{}\": {}",
+          entryUri,
+          ex.toString()
+      );
+      log.debug("Error uploading remote generation cache entry", ex);
+    }
+  }
+
+  private URLConnection openConnection(URI uri, Duration timeout) throws IOException {
+    var connection = urlFactory.create(uri).openConnection();
+    var timeoutMillis = (int) Math.min(timeout.toMillis(), Integer.MAX_VALUE);
+    connection.setAllowUserInteraction(false);
+    connection.setConnectTimeout(timeoutMillis);
+    connection.setReadTimeout(timeoutMillis);
+    connection.setUseCaches(false);
+    return connection;
+  }
+
+  private URI entryUri(URI baseUri, String key) {
+    var base = baseUri.toString();
+    return URI.create(base.endsWith("/") ? base : base + "/").resolve(key + ENTRY_EXTENSION);
+  }
+
+  // The connection read timeout only bounds each individual read, so a server could otherwise
+  // hold up the build indefinitely by sending the body slowly enough.
+  private static final class DeadlineInputStream extends FilterInputStream {
+
+    private final long deadline;
+
+    private DeadlineInputStream(InputStream inputStream, long deadline) {
+      super(inputStream);
+      this.deadline = deadline;
+    }
+
+    @Override
+    public int read() throws IOException {
+      checkDeadline();
+      return super.read();
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      checkDeadline();
+      return super.read(bytes, offset, length);
+    }
+
+    private void checkDeadline() throws SocketTimeoutException {
+      if (System.nanoTime() - deadline > 0) {
+        throw new SocketTimeoutException("Timed out reading the response body");
+      }
+    }
+  }
+}
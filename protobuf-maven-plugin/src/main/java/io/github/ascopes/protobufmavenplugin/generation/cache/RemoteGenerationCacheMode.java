@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.cache;
+
+/**
+ * How the remote generation cache may be used.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+public enum RemoteGenerationCacheMode {
+
+  /**
+   * Only restore outputs from the remote cache. Outputs are never uploaded.
+   */
+  READ_ONLY,
+
+  /**
+   * Restore outputs from the remote cache, and upload any outputs that were not present.
+   */
+  READ_WRITE,
+}
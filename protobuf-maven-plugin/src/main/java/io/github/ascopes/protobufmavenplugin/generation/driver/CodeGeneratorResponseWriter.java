@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.driver;
+
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.inject.Named;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.sisu.Description;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the files in a {@code CodeGeneratorResponse} to an output directory, following the
+ * same rules that {@code protoc} applies to plugin outputs.
+ *
+ * <p>Files with an insertion point are inserted into an existing file in the output directory,
+ * immediately above the line containing the {@code @@protoc_insertion_point(name)} marker, and
+ * indented to match that line. Files without a name are appended to the previous file.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Writes files from protoc plugin responses to output directories")
+@MojoExecutionScoped
+@Named
+final class CodeGeneratorResponseWriter {
+
+  private static final Logger log = LoggerFactory.getLogger(CodeGeneratorResponseWriter.class);
+
+  void write(CodeGeneratorResponse response, Path outputDirectory) throws IOException {
+    @Nullable Path previousFile = null;
+
+    for (var file : response.getFileList()) {
+      if (file.getName().isEmpty()) {
+        if (previousFile == null) {
+          throw new IOException("Plugin response contains a file without a name");
+        }
+        log.trace("Appending to generated file \"{}\"", previousFile);
+        Files.writeString(
+            previousFile,
+            file.getContent(),
+            StandardCharsets.UTF_8,
+            StandardOpenOption.APPEND
+        );
+        continue;
+      }
+
+      var target = resolve(outputDirectory, file.getName());
+
+      if (file.hasInsertionPoint()) {
+        insert(target, file.getInsertionPoint(), file.getContent());
+      } else {
+        log.trace("Writing generated file \"{}\"", target);
+        Files.createDirectories(target.getParent());
+        Files.writeString(target, file.getContent(), StandardCharsets.UTF_8);
+      }
+
+      previousFile = target;
+    }
+  }
+
+  private void insert(Path target, String insertionPoint, String content) throws IOException {
+    log.trace("Inserting into \"{}\" at insertion point \"{}\"", target, insertionPoint);
+
+    if (!Files.isRegularFile(target)) {
+      throw new IOException(
+          "Cannot insert at insertion point \"" + insertionPoint + "\" in \"" + target
+              + "\", as the file does not exist"
+      );
+    }
+
+    var text = Files.readString(target, StandardCharsets.UTF_8);
+    var markerIndex = text.indexOf("@@protoc_insertion_point(" + insertionPoint + ")");
+
+    if (markerIndex == -1) {
+      throw new IOException(
+          "Insertion point \"" + insertionPoint + "\" was not found in \"" + target + "\""
+      );
+    }
+
+    var lineStart = text.lastIndexOf('\n', markerIndex) + 1;
+    var indentEnd = lineStart;
+    while (indentEnd < markerIndex && Character.isWhitespace(text.charAt(indentEnd))) {
+      ++indentEnd;
+    }
+    var indent = text.substring(lineStart, indentEnd);
+
+    var inserted = new StringBuilder();
+    for (var line : content.split("\n", -1)) {
+      // Blank lines are left unindented, to avoid producing trailing whitespace.
+      inserted.append(line.isEmpty() ? "" : indent).append(line).append('\n');
+    }
+    // Splitting on the trailing newline of the content produces an extra empty line.
+    if (content.endsWith("\n") || content.isEmpty()) {
+      inserted.setLength(inserted.length() - 1);
+    }
+
+    var newText = text.substring(0, lineStart) + inserted + text.substring(lineStart);
+    Files.writeString(target, newText, StandardCharsets.UTF_8);
+  }
+
+  private Path resolve(Path outputDirectory, String name) throws IOException {
+    var normalizedOutputDirectory = outputDirectory.normalize();
+    var target = normalizedOutputDirectory.resolve(name).normalize();
+
+    // Never allow plugins to write outside their output directory.
+    if (!target.startsWith(normalizedOutputDirectory) || target.equals(normalizedOutputDirectory)) {
+      throw new IOException("Plugin attempted to write to invalid location \"" + name + "\"");
+    }
+
+    return target;
+  }
+}
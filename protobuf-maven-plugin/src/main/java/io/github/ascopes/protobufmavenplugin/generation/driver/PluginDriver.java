@@ -0,0 +1,458 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.driver;
+
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
+import com.google.protobuf.compiler.PluginProtos.Version;
+import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
+import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
+import io.github.ascopes.protobufmavenplugin.generation.cache.GenerationCacheKeyFactory;
+import io.github.ascopes.protobufmavenplugin.java.InProcessJavaAppRunner;
+import io.github.ascopes.protobufmavenplugin.java.JavaApp;
+import io.github.ascopes.protobufmavenplugin.plugins.ResolvedProtocPlugin;
+import io.github.ascopes.protobufmavenplugin.protoc.ImmutableProtocInvocation;
+import io.github.ascopes.protobufmavenplugin.protoc.ProtocInvocation;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.ImmutableDescriptorFileProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.PluginProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.ProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.SanctionedExecutableTransformer;
+import io.github.ascopes.protobufmavenplugin.sources.ProtoImportScanner;
+import io.github.ascopes.protobufmavenplugin.system.ConcurrentExecutor;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.sisu.Description;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Driver that invokes {@code protoc} plugins directly, rather than via {@code protoc}.
+ *
+ * <p>{@code protoc} parses the sources once into a descriptor set that includes source
+ * information. A {@code CodeGeneratorRequest} is built from that descriptor set and passed to
+ * each plugin executable over its standard input, and the {@code CodeGeneratorResponse} each
+ * plugin writes to its standard output is then written to the plugin's output directory.
+ *
+ * <p>The parsed descriptor set is kept between builds, keyed by the content of every input that
+ * can affect it, so changes that only affect plugin configuration do not need {@code protoc} to
+ * parse anything again.
+ *
+ * <p>JVM-based plugins that opt in are run within the current JVM, avoiding the cost of
+ * starting a new JVM for each of them.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Invokes protoc plugins directly from a single parse of the sources")
+@MojoExecutionScoped
+@Named
+public final class PluginDriver {
+
+  private static final String DESCRIPTOR_SET_EXTENSION = ".binpb";
+  private static final String PENDING_EXTENSION = ".pending";
+  private static final Logger log = LoggerFactory.getLogger(PluginDriver.class);
+
+  private final TemporarySpace temporarySpace;
+  private final ConcurrentExecutor concurrentExecutor;
+  private final GenerationCacheKeyFactory generationCacheKeyFactory;
+  private final CodeGeneratorResponseWriter responseWriter;
+  private final InProcessJavaAppRunner inProcessJavaAppRunner;
+  private final SanctionedExecutableTransformer sanctionedExecutableTransformer;
+  private final ProtocVersionReader protocVersionReader;
+
+  @Inject
+  PluginDriver(
+      TemporarySpace temporarySpace,
+      ConcurrentExecutor concurrentExecutor,
+      GenerationCacheKeyFactory generationCacheKeyFactory,
+      CodeGeneratorResponseWriter responseWriter,
+      InProcessJavaAppRunner inProcessJavaAppRunner,
+      SanctionedExecutableTransformer sanctionedExecutableTransformer,
+      ProtocVersionReader protocVersionReader
+  ) {
+    this.temporarySpace = temporarySpace;
+    this.concurrentExecutor = concurrentExecutor;
+    this.generationCacheKeyFactory = generationCacheKeyFactory;
+    this.responseWriter = responseWriter;
+    this.inProcessJavaAppRunner = inProcessJavaAppRunner;
+    this.sanctionedExecutableTransformer = sanctionedExecutableTransformer;
+    this.protocVersionReader = protocVersionReader;
+  }
+
+  /**
+   * Plan how to generate the outputs for the given invocation.
+   *
+   * <p>The invocation is expected to have at least one plugin target.
+   *
+   * @param invocation the invocation to generate the outputs for.
+   * @return the plan.
+   * @throws IOException if an IO error occurs moving executables to any sanctioned location,
+   *     or computing the key of the parsed sources.
+   */
+  public PluginDriverPlan plan(ProtocInvocation invocation) throws IOException {
+    var pluginTargets = new TreeSet<ProtocTarget>();
+    var otherTargets = new TreeSet<ProtocTarget>();
+
+    for (var target : invocation.getTargets()) {
+      if (target instanceof PluginProtocTarget) {
+        pluginTargets.add(target);
+      } else {
+        otherTargets.add(target);
+      }
+    }
+
+    // The protoc invocation in the plan is moved to any sanctioned executable location when it
+    // is executed, but we run the plugins and protoc ourselves here, so have to move them first.
+    var sanctionedInvocation = sanctionedExecutableTransformer
+        .transform(withTargets(invocation, pluginTargets));
+    var sanctionedPluginTargets = sanctionedInvocation.getTargets()
+        .stream()
+        .map(PluginProtocTarget.class::cast)
+        .toList();
+
+    var directory = temporarySpace.createTemporarySpace("plugin-driver");
+    var key = generationCacheKeyFactory.createKey(
+        withTargets(invocation, parseTarget(directory.resolve("key"))),
+        List.of()
+    );
+    var descriptorSetFile = directory.resolve(key + DESCRIPTOR_SET_EXTENSION);
+    var planBuilder = ImmutablePluginDriverPlan.builder()
+        .descriptorSetFile(descriptorSetFile)
+        .environmentVariables(invocation.getEnvironmentVariables())
+        .filesToGenerate(filesToGenerate(invocation))
+        .pluginTargets(sanctionedPluginTargets)
+        .compilerVersion(protocVersionReader.readVersion(sanctionedInvocation.getProtocPath()));
+
+    if (Files.isRegularFile(descriptorSetFile)) {
+      log.debug("Reusing sources previously parsed into \"{}\"", descriptorSetFile);
+      if (!otherTargets.isEmpty()) {
+        planBuilder.protocInvocation(withTargets(invocation, otherTargets));
+      }
+    } else {
+      var pendingDescriptorSetFile = directory.resolve(key + PENDING_EXTENSION);
+      otherTargets.add(parseTarget(pendingDescriptorSetFile));
+      planBuilder
+          .pendingDescriptorSetFile(pendingDescriptorSetFile)
+          .protocInvocation(withTargets(invocation, otherTargets));
+    }
+
+    return planBuilder.build();
+  }
+
+  /**
+   * Invoke the plugins in the given plan, once {@code protoc} has been invoked.
+   *
+   * <p>Plugins with the same order are invoked concurrently. Plugins with a lower order are
+   * invoked and have their outputs written first, so that later plugins can use their
+   * insertion points.
+   *
+   * @param plan the plan.
+   * @param maxProcesses the maximum number of plugins to run at the same time.
+   * @return {@code true} if every plugin succeeded, or {@code false} if any failed.
+   * @throws IOException if an IO error occurs.
+   */
+  public boolean invokePlugins(PluginDriverPlan plan, int maxProcesses) throws IOException {
+    if (plan.getPluginTargets().isEmpty()) {
+      return true;
+    }
+
+    var descriptorSet = readDescriptorSet(plan);
+    var strippedDescriptorSet = SourceRetentionOptionStripper.strip(descriptorSet);
+    var groups = plan.getPluginTargets()
+        .stream()
+        .map(PluginProtocTarget::getPlugin)
+        .collect(Collectors.groupingBy(
+            ResolvedProtocPlugin::getOrder,
+            TreeMap::new,
+            Collectors.toList()
+        ));
+
+    var permits = new Semaphore(Math.max(maxProcesses, 1));
+    var failureCount = 0;
+
+    for (var group : groups.values()) {
+      var responses = group.stream()
+          .map(plugin -> concurrentExecutor.submit(() -> {
+            permits.acquire();
+            try {
+              var request = createRequest(
+                  descriptorSet,
+                  strippedDescriptorSet,
+                  plan.getFilesToGenerate(),
+                  plan.getCompilerVersion(),
+                  plugin
+              );
+              return invokePlugin(plugin, request, plan.getEnvironmentVariables());
+            } finally {
+              permits.release();
+            }
+          }))
+          .collect(concurrentExecutor.awaiting());
+
+      // Write outputs in a predictable order, in case plugins generate the same files.
+      for (var index = 0; index < group.size(); ++index) {
+        var plugin = group.get(index);
+        var response = responses.get(index);
+
+        if (response.hasError()) {
+          log.error("Plugin {} reported an error: {}", plugin.getId(), response.getError());
+          ++failureCount;
+        } else {
+          responseWriter.write(response, plugin.getOutputDirectory());
+        }
+      }
+    }
+
+    if (failureCount > 0) {
+      log.error(
+          "{} of {} plugins failed, see the errors above for details",
+          failureCount,
+          plan.getPluginTargets().size()
+      );
+      return false;
+    }
+
+    return true;
+  }
+
+  // Like protoc, plugins only see options with source retention in the source file
+  // descriptors, and never in the descriptors of all files.
+  CodeGeneratorRequest createRequest(
+      FileDescriptorSet descriptorSet,
+      FileDescriptorSet strippedDescriptorSet,
+      List<String> filesToGenerate,
+      Optional<Version> compilerVersion,
+      ResolvedProtocPlugin plugin
+  ) {
+    var filesToGenerateSet = new HashSet<>(filesToGenerate);
+    var request = CodeGeneratorRequest.newBuilder()
+        .addAllFileToGenerate(filesToGenerate)
+        .addAllProtoFile(strippedDescriptorSet.getFileList());
+
+    descriptorSet.getFileList()
+        .stream()
+        .filter(file -> filesToGenerateSet.contains(file.getName()))
+        .forEach(request::addSourceFileDescriptors);
+
+    // protoc always sends its version, and some plugins make decisions based upon it.
+    compilerVersion.ifPresent(request::setCompilerVersion);
+    plugin.getOptions().ifPresent(request::setParameter);
+    return request.build();
+  }
+
+  private FileDescriptorSet readDescriptorSet(PluginDriverPlan plan) throws IOException {
+    var descriptorSetFile = plan.getDescriptorSetFile();
+    var pendingDescriptorSetFile = plan.getPendingDescriptorSetFile();
+
+    if (pendingDescriptorSetFile.isPresent()) {
+      // Any previous parse results are for inputs that have since changed, so we only keep
+      // the latest one.
+      try (var files = Files.list(descriptorSetFile.getParent())) {
+        for (var file : files.toList()) {
+          if (file.toString().endsWith(DESCRIPTOR_SET_EXTENSION)) {
+            Files.deleteIfExists(file);
+          }
+        }
+      }
+      Files.move(
+          pendingDescriptorSetFile.get(),
+          descriptorSetFile,
+          StandardCopyOption.REPLACE_EXISTING
+      );
+    }
+
+    try (var inputStream = FileUtils.newBufferedInputStream(descriptorSetFile)) {
+      return FileDescriptorSet.parseFrom(inputStream);
+    } catch (InvalidProtocolBufferException ex) {
+      // Ensure the next build parses the sources again rather than failing indefinitely.
+      Files.deleteIfExists(descriptorSetFile);
+      throw ex;
+    }
+  }
+
+  private CodeGeneratorResponse invokePlugin(
+      ResolvedProtocPlugin plugin,
+      CodeGeneratorRequest request,
+      Map<String, String> environmentVariables
+  ) throws IOException {
+    var javaApp = plugin.getJavaApp();
+    return plugin.isInProcess() && javaApp.isPresent()
+        ? invokePluginInProcess(plugin, javaApp.get(), request)
+        : invokePluginProcess(plugin, request, environmentVariables);
+  }
+
+  private CodeGeneratorResponse invokePluginInProcess(
+      ResolvedProtocPlugin plugin,
+      JavaApp javaApp,
+      CodeGeneratorRequest request
+  ) throws IOException {
+    log.info("Invoking plugin {} in-process", plugin.getId());
+
+    var stdout = new ByteArrayOutputStream();
+    var stderr = new ByteArrayOutputStream();
+    final var startTimeNs = System.nanoTime();
+    var succeeded = inProcessJavaAppRunner.run(
+        javaApp,
+        new ByteArrayInputStream(request.toByteArray()),
+        stdout,
+        stderr
+    );
+    var elapsedTimeMs = (System.nanoTime() - startTimeNs) / 1_000_000L;
+
+    stderr.toString(StandardCharsets.UTF_8)
+        .lines()
+        .forEach(line -> log.warn("[{} in-process] {}", plugin.getId(), line.stripTrailing()));
+
+    if (!succeeded) {
+      return CodeGeneratorResponse.newBuilder()
+          .setError("Plugin failed after " + elapsedTimeMs + "ms")
+          .build();
+    }
+
+    log.info("Plugin {} completed in-process after {}ms", plugin.getId(), elapsedTimeMs);
+    return CodeGeneratorResponse.parseFrom(stdout.toByteArray());
+  }
+
+  private CodeGeneratorResponse invokePluginProcess(
+      ResolvedProtocPlugin plugin,
+      CodeGeneratorRequest request,
+      Map<String, String> environmentVariables
+  ) throws IOException {
+    // Logs are written to a file rather than being streamed, as we are already reading the
+    // response from the standard output on this thread.
+    var directory = temporarySpace.createTemporarySpace("plugin-driver", plugin.getId());
+    var stderrFile = directory.resolve("stderr.txt");
+
+    var procBuilder = new ProcessBuilder(plugin.getPath().toString())
+        .redirectError(stderrFile.toFile());
+    var env = procBuilder.environment();
+    env.putAll(System.getenv());
+    env.putAll(environmentVariables);
+
+    log.info("Invoking plugin {} directly", plugin.getId());
+    log.debug("Plugin {} executable is located at \"{}\"", plugin.getId(), plugin.getPath());
+
+    final var startTimeNs = System.nanoTime();
+    var proc = procBuilder.start();
+
+    try {
+      // Plugins must read the entire request before they can respond, so we can safely write
+      // all of it before we start reading the response.
+      try (var outputStream = proc.getOutputStream()) {
+        request.writeTo(outputStream);
+      }
+
+      byte[] responseBytes;
+      try (var inputStream = proc.getInputStream()) {
+        responseBytes = inputStream.readAllBytes();
+      }
+
+      var exitCode = proc.waitFor();
+      var elapsedTimeMs = (System.nanoTime() - startTimeNs) / 1_000_000L;
+
+      for (var line : Files.readAllLines(stderrFile, StandardCharsets.UTF_8)) {
+        log.warn("[{} pid={}] {}", plugin.getId(), proc.pid(), line.stripTrailing());
+      }
+
+      if (exitCode != 0) {
+        return CodeGeneratorResponse.newBuilder()
+            .setError("Process " + proc.pid() + " returned exit code " + exitCode
+                + " after " + elapsedTimeMs + "ms")
+            .build();
+      }
+
+      log.info(
+          "Plugin {} (pid {}) returned exit code 0 (success) after {}ms",
+          plugin.getId(),
+          proc.pid(),
+          elapsedTimeMs
+      );
+      return CodeGeneratorResponse.parseFrom(responseBytes);
+
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      var newEx = new InterruptedIOException("Execution was interrupted");
+      newEx.initCause(ex);
+      throw newEx;
+    } finally {
+      proc.destroy();
+    }
+  }
+
+  private List<String> filesToGenerate(ProtocInvocation invocation) {
+    var filesToGenerate = new ArrayList<String>();
+
+    for (var sourcePath : invocation.getSourcePaths()) {
+      invocation.getImportPaths()
+          .stream()
+          .filter(sourcePath::startsWith)
+          .findFirst()
+          .map(importPath -> ProtoImportScanner.importNameOf(importPath, sourcePath))
+          .ifPresent(filesToGenerate::add);
+    }
+
+    filesToGenerate.addAll(invocation.getDescriptorSourceFiles());
+    return filesToGenerate;
+  }
+
+  private ProtocTarget parseTarget(Path outputFile) {
+    return ImmutableDescriptorFileProtocTarget.builder()
+        .includeImports(true)
+        .includeSourceInfo(true)
+        .outputFile(outputFile)
+        // Source file descriptors must include options with source retention, so we strip
+        // them ourselves for everything else.
+        .retainOptions(true)
+        .build();
+  }
+
+  private ProtocInvocation withTargets(ProtocInvocation invocation, ProtocTarget target) {
+    var targets = new TreeSet<ProtocTarget>();
+    targets.add(target);
+    return withTargets(invocation, targets);
+  }
+
+  private ProtocInvocation withTargets(
+      ProtocInvocation invocation,
+      SortedSet<ProtocTarget> targets
+  ) {
+    return ImmutableProtocInvocation.builder()
+        .from(invocation)
+        .targets(targets)
+        .build();
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.driver;
+
+import com.google.protobuf.compiler.PluginProtos.Version;
+import io.github.ascopes.protobufmavenplugin.protoc.ProtocInvocation;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.PluginProtocTarget;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.immutables.value.Value.Immutable;
+
+/**
+ * Model describing how to generate the outputs of a {@code protoc} invocation when plugins are
+ * invoked directly.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Immutable
+public interface PluginDriverPlan {
+
+  /**
+   * The {@code protoc} invocation to perform before invoking any plugins.
+   *
+   * <p>This generates outputs for all non-plugin targets, and parses the sources into
+   * {@link #getPendingDescriptorSetFile()} if a cached parse result is not already available.
+   *
+   * @return the invocation, or an empty optional if {@code protoc} does not need to be invoked.
+   */
+  Optional<ProtocInvocation> getProtocInvocation();
+
+  Path getDescriptorSetFile();
+
+  Optional<Path> getPendingDescriptorSetFile();
+
+  Map<String, String> getEnvironmentVariables();
+
+  List<String> getFilesToGenerate();
+
+  List<PluginProtocTarget> getPluginTargets();
+
+  /**
+   * The version of {@code protoc} to report to plugins.
+   *
+   * @return the version, or an empty optional if it could not be determined.
+   */
+  Optional<Version> getCompilerVersion();
+}
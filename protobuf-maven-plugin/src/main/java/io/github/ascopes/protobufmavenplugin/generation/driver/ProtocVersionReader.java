@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.driver;
+
+import com.google.protobuf.compiler.PluginProtos.Version;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import javax.inject.Named;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.sisu.Description;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reader of the version of a {@code protoc} executable, for populating the compiler version
+ * of the {@code CodeGeneratorRequest} that {@code protoc} would otherwise send to plugins
+ * itself.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Reads the version of protoc executables")
+@MojoExecutionScoped
+@Named
+final class ProtocVersionReader {
+
+  // Since 22.0, protoc only reports the minor and patch versions of the protobuf release,
+  // e.g. "libprotoc 28.2" rather than "libprotoc 5.28.2". Older releases report all three.
+  private static final Pattern VERSION_PATTERN = Pattern.compile(
+      "^libprotoc (?<first>\\d+)\\.(?<second>\\d+)(?:\\.(?<third>\\d+))?(?<suffix>\\S*)$"
+  );
+  private static final int FIRST_MINOR_WITHOUT_MAJOR = 22;
+  private static final int FIRST_MAJOR_WITHOUT_MAJOR = 4;
+  private static final int MINORS_PER_MAJOR = 4;
+
+  private static final Logger log = LoggerFactory.getLogger(ProtocVersionReader.class);
+
+  /**
+   * Read the version of the given {@code protoc} executable.
+   *
+   * @param protocPath the path to the {@code protoc} executable.
+   * @return the version, or an empty optional if it could not be determined.
+   * @throws InterruptedIOException if the thread is interrupted while waiting for
+   *     {@code protoc}.
+   */
+  Optional<Version> readVersion(Path protocPath) throws InterruptedIOException {
+    String output;
+
+    try {
+      var proc = new ProcessBuilder(protocPath.toString(), "--version")
+          .redirectErrorStream(true)
+          .start();
+
+      try (var inputStream = proc.getInputStream()) {
+        output = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+      }
+
+      var exitCode = proc.waitFor();
+      if (exitCode != 0) {
+        log.debug("\"{} --version\" returned exit code {}", protocPath, exitCode);
+        return Optional.empty();
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      var newEx = new InterruptedIOException("Execution was interrupted");
+      newEx.initCause(ex);
+      throw newEx;
+    } catch (IOException ex) {
+      log.debug("Failed to invoke \"{} --version\"", protocPath, ex);
+      return Optional.empty();
+    }
+
+    var version = parseVersion(output.strip());
+    if (version.isEmpty()) {
+      log.debug("Ignoring unrecognised protoc version \"{}\"", output.strip());
+    }
+    return version;
+  }
+
+  static Optional<Version> parseVersion(String output) {
+    var matcher = VERSION_PATTERN.matcher(output);
+    if (!matcher.matches()) {
+      return Optional.empty();
+    }
+
+    var first = Integer.parseInt(matcher.group("first"));
+    var second = Integer.parseInt(matcher.group("second"));
+    var third = matcher.group("third");
+    var version = Version.newBuilder().setSuffix(matcher.group("suffix"));
+
+    if (third != null) {
+      version.setMajor(first).setMinor(second).setPatch(Integer.parseInt(third));
+    } else {
+      // The major version is not reported, but it has been bumped every four releases
+      // since 22.0 (4.22.x to 4.25.x, then 5.26.x to 5.29.x, and so on).
+      var major = FIRST_MAJOR_WITHOUT_MAJOR
+          + Math.max(first - FIRST_MINOR_WITHOUT_MAJOR, 0) / MINORS_PER_MAJOR;
+      version.setMajor(major).setMinor(first).setPatch(second);
+    }
+
+    return Optional.of(version.build());
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.driver;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldOptions.OptionRetention;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnknownFieldSet;
+import io.github.ascopes.protobufmavenplugin.utils.DeadCodeGenerated;
+import java.util.HashMap;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Strips options with source retention from parsed descriptors, in the same way that
+ * {@code protoc} does for the {@code proto_file} descriptors that it passes to plugins.
+ *
+ * <p>Options are stripped at the wire level, as custom options are only known to the
+ * descriptors being stripped, and not to the generated descriptor classes. Any field with
+ * source retention is removed, and any message-typed field is stripped recursively.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+final class SourceRetentionOptionStripper {
+
+  private static final String FILE_DESCRIPTOR_TYPE = FileDescriptorProto.getDescriptor()
+      .getFullName();
+
+  @DeadCodeGenerated(reason = "static-only class")
+  private SourceRetentionOptionStripper() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Strip the options with source retention from every file in the given descriptor set.
+   *
+   * @param descriptorSet the descriptor set, parsed with all options retained.
+   * @return the stripped descriptor set.
+   * @throws InvalidProtocolBufferException if the descriptors cannot be reparsed.
+   */
+  static FileDescriptorSet strip(
+      FileDescriptorSet descriptorSet
+  ) throws InvalidProtocolBufferException {
+    var fields = new HashMap<String, Map<Integer, FieldInfo>>();
+    DescriptorProtos.getDescriptor().getMessageTypes().forEach(type -> addFields(fields, type));
+
+    for (var file : descriptorSet.getFileList()) {
+      var scope = file.getPackage().isEmpty() ? "" : file.getPackage() + ".";
+      file.getMessageTypeList().forEach(type -> addFields(fields, scope, type));
+      file.getExtensionList().forEach(extension -> addExtension(fields, extension));
+    }
+
+    var strippedDescriptorSet = FileDescriptorSet.newBuilder();
+    for (var file : descriptorSet.getFileList()) {
+      var strippedFields = strip(fields, FILE_DESCRIPTOR_TYPE, file.toByteString());
+      strippedDescriptorSet.addFile(FileDescriptorProto.parseFrom(strippedFields));
+    }
+    return strippedDescriptorSet.build();
+  }
+
+  private static ByteString strip(
+      Map<String, Map<Integer, FieldInfo>> fields,
+      String typeName,
+      ByteString message
+  ) throws InvalidProtocolBufferException {
+    return strip(fields, typeName, UnknownFieldSet.parseFrom(message)).toByteString();
+  }
+
+  private static UnknownFieldSet strip(
+      Map<String, Map<Integer, FieldInfo>> fields,
+      String typeName,
+      UnknownFieldSet message
+  ) throws InvalidProtocolBufferException {
+    var typeFields = fields.getOrDefault(typeName, Map.of());
+    var strippedMessage = UnknownFieldSet.newBuilder();
+
+    for (var entry : message.asMap().entrySet()) {
+      var info = typeFields.get(entry.getKey());
+
+      if (info != null && info.sourceRetention()) {
+        continue;
+      }
+
+      var field = entry.getValue();
+      var messageTypeName = info == null ? null : info.messageTypeName();
+
+      if (messageTypeName != null) {
+        var strippedField = UnknownFieldSet.Field.newBuilder();
+        for (var value : field.getLengthDelimitedList()) {
+          strippedField.addLengthDelimited(strip(fields, messageTypeName, value));
+        }
+        for (var group : field.getGroupList()) {
+          strippedField.addGroup(strip(fields, messageTypeName, group));
+        }
+        field = strippedField.build();
+      }
+
+      strippedMessage.addField(entry.getKey(), field);
+    }
+
+    return strippedMessage.build();
+  }
+
+  private static void addFields(
+      Map<String, Map<Integer, FieldInfo>> fields,
+      Descriptor type
+  ) {
+    var typeFields = fields.computeIfAbsent(type.getFullName(), name -> new HashMap<>());
+    for (var field : type.getFields()) {
+      var messageTypeName = field.getJavaType() == FieldDescriptor.JavaType.MESSAGE
+          ? field.getMessageType().getFullName()
+          : null;
+      typeFields.put(field.getNumber(), new FieldInfo(
+          field.getOptions().getRetention() == OptionRetention.RETENTION_SOURCE,
+          messageTypeName
+      ));
+    }
+    type.getNestedTypes().forEach(nestedType -> addFields(fields, nestedType));
+  }
+
+  private static void addFields(
+      Map<String, Map<Integer, FieldInfo>> fields,
+      String scope,
+      DescriptorProto type
+  ) {
+    var typeName = scope + type.getName();
+    var typeFields = fields.computeIfAbsent(typeName, name -> new HashMap<>());
+    type.getFieldList().forEach(field -> typeFields.put(field.getNumber(), fieldInfo(field)));
+    type.getExtensionList().forEach(extension -> addExtension(fields, extension));
+    type.getNestedTypeList().forEach(nestedType -> addFields(fields, typeName + ".", nestedType));
+  }
+
+  private static void addExtension(
+      Map<String, Map<Integer, FieldInfo>> fields,
+      FieldDescriptorProto extension
+  ) {
+    fields.computeIfAbsent(stripLeadingDot(extension.getExtendee()), name -> new HashMap<>())
+        .put(extension.getNumber(), fieldInfo(extension));
+  }
+
+  private static FieldInfo fieldInfo(FieldDescriptorProto field) {
+    var messageTypeName = field.getType() == FieldDescriptorProto.Type.TYPE_MESSAGE
+        || field.getType() == FieldDescriptorProto.Type.TYPE_GROUP
+        ? stripLeadingDot(field.getTypeName())
+        : null;
+    return new FieldInfo(
+        field.getOptions().getRetention() == OptionRetention.RETENTION_SOURCE,
+        messageTypeName
+    );
+  }
+
+  // Type names within parsed descriptors are fully qualified with a leading dot.
+  private static String stripLeadingDot(String typeName) {
+    return typeName.startsWith(".") ? typeName.substring(1) : typeName;
+  }
+
+  private record FieldInfo(boolean sourceRetention, @Nullable String messageTypeName) {
+  }
+}
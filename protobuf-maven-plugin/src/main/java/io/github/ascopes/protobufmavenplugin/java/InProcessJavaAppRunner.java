@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.java;
+
+import static java.util.Objects.requireNonNullElse;
+
+import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.util.List;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.sisu.Description;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs Java applications within the current JVM, rather than in a new process.
+ *
+ * <p>Each application is loaded into its own classloader that only delegates to the platform
+ * classloader, so that it cannot see or conflict with any classes that Maven or this plugin use.
+ *
+ * <p>The standard streams are global to the JVM, so they are routed to the application on a
+ * per-thread basis by a {@link StandardStreamRouter}.
+ *
+ * <p>Applications must not call {@link System#exit(int)}, as that would terminate Maven.
+ * JVM configuration arguments cannot be applied, and are ignored.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Runs Java applications within the current JVM")
+@MojoExecutionScoped
+@Named
+public final class InProcessJavaAppRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(InProcessJavaAppRunner.class);
+
+  private final JavaAppMainClassResolver mainClassResolver;
+
+  @Inject
+  InProcessJavaAppRunner(JavaAppMainClassResolver mainClassResolver) {
+    this.mainClassResolver = mainClassResolver;
+  }
+
+  /**
+   * Run the given application until its main method returns.
+   *
+   * @param app the application to run.
+   * @param stdin the stream to provide as the standard input.
+   * @param stdout the stream to write the standard output to.
+   * @param stderr the stream to write the standard error to.
+   * @return {@code true} if the main method returned normally, or {@code false} if it could not
+   *     be invoked or raised an exception.
+   * @throws IOException if an IO error occurs loading the application.
+   */
+  public boolean run(
+      JavaApp app,
+      InputStream stdin,
+      OutputStream stdout,
+      OutputStream stderr
+  ) throws IOException {
+    String mainClassName;
+    try {
+      mainClassName = mainClassResolver.determineMainClass(app);
+    } catch (ResolutionException ex) {
+      log.error("Cannot run \"{}\" in-process: {}", app.getUniqueName(), ex.getMessage());
+      return false;
+    }
+
+    if (app.getJvmConfigArgs() != null) {
+      log.debug(
+          "Ignoring JVM configuration arguments for \"{}\" as it runs in-process",
+          app.getUniqueName()
+      );
+    }
+
+    var urls = new URL[app.getDependencies().size()];
+    for (var index = 0; index < urls.length; ++index) {
+      urls[index] = app.getDependencies().get(index).toUri().toURL();
+    }
+
+    var args = requireNonNullElse(app.getJvmArgs(), List.<String>of()).toArray(String[]::new);
+    var charset = Charset.defaultCharset();
+    var out = new PrintStream(stdout, true, charset);
+    var err = new PrintStream(stderr, true, charset);
+
+    var thread = Thread.currentThread();
+    var originalContextClassLoader = thread.getContextClassLoader();
+
+    try (var classLoader = new URLClassLoader(
+        "in-process-" + app.getUniqueName(),
+        urls,
+        ClassLoader.getPlatformClassLoader()
+    )) {
+      var mainMethod = classLoader.loadClass(mainClassName).getMethod("main", String[].class);
+
+      log.debug("Running \"{}\" in-process with main class {}", app.getUniqueName(), mainClassName);
+      thread.setContextClassLoader(classLoader);
+
+      try {
+        StandardStreamRouter.route(stdin, out, err, () -> mainMethod.invoke(null, (Object) args));
+      } finally {
+        thread.setContextClassLoader(originalContextClassLoader);
+      }
+
+      return true;
+
+    } catch (InvocationTargetException ex) {
+      log.error(
+          "\"{}\" raised an exception while running in-process",
+          app.getUniqueName(),
+          ex.getCause()
+      );
+      return false;
+
+    } catch (ReflectiveOperationException | LinkageError ex) {
+      log.error(
+          "Cannot run \"{}\" in-process, failed to load main class {}: {}",
+          app.getUniqueName(),
+          mainClassName,
+          ex.toString()
+      );
+      return false;
+    }
+  }
+}
@@ -38,4 +38,46 @@ public interface JavaApp {
 
   // Null if unset or inferred from MANIFEST.MF.
   @Nullable String getMainClass();
+
+  /**
+   * Whether to create and use an application class data sharing archive for the classes
+   * that the application loads.
+   *
+   * @return the boolean preference.
+   * @since 5.2.0
+   */
+  default boolean isClassDataSharing() {
+    return false;
+  }
+
+  /**
+   * Whether to run the application in a long-lived daemon JVM that is shared between
+   * invocations, rather than starting a new JVM each time.
+   *
+   * @return the boolean preference.
+   * @since 5.2.0
+   */
+  default boolean isDaemon() {
+    return false;
+  }
+
+  /**
+   * How long the daemon may be idle for before it shuts down.
+   *
+   * @return the timeout, in seconds.
+   * @since 5.2.0
+   */
+  default int getDaemonIdleTimeout() {
+    return 600;
+  }
+
+  /**
+   * The maximum number of invocations that the daemon may run at the same time.
+   *
+   * @return the maximum.
+   * @since 5.2.0
+   */
+  default int getDaemonMaxConcurrency() {
+    return 1;
+  }
 }
@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.java;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-lived JVM that runs a Java application on behalf of {@link JavaAppDaemonClient}s, so that
+ * the cost of starting and warming up a JVM is only paid once.
+ *
+ * <p>The daemon listens on a random loopback port, which it writes to a file in its state
+ * directory alongside a random token that clients must present. Each request carries the
+ * standard input for one run of the application's main method, and each response carries the
+ * exit code and the standard output and error that the run produced.
+ *
+ * <p>The daemon exits once it has not received any requests for the configured idle timeout.
+ * Any connections that are still waiting to be accepted at that point are answered with
+ * {@link #RETRY_STATUS} instead of an exit code, so that their clients can retry against a new
+ * daemon.
+ *
+ * <p>This only depends on the JDK, as it runs on a classpath that only contains this plugin.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+public final class JavaAppDaemon {
+
+  static final String CLASSPATH_FILE = "classpath.txt";
+  static final String COMMAND_FILE = "daemon-command.txt";
+  static final String LOCK_FILE = "daemon.lock";
+  static final String LOG_FILE = "daemon.log";
+  static final String PORT_FILE = "daemon.port";
+  static final int RETRY_STATUS = -1;
+
+  private static final int ACCEPT_TIMEOUT_MS = 1_000;
+  private static final int DRAIN_TIMEOUT_MS = 100;
+  private static final int READ_TIMEOUT_MS = 30_000;
+
+  private final Path stateDirectory;
+  private final long idleTimeoutNs;
+  private final String token;
+  private final Method mainMethod;
+  private final String[] args;
+  private final ClassLoader classLoader;
+  private final AtomicInteger activeRequests;
+  private final AtomicLong lastActivityNs;
+
+  private JavaAppDaemon(
+      Path stateDirectory,
+      long idleTimeoutNs,
+      Method mainMethod,
+      String[] args
+  ) {
+    this.stateDirectory = stateDirectory;
+    this.idleTimeoutNs = idleTimeoutNs;
+    this.mainMethod = mainMethod;
+    this.args = args;
+    classLoader = mainMethod.getDeclaringClass().getClassLoader();
+    activeRequests = new AtomicInteger();
+    lastActivityNs = new AtomicLong(System.nanoTime());
+
+    var tokenBytes = new byte[32];
+    new SecureRandom().nextBytes(tokenBytes);
+    token = HexFormat.of().formatHex(tokenBytes);
+  }
+
+  /**
+   * Entrypoint for the daemon.
+   *
+   * @param args the state directory, the idle timeout in seconds, the maximum number of
+   *     concurrent requests, the main class of the application, and then any arguments to pass
+   *     to the application.
+   * @throws Exception if the daemon fails.
+   */
+  public static void main(String[] args) throws Exception {
+    var stateDirectory = Path.of(args[0]);
+    var idleTimeoutNs = TimeUnit.SECONDS.toNanos(Long.parseLong(args[1]));
+    var maxConcurrency = Math.max(Integer.parseInt(args[2]), 1);
+    var mainClassName = args[3];
+    var appArgs = Arrays.copyOfRange(args, 4, args.length);
+
+    var classpath = Files.readAllLines(
+        stateDirectory.resolve(CLASSPATH_FILE),
+        StandardCharsets.UTF_8
+    );
+    var urls = new URL[classpath.size()];
+    for (var index = 0; index < urls.length; ++index) {
+      urls[index] = Path.of(classpath.get(index)).toUri().toURL();
+    }
+
+    // The class loader lives as long as the daemon does.
+    @SuppressWarnings("resource")
+    var classLoader = new URLClassLoader("daemon", urls, ClassLoader.getPlatformClassLoader());
+    var mainMethod = classLoader.loadClass(mainClassName).getMethod("main", String[].class);
+
+    var daemon = new JavaAppDaemon(stateDirectory, idleTimeoutNs, mainMethod, appArgs);
+    daemon.serve(maxConcurrency);
+
+    // The application may have started non-daemon threads that would otherwise keep us alive.
+    System.exit(0);
+  }
+
+  private void serve(int maxConcurrency) throws IOException, InterruptedException {
+    var executor = Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+      var thread = new Thread(runnable);
+      thread.setDaemon(true);
+      thread.setContextClassLoader(classLoader);
+      return thread;
+    });
+
+    try (var serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+      serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MS);
+      writePortFile(serverSocket.getLocalPort());
+      log("Listening on port " + serverSocket.getLocalPort()
+          + " with up to " + maxConcurrency + " concurrent requests");
+
+      while (!isIdle()) {
+        try {
+          var socket = serverSocket.accept();
+          activeRequests.incrementAndGet();
+          executor.execute(() -> handle(socket));
+        } catch (SocketTimeoutException ex) {
+          // Go around again so that we can check whether we are idle.
+        }
+      }
+
+      log("Shutting down after being idle");
+
+      // Clients may have read the port file and connected just before we became idle, so the
+      // kernel will have queued their connections. Stop advertising ourselves, and then tell
+      // any queued clients to retry rather than resetting their connections when we close.
+      deletePortFile();
+      rejectPendingConnections(serverSocket);
+    } finally {
+      deletePortFile();
+      shutdown(executor);
+    }
+  }
+
+  private void rejectPendingConnections(ServerSocket serverSocket) throws IOException {
+    serverSocket.setSoTimeout(DRAIN_TIMEOUT_MS);
+
+    while (true) {
+      Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (SocketTimeoutException ex) {
+        return;
+      }
+      reject(socket);
+    }
+  }
+
+  private void reject(Socket socket) {
+    try (socket) {
+      // Read the request first, as closing a socket with unread input resets the connection,
+      // which may discard our response before the client reads it.
+      socket.setSoTimeout(DRAIN_TIMEOUT_MS);
+      var input = new DataInputStream(socket.getInputStream());
+      var output = new DataOutputStream(socket.getOutputStream());
+      input.readUTF();
+      input.skipNBytes(input.readInt());
+      output.writeInt(RETRY_STATUS);
+      output.flush();
+    } catch (IOException ex) {
+      log("Failed to reject a request while shutting down: " + ex);
+    }
+  }
+
+  private boolean isIdle() {
+    return activeRequests.get() == 0
+        && System.nanoTime() - lastActivityNs.get() > idleTimeoutNs;
+  }
+
+  private void handle(Socket socket) {
+    try (socket) {
+      // Clients send the whole request as soon as they connect, so do not let a connection that
+      // never sends anything hold onto a thread, and keep the daemon alive, indefinitely.
+      socket.setSoTimeout(READ_TIMEOUT_MS);
+      var input = new DataInputStream(socket.getInputStream());
+      var output = new DataOutputStream(socket.getOutputStream());
+
+      if (!token.equals(input.readUTF())) {
+        log("Rejecting a connection that presented an invalid token");
+        return;
+      }
+
+      var stdin = input.readNBytes(input.readInt());
+      var stdout = new ByteArrayOutputStream();
+      var stderr = new ByteArrayOutputStream();
+      var exitCode = run(stdin, stdout, stderr);
+
+      output.writeInt(exitCode);
+      output.writeInt(stdout.size());
+      stdout.writeTo(output);
+      output.writeInt(stderr.size());
+      stderr.writeTo(output);
+      output.flush();
+
+    } catch (IOException ex) {
+      log("Failed to handle a request: " + ex);
+    } finally {
+      lastActivityNs.set(System.nanoTime());
+      activeRequests.decrementAndGet();
+    }
+  }
+
+  private int run(byte[] stdin, ByteArrayOutputStream stdout, ByteArrayOutputStream stderr) {
+    var charset = Charset.defaultCharset();
+    var out = new PrintStream(stdout, true, charset);
+    var err = new PrintStream(stderr, true, charset);
+
+    try {
+      StandardStreamRouter.route(
+          new ByteArrayInputStream(stdin),
+          out,
+          err,
+          () -> mainMethod.invoke(null, (Object) args.clone())
+      );
+      return 0;
+    } catch (InvocationTargetException ex) {
+      var cause = ex.getCause();
+      (cause == null ? ex : cause).printStackTrace(err);
+      return 1;
+    } catch (ReflectiveOperationException | RuntimeException | LinkageError ex) {
+      ex.printStackTrace(err);
+      return 1;
+    }
+  }
+
+  private void writePortFile(int port) throws IOException {
+    // Write the file atomically so that clients never see a partially written file.
+    var portFile = stateDirectory.resolve(PORT_FILE);
+    var temporaryFile = Files.createTempFile(stateDirectory, PORT_FILE, ".tmp");
+    Files.writeString(temporaryFile, port + " " + token + "\n", StandardCharsets.UTF_8);
+    Files.move(temporaryFile, portFile, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private void deletePortFile() throws IOException {
+    // Only delete the file if it still describes us, in case another daemon has replaced us.
+    var portFile = stateDirectory.resolve(PORT_FILE);
+    if (Files.isRegularFile(portFile)
+        && Files.readString(portFile, StandardCharsets.UTF_8).contains(token)) {
+      Files.deleteIfExists(portFile);
+    }
+  }
+
+  private static void shutdown(ExecutorService executor) throws InterruptedException {
+    executor.shutdown();
+    if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void log(String message) {
+    System.out.println(Instant.now() + " " + message);
+  }
+}
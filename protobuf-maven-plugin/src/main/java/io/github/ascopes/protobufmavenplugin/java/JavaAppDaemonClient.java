@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.java;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Lightweight launcher that forwards a single run of a Java application to a
+ * {@link JavaAppDaemon}, starting the daemon first if it is not already running.
+ *
+ * <p>The standard input is sent to the daemon, and the standard output, standard error, and
+ * exit code of the run are relayed back.
+ *
+ * <p>This only depends on the JDK, as it runs on a classpath that only contains this plugin.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+public final class JavaAppDaemonClient {
+
+  private static final int CONNECT_TIMEOUT_MS = 1_000;
+  private static final long START_TIMEOUT_NS = TimeUnit.SECONDS.toNanos(60);
+  private static final long START_POLL_INTERVAL_MS = 50;
+
+  private JavaAppDaemonClient() {
+    // Entrypoint only.
+  }
+
+  /**
+   * Entrypoint for the client.
+   *
+   * @param args the state directory of the daemon.
+   * @throws Exception if the client fails.
+   */
+  public static void main(String[] args) throws Exception {
+    var stateDirectory = Path.of(args[0]);
+    var stdin = System.in.readAllBytes();
+
+    try {
+      // The daemon may be shutting down when we reach it, in which case it either tells us to
+      // retry or drops the connection before responding. Try once more, which will start a new
+      // daemon if the old one has gone.
+      var exitCode = sendRequest(stateDirectory, stdin);
+      if (exitCode == null) {
+        exitCode = sendRequest(stateDirectory, stdin);
+      }
+      if (exitCode == null) {
+        throw new IOException("Daemon shut down before responding to the request");
+      }
+      System.exit(exitCode);
+
+    } catch (IOException ex) {
+      System.err.println(
+          "Failed to run application in daemon at " + stateDirectory + ": " + ex
+              + ". If the application calls System.exit, it cannot be run in a daemon."
+              + " See " + stateDirectory.resolve(JavaAppDaemon.LOG_FILE) + " for details."
+      );
+      System.exit(1);
+    }
+  }
+
+  private static @Nullable Integer sendRequest(
+      Path stateDirectory,
+      byte[] stdin
+  ) throws IOException {
+    try (var connection = connectOrStart(stateDirectory)) {
+      var input = new DataInputStream(connection.socket().getInputStream());
+      var output = new DataOutputStream(connection.socket().getOutputStream());
+      int exitCode;
+
+      try {
+        output.writeUTF(connection.token());
+        output.writeInt(stdin.length);
+        output.write(stdin);
+        output.flush();
+        exitCode = input.readInt();
+      } catch (IOException ex) {
+        // The connection dropped before the daemon responded.
+        return null;
+      }
+
+      if (exitCode == JavaAppDaemon.RETRY_STATUS) {
+        return null;
+      }
+
+      System.out.write(input.readNBytes(input.readInt()));
+      System.out.flush();
+      System.err.write(input.readNBytes(input.readInt()));
+      System.err.flush();
+      return exitCode;
+    }
+  }
+
+  private static Connection connectOrStart(Path stateDirectory) throws IOException {
+    var connection = tryConnect(stateDirectory);
+    if (connection != null) {
+      return connection;
+    }
+
+    // Only let one client start the daemon at a time, otherwise concurrent builds would all
+    // start their own daemon.
+    try (
+        var channel = FileChannel.open(
+            stateDirectory.resolve(JavaAppDaemon.LOCK_FILE),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE
+        )
+    ) {
+      // Released when the channel is closed.
+      channel.lock();
+      connection = tryConnect(stateDirectory);
+      if (connection != null) {
+        return connection;
+      }
+
+      // Anything left over is from a daemon that did not shut down cleanly.
+      Files.deleteIfExists(stateDirectory.resolve(JavaAppDaemon.PORT_FILE));
+      var process = startDaemon(stateDirectory);
+      var deadline = System.nanoTime() + START_TIMEOUT_NS;
+
+      while (System.nanoTime() < deadline) {
+        connection = tryConnect(stateDirectory);
+        if (connection != null) {
+          return connection;
+        }
+        if (!process.isAlive()) {
+          throw new IOException("Daemon exited with code " + process.exitValue());
+        }
+        Thread.sleep(START_POLL_INTERVAL_MS);
+      }
+
+      throw new IOException("Timed out waiting for the daemon to start");
+
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for the daemon to start", ex);
+    }
+  }
+
+  private static Process startDaemon(Path stateDirectory) throws IOException {
+    var command = Files.readAllLines(
+        stateDirectory.resolve(JavaAppDaemon.COMMAND_FILE),
+        StandardCharsets.UTF_8
+    );
+    var logFile = stateDirectory.resolve(JavaAppDaemon.LOG_FILE).toFile();
+
+    // The daemon must not inherit our standard streams, otherwise whatever is reading our
+    // output would wait for the daemon to exit as well.
+    var process = new ProcessBuilder(command)
+        .redirectOutput(Redirect.appendTo(logFile))
+        .redirectErrorStream(true)
+        .start();
+    process.getOutputStream().close();
+    return process;
+  }
+
+  private static @Nullable Connection tryConnect(Path stateDirectory) {
+    int port;
+    String token;
+
+    try {
+      var parts = Files.readString(
+              stateDirectory.resolve(JavaAppDaemon.PORT_FILE),
+              StandardCharsets.UTF_8
+          )
+          .strip()
+          .split(" ", 2);
+      port = Integer.parseInt(parts[0]);
+      token = parts[1];
+    } catch (IOException | RuntimeException ex) {
+      // Either no daemon is running, or the file is from a daemon that did not shut down
+      // cleanly.
+      return null;
+    }
+
+    var socket = new Socket();
+    try {
+      socket.connect(
+          new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+          CONNECT_TIMEOUT_MS
+      );
+      return new Connection(socket, token);
+    } catch (IOException ex) {
+      closeQuietly(socket);
+      return null;
+    }
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException ex) {
+      // Nothing we can do about this.
+    }
+  }
+
+  private record Connection(Socket socket, String token) implements AutoCloseable {
+
+    @Override
+    public void close() throws IOException {
+      socket.close();
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.java;
+
+import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
+import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.Manifest;
+import javax.inject.Named;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.sisu.Description;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Determines the entrypoint class of a Java application.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Determines the main class of Java applications")
+@MojoExecutionScoped
+@Named
+final class JavaAppMainClassResolver {
+
+  private static final Logger log = LoggerFactory.getLogger(JavaAppMainClassResolver.class);
+
+  String determineMainClass(JavaApp app) throws ResolutionException {
+    // GH-363: It appears that we have to avoid calling `java -jar` when running JARs as the
+    // classpath argument is totally ignored by Java in this case, meaning no dependencies
+    // get loaded correctly, and we get NoClassDefFoundErrors being raised for non-shaded JARs.
+    // This means we have to explicitly provide the main class entrypoint due to the way we
+    // have to invoke the java executable, and this in turn means we have to do some sniffing
+    // around to make a best-effort guess at what the main class really is... which is not very
+    // fun.
+
+    if (app.getMainClass() != null) {
+      // The user provided it explicitly in the configuration, so trust their judgement.
+      log.debug("Using user-provided main class for app \"{}\": {}", app, app.getMainClass());
+      return app.getMainClass();
+    }
+
+    var firstPath = app.getDependencies().iterator().next();
+
+    // If we don't have a JAR, we can't really guess the main class, as Maven will not emit
+    // the MANIFEST.MF directly in a place we can see it. I guess we could try and scrape the
+    // POM of the project but that is likely to be awkward and at best flaky due to the numerous
+    // ways this attribute could be injected into any manifest. Let's just keep it simple for now.
+    if (!Files.isDirectory(firstPath)) {
+      var mainClass = tryToDetermineMainClassFromJarManifest(firstPath);
+
+      if (mainClass == null) {
+        // Not my fault! Please provide a Main-Class attribute on the JAR instead...
+        log.warn(
+            "No Main-Class manifest attribute found in \"{}\", this is probably a bug with how that"
+                + " JAR was built",
+            firstPath
+        );
+      } else {
+        log.debug(
+            "Determined main class to be \"{}\" from manifest for \"{}\"",
+            mainClass,
+            firstPath
+        );
+        return mainClass;
+      }
+    }
+
+    throw new ResolutionException(
+        "No main class was described for \""
+            + firstPath
+            + "\", please provide an explicit "
+            + "'mainClass' attribute when configuring this component."
+    );
+  }
+
+  private @Nullable String tryToDetermineMainClassFromJarManifest(
+      Path pluginPath
+  ) throws ResolutionException {
+    try (
+        var zip = FileUtils.openZipAsFileSystem(pluginPath);
+        var manifestInputStream = FileUtils.newBufferedInputStream(
+            zip.getPath("META-INF", "MANIFEST.MF"))
+    ) {
+      return new Manifest(manifestInputStream)
+          .getMainAttributes()
+          .getValue("Main-Class");
+    } catch (IOException ex) {
+      throw new ResolutionException(
+          "Failed to determine the main class in the MANIFEST.MF for JAR corresponding to \""
+              + pluginPath
+              + "\":" + ex,
+          ex
+      );
+    }
+  }
+}
@@ -17,27 +17,33 @@ package io.github.ascopes.protobufmavenplugin.java;
 
 import static java.util.Objects.requireNonNullElse;
 
+import io.github.ascopes.protobufmavenplugin.digests.Digest;
 import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
 import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
 import io.github.ascopes.protobufmavenplugin.system.ArgumentFileBuilder;
 import io.github.ascopes.protobufmavenplugin.system.HostSystem;
 import io.github.ascopes.protobufmavenplugin.system.SystemPathBinaryResolver;
 import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
+import io.github.ascopes.protobufmavenplugin.utils.VisibleForTestingOnly;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.lang.module.ModuleFinder;
 import java.lang.module.ModuleReference;
+import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
-import java.util.jar.Manifest;
 import javax.inject.Inject;
 import javax.inject.Named;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.execution.scope.MojoExecutionScoped;
 import org.eclipse.sisu.Description;
 import org.jspecify.annotations.Nullable;
@@ -65,37 +71,112 @@ final class JavaAppToExecutableScriptFactory implements JavaAppToExecutableFacto
       "-Xms32m",
       "-Xshare:auto"
   );
+  private static final List<String> DAEMON_CLIENT_JVM_ARGS = List.of(
+      "-XX:TieredStopAtLevel=1",
+      "-XX:+TieredCompilation",
+      "-XX:+UseSerialGC",
+      "-Xshare:auto"
+  );
+  private static final List<String> DEFAULT_DAEMON_JVM_ARGS = List.of(
+      "-XX:+CrashOnOutOfMemoryError",
+      "-XX:+TieredCompilation",
+      "-XX:+UseSerialGC",
+      "-Xshare:auto"
+  );
+  private static final String LAUNCH_CACHE_FILE = "launch.cache";
   private static final Logger log = LoggerFactory.getLogger(JavaAppToExecutableScriptFactory.class);
 
   private final HostSystem hostSystem;
   private final TemporarySpace temporarySpace;
   private final SystemPathBinaryResolver pathResolver;
+  private final JavaAppMainClassResolver mainClassResolver;
+  private final Path daemonsDirectory;
 
   @Inject
   JavaAppToExecutableScriptFactory(
       HostSystem hostSystem,
       TemporarySpace temporarySpace,
-      SystemPathBinaryResolver pathResolver
+      SystemPathBinaryResolver pathResolver,
+      JavaAppMainClassResolver mainClassResolver,
+      MavenSession mavenSession
+  ) {
+    this(
+        hostSystem,
+        temporarySpace,
+        pathResolver,
+        mainClassResolver,
+        mavenSession.getRepositorySession()
+            .getLocalRepository()
+            .getBasedir()
+            .toPath()
+            .resolve(".cache")
+            .resolve("protobuf-maven-plugin")
+            .resolve("daemons")
+    );
+  }
+
+  @VisibleForTestingOnly
+  JavaAppToExecutableScriptFactory(
+      HostSystem hostSystem,
+      TemporarySpace temporarySpace,
+      SystemPathBinaryResolver pathResolver,
+      JavaAppMainClassResolver mainClassResolver,
+      Path daemonsDirectory
   ) {
     this.hostSystem = hostSystem;
     this.temporarySpace = temporarySpace;
     this.pathResolver = pathResolver;
+    this.mainClassResolver = mainClassResolver;
+    this.daemonsDirectory = daemonsDirectory;
   }
 
   @Override
   public Path toExecutable(JavaApp app) throws ResolutionException {
-    var argLine = buildArgLine(app);
     var javaPath = hostSystem.getJavaExecutablePath();
     var scratchDir = temporarySpace.createTemporarySpace("java-apps", app.getUniqueName());
+    var script = scratchDir.resolve(hostSystem.isProbablyWindows() ? "invoke.bat" : "invoke.sh");
+
+    var classDataSharing = app.isClassDataSharing() && !app.isDaemon()
+        ? buildClassDataSharing(app, filterJvmConfigArgs(app, DEFAULT_JVM_ARGS))
+        : ClassDataSharing.DISABLED;
+
+    var launchKey = computeLaunchKey(app, javaPath, classDataSharing);
+    var launchCacheFile = scratchDir.resolve(LAUNCH_CACHE_FILE);
+
+    if (launchKey != null && isLaunchCacheValid(launchCacheFile, launchKey)) {
+      log.debug("Reusing cached launch script \"{}\" for JVM app \"{}\"", script, app);
+      return script;
+    }
+
+    // Invalidate the cache before touching anything, so that an interrupted write can never be
+    // mistaken for a complete one on the next build.
+    deleteLaunchCache(launchCacheFile);
+
+    var launchFiles = new ArrayList<Path>();
+    var argLine = app.isDaemon()
+        ? buildDaemonClientArgLine(app, javaPath, launchFiles)
+        : buildArgLine(app, classDataSharing.jvmArgs());
 
     log.debug("Arguments for JVM app \"{}\" are:\n{}", app, argLine);
 
-    return hostSystem.isProbablyWindows()
-        ? writeWindowsScripts(javaPath, scratchDir, argLine)
-        : writePosixScripts(javaPath, scratchDir, argLine);
+    var writtenScript = hostSystem.isProbablyWindows()
+        ? writeWindowsScripts(javaPath, scratchDir, argLine, classDataSharing.archiveToCreate())
+        : writePosixScripts(javaPath, scratchDir, argLine, classDataSharing.archiveToCreate());
+
+    launchFiles.add(writtenScript);
+    launchFiles.add(scratchDir.resolve("args.txt"));
+
+    if (launchKey != null) {
+      writeLaunchCache(launchCacheFile, launchKey, launchFiles);
+    }
+
+    return writtenScript;
   }
 
-  private ArgumentFileBuilder buildArgLine(JavaApp app) throws ResolutionException {
+  private ArgumentFileBuilder buildArgLine(
+      JavaApp app,
+      List<String> classDataSharingArgs
+  ) throws ResolutionException {
     var args = new ArgumentFileBuilder();
 
     // Caveat: we currently ignore the Class-Path JAR manifest entry. Not sure why we would want
@@ -111,14 +192,12 @@ final class JavaAppToExecutableScriptFactory implements JavaAppToExecutableFacto
       args.add(buildJavaPath(modules));
     }
 
-    requireNonNullElse(app.getJvmConfigArgs(), DEFAULT_JVM_ARGS)
-        .stream()
-        .filter(checkValidJvmConfigArg(app))
-        .forEach(args::add);
+    classDataSharingArgs.forEach(args::add);
+    filterJvmConfigArgs(app, DEFAULT_JVM_ARGS).forEach(args::add);
 
     // First dependency is always the entrypoint due to how Aether resolves
     // dependencies internally.
-    args.add(determineMainClass(app));
+    args.add(mainClassResolver.determineMainClass(app));
 
     requireNonNullElse(app.getJvmArgs(), DEFAULT_ARGS)
         .forEach(args::add);
@@ -126,94 +205,308 @@ final class JavaAppToExecutableScriptFactory implements JavaAppToExecutableFacto
     return args;
   }
 
-  private Predicate<String> checkValidJvmConfigArg(JavaApp app) {
-    return arg -> {
-      // JVM args must begin with a hyphen and be greater than zero in size,
-      // otherwise Java may interpret them as being the application entrypoint
-      // class and accidentally clobber the invocation.
-      if (arg.startsWith("-") && arg.length() > 1) {
-        return true;
-      }
+  private List<String> filterJvmConfigArgs(JavaApp app, List<String> defaultJvmConfigArgs) {
+    return requireNonNullElse(app.getJvmConfigArgs(), defaultJvmConfigArgs)
+        .stream()
+        .filter(checkValidJvmConfigArg(app))
+        .toList();
+  }
 
+  // Everything that the rendered scripts depend on. When none of it has changed, the module
+  // scan, manifest lookup and script writes from the previous build can be skipped.
+  private @Nullable String computeLaunchKey(
+      JavaApp app,
+      Path javaPath,
+      ClassDataSharing classDataSharing
+  ) throws ResolutionException {
+    // The contents of directories can change without their own attributes changing, so we
+    // cannot tell whether the module path or main class derived from them is still valid.
+    if (!app.getDependencies().stream().allMatch(Files::isRegularFile)) {
+      log.debug("Not caching the launch script for JVM app \"{}\" as its classpath contains "
+          + "directories", app);
+      return null;
+    }
+
+    // Include our own location, so that upgrading this plugin re-renders the scripts.
+    var description = new StringBuilder();
+    description.append("own=").append(findOwnCodeLocation()).append('\n')
+        .append("java=").append(javaPath).append('\n')
+        .append("windows=").append(hostSystem.isProbablyWindows()).append('\n')
+        .append("mainClass=").append(app.getMainClass()).append('\n')
+        .append("daemon=").append(app.isDaemon()).append('\n');
+
+    if (app.isDaemon()) {
+      description.append("daemonIdleTimeout=").append(app.getDaemonIdleTimeout()).append('\n')
+          .append("daemonMaxConcurrency=").append(app.getDaemonMaxConcurrency()).append('\n');
+    }
+
+    describeArgs("jvmConfigArg", app.getJvmConfigArgs(), description);
+    describeArgs("jvmArg", app.getJvmArgs(), description);
+    classDataSharing.jvmArgs()
+        .forEach(arg -> description.append("cdsArg=").append(arg).append('\n'));
+    description.append("cdsArchiveToCreate=")
+        .append(classDataSharing.archiveToCreate())
+        .append('\n');
+    describeClasspath(app.getDependencies(), description);
+
+    return digest(description);
+  }
+
+  private static void describeArgs(
+      String name,
+      @Nullable List<String> args,
+      StringBuilder description
+  ) {
+    if (args == null) {
+      description.append(name).append("s=default\n");
+    } else {
+      args.forEach(arg -> description.append(name).append('=').append(arg).append('\n'));
+    }
+  }
+
+  // The cache file holds the launch key on the first line, followed by every file that the
+  // launch depends on, so that we notice if any of them get cleaned up.
+  private static boolean isLaunchCacheValid(Path launchCacheFile, String launchKey) {
+    try {
+      var lines = Files.readAllLines(launchCacheFile, StandardCharsets.UTF_8);
+      return !lines.isEmpty()
+          && lines.get(0).equals(launchKey)
+          && lines.stream().skip(1).map(Path::of).allMatch(Files::isRegularFile);
+    } catch (IOException | RuntimeException ex) {
+      log.trace("Launch cache \"{}\" is unusable", launchCacheFile, ex);
+      return false;
+    }
+  }
+
+  private static void deleteLaunchCache(Path launchCacheFile) throws ResolutionException {
+    try {
+      Files.deleteIfExists(launchCacheFile);
+    } catch (IOException ex) {
+      throw new ResolutionException("Failed to delete " + launchCacheFile, ex);
+    }
+  }
+
+  private static void writeLaunchCache(
+      Path launchCacheFile,
+      String launchKey,
+      List<Path> launchFiles
+  ) throws ResolutionException {
+    var lines = new ArrayList<String>();
+    lines.add(launchKey);
+    launchFiles.forEach(file -> lines.add(file.toString()));
+
+    try {
+      writeAtomically(launchCacheFile, lines);
+    } catch (IOException ex) {
+      throw new ResolutionException("Failed to write " + launchCacheFile, ex);
+    }
+  }
+
+  // Dynamic archives hold the classes that the application loads on top of those in the default
+  // JDK archive. The first run writes the archive as the JVM exits, and later runs map it in.
+  private ClassDataSharing buildClassDataSharing(
+      JavaApp app,
+      List<String> jvmConfigArgs
+  ) throws ResolutionException {
+    // The JVM refuses to create archives for classpaths containing non-empty directories, and
+    // reports this on stdout, which would corrupt the response to protoc.
+    if (!app.getDependencies().stream().allMatch(Files::isRegularFile)) {
       log.warn(
-          "Dropping illegal JVM argument \"{}\" for app \"{}\"",
-          arg,
+          "Class data sharing is not supported for JVM app \"{}\" as its classpath contains "
+              + "directories, so it will be disabled",
           app
       );
-      return false;
-    };
-  }
+      return ClassDataSharing.DISABLED;
+    }
 
-  private String determineMainClass(JavaApp app) throws ResolutionException {
-    // GH-363: It appears that we have to avoid calling `java -jar` when running JARs as the
-    // classpath argument is totally ignored by Java in this case, meaning no dependencies
-    // get loaded correctly, and we get NoClassDefFoundErrors being raised for non-shaded JARs.
-    // This means we have to explicitly provide the main class entrypoint due to the way we
-    // have to invoke the java executable, and this in turn means we have to do some sniffing
-    // around to make a best-effort guess at what the main class really is... which is not very
-    // fun.
-
-    if (app.getMainClass() != null) {
-      // The user provided it explicitly in the configuration, so trust their judgement.
-      log.debug("Using user-provided main class for app \"{}\": {}", app, app.getMainClass());
-      return app.getMainClass();
+    var description = new StringBuilder();
+    description.append("java=").append(hostSystem.getJavaExecutablePath()).append('\n');
+    jvmConfigArgs.forEach(arg -> description.append("jvmConfigArg=").append(arg).append('\n'));
+    describeClasspath(app.getDependencies(), description);
+
+    var archiveDir = temporarySpace.createTemporarySpace("java-apps", app.getUniqueName(), "cds");
+    var archive = archiveDir.resolve(digest(description) + ".jsa");
+
+    // CDS reports problems via unified logging, which writes to stdout by default. Plugins
+    // respond to protoc via stdout, so anything logged must go to stderr instead. These come
+    // before any user-provided JVM config arguments so that those can still override them.
+    var args = new ArrayList<String>();
+    args.add("-Xlog:disable");
+    args.add("-Xlog:all=warning:stderr");
+
+    if (Files.isRegularFile(archive)) {
+      log.debug("Using class data sharing archive \"{}\" for JVM app \"{}\"", archive, app);
+      args.add("-XX:SharedArchiveFile=" + archive);
+      return new ClassDataSharing(args, null);
     }
 
-    var firstPath = app.getDependencies().iterator().next();
-
-    // If we don't have a JAR, we can't really guess the main class, as Maven will not emit
-    // the MANIFEST.MF directly in a place we can see it. I guess we could try and scrape the
-    // POM of the project but that is likely to be awkward and at best flaky due to the numerous
-    // ways this attribute could be injected into any manifest. Let's just keep it simple for now.
-    if (!Files.isDirectory(firstPath)) {
-      var mainClass = tryToDetermineMainClassFromJarManifest(firstPath);
-
-      if (mainClass == null) {
-        // Not my fault! Please provide a Main-Class attribute on the JAR instead...
-        log.warn(
-            "No Main-Class manifest attribute found in \"{}\", this is probably a bug with how that"
-                + " JAR was built",
-            firstPath
-        );
-      } else {
-        log.debug(
-            "Determined main class to be \"{}\" from manifest for \"{}\"",
-            mainClass,
-            firstPath
-        );
-        return mainClass;
+    // The launch scripts pass the archive to create to the JVM themselves, as protoc and other
+    // builds may run them concurrently, and each run must write to a path of its own.
+    log.debug("Creating class data sharing archive \"{}\" for JVM app \"{}\"", archive, app);
+    deleteStaleArchives(archiveDir);
+    return new ClassDataSharing(args, archive);
+  }
+
+  private void deleteStaleArchives(Path archiveDir) throws ResolutionException {
+    // Include any archives left behind by runs that were killed before they could promote them.
+    try (var files = Files.newDirectoryStream(archiveDir, "*.{jsa,tmp}")) {
+      for (var file : files) {
+        log.trace("Deleting stale class data sharing archive \"{}\"", file);
+        Files.deleteIfExists(file);
       }
+    } catch (IOException ex) {
+      throw new ResolutionException(
+          "Failed to delete stale class data sharing archives in " + archiveDir, ex);
     }
-
-    throw new ResolutionException(
-        "No main class was described for \""
-            + firstPath
-            + "\", please provide an explicit "
-            + "'mainClass' attribute when configuring this component."
-    );
   }
 
-  private @Nullable String tryToDetermineMainClassFromJarManifest(
-      Path pluginPath
+  // The launcher only runs a small client that forwards the invocation to a daemon JVM,
+  // starting it if needed. Daemons live in the local repository rather than the build
+  // directory, so that they can be shared by every build that uses the same application.
+  private ArgumentFileBuilder buildDaemonClientArgLine(
+      JavaApp app,
+      Path javaPath,
+      List<Path> launchFiles
   ) throws ResolutionException {
-    try (
-        var zip = FileUtils.openZipAsFileSystem(pluginPath);
-        var manifestInputStream = FileUtils.newBufferedInputStream(
-            zip.getPath("META-INF", "MANIFEST.MF"))
-    ) {
-      return new Manifest(manifestInputStream)
-          .getMainAttributes()
-          .getValue("Main-Class");
+    var ownPath = findOwnCodeLocation();
+    var daemonArgs = new ArrayList<String>();
+    daemonArgs.add(javaPath.toString());
+    daemonArgs.add("-classpath");
+    daemonArgs.add(ownPath.toString());
+    daemonArgs.addAll(filterJvmConfigArgs(app, DEFAULT_DAEMON_JVM_ARGS));
+    daemonArgs.add(JavaAppDaemon.class.getName());
+
+    var appArgs = new ArrayList<String>();
+    appArgs.add(Integer.toString(app.getDaemonIdleTimeout()));
+    appArgs.add(Integer.toString(app.getDaemonMaxConcurrency()));
+    appArgs.add(mainClassResolver.determineMainClass(app));
+    appArgs.addAll(requireNonNullElse(app.getJvmArgs(), DEFAULT_ARGS));
+
+    var classpath = app.getDependencies()
+        .stream()
+        .map(FileUtils::normalize)
+        .map(Path::toString)
+        .toList();
+
+    var stateDir = determineDaemonStateDirectory(daemonArgs, appArgs, classpath);
+    daemonArgs.add(stateDir.toString());
+    daemonArgs.addAll(appArgs);
+
+    try {
+      Files.createDirectories(stateDir);
+      restrictToOwner(stateDir);
+      writeAtomically(stateDir.resolve(JavaAppDaemon.CLASSPATH_FILE), classpath);
+      writeAtomically(stateDir.resolve(JavaAppDaemon.COMMAND_FILE), daemonArgs);
+      launchFiles.add(stateDir.resolve(JavaAppDaemon.CLASSPATH_FILE));
+      launchFiles.add(stateDir.resolve(JavaAppDaemon.COMMAND_FILE));
     } catch (IOException ex) {
       throw new ResolutionException(
-          "Failed to determine the main class in the MANIFEST.MF for JAR corresponding to \""
-              + pluginPath
-              + "\":" + ex,
-          ex
+          "An unexpected IO error occurred while preparing a daemon in " + stateDir, ex);
+    }
+
+    log.debug("JVM app \"{}\" will run in the daemon at \"{}\"", app, stateDir);
+
+    var args = new ArgumentFileBuilder();
+    args.add("-classpath");
+    args.add(ownPath.toString());
+    DAEMON_CLIENT_JVM_ARGS.forEach(args::add);
+    args.add(JavaAppDaemonClient.class.getName());
+    args.add(stateDir.toString());
+    return args;
+  }
+
+  private Path determineDaemonStateDirectory(
+      List<String> daemonArgs,
+      List<String> appArgs,
+      List<String> classpath
+  ) throws ResolutionException {
+    var description = new StringBuilder();
+    daemonArgs.forEach(arg -> description.append("daemon=").append(arg).append('\n'));
+    appArgs.forEach(arg -> description.append("app=").append(arg).append('\n'));
+
+    describeClasspath(classpath.stream().map(Path::of).toList(), description);
+
+    return daemonsDirectory.resolve(digest(description));
+  }
+
+  // The state directory holds the token that clients must present to the daemon, and the
+  // command that clients use to start it, so nobody else should be able to read or modify it.
+  private static void restrictToOwner(Path directory) throws IOException {
+    try {
+      Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+    } catch (UnsupportedOperationException ex) {
+      log.trace(
+          "File system holding \"{}\" does not support setting POSIX file permissions, "
+              + "continuing without restricting access",
+          directory
       );
     }
   }
 
+  // Include the size and modification time of each entry, so that rebuilding a dependency
+  // results in a new key rather than reusing anything derived from the old classes.
+  private static void describeClasspath(
+      List<Path> classpath,
+      StringBuilder description
+  ) throws ResolutionException {
+    for (var path : classpath) {
+      description.append("classpath=").append(path).append('\n');
+      try {
+        description.append("size=").append(Files.size(path)).append('\n')
+            .append("modified=").append(Files.getLastModifiedTime(path)).append('\n');
+      } catch (IOException ex) {
+        throw new ResolutionException("Failed to read the attributes of " + path, ex);
+      }
+    }
+  }
+
+  private static String digest(CharSequence description) {
+    return Digest.compute("SHA-256", description.toString()).toHexString().substring(0, 32);
+  }
+
+  private Path findOwnCodeLocation() throws ResolutionException {
+    try {
+      var codeSource = JavaAppDaemon.class.getProtectionDomain().getCodeSource();
+      return FileUtils.normalize(Path.of(codeSource.getLocation().toURI()));
+    } catch (RuntimeException | URISyntaxException ex) {
+      throw new ResolutionException("Failed to determine the location of this plugin", ex);
+    }
+  }
+
+  // Other builds may be reading these files concurrently, so never let them see a partially
+  // written file.
+  private static void writeAtomically(Path file, List<String> lines) throws IOException {
+    var temporaryFile = Files.createTempFile(
+        file.getParent(),
+        file.getFileName().toString(),
+        ".tmp"
+    );
+    try {
+      Files.write(temporaryFile, lines, StandardCharsets.UTF_8);
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  private Predicate<String> checkValidJvmConfigArg(JavaApp app) {
+    return arg -> {
+      // JVM args must begin with a hyphen and be greater than zero in size,
+      // otherwise Java may interpret them as being the application entrypoint
+      // class and accidentally clobber the invocation.
+      if (arg.startsWith("-") && arg.length() > 1) {
+        return true;
+      }
+
+      log.warn(
+          "Dropping illegal JVM argument \"{}\" for app \"{}\"",
+          arg,
+          app
+      );
+      return false;
+    };
+  }
+
   private String buildJavaPath(Iterable<Path> iterable) {
     // Expectation: at least one path is in the iterator.
     var iterator = iterable.iterator();
@@ -244,10 +537,15 @@ final class JavaAppToExecutableScriptFactory implements JavaAppToExecutableFacto
         .toList();
   }
 
+  // When creating a class data sharing archive, each run dumps the archive to a path of its own,
+  // and then promotes it with a rename if no other run has done so already. Renames within a
+  // directory are atomic, so concurrent runs never see or map a partially written archive, and
+  // failing to promote the archive never affects the result of the run itself.
   private Path writePosixScripts(
       Path javaExecutable,
       Path scratchDir,
-      ArgumentFileBuilder argFileBuilder
+      ArgumentFileBuilder argFileBuilder,
+      @Nullable Path archiveToCreate
   ) throws ResolutionException {
     var sh = pathResolver.resolve("sh").orElseThrow();
     var argumentFile = writeArgumentFile(StandardCharsets.UTF_8, scratchDir, argFileBuilder);
@@ -258,10 +556,29 @@ final class JavaAppToExecutableScriptFactory implements JavaAppToExecutableFacto
           .append(sh.toString())
           .append('\n')
           .append("set -o errexit\n");
+
+      if (archiveToCreate == null) {
+        quoteShellArg(writer, javaExecutable.toString());
+        writer.append(' ');
+        quoteShellArg(writer, "@" + argumentFile);
+        writer.append('\n');
+        return;
+      }
+
+      writer.append("archive=");
+      quoteShellArg(writer, archiveToCreate.toString());
+      writer.append('\n')
+          .append("pending=\"${archive}.$$.tmp\"\n")
+          .append("status=0\n");
       quoteShellArg(writer, javaExecutable.toString());
-      writer.append(' ');
+      writer.append(" \"-XX:ArchiveClassesAtExit=${pending}\" ");
       quoteShellArg(writer, "@" + argumentFile);
-      writer.append('\n');
+      writer.append(" || status=$?\n")
+          .append("if [ -f \"${pending}\" ]; then\n")
+          .append("  [ -f \"${archive}\" ] || mv -f \"${pending}\" \"${archive}\" || true\n")
+          .append("  rm -f \"${pending}\"\n")
+          .append("fi\n")
+          .append("exit \"${status}\"\n");
     });
 
     return script;
@@ -270,17 +587,37 @@ final class JavaAppToExecutableScriptFactory implements JavaAppToExecutableFacto
   private Path writeWindowsScripts(
       Path javaExecutable,
       Path scratchDir,
-      ArgumentFileBuilder argFileBuilder
+      ArgumentFileBuilder argFileBuilder,
+      @Nullable Path archiveToCreate
   ) throws ResolutionException {
     var argumentFile = writeArgumentFile(StandardCharsets.ISO_8859_1, scratchDir, argFileBuilder);
 
     var script = scratchDir.resolve("invoke.bat");
     writeAndPropagateExceptions(script, StandardCharsets.ISO_8859_1, false, writer -> {
       writer.append("@echo off\r\n");
+
+      if (archiveToCreate == null) {
+        quoteBatchArg(writer, javaExecutable.toString());
+        writer.append(" ");
+        quoteBatchArg(writer, "@" + argumentFile);
+        writer.append("\r\n");
+        return;
+      }
+
+      // Batch files have no process ID to hand, so use a random suffix instead. Output from
+      // move and del is discarded, as stdout is reserved for the response to protoc.
+      writer.append("setlocal\r\n")
+          .append("set \"archive=").append(archiveToCreate.toString()).append("\"\r\n")
+          .append("set \"pending=%archive%.%RANDOM%%RANDOM%.tmp\"\r\n");
       quoteBatchArg(writer, javaExecutable.toString());
-      writer.append(" ");
+      writer.append(" \"-XX:ArchiveClassesAtExit=%pending%\" ");
       quoteBatchArg(writer, "@" + argumentFile);
-      writer.append("\r\n");
+      writer.append("\r\n")
+          .append("set \"status=%ERRORLEVEL%\"\r\n")
+          .append("if exist \"%pending%\" if not exist \"%archive%\" ")
+          .append("move /Y \"%pending%\" \"%archive%\" >nul 2>&1\r\n")
+          .append("if exist \"%pending%\" del /F /Q \"%pending%\" >nul 2>&1\r\n")
+          .append("exit /b %status%\r\n");
     });
 
     return script;
@@ -347,6 +684,11 @@ final class JavaAppToExecutableScriptFactory implements JavaAppToExecutableFacto
     }
   }
 
+  private record ClassDataSharing(List<String> jvmArgs, @Nullable Path archiveToCreate) {
+
+    static final ClassDataSharing DISABLED = new ClassDataSharing(List.of(), null);
+  }
+
   @FunctionalInterface
   private interface WriteOperation {
 
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.java;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Routes the JVM-wide standard streams on a per-thread basis, so that Java applications can be
+ * run within an existing JVM with their own standard streams.
+ *
+ * <p>While any action is running, the standard streams are replaced with streams that route
+ * reads and writes from the action's thread, and any threads it creates, to the streams it was
+ * given. Everything else continues to use the original streams.
+ *
+ * <p>Each action runs on a new thread, so that the calling thread never routes to the action's
+ * streams. Otherwise, any threads the calling thread created while the action was running, such
+ * as new thread pool workers, would route to them for the rest of their lives. Threads created by
+ * the action itself stop routing to its streams once the action completes.
+ *
+ * <p>This only depends on the JDK, as it is also used by {@link JavaAppDaemon}.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+final class StandardStreamRouter {
+
+  private static final InheritableThreadLocal<@Nullable StandardStreams> currentStreams
+      = new InheritableThreadLocal<>();
+  private static final Object lock = new Object();
+  private static @Nullable StandardStreams originalStreams;
+  private static int activeCount;
+
+  private StandardStreamRouter() {
+    // Static-only class.
+  }
+
+  static void route(
+      InputStream stdin,
+      PrintStream stdout,
+      PrintStream stderr,
+      RoutedAction action
+  ) throws ReflectiveOperationException {
+    var streams = new StandardStreams(stdin, stdout, stderr);
+    var failure = new AtomicReference<@Nullable Throwable>();
+    var thread = new Thread(
+        () -> {
+          currentStreams.set(streams);
+          try {
+            action.run();
+          } catch (ReflectiveOperationException | RuntimeException | Error ex) {
+            failure.set(ex);
+          }
+        },
+        Thread.currentThread().getName() + " (routed)"
+    );
+
+    redirectStreams();
+    try {
+      thread.start();
+      awaitTermination(thread);
+    } finally {
+      streams.finished = true;
+      restoreStreams();
+      stdout.flush();
+      stderr.flush();
+    }
+
+    var ex = failure.get();
+    if (ex instanceof ReflectiveOperationException reflectiveOperationException) {
+      throw reflectiveOperationException;
+    } else if (ex instanceof RuntimeException runtimeException) {
+      throw runtimeException;
+    } else if (ex instanceof Error error) {
+      throw error;
+    }
+  }
+
+  // If we get interrupted, we pass the interrupt on to the action, but still wait for it to
+  // complete, as it would otherwise keep writing to streams that the caller considers finished.
+  private static void awaitTermination(Thread thread) {
+    var interrupted = false;
+    while (thread.isAlive()) {
+      try {
+        thread.join();
+      } catch (InterruptedException ex) {
+        interrupted = true;
+        thread.interrupt();
+      }
+    }
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static PrintStream routingPrintStream(PrintStream original, boolean err) {
+    return new PrintStream(new RoutingOutputStream(original, err), true, Charset.defaultCharset());
+  }
+
+  private static void redirectStreams() {
+    synchronized (lock) {
+      if (activeCount++ == 0) {
+        var original = new StandardStreams(System.in, System.out, System.err);
+        originalStreams = original;
+        System.setIn(new RoutingInputStream(original.in));
+        System.setOut(routingPrintStream(original.out, false));
+        System.setErr(routingPrintStream(original.err, true));
+      }
+    }
+  }
+
+  private static void restoreStreams() {
+    synchronized (lock) {
+      if (--activeCount == 0) {
+        var original = requireNonNull(originalStreams);
+        System.setIn(original.in);
+        System.setOut(original.out);
+        System.setErr(original.err);
+        originalStreams = null;
+      }
+    }
+  }
+
+  // Streams of the action running on the current thread, or null if there is no such action or
+  // it has since completed.
+  private static @Nullable StandardStreams activeStreams() {
+    var streams = currentStreams.get();
+    return streams == null || streams.finished ? null : streams;
+  }
+
+  @FunctionalInterface
+  interface RoutedAction {
+
+    void run() throws ReflectiveOperationException;
+  }
+
+  private static final class StandardStreams {
+    private final InputStream in;
+    private final PrintStream out;
+    private final PrintStream err;
+    private volatile boolean finished;
+
+    private StandardStreams(InputStream in, PrintStream out, PrintStream err) {
+      this.in = in;
+      this.out = out;
+      this.err = err;
+      finished = false;
+    }
+  }
+
+  // Reads from the standard input of the action running on the current thread, if any.
+  private static final class RoutingInputStream extends InputStream {
+    private final InputStream original;
+
+    private RoutingInputStream(InputStream original) {
+      this.original = original;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return target().read();
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      return target().read(buffer, offset, length);
+    }
+
+    @Override
+    public int available() throws IOException {
+      return target().available();
+    }
+
+    private InputStream target() {
+      var streams = activeStreams();
+      return streams == null ? original : streams.in;
+    }
+  }
+
+  // Writes to the standard output or error of the action running on the current thread, if any.
+  private static final class RoutingOutputStream extends OutputStream {
+    private final PrintStream original;
+    private final boolean err;
+
+    private RoutingOutputStream(PrintStream original, boolean err) {
+      this.original = original;
+      this.err = err;
+    }
+
+    @Override
+    public void write(int b) {
+      target().write(b);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) {
+      target().write(buffer, offset, length);
+    }
+
+    @Override
+    public void flush() {
+      target().flush();
+    }
+
+    private PrintStream target() {
+      var streams = activeStreams();
+      if (streams == null) {
+        return original;
+      }
+      return err ? streams.err : streams.out;
+    }
+  }
+}
@@ -28,9 +28,11 @@ import io.github.ascopes.protobufmavenplugin.generation.Language;
 import io.github.ascopes.protobufmavenplugin.generation.OutputDescriptorAttachmentRegistrar;
 import io.github.ascopes.protobufmavenplugin.generation.ProtobufBuildOrchestrator;
 import io.github.ascopes.protobufmavenplugin.generation.SourceRootRegistrar;
+import io.github.ascopes.protobufmavenplugin.generation.cache.RemoteGenerationCacheMode;
 import io.github.ascopes.protobufmavenplugin.plugins.distributions.ProtocPlugin;
 import io.github.ascopes.protobufmavenplugin.protoc.distributions.ProtocDistribution;
 import io.github.ascopes.protobufmavenplugin.utils.DeadCodeGenerated;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
@@ -257,6 +259,40 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
   @Parameter(defaultValue = "false")
   boolean fatalWarnings;
 
+  /**
+   * Directory to cache generated outputs in.
+   *
+   * <p>When set, the outputs of each {@code protoc} invocation are stored in this directory,
+   * keyed by a digest of the {@code protoc} and plugin executables, the arguments and targets,
+   * and the content of every input file. Later builds with identical inputs restore the outputs
+   * from the cache rather than invoking {@code protoc}. Since keys do not depend on where
+   * the project is located, the directory can be shared between multiple branches, worktrees,
+   * and projects on the same machine.
+   *
+   * <p>Leave unspecified to disable the generation cache.
+   *
+   * <p>Example:
+   * <pre>{@code
+   *   <generationCacheDirectory>${user.home}/.m2/protobuf-cache</generationCacheDirectory>
+   * }</pre>
+   *
+   * @see #generationCacheMaxSize
+   * @since 5.2.0
+   */
+  @Parameter(property = "protobuf.generation-cache.directory")
+  @Nullable Path generationCacheDirectory;
+
+  /**
+   * The maximum size of the generation cache, in megabytes.
+   *
+   * <p>Once the cache exceeds this size, the least recently used entries are evicted.
+   *
+   * @see #generationCacheDirectory
+   * @since 5.2.0
+   */
+  @Parameter(defaultValue = "1024", property = "protobuf.generation-cache.max-size")
+  long generationCacheMaxSize;
+
   /**
    * Ignore the {@code <dependencies/>} blocks in the Maven project when discovering {@code *.proto}
    * files to add to the import paths.
@@ -394,6 +430,25 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
   @Parameter(defaultValue = "false")
   boolean kotlinEnabled;
 
+  /**
+   * Only extract the dependency sources that the compilable sources actually import.
+   *
+   * <p>By default, every {@code *.proto} file within every import dependency, import path and
+   * project dependency is extracted, and every one of those locations is passed to
+   * {@code protoc}, even if only a handful of the files are ever imported.
+   *
+   * <p>When enabled, the {@code import} statements of the compilable sources are followed
+   * through the dependencies, and only the files that are reachable are extracted. Locations
+   * that contain nothing reachable are not passed to {@code protoc} at all.
+   *
+   * <p>This has no effect if any {@code sourceDescriptorPaths} or
+   * {@code sourceDescriptorDependencies} are used, as descriptors may depend on anything.
+   *
+   * @since 5.2.0
+   */
+  @Parameter(defaultValue = "false", property = "protobuf.lazy-imports")
+  boolean lazyImports;
+
   /**
    * Generate "lite" messages rather than full messages, where possible.
    *
@@ -418,8 +473,10 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
    * defined by {@code descriptor.proto}) containing all the input files in
    * {@code outputDescriptorFile}.
    *
-   * <p>If this is specified, then incremental compilation will always be disabled
-   * to prevent issues with inconsistent build results.
+   * <p>Since protoc cannot partially update an existing descriptor, if this is specified and
+   * incremental compilation is enabled, then all sources will be recompiled if anything has
+   * changed, or if the descriptor file was modified or deleted since the last build. Prior to
+   * v5.2.0, incremental compilation was always disabled when this was specified.
    *
    * @see #outputDescriptorAttached
    * @since 2.9.0
@@ -523,6 +580,23 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
   @Parameter
   @Nullable List<ProtocPlugin> plugins;
 
+  /**
+   * Only overwrite generated files if their content has changed.
+   *
+   * <p>When enabled, {@code protoc} writes generated files to a staging directory first, and
+   * only files whose content differs from the existing output are moved into the output
+   * directories. Files with unchanged content keep their original modification times, which
+   * allows the {@code maven-compiler-plugin} and IDEs to avoid recompiling or reindexing them.
+   *
+   * <p>If {@code cleanOutputDirectories} is also enabled, then rather than clearing the output
+   * directories before the build, any files that {@code protoc} did not generate are deleted
+   * after the build.
+   *
+   * @since 5.2.0
+   */
+  @Parameter(defaultValue = "false")
+  boolean preserveUnchangedOutputs;
+
   /**
    * Optional digest to verify {@code protoc} against.
    *
@@ -537,6 +611,90 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
   @Parameter(property = "protobuf.compiler.digest")
   @Nullable Digest protocDigest;
 
+  /**
+   * Invoke plugins directly, rather than having {@code protoc} invoke them.
+   *
+   * <p>By default, {@code protoc} parses every source and its imports, then passes the result
+   * to each plugin. Enabling this has {@code protoc} parse the sources once into a descriptor
+   * set, which is then passed to each plugin directly, running several plugins concurrently.
+   *
+   * <p>The parsed sources are kept between builds, so if only the plugin configuration changes,
+   * {@code protoc} does not need to parse anything again, and is not invoked at all unless any
+   * languages or an {@code outputDescriptorFile} are enabled.
+   *
+   * <p>Plugins run after all languages have been generated, in ascending {@code order}. Plugins
+   * can use insertion points in files generated by languages or by plugins with a lower
+   * {@code order} in the same output directory.
+   *
+   * @see #protocMaxProcesses
+   * @since 5.2.0
+   */
+  @Parameter(defaultValue = "false", property = "protobuf.compiler.direct-plugin-invocation")
+  boolean protocDirectPluginInvocation;
+
+  /**
+   * The maximum number of {@code protoc} processes to run at the same time.
+   *
+   * <p>This only has an effect if {@code protocShardSize}, {@code protocParallelTargets}, or
+   * {@code protocDirectPluginInvocation} is set. When invoking plugins directly, this also
+   * limits how many plugins run at the same time.
+   *
+   * <p>If set to zero, the number of available processors is used.
+   *
+   * @see #protocDirectPluginInvocation
+   * @see #protocParallelTargets
+   * @see #protocShardSize
+   * @since 5.2.0
+   */
+  @Parameter(defaultValue = "0", property = "protobuf.compiler.max-processes")
+  int protocMaxProcesses;
+
+  /**
+   * Run independent generators in separate, concurrent {@code protoc} processes.
+   *
+   * <p>By default, a single {@code protoc} process runs every enabled language and plugin one
+   * after the other. When several plugins are enabled, especially JVM-based plugins, enabling
+   * this makes generation take as long as the slowest generator rather than the sum of all of
+   * them.
+   *
+   * <p>The built-in language generators, and any plugins that declare an explicit
+   * {@code order}, still run together in a single process so that their relative ordering is
+   * respected. Every other plugin, and the {@code outputDescriptorFile}, is produced by a
+   * process of its own.
+   *
+   * <p>This can be combined with {@code protocShardSize}.
+   *
+   * @see #protocMaxProcesses
+   * @since 5.2.0
+   */
+  @Parameter(defaultValue = "false")
+  boolean protocParallelTargets;
+
+  /**
+   * The maximum number of sources to pass to each {@code protoc} process.
+   *
+   * <p>By default, {@code protoc} is invoked once with every source to compile, which only
+   * makes use of a single processor. Setting this to a positive number splits the sources into
+   * shards of at most this size, and compiles each shard in a separate {@code protoc} process,
+   * running several processes concurrently. This can greatly speed up generation for modules
+   * with thousands of sources.
+   *
+   * <p>Sources that import each other are kept in the same shard where possible. Descriptor
+   * files configured with {@code outputDescriptorFile} are still produced from all sources by a
+   * separate process.
+   *
+   * <p>Only enable this if all configured plugins generate outputs for each source
+   * independently. Plugins that produce a single aggregated output from all of their inputs
+   * will only see the sources in each shard.
+   *
+   * <p>If set to zero, sharding is disabled.
+   *
+   * @see #protocMaxProcesses
+   * @since 5.2.0
+   */
+  @Parameter(defaultValue = "0", property = "protobuf.compiler.shard-size")
+  int protocShardSize;
+
   /**
    * The distribution of {@code protoc} to use.
    *
@@ -662,6 +820,57 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
   @Parameter(defaultValue = "true")
   boolean registerAsCompilationRoot;
 
+  /**
+   * How the remote generation cache may be used.
+   *
+   * <p>Supported values:
+   *
+   * <ul>
+   *   <li><code>READ_ONLY</code> - only restore outputs from the remote cache.</li>
+   *   <li><code>READ_WRITE</code> - restore outputs from the remote cache, and upload any
+   *       outputs that had to be generated locally.</li>
+   * </ul>
+   *
+   * <p>Typically, only a trusted CI job should use <code>READ_WRITE</code>.
+   *
+   * @see #remoteGenerationCacheUrl
+   * @since 5.2.0
+   */
+  @Parameter(defaultValue = "READ_ONLY", property = "protobuf.remote-generation-cache.mode")
+  RemoteGenerationCacheMode remoteGenerationCacheMode;
+
+  /**
+   * The timeout for requests to the remote generation cache, in seconds.
+   *
+   * <p>If a request times out, outputs are generated locally instead.
+   *
+   * @see #remoteGenerationCacheUrl
+   * @since 5.2.0
+   */
+  @Parameter(defaultValue = "10", property = "protobuf.remote-generation-cache.timeout")
+  int remoteGenerationCacheTimeout;
+
+  /**
+   * Base URL of a remote HTTP server to cache generated outputs on.
+   *
+   * <p>When set, outputs are fetched with {@code GET} requests to
+   * {@code <remoteGenerationCacheUrl>/<key>.zip} before {@code protoc} is invoked, where the key
+   * is computed in the same way as for the {@code generationCacheDirectory}. If the
+   * {@code remoteGenerationCacheMode} is <code>READ_WRITE</code>, outputs that had to be
+   * generated locally are then uploaded with {@code PUT} requests to the same location.
+   *
+   * <p>Any failure to reach the server results in the outputs being generated locally instead.
+   * The remote cache is not used when Maven is running in offline mode.
+   *
+   * <p>Leave unspecified to disable the remote generation cache.
+   *
+   * @see #remoteGenerationCacheMode
+   * @see #remoteGenerationCacheTimeout
+   * @since 5.2.0
+   */
+  @Parameter(property = "protobuf.remote-generation-cache.url")
+  @Nullable URI remoteGenerationCacheUrl;
+
   /**
    * Generate Ruby sources from the protobuf sources.
    *
@@ -895,11 +1104,14 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
         .failOnMissingSources(failOnMissingSources)
         .failOnMissingTargets(failOnMissingTargets)
         .fatalWarnings(fatalWarnings)
+        .generationCacheDirectory(generationCacheDirectory)
+        .generationCacheMaxSize(generationCacheMaxSize)
         .ignoreProjectDependencies(ignoreProjectDependencies)
         .importDependencies(nonNullList(importDependencies))
         .importPaths(determinePaths(importPaths, List::of))
         .includes(nonNullList(includes))
         .incrementalCompilationEnabled(incrementalCompilation)
+        .lazyImports(lazyImports)
         .liteEnabled(liteOnly)
         .outputDescriptorAttached(outputDescriptorAttached)
         .outputDescriptorAttachmentClassifier(outputDescriptorAttachmentClassifier)
@@ -910,10 +1122,18 @@ public abstract class AbstractGenerateMojo extends AbstractMojo {
         .outputDescriptorIncludeSourceInfo(outputDescriptorIncludeSourceInfo)
         .outputDescriptorRetainOptions(outputDescriptorRetainOptions)
         .outputDirectory(outputDirectory())
+        .preserveUnchangedOutputs(preserveUnchangedOutputs)
         .protocDigest(protocDigest)
+        .protocDirectPluginInvocation(protocDirectPluginInvocation)
+        .protocMaxProcesses(protocMaxProcesses)
+        .protocParallelTargets(protocParallelTargets)
+        .protocShardSize(protocShardSize)
         .protocPlugins(nonNullList(plugins))
         .protoc(protoc())
         .registerAsCompilationRoot(registerAsCompilationRoot)
+        .remoteGenerationCacheMode(remoteGenerationCacheMode)
+        .remoteGenerationCacheTimeout(remoteGenerationCacheTimeout)
+        .remoteGenerationCacheUrl(remoteGenerationCacheUrl)
         .sanctionedExecutablePath(sanctionedExecutablePath)
         .sourceDependencies(nonNullList(sourceDependencies))
         .sourceDescriptorDependencies(nonNullList(sourceDescriptorDependencies))
@@ -31,6 +31,7 @@ import io.github.ascopes.protobufmavenplugin.plugins.distributions.PathProtocPlu
 import io.github.ascopes.protobufmavenplugin.plugins.distributions.ProtocPlugin;
 import io.github.ascopes.protobufmavenplugin.plugins.distributions.UriProtocPlugin;
 import io.github.ascopes.protobufmavenplugin.system.ConcurrentExecutor;
+import io.github.ascopes.protobufmavenplugin.system.SessionResolutionCache;
 import io.github.ascopes.protobufmavenplugin.system.SystemPathBinaryResolver;
 import io.github.ascopes.protobufmavenplugin.urls.UriResourceFetcher;
 import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
@@ -38,6 +39,7 @@ import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -73,6 +75,7 @@ public final class ProtocPluginResolver {
   private final SystemPathBinaryResolver systemPathResolver;
   private final UriResourceFetcher urlResourceFetcher;
   private final JavaAppToExecutableFactory javaAppToExecutableFactory;
+  private final SessionResolutionCache sessionResolutionCache;
 
   @Inject
   ProtocPluginResolver(
@@ -81,7 +84,8 @@ public final class ProtocPluginResolver {
       PlatformClassifierFactory platformClassifierFactory,
       SystemPathBinaryResolver systemPathResolver,
       UriResourceFetcher urlResourceFetcher,
-      JavaAppToExecutableFactory javaAppToExecutableFactory
+      JavaAppToExecutableFactory javaAppToExecutableFactory,
+      SessionResolutionCache sessionResolutionCache
   ) {
     this.concurrentExecutor = concurrentExecutor;
     this.artifactPathResolver = artifactPathResolver;
@@ -89,6 +93,7 @@ public final class ProtocPluginResolver {
     this.systemPathResolver = systemPathResolver;
     this.urlResourceFetcher = urlResourceFetcher;
     this.javaAppToExecutableFactory = javaAppToExecutableFactory;
+    this.sessionResolutionCache = sessionResolutionCache;
   }
 
   public Collection<ResolvedProtocPlugin> resolvePlugins(
@@ -172,7 +177,14 @@ public final class ProtocPluginResolver {
   ) throws ResolutionException {
 
     log.debug("Resolving binary path protoc plugin \"{}\"", plugin);
-    var maybePath = systemPathResolver.resolve(plugin.getName());
+    Optional<Path> maybePath = sessionResolutionCache.computeIfAbsent(
+        Arrays.asList("path-plugin", plugin.getName(), plugin.getDigest()),
+        () -> verifyDigestIfPresent(
+            plugin.getName(),
+            systemPathResolver.resolve(plugin.getName()),
+            plugin.getDigest()
+        )
+    );
 
     if (maybePath.isEmpty() && plugin.isOptional()) {
       return Optional.empty();
@@ -182,7 +194,6 @@ public final class ProtocPluginResolver {
         "No plugin named \"" + plugin.getName() + "\" was found on the system path"
     ));
 
-    verifyDigest(plugin.getName(), path, plugin.getDigest());
     var id = computeId(path, index);
     return Optional.of(createResolvedProtocPlugin(plugin, defaultOutputDirectory, path, id));
   }
@@ -194,7 +205,14 @@ public final class ProtocPluginResolver {
   ) throws ResolutionException {
     log.debug("Resolving binary URL protoc plugin \"{}\"", plugin);
 
-    var maybePath = urlResourceFetcher.fetchFileFromUri(plugin.getUrl(), ".exe", true);
+    Optional<Path> maybePath = sessionResolutionCache.computeIfAbsent(
+        Arrays.asList("url-plugin", plugin.getUrl(), plugin.getDigest()),
+        () -> verifyDigestIfPresent(
+            plugin.getUrl().toString(),
+            urlResourceFetcher.fetchFileFromUri(plugin.getUrl(), ".exe", true, plugin.getDigest()),
+            plugin.getDigest()
+        )
+    );
 
     if (maybePath.isEmpty() && plugin.isOptional()) {
       return Optional.empty();
@@ -204,7 +222,6 @@ public final class ProtocPluginResolver {
         "Plugin at " + plugin.getUrl() + " does not exist"
     ));
 
-    verifyDigest(plugin.getUrl().toString(), path, plugin.getDigest());
     var id = computeId(path, index);
     return Optional.of(createResolvedProtocPlugin(plugin, defaultOutputDirectory, path, id));
   }
@@ -219,6 +236,16 @@ public final class ProtocPluginResolver {
         plugin
     );
 
+    if (plugin.isInProcess()) {
+      // Nothing stops the plugin from calling System.exit when it runs within the Maven JVM.
+      log.warn(
+          "Protoc plugin \"{}\" will run in-process within the Maven JVM. Only use this for "
+              + "plugins known to return from their main method, as a plugin that calls "
+              + "System.exit will terminate the entire Maven build",
+          plugin
+      );
+    }
+
     try {
       var dependencies = artifactPathResolver
           .resolveDependencies(
@@ -234,15 +261,34 @@ public final class ProtocPluginResolver {
 
       var app = ImmutableJavaApp.builder()
           .addAllDependencies(dependencies)
+          .classDataSharing(plugin.isClassDataSharing())
+          .daemon(plugin.isDaemon())
+          .daemonIdleTimeout(plugin.getDaemonIdleTimeout())
+          .daemonMaxConcurrency(plugin.getDaemonMaxConcurrency())
           .jvmArgs(plugin.getJvmArgs())
           .jvmConfigArgs(plugin.getJvmConfigArgs())
           .mainClass(plugin.getMainClass())
           .uniqueName(id)
           .build();
 
-      var path = javaAppToExecutableFactory.toExecutable(app);
-
-      return Optional.of(createResolvedProtocPlugin(plugin, defaultOutputDirectory, path, id));
+      // The unique name only determines where the scripts are written, so executions that
+      // only differ by plugin index can share them. Scripts using class data sharing change once
+      // the archive has been created, so those are always regenerated.
+      var path = plugin.isClassDataSharing()
+          ? javaAppToExecutableFactory.toExecutable(app)
+          : sessionResolutionCache.computeIfAbsent(
+              List.of(
+                  "jvm-plugin",
+                  ImmutableJavaApp.builder().from(app).uniqueName("").build()
+              ),
+              () -> javaAppToExecutableFactory.toExecutable(app)
+          );
+
+      return Optional.of(ImmutableResolvedProtocPlugin.builder()
+          .from(createResolvedProtocPlugin(plugin, defaultOutputDirectory, path, id))
+          .inProcess(plugin.isInProcess())
+          .javaApp(app)
+          .build());
     } catch (ResolutionException ex) {
       throw new ResolutionException("Failed to resolve protoc plugin " + plugin + ": " + ex, ex);
     }
@@ -257,6 +303,7 @@ public final class ProtocPluginResolver {
     return ImmutableResolvedProtocPlugin
         .builder()
         .id(id)
+        .aggregating(plugin.isAggregating())
         .options(plugin.getOptions())
         .order(plugin.getOrder())
         .outputDirectory(requireNonNullElse(plugin.getOutputDirectory(), defaultOutputDirectory))
@@ -268,6 +315,17 @@ public final class ProtocPluginResolver {
     return index + "_" + Digest.compute("SHA-1", path.toString()).toHexString();
   }
 
+  private Optional<Path> verifyDigestIfPresent(
+      String name,
+      Optional<Path> maybeFile,
+      @Nullable Digest digest
+  ) throws ResolutionException {
+    if (maybeFile.isPresent()) {
+      verifyDigest(name, maybeFile.get(), digest);
+    }
+    return maybeFile;
+  }
+
   private void verifyDigest(String name, Path file, @Nullable Digest digest)
       throws ResolutionException {
 
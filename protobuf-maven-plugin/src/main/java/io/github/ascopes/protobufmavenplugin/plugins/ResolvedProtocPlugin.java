@@ -15,6 +15,7 @@
  */
 package io.github.ascopes.protobufmavenplugin.plugins;
 
+import io.github.ascopes.protobufmavenplugin.java.JavaApp;
 import java.nio.file.Path;
 import java.util.Optional;
 import org.immutables.value.Value.Immutable;
@@ -39,5 +40,36 @@ public interface ResolvedProtocPlugin {
 
   Optional<Boolean> getRegisterAsCompilationRoot();
 
+  /**
+   * Whether the plugin produces outputs that aggregate every input, such as documentation
+   * generators, meaning it must always be given every source file.
+   *
+   * @return the boolean preference.
+   * @since 5.2.0
+   */
+  default boolean isAggregating() {
+    return false;
+  }
+
   Path getPath();
+
+  /**
+   * The Java application that the executable at {@link #getPath()} launches, if this is a
+   * JVM-based plugin.
+   *
+   * @return the Java application, or an empty optional if this is not a JVM-based plugin.
+   * @since 5.2.0
+   */
+  Optional<JavaApp> getJavaApp();
+
+  /**
+   * Whether to run the {@link #getJavaApp() Java application} within the current JVM when
+   * plugins are invoked directly.
+   *
+   * @return the boolean preference.
+   * @since 5.2.0
+   */
+  default boolean isInProcess() {
+    return false;
+  }
 }
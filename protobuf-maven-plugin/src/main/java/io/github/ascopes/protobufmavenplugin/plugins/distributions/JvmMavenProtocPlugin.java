@@ -48,6 +48,28 @@ public abstract non-sealed class JvmMavenProtocPlugin
   // Null if unset or inferred from MANIFEST.MF.
   public abstract @Nullable String getMainClass();
 
+  public boolean isClassDataSharing() {
+    return false;
+  }
+
+  public boolean isDaemon() {
+    return false;
+  }
+
+  // Seconds.
+  public int getDaemonIdleTimeout() {
+    return 600;
+  }
+
+  public int getDaemonMaxConcurrency() {
+    return 1;
+  }
+
+  // Only has an effect when plugins are invoked directly.
+  public boolean isInProcess() {
+    return false;
+  }
+
   @DeadCodeGenerated(reason = "Must be provided to keep immutables happy.")
   @Override
   public String toString() {
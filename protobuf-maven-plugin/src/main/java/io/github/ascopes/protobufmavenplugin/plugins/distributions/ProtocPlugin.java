@@ -42,6 +42,12 @@ public sealed interface ProtocPlugin
     return 0;
   }
 
+  // Plugins that produce outputs from every input at once must always be given every input,
+  // so are never partially recompiled.
+  default boolean isAggregating() {
+    return false;
+  }
+
   default boolean isSkip() {
     return false;
   }
@@ -22,6 +22,7 @@ import io.github.ascopes.protobufmavenplugin.protoc.targets.PluginProtocTarget;
 import io.github.ascopes.protobufmavenplugin.protoc.targets.ProtocTarget;
 import io.github.ascopes.protobufmavenplugin.protoc.targets.SanctionedExecutableTransformer;
 import io.github.ascopes.protobufmavenplugin.system.ArgumentFileBuilder;
+import io.github.ascopes.protobufmavenplugin.system.ConcurrentExecutor;
 import io.github.ascopes.protobufmavenplugin.system.HostSystem;
 import io.github.ascopes.protobufmavenplugin.utils.TeeWriter;
 import java.io.IOException;
@@ -29,6 +30,10 @@ import java.io.InterruptedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -51,27 +56,91 @@ public final class ProtocExecutor {
   private final HostSystem hostSystem;
   private final TemporarySpace temporarySpace;
   private final SanctionedExecutableTransformer sanctionedExecutablePathTransformer;
+  private final ConcurrentExecutor concurrentExecutor;
+  private final AtomicInteger argumentFileCounter;
 
   @Inject
   public ProtocExecutor(
       HostSystem hostSystem,
       TemporarySpace temporarySpace,
-      SanctionedExecutableTransformer sanctionedExecutablePathTransformer
+      SanctionedExecutableTransformer sanctionedExecutablePathTransformer,
+      ConcurrentExecutor concurrentExecutor
   ) {
     this.hostSystem = hostSystem;
     this.temporarySpace = temporarySpace;
     this.sanctionedExecutablePathTransformer = sanctionedExecutablePathTransformer;
+    this.concurrentExecutor = concurrentExecutor;
+    argumentFileCounter = new AtomicInteger();
   }
 
   public boolean invoke(ProtocInvocation invocation) throws IOException {
+    return invokeAll(List.of(invocation), 1);
+  }
+
+  /**
+   * Invoke {@code protoc} once for each of the given invocations, running several processes
+   * concurrently.
+   *
+   * @param invocations the invocations.
+   * @param maxProcesses the maximum number of processes to run at the same time.
+   * @return {@code true} if every invocation succeeded, or {@code false} if any failed.
+   * @throws IOException if an IO error occurs.
+   * @since 5.2.0
+   */
+  public boolean invokeAll(
+      List<ProtocInvocation> invocations,
+      int maxProcesses
+  ) throws IOException {
     // In locked down corporate environments, ensure executables are placed in an allowed location
     // such that we can invoke them successfully.
     //
     // We do this here as usually our sources will be all over the place. Some might be on
     // the system path, some might be in target/ in the temporary space, some may be in the
     // local Maven repository.
-    invocation = sanctionedExecutablePathTransformer.transform(invocation);
+    //
+    // This copies executables, so we do this for every invocation before starting any
+    // processes, otherwise we might replace an executable that is already running.
+    var transformedInvocations = new ArrayList<ProtocInvocation>();
+    for (var invocation : invocations) {
+      transformedInvocations.add(sanctionedExecutablePathTransformer.transform(invocation));
+    }
+
+    if (transformedInvocations.size() == 1) {
+      return invokeTransformed(transformedInvocations.get(0));
+    }
+
+    log.info(
+        "Invoking protoc {} times, running up to {} at a time",
+        transformedInvocations.size(),
+        maxProcesses
+    );
+
+    var permits = new Semaphore(Math.max(maxProcesses, 1));
+    var results = transformedInvocations.stream()
+        .map(invocation -> concurrentExecutor.submit(() -> {
+          permits.acquire();
+          try {
+            return invokeTransformed(invocation);
+          } finally {
+            permits.release();
+          }
+        }))
+        .collect(concurrentExecutor.awaiting());
+
+    var failureCount = results.stream().filter(result -> !result).count();
+    if (failureCount > 0) {
+      log.error(
+          "{} of {} protoc invocations failed, see the errors above for details",
+          failureCount,
+          results.size()
+      );
+      return false;
+    }
+
+    return true;
+  }
 
+  private boolean invokeTransformed(ProtocInvocation invocation) throws IOException {
     var argumentFileBuilder = createArgumentFileBuilder(invocation);
     var argumentFile = writeArgumentFile(argumentFileBuilder);
 
@@ -175,7 +244,10 @@ public final class ProtocExecutor {
   }
 
   private Path writeArgumentFile(ArgumentFileBuilder argumentFileBuilder) throws IOException {
-    var file = temporarySpace.createTemporarySpace("protoc").resolve("args.txt");
+    // Each invocation gets its own argument file, as invocations may run concurrently.
+    var file = temporarySpace
+        .createTemporarySpace("protoc", Integer.toString(argumentFileCounter.getAndIncrement()))
+        .resolve("args.txt");
     log.debug("Writing to protoc argument file at \"{}\"", file);
 
     var writer = new TeeWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.protoc;
+
+import static java.util.Objects.requireNonNull;
+
+import io.github.ascopes.protobufmavenplugin.protoc.targets.DescriptorFileProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.LanguageProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.PluginProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.ProtocTarget;
+import io.github.ascopes.protobufmavenplugin.sources.ProtoImportScanner;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import javax.inject.Named;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.sisu.Description;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits a single {@code protoc} invocation into several smaller invocations that can be run
+ * concurrently.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Splits protoc invocations into smaller invocations that can run concurrently")
+@MojoExecutionScoped
+@Named
+public final class ProtocInvocationPartitioner {
+
+  private static final Logger log = LoggerFactory.getLogger(ProtocInvocationPartitioner.class);
+
+  /**
+   * Split the targets of the given invocation into separate invocations.
+   *
+   * <p>The built-in language generators are fast, so they are kept together in a single
+   * invocation. Plugins that declare an explicit order may depend on the outputs of other
+   * generators (e.g. via insertion points), which only works within a single invocation, so they
+   * are kept in the same invocation as the built-in language generators, preserving their order.
+   * Every other plugin, and any descriptor file, gets its own invocation, since their relative
+   * order is undefined anyway.
+   *
+   * @param invocation the invocation to split.
+   * @return the invocations to run.
+   */
+  public List<ProtocInvocation> partitionByTargets(ProtocInvocation invocation) {
+    var orderedTargets = new TreeSet<ProtocTarget>();
+    var independentTargets = new ArrayList<ProtocTarget>();
+
+    for (var target : invocation.getTargets()) {
+      if (target instanceof LanguageProtocTarget || target.getOrder() != 0) {
+        orderedTargets.add(target);
+      } else {
+        independentTargets.add(target);
+      }
+    }
+
+    var invocations = new ArrayList<ProtocInvocation>();
+
+    if (!orderedTargets.isEmpty()) {
+      invocations.add(withTargets(invocation, orderedTargets));
+    }
+
+    for (var target : independentTargets) {
+      invocations.add(withTargets(invocation, new TreeSet<>(List.of(target))));
+    }
+
+    log.debug(
+        "Split {} targets into {} protoc invocations",
+        invocation.getTargets().size(),
+        invocations.size()
+    );
+
+    return List.copyOf(invocations);
+  }
+
+  /**
+   * Split the sources of the given invocation into shards of at most the given size.
+   *
+   * <p>Sources that import each other are kept within the same shard where possible, so that
+   * each {@code protoc} process parses as few files outside its own shard as possible. Groups
+   * of related sources that are larger than the shard size are split in declaration order.
+   *
+   * <p>Descriptor files, and plugins that aggregate every source into their outputs, are always
+   * produced by a separate invocation that includes every source, since each shard would
+   * otherwise overwrite those outputs with only its own sources.
+   *
+   * @param invocation the invocation to split.
+   * @param shardSize the maximum number of sources per shard, or zero to disable sharding.
+   * @return the invocations to run.
+   * @throws IOException if an IO error occurs reading the sources.
+   */
+  public List<ProtocInvocation> partitionBySources(
+      ProtocInvocation invocation,
+      int shardSize
+  ) throws IOException {
+    var sourceCount = invocation.getSourcePaths().size()
+        + invocation.getDescriptorSourceFiles().size();
+
+    if (shardSize <= 0 || sourceCount <= shardSize) {
+      return List.of(invocation);
+    }
+
+    var generatorTargets = new TreeSet<ProtocTarget>();
+    var aggregatingTargets = new TreeSet<ProtocTarget>();
+    for (var target : invocation.getTargets()) {
+      if (isAggregating(target)) {
+        aggregatingTargets.add(target);
+      } else {
+        generatorTargets.add(target);
+      }
+    }
+
+    var invocations = new ArrayList<ProtocInvocation>();
+
+    if (!generatorTargets.isEmpty()) {
+      var sourceShards = pack(groupRelatedSources(invocation), shardSize);
+      for (var sourceShard : sourceShards) {
+        invocations.add(ImmutableProtocInvocation.builder()
+            .from(invocation)
+            .sourcePaths(sourceShard)
+            .descriptorSourceFiles(List.of())
+            .targets(generatorTargets)
+            .build());
+      }
+
+      // We have no cheap way of knowing how sources within descriptors relate to each other,
+      // so we just split them in declaration order.
+      var descriptorSourceShards = pack(
+          invocation.getDescriptorSourceFiles().stream().map(List::of).toList(),
+          shardSize
+      );
+      for (var descriptorSourceShard : descriptorSourceShards) {
+        invocations.add(ImmutableProtocInvocation.builder()
+            .from(invocation)
+            .sourcePaths(List.of())
+            .descriptorSourceFiles(descriptorSourceShard)
+            .targets(generatorTargets)
+            .build());
+      }
+    }
+
+    if (!aggregatingTargets.isEmpty()) {
+      invocations.add(withTargets(invocation, aggregatingTargets));
+    }
+
+    log.debug(
+        "Split {} sources into {} protoc invocations with at most {} sources each",
+        sourceCount,
+        invocations.size(),
+        shardSize
+    );
+
+    return List.copyOf(invocations);
+  }
+
+  private static boolean isAggregating(ProtocTarget target) {
+    return target instanceof DescriptorFileProtocTarget
+        || (target instanceof PluginProtocTarget pluginTarget
+            && pluginTarget.getPlugin().isAggregating());
+  }
+
+  private static ProtocInvocation withTargets(
+      ProtocInvocation invocation,
+      SortedSet<ProtocTarget> targets
+  ) {
+    return ImmutableProtocInvocation.builder()
+        .from(invocation)
+        .targets(targets)
+        .build();
+  }
+
+  // Groups sources into the connected components of their import graph, preserving the order
+  // that sources were declared in.
+  private Collection<List<Path>> groupRelatedSources(
+      ProtocInvocation invocation
+  ) throws IOException {
+    var sourcesByImportName = new HashMap<String, Path>();
+    for (var sourcePath : invocation.getSourcePaths()) {
+      for (var importPath : invocation.getImportPaths()) {
+        if (sourcePath.startsWith(importPath)) {
+          var importName = ProtoImportScanner.importNameOf(importPath, sourcePath);
+          sourcesByImportName.put(importName, sourcePath);
+          break;
+        }
+      }
+    }
+
+    var components = new DisjointSets();
+
+    for (var sourcePath : invocation.getSourcePaths()) {
+      components.add(sourcePath);
+      var content = Files.readString(sourcePath, StandardCharsets.UTF_8);
+
+      for (var importName : ProtoImportScanner.scanImports(content)) {
+        var importedSourcePath = sourcesByImportName.get(importName);
+        if (importedSourcePath != null) {
+          components.add(importedSourcePath);
+          components.union(sourcePath, importedSourcePath);
+        }
+      }
+    }
+
+    var groups = new LinkedHashMap<Path, List<Path>>();
+    for (var sourcePath : invocation.getSourcePaths()) {
+      groups.computeIfAbsent(components.find(sourcePath), root -> new ArrayList<>())
+          .add(sourcePath);
+    }
+    return groups.values();
+  }
+
+  // Packs groups into shards without splitting groups unless they exceed the shard size on
+  // their own.
+  private static <T> List<List<T>> pack(Collection<List<T>> groups, int shardSize) {
+    var shards = new ArrayList<List<T>>();
+    var currentShard = new ArrayList<T>();
+
+    for (var group : groups) {
+      if (!currentShard.isEmpty() && currentShard.size() + group.size() > shardSize) {
+        shards.add(List.copyOf(currentShard));
+        currentShard.clear();
+      }
+
+      for (var item : group) {
+        if (currentShard.size() == shardSize) {
+          shards.add(List.copyOf(currentShard));
+          currentShard.clear();
+        }
+        currentShard.add(item);
+      }
+    }
+
+    if (!currentShard.isEmpty()) {
+      shards.add(List.copyOf(currentShard));
+    }
+
+    return shards;
+  }
+
+  // Minimal union-find structure over paths.
+  private static final class DisjointSets {
+    private final Map<Path, Path> parents = new HashMap<>();
+
+    private void add(Path path) {
+      parents.putIfAbsent(path, path);
+    }
+
+    private Path find(Path path) {
+      var root = path;
+      var parent = requireParent(root);
+      while (!parent.equals(root)) {
+        root = parent;
+        parent = requireParent(root);
+      }
+
+      // Compress the path so that later lookups are faster.
+      var current = path;
+      while (!current.equals(root)) {
+        current = requireNonNull(parents.put(current, root));
+      }
+      return root;
+    }
+
+    private void union(Path first, Path second) {
+      var firstRoot = find(first);
+      var secondRoot = find(second);
+      if (!firstRoot.equals(secondRoot)) {
+        parents.put(secondRoot, firstRoot);
+      }
+    }
+
+    private Path requireParent(Path path) {
+      return requireNonNull(parents.get(path));
+    }
+  }
+}
@@ -24,11 +24,13 @@ import io.github.ascopes.protobufmavenplugin.protoc.distributions.ImmutableBinar
 import io.github.ascopes.protobufmavenplugin.protoc.distributions.PathProtocDistribution;
 import io.github.ascopes.protobufmavenplugin.protoc.distributions.ProtocDistribution;
 import io.github.ascopes.protobufmavenplugin.protoc.distributions.UriProtocDistribution;
+import io.github.ascopes.protobufmavenplugin.system.SessionResolutionCache;
 import io.github.ascopes.protobufmavenplugin.system.SystemPathBinaryResolver;
 import io.github.ascopes.protobufmavenplugin.urls.UriResourceFetcher;
 import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Optional;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -54,23 +56,42 @@ public final class ProtocResolver {
   private final PlatformClassifierFactory platformClassifierFactory;
   private final SystemPathBinaryResolver systemPathResolver;
   private final UriResourceFetcher urlResourceFetcher;
+  private final SessionResolutionCache sessionResolutionCache;
 
   @Inject
   public ProtocResolver(
       MavenArtifactPathResolver artifactPathResolver,
       PlatformClassifierFactory platformClassifierFactory,
       SystemPathBinaryResolver systemPathResolver,
-      UriResourceFetcher urlResourceFetcher
+      UriResourceFetcher urlResourceFetcher,
+      SessionResolutionCache sessionResolutionCache
   ) {
     this.artifactPathResolver = artifactPathResolver;
     this.platformClassifierFactory = platformClassifierFactory;
     this.systemPathResolver = systemPathResolver;
     this.urlResourceFetcher = urlResourceFetcher;
+    this.sessionResolutionCache = sessionResolutionCache;
   }
 
   public Optional<Path> resolve(
       ProtocDistribution distribution,
       @Nullable Digest digest
+  ) throws ResolutionException {
+    // Maven distributions are already shared by the artifact resolver, and their keys here would
+    // not account for the remote repositories of the current project.
+    if (distribution instanceof BinaryMavenProtocDistribution) {
+      return resolveUncached(distribution, digest);
+    }
+
+    return sessionResolutionCache.computeIfAbsent(
+        Arrays.asList("protoc", distribution, digest),
+        () -> resolveUncached(distribution, digest)
+    );
+  }
+
+  private Optional<Path> resolveUncached(
+      ProtocDistribution distribution,
+      @Nullable Digest digest
   ) throws ResolutionException {
     Optional<Path> maybePath;
 
@@ -107,7 +128,12 @@ public final class ProtocResolver {
   private Optional<Path> resolveUriDistribution(
       UriProtocDistribution distribution
   ) throws ResolutionException {
-    var maybePath = urlResourceFetcher.fetchFileFromUri(distribution.getUrl(), ".exe", true);
+    var maybePath = urlResourceFetcher.fetchFileFromUri(
+        distribution.getUrl(),
+        ".exe",
+        true,
+        distribution.getDigest()
+    );
 
     verifyDigest(
         distribution.getUrl().toString(),
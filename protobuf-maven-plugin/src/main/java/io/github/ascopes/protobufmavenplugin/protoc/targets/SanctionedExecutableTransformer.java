@@ -16,6 +16,7 @@
 package io.github.ascopes.protobufmavenplugin.protoc.targets;
 
 import io.github.ascopes.protobufmavenplugin.fs.AbstractTemporaryLocationProvider;
+import io.github.ascopes.protobufmavenplugin.fs.ExecutableStore;
 import io.github.ascopes.protobufmavenplugin.plugins.ImmutableResolvedProtocPlugin;
 import io.github.ascopes.protobufmavenplugin.protoc.ImmutableProtocInvocation;
 import io.github.ascopes.protobufmavenplugin.protoc.ProtocInvocation;
@@ -60,14 +61,17 @@ public final class SanctionedExecutableTransformer extends AbstractTemporaryLoca
   private static final Logger log = LoggerFactory.getLogger(SanctionedExecutableTransformer.class);
 
   private final MavenProject mavenProject;
+  private final ExecutableStore executableStore;
 
   @Inject
   public SanctionedExecutableTransformer(
       MavenProject mavenProject,
-      MojoExecution mojoExecution
+      MojoExecution mojoExecution,
+      ExecutableStore executableStore
   ) {
     super(mojoExecution);
     this.mavenProject = mavenProject;
+    this.executableStore = executableStore;
   }
 
   public ProtocInvocation transform(ProtocInvocation protocInvocation) throws IOException {
@@ -109,7 +113,9 @@ public final class SanctionedExecutableTransformer extends AbstractTemporaryLoca
 
     for (var target : invocation.getTargets()) {
       if (target instanceof PluginProtocTarget pluginTarget) {
-        var prefix = "plugin-" + transformedTargets.size() + "-";
+        // Plugin IDs are unique, so the same plugin always gets the same name, even when it
+        // is only used by some of several invocations.
+        var prefix = "plugin-" + pluginTarget.getPlugin().getId() + "-";
 
         target = ImmutablePluginProtocTarget.builder()
             .from(pluginTarget)
@@ -137,6 +143,27 @@ public final class SanctionedExecutableTransformer extends AbstractTemporaryLoca
   ) throws IOException {
     var newFile = sanctionedPath.resolve(prefix + existingFile.getFileName().toString());
 
+    // Executables from the shared executable store are never modified in place, so a hard link
+    // is as good as a copy, and avoids duplicating large binaries. Anything else, such as a
+    // binary on the system path, may be modified in place, which a hard link would propagate
+    // to the sanctioned copy. Links cannot span file systems, and are not supported everywhere,
+    // so fall back to copying if we have to.
+    if (executableStore.contains(existingFile)) {
+      try {
+        var realFile = existingFile.toRealPath();
+        Files.deleteIfExists(newFile);
+        log.debug("Linking \"{}\" to \"{}\"", realFile, newFile);
+        return Files.createLink(newFile, realFile);
+      } catch (IOException | UnsupportedOperationException ex) {
+        log.debug(
+            "Failed to link \"{}\" to \"{}\", will copy it instead",
+            existingFile,
+            newFile,
+            ex
+        );
+      }
+    }
+
     log.debug("Copying \"{}\" to \"{}\"", existingFile, newFile);
 
     return Files.copy(
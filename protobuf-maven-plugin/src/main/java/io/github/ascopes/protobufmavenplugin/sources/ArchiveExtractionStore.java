@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources;
+
+import io.github.ascopes.protobufmavenplugin.digests.Digest;
+import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
+import io.github.ascopes.protobufmavenplugin.utils.VisibleForTestingOnly;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.sisu.Description;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Store of proto files extracted from archives, shared between every goal, execution and module
+ * on the machine.
+ *
+ * <p>Each entry holds the selected proto files of one archive, and is keyed by the location,
+ * size and modification time of the archive, and the names of the selected files. Entries are
+ * populated in a temporary directory that is then atomically moved into place, and are never
+ * modified afterwards, so they can safely be read by concurrent builds.
+ *
+ * <p>Builds do not use the entries directly. Instead, each build links the entry into its own
+ * build directory, so paths reported by {@code protoc} still point within the build, and
+ * {@code mvn clean} does not discard the extracted files.
+ *
+ * <p>Only archives within the local Maven repository that are not snapshots are stored, as these
+ * never change once installed. Anything else, such as reactor artifacts and snapshots, may be
+ * rebuilt repeatedly, and would add a new entry each time, so it is extracted directly into the
+ * build directory instead. This bounds the size of the store by the archives in the local
+ * repository.
+ *
+ * <p>The store lives in {@code .cache/protobuf-maven-plugin/archives} within the local Maven
+ * repository, and can be deleted at any time while no builds are running.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Stores proto files extracted from archives in a location shared between builds")
+@MojoExecutionScoped
+@Named
+final class ArchiveExtractionStore {
+
+  private static final String LOCK_EXTENSION = ".lock";
+  private static final Logger log = LoggerFactory.getLogger(ArchiveExtractionStore.class);
+
+  private final Path localRepository;
+  private final Path storeDirectory;
+
+  @Inject
+  ArchiveExtractionStore(MavenSession mavenSession) {
+    this(mavenSession.getRepositorySession().getLocalRepository().getBasedir().toPath());
+  }
+
+  private ArchiveExtractionStore(Path localRepository) {
+    this(
+        localRepository,
+        localRepository.resolve(".cache").resolve("protobuf-maven-plugin").resolve("archives")
+    );
+  }
+
+  @VisibleForTestingOnly
+  ArchiveExtractionStore(Path localRepository, Path storeDirectory) {
+    this.localRepository = FileUtils.normalize(localRepository);
+    this.storeDirectory = storeDirectory;
+  }
+
+  /**
+   * Extract the given entries of an archive, reusing a previous extraction where possible.
+   *
+   * @param archive the path to the archive.
+   * @param zipFile the opened archive.
+   * @param entries the entries to extract.
+   * @param linkRoot the directory within the build to make the extracted files visible in.
+   * @return the paths of the extracted files within {@code linkRoot}.
+   * @throws IOException if an IO error occurs.
+   */
+  List<Path> extract(
+      Path archive,
+      ZipFile zipFile,
+      List<ZipEntry> entries,
+      Path linkRoot
+  ) throws IOException {
+    if (!isStorable(archive)) {
+      log.debug(
+          "Extracting {} file(s) from \"{}\" to \"{}\", as the archive may change between builds",
+          entries.size(),
+          archive,
+          linkRoot
+      );
+
+      // Never follows symbolic links, so this cannot delete anything within the store.
+      FileUtils.deleteTree(linkRoot);
+      return FileUtils.extractZipEntries(zipFile, entries.stream(), linkRoot);
+    }
+
+    var entryRoot = storeDirectory.resolve(
+        FileUtils.getFileNameWithoutExtension(archive) + "-" + computeKey(archive, entries)
+    );
+
+    if (isComplete(entryRoot, entries)) {
+      log.debug("Reusing files extracted from \"{}\" at \"{}\"", archive, entryRoot);
+    } else {
+      populate(zipFile, entries, entryRoot);
+    }
+
+    link(entryRoot, linkRoot, entries);
+
+    var linkedFiles = new ArrayList<Path>();
+    for (var entry : entries) {
+      linkedFiles.add(FileUtils.resolveZipEntry(linkRoot, entry.getName()));
+    }
+    return Collections.unmodifiableList(linkedFiles);
+  }
+
+  private boolean isStorable(Path archive) {
+    var normalizedArchive = FileUtils.normalize(archive);
+    if (!normalizedArchive.startsWith(localRepository)) {
+      return false;
+    }
+
+    // Artifacts are stored in a directory named after their version.
+    var versionDirectory = normalizedArchive.getParent();
+    return versionDirectory != null
+        && !versionDirectory.getFileName().toString().endsWith("-SNAPSHOT");
+  }
+
+  private void populate(
+      ZipFile zipFile,
+      List<ZipEntry> entries,
+      Path entryRoot
+  ) throws IOException {
+    log.debug(
+        "Extracting {} file(s) from \"{}\" to \"{}\"",
+        entries.size(),
+        zipFile.getName(),
+        entryRoot
+    );
+
+    Files.createDirectories(storeDirectory);
+    var temporaryRoot = Files.createTempDirectory(
+        storeDirectory,
+        entryRoot.getFileName() + ".tmp"
+    );
+
+    try {
+      FileUtils.extractZipEntries(zipFile, entries.stream(), temporaryRoot);
+
+      // This only fails if something is already in place, which is usually a complete entry
+      // that another build has just moved into place, and must be kept for that build to use.
+      try {
+        Files.move(temporaryRoot, entryRoot, StandardCopyOption.ATOMIC_MOVE);
+        return;
+      } catch (IOException ex) {
+        if (isComplete(entryRoot, entries)) {
+          log.debug("Files for \"{}\" were extracted by another build", entryRoot);
+          return;
+        }
+        log.debug("Found an incomplete entry at \"{}\", will replace it", entryRoot, ex);
+      }
+
+      // Entries are only incomplete if something else modified them, or a build was killed
+      // while replacing one. Only one build at a time may replace them, and only once it has
+      // confirmed that no other build has already done so.
+      var lockFile = storeDirectory.resolve(entryRoot.getFileName() + LOCK_EXTENSION);
+      FileUtils.withFileLock(lockFile, () -> {
+        if (isComplete(entryRoot, entries)) {
+          log.debug("Files for \"{}\" were extracted by another build", entryRoot);
+        } else {
+          FileUtils.deleteTree(entryRoot);
+          Files.move(temporaryRoot, entryRoot, StandardCopyOption.ATOMIC_MOVE);
+        }
+      });
+    } finally {
+      FileUtils.deleteTree(temporaryRoot);
+    }
+  }
+
+  private static void link(
+      Path entryRoot,
+      Path linkRoot,
+      List<ZipEntry> entries
+  ) throws IOException {
+    if (Files.isSymbolicLink(linkRoot) && Files.readSymbolicLink(linkRoot).equals(entryRoot)) {
+      return;
+    }
+
+    // Never follows symbolic links, so this cannot delete anything within the store.
+    FileUtils.deleteTree(linkRoot);
+    Files.createDirectories(linkRoot.getParent());
+
+    try {
+      Files.createSymbolicLink(linkRoot, entryRoot);
+      return;
+    } catch (IOException | UnsupportedOperationException ex) {
+      // Usually the case on Windows, where creating symbolic links requires extra privileges.
+      log.debug(
+          "Failed to create symbolic link \"{}\" to \"{}\", linking files individually instead",
+          linkRoot,
+          entryRoot,
+          ex
+      );
+    }
+
+    for (var entry : entries) {
+      var storedFile = FileUtils.resolveZipEntry(entryRoot, entry.getName());
+      var linkedFile = FileUtils.resolveZipEntry(linkRoot, entry.getName());
+      Files.createDirectories(linkedFile.getParent());
+
+      try {
+        Files.createLink(linkedFile, storedFile);
+      } catch (IOException | UnsupportedOperationException ex) {
+        log.trace("Failed to hard link \"{}\", copying it instead", linkedFile, ex);
+        Files.copy(storedFile, linkedFile, StandardCopyOption.COPY_ATTRIBUTES);
+      }
+    }
+  }
+
+  private static boolean isComplete(Path entryRoot, List<ZipEntry> entries) throws IOException {
+    if (!Files.isDirectory(entryRoot)) {
+      return false;
+    }
+
+    for (var entry : entries) {
+      if (!Files.isRegularFile(FileUtils.resolveZipEntry(entryRoot, entry.getName()))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static String computeKey(Path archive, List<ZipEntry> entries) throws IOException {
+    // Digesting the whole archive on every build would cost more than reusing the extraction
+    // saves, so key on its attributes instead, as ArchiveScanIndex does.
+    var normalizedArchive = FileUtils.normalize(archive);
+    var attributes = Files.readAttributes(normalizedArchive, BasicFileAttributes.class);
+
+    // The selected entries stand in for the filter, as two filters selecting the same entries
+    // produce identical extractions.
+    var key = new StringBuilder()
+        .append(normalizedArchive.toUri().toASCIIString()).append('\n')
+        .append(attributes.size()).append('\n')
+        .append(attributes.lastModifiedTime().toMillis());
+    entries.stream()
+        .map(ZipEntry::getName)
+        .sorted()
+        .forEach(name -> key.append('\n').append(name));
+
+    return Digest.compute("SHA-256", key.toString()).toHexString();
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources;
+
+import io.github.ascopes.protobufmavenplugin.digests.Digest;
+import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
+import io.github.ascopes.protobufmavenplugin.utils.VisibleForTestingOnly;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.sisu.Description;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent index of the proto files found within each scanned archive.
+ *
+ * <p>Most project dependencies contain no proto files at all, yet each one would otherwise be
+ * opened and walked on every build. Entries are keyed by the location of the archive, and record
+ * the size and modification time of the archive alongside the proto files. Any change to the
+ * archive results in it being scanned again, and its entry being overwritten, so the index holds
+ * at most one entry per archive.
+ *
+ * <p>The index lives in {@code .cache/protobuf-maven-plugin/archive-index} within the local
+ * Maven repository, and is shared between every build on the machine. Failures to read or
+ * write the index are never fatal, they only result in the archive being scanned.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Remembers which proto files are present within previously scanned archives")
+@MojoExecutionScoped
+@Named
+final class ArchiveScanIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(ArchiveScanIndex.class);
+
+  private final Path indexDirectory;
+
+  @Inject
+  ArchiveScanIndex(MavenSession mavenSession) {
+    this(mavenSession.getRepositorySession()
+        .getLocalRepository()
+        .getBasedir()
+        .toPath()
+        .resolve(".cache")
+        .resolve("protobuf-maven-plugin")
+        .resolve("archive-index"));
+  }
+
+  @VisibleForTestingOnly
+  ArchiveScanIndex(Path indexDirectory) {
+    this.indexDirectory = indexDirectory;
+  }
+
+  /**
+   * Look up the proto files that were previously found within the given archive.
+   *
+   * @param archive the archive.
+   * @return the paths of the proto files relative to the root of the archive, which may be
+   *     empty if the archive contains no proto files, or an empty optional if the archive has
+   *     not been scanned since it last changed.
+   */
+  Optional<List<String>> lookup(Path archive) {
+    try {
+      var entry = entryFor(archive);
+      if (entry.isEmpty()) {
+        return Optional.empty();
+      }
+
+      var lines = Files.readAllLines(entry.get(), StandardCharsets.UTF_8);
+      if (lines.isEmpty() || !lines.get(0).equals(stampOf(archive))) {
+        log.trace("Archive \"{}\" has changed since it was last indexed", archive);
+        return Optional.empty();
+      }
+
+      var protoFiles = List.copyOf(lines.subList(1, lines.size()));
+      log.trace("Found {} indexed proto file(s) in \"{}\"", protoFiles.size(), archive);
+      return Optional.of(protoFiles);
+
+    } catch (NoSuchFileException ex) {
+      log.trace("Archive \"{}\" has not been indexed yet", archive);
+      return Optional.empty();
+    } catch (IOException ex) {
+      log.debug("Failed to read the archive index for \"{}\", ignoring", archive, ex);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Record the proto files found within the given archive.
+   *
+   * @param archive the archive.
+   * @param protoFiles the paths of the proto files relative to the root of the archive.
+   */
+  void store(Path archive, List<String> protoFiles) {
+    try {
+      var entry = entryFor(archive);
+      if (entry.isEmpty()) {
+        return;
+      }
+
+      Files.createDirectories(indexDirectory);
+
+      // Move the complete entry into place so concurrent builds never read a partial entry.
+      var temporaryEntry = Files.createTempFile(
+          indexDirectory,
+          entry.get().getFileName().toString(),
+          ".tmp"
+      );
+      try {
+        var lines = new ArrayList<String>();
+        lines.add(stampOf(archive));
+        lines.addAll(protoFiles);
+        Files.write(temporaryEntry, lines, StandardCharsets.UTF_8);
+        Files.move(
+            temporaryEntry,
+            entry.get(),
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING
+        );
+      } finally {
+        Files.deleteIfExists(temporaryEntry);
+      }
+
+      log.trace("Indexed {} proto file(s) in \"{}\"", protoFiles.size(), archive);
+    } catch (IOException ex) {
+      log.debug("Failed to write the archive index for \"{}\", ignoring", archive, ex);
+    }
+  }
+
+  private Optional<Path> entryFor(Path archive) {
+    // Archives nested within other file systems have no stable identity that we can key on.
+    if (!archive.getFileSystem().equals(FileSystems.getDefault())) {
+      return Optional.empty();
+    }
+
+    var location = FileUtils.normalize(archive).toUri().toASCIIString();
+    return Optional.of(
+        indexDirectory.resolve(Digest.compute("SHA-256", location).toHexString() + ".txt")
+    );
+  }
+
+  private static String stampOf(Path archive) throws IOException {
+    var attributes = Files.readAttributes(
+        FileUtils.normalize(archive),
+        BasicFileAttributes.class
+    );
+    return attributes.size() + " " + attributes.lastModifiedTime().toMillis();
+  }
+}
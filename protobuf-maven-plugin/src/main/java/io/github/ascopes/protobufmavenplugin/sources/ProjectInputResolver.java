@@ -22,6 +22,8 @@ import io.github.ascopes.protobufmavenplugin.sources.filter.FileFilter;
 import io.github.ascopes.protobufmavenplugin.sources.filter.IncludesExcludesGlobFilter;
 import io.github.ascopes.protobufmavenplugin.sources.filter.ProtoFileFilter;
 import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.stream.Stream;
 import javax.inject.Inject;
@@ -61,10 +63,17 @@ public final class ProjectInputResolver {
   ) throws ResolutionException {
     var filter = new IncludesExcludesGlobFilter(request.getIncludes(), request.getExcludes());
 
+    var compilableDescriptorFiles = resolveCompilableDescriptorSources(request, filter);
+    var compilableProtoSources = resolveCompilableProtoSources(request, filter);
+
     var listing = ImmutableProjectInputListing.builder()
-        .compilableDescriptorFiles(resolveCompilableDescriptorSources(request, filter))
-        .compilableProtoSources(resolveCompilableProtoSources(request, filter))
-        .dependencyProtoSources(resolveDependencyProtoSources(request))
+        .compilableDescriptorFiles(compilableDescriptorFiles)
+        .compilableProtoSources(compilableProtoSources)
+        .dependencyProtoSources(resolveDependencyProtoSources(
+            request,
+            compilableDescriptorFiles,
+            compilableProtoSources
+        ))
         .build();
 
     log.trace("Created project input listing \"{}\"", listing);
@@ -103,7 +112,9 @@ public final class ProjectInputResolver {
   }
 
   private Collection<SourceListing> resolveDependencyProtoSources(
-      GenerationRequest request
+      GenerationRequest request,
+      Collection<DescriptorListing> compilableDescriptorFiles,
+      Collection<SourceListing> compilableProtoSources
   ) throws ResolutionException {
     // We purposely do not filter by includes/excludes on the request
     // here as we still want everything on the proto path to be visible,
@@ -122,9 +133,35 @@ public final class ProjectInputResolver {
         .distinct()
         .toList();
 
+    if (request.isLazyImports()) {
+      if (compilableDescriptorFiles.isEmpty()) {
+        return resolveImportClosure(compilableProtoSources, importPaths);
+      }
+
+      // We cannot tell what descriptors that are not self-contained need from the import
+      // paths without parsing them, so keep everything visible.
+      log.debug("Resolving all import paths as compilable descriptor files are present");
+    }
+
     return sourceResolver.resolveSources(importPaths, filter);
   }
 
+  private Collection<SourceListing> resolveImportClosure(
+      Collection<SourceListing> compilableProtoSources,
+      Collection<Path> importPaths
+  ) throws ResolutionException {
+    log.debug("Resolving only the dependency protobuf sources that are reachable from imports");
+
+    try {
+      return sourceResolver.resolveImportClosure(compilableProtoSources, importPaths);
+    } catch (IOException ex) {
+      throw new ResolutionException(
+          "Failed to resolve the protobuf sources reachable from imports: " + ex,
+          ex
+      );
+    }
+  }
+
   private Collection<DescriptorListing> resolveCompilableDescriptorSources(
       GenerationRequest request,
       FileFilter filter
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources;
+
+import io.github.ascopes.protobufmavenplugin.utils.DeadCodeGenerated;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Lightweight scanner that discovers the {@code import} statements within a {@code *.proto}
+ * source file without fully parsing it.
+ *
+ * <p>This is deliberately lenient, and may report imports that {@code protoc} would reject. This
+ * is fine for our use cases, where over-reporting only results in doing more work than needed.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+public final class ProtoImportScanner {
+
+  private static final Pattern IMPORT_PATTERN = Pattern.compile(
+      "(?:^|(?<=[;}]))\\s*import\\s+(?:(?:public|weak|option)\\s+)?"
+          + "(?:\"([^\"]*)\"|'([^']*)')\\s*;"
+  );
+
+  @DeadCodeGenerated(reason = "static-only class")
+  private ProtoImportScanner() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Scan the given proto source for imports.
+   *
+   * @param source the proto source content.
+   * @return the import names, in the order they were declared.
+   */
+  public static Set<String> scanImports(CharSequence source) {
+    var matcher = IMPORT_PATTERN.matcher(stripComments(source));
+    var imports = new LinkedHashSet<String>();
+
+    while (matcher.find()) {
+      var name = matcher.group(1) == null
+          ? matcher.group(2)
+          : matcher.group(1);
+      imports.add(name);
+    }
+
+    return Collections.unmodifiableSet(imports);
+  }
+
+  /**
+   * Determine the name that other proto sources would use to import the given file.
+   *
+   * @param sourceRoot the source root that the file resides in.
+   * @param sourceFile the file.
+   * @return the import name, using forward slashes as separators.
+   */
+  public static String importNameOf(Path sourceRoot, Path sourceFile) {
+    var name = new StringBuilder();
+    for (var part : sourceRoot.relativize(sourceFile)) {
+      if (name.length() > 0) {
+        name.append('/');
+      }
+      name.append(part);
+    }
+    return name.toString();
+  }
+
+  // Replace comments with whitespace so that commented-out imports are ignored, and so
+  // that comments between tokens do not prevent us matching anything. String literals are
+  // retained as-is, as comment markers within them are not comments.
+  private static CharSequence stripComments(CharSequence source) {
+    var result = new StringBuilder(source.length());
+    var length = source.length();
+    var index = 0;
+
+    while (index < length) {
+      var current = source.charAt(index);
+      var next = index + 1 < length ? source.charAt(index + 1) : '\0';
+
+      if (current == '/' && next == '/') {
+        while (index < length && source.charAt(index) != '\n') {
+          ++index;
+        }
+        result.append(' ');
+      } else if (current == '/' && next == '*') {
+        index += 2;
+        while (index < length
+            && !(source.charAt(index) == '*'
+            && index + 1 < length
+            && source.charAt(index + 1) == '/')) {
+          ++index;
+        }
+        index += 2;
+        result.append(' ');
+      } else if (current == '"' || current == '\'') {
+        result.append(current);
+        ++index;
+        while (index < length && source.charAt(index) != current) {
+          if (source.charAt(index) == '\\' && index + 1 < length) {
+            result.append(source.charAt(index++));
+          }
+          result.append(source.charAt(index++));
+        }
+        if (index < length) {
+          result.append(source.charAt(index++));
+        }
+      } else {
+        result.append(current);
+        ++index;
+      }
+    }
+
+    return result;
+  }
+}
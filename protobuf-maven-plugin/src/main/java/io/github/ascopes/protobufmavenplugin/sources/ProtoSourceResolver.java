@@ -15,6 +15,7 @@
  */
 package io.github.ascopes.protobufmavenplugin.sources;
 
+import static java.util.Objects.requireNonNull;
 import static java.util.function.Predicate.not;
 
 import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
@@ -23,19 +24,30 @@ import io.github.ascopes.protobufmavenplugin.digests.Digest;
 import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
 import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
 import io.github.ascopes.protobufmavenplugin.sources.filter.FileFilter;
+import io.github.ascopes.protobufmavenplugin.sources.filter.ProtoFileFilter;
 import io.github.ascopes.protobufmavenplugin.system.ConcurrentExecutor;
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import javax.inject.Inject;
 import javax.inject.Named;
 import org.apache.maven.execution.scope.MojoExecutionScoped;
 import org.eclipse.sisu.Description;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,8 +56,9 @@ import org.slf4j.LoggerFactory;
  * within descriptor files.
  *
  * <p>In addition, it can discover sources within archives recursively. These results will be
- * extracted to a location within the Maven build directory to enable {@code protoc} and other
- * plugins to be able to view them without needing access to the Java NIO file system APIs.
+ * extracted to a shared store and made visible within the Maven build directory to enable
+ * {@code protoc} and other plugins to be able to view them without needing access to the Java
+ * NIO file system APIs.
  *
  * @author Ashley Scopes
  */
@@ -63,14 +76,20 @@ final class ProtoSourceResolver {
 
   private static final Logger log = LoggerFactory.getLogger(ProtoSourceResolver.class);
 
+  private final ArchiveExtractionStore archiveExtractionStore;
+  private final ArchiveScanIndex archiveScanIndex;
   private final ConcurrentExecutor concurrentExecutor;
   private final TemporarySpace temporarySpace;
 
   @Inject
   ProtoSourceResolver(
+      ArchiveExtractionStore archiveExtractionStore,
+      ArchiveScanIndex archiveScanIndex,
       ConcurrentExecutor concurrentExecutor,
       TemporarySpace temporarySpace
   ) {
+    this.archiveExtractionStore = archiveExtractionStore;
+    this.archiveScanIndex = archiveScanIndex;
     this.concurrentExecutor = concurrentExecutor;
     this.temporarySpace = temporarySpace;
   }
@@ -167,10 +186,139 @@ final class ProtoSourceResolver {
         : resolveSourcesWithinDirectory(rootPath, filter);
   }
 
+  /**
+   * Resolve only the sources within the given roots that are reachable by following the
+   * imports of the given sources.
+   *
+   * <p>Archives are only extracted partially, and roots containing nothing reachable are
+   * omitted entirely. Imports are resolved against the roots of the importing sources first,
+   * then against the given roots in order, mirroring how {@code protoc} resolves them.
+   *
+   * @param importingSources the sources whose imports should be followed.
+   * @param rootPaths the roots to resolve the imports against.
+   * @return the listings of the reachable sources.
+   * @throws IOException if an IO error occurs.
+   * @since 5.2.0
+   */
+  Collection<SourceListing> resolveImportClosure(
+      Collection<SourceListing> importingSources,
+      Collection<Path> rootPaths
+  ) throws IOException {
+    var importRoots = rootPaths
+        .stream()
+        // GH-132: Normalize to ensure different paths to the same file do not
+        //   get duplicated across more than one extraction site.
+        .map(FileUtils::normalize)
+        // GH-132: Avoid running multiple times on the same location.
+        .distinct()
+        .map(path -> concurrentExecutor.submit(() -> createImportRoot(path)))
+        .collect(concurrentExecutor.awaiting())
+        .stream()
+        .flatMap(Optional::stream)
+        .toList();
+
+    try {
+      followImports(importingSources, importRoots);
+
+      return importRoots
+          .stream()
+          .map(importRoot -> concurrentExecutor.submit(importRoot::createSourceListing))
+          .collect(concurrentExecutor.awaiting())
+          .stream()
+          .flatMap(Optional::stream)
+          .toList();
+    } finally {
+      for (var importRoot : importRoots) {
+        importRoot.close();
+      }
+    }
+  }
+
+  private Optional<ImportRoot> createImportRoot(Path rootPath) throws IOException {
+    if (!Files.exists(rootPath)) {
+      log.debug("Skipping import lookup in path \"{}\" as it does not exist", rootPath);
+      return Optional.empty();
+    }
+
+    if (!Files.isRegularFile(rootPath)) {
+      return Optional.of(new DirectoryImportRoot(rootPath));
+    }
+
+    if (!isSupportedArchive(rootPath)) {
+      return Optional.empty();
+    }
+
+    var protoEntryNames = archiveScanIndex.lookup(rootPath);
+    if (protoEntryNames.isEmpty()) {
+      try (var zipFile = openZipFile(rootPath)) {
+        protoEntryNames = Optional.of(
+            scanArchiveForProtoEntries(rootPath, zipFile)
+                .stream()
+                .map(ZipEntry::getName)
+                .toList()
+        );
+      }
+    }
+
+    return protoEntryNames
+        .filter(not(List::isEmpty))
+        .<ImportRoot>map(names -> new ArchiveImportRoot(rootPath, Set.copyOf(names)));
+  }
+
+  private void followImports(
+      Collection<SourceListing> importingSources,
+      List<ImportRoot> importRoots
+  ) throws IOException {
+    var importingSourceRoots = new ArrayList<ImportRoot>();
+    var pendingImports = new ArrayDeque<String>();
+    var seenImports = new HashSet<String>();
+
+    for (var importingSource : importingSources) {
+      var sourceRoot = importingSource.getSourceRoot();
+      importingSourceRoots.add(new DirectoryImportRoot(sourceRoot));
+
+      for (var sourceFile : importingSource.getSourceFiles()) {
+        seenImports.add(ProtoImportScanner.importNameOf(sourceRoot, sourceFile));
+        pendingImports.addAll(ProtoImportScanner.scanImports(readProtoFile(sourceFile)));
+      }
+    }
+
+    var searchOrder = new ArrayList<ImportRoot>(importingSourceRoots);
+    searchOrder.addAll(importRoots);
+
+    while (!pendingImports.isEmpty()) {
+      var importName = pendingImports.pop();
+      if (!seenImports.add(importName)) {
+        continue;
+      }
+
+      Optional<String> content = Optional.empty();
+      for (var importRoot : searchOrder) {
+        content = importRoot.read(importName);
+        if (content.isPresent()) {
+          break;
+        }
+      }
+
+      if (content.isPresent()) {
+        pendingImports.addAll(ProtoImportScanner.scanImports(content.get()));
+      } else {
+        // Usually an error, but we leave protoc to report it.
+        log.debug("Import \"{}\" was not found on any import path", importName);
+      }
+    }
+  }
+
   private Optional<SourceListing> resolveSourcesWithinFile(
       Path rootPath,
       FileFilter filter
   ) throws IOException {
+    return isSupportedArchive(rootPath)
+        ? resolveSourcesWithinArchive(rootPath, filter)
+        : Optional.empty();
+  }
+
+  private boolean isSupportedArchive(Path rootPath) {
     // XXX: we do not convert the extension to lowercase, as there
     //  is some nuanced logic within the ZipFileSystemProvider that appears
     //  to be case-sensitive.
@@ -180,40 +328,95 @@ final class ProtoSourceResolver {
     // GH-327: We filter out non-zip archives to prevent vague errors if
     // users include non-zip dependencies such as POMs, which cannot be extracted.
     if (fileExtension.filter(ZIP_FILE_EXTENSIONS::contains).isPresent()) {
-      return resolveSourcesWithinArchive(rootPath, filter);
+      return true;
     }
 
     if (fileExtension.filter(XML_FILE_EXTENSIONS::contains).isPresent()) {
       log.debug("Ignoring invalid dependency on XML artifact at \"{}\"", rootPath);
-      return Optional.empty();
+      return false;
     }
 
     log.warn("Ignoring unknown artifact type at \"{}\"", rootPath);
-    return Optional.empty();
+    return false;
   }
 
   private Optional<SourceListing> resolveSourcesWithinArchive(
       Path rootPath,
       FileFilter filter
   ) throws IOException {
-    // We move the source files out of the archive and place them in a location on the root
-    // file system so that protoc is able to see their contents.
-    try (var vfs = FileUtils.openZipAsFileSystem(rootPath)) {
-      var vfsRoot = vfs.getRootDirectories().iterator().next();
-      var sourceFiles = resolveSources(vfsRoot, filter);
+    // Any file we can match must be a proto file, so archives without any proto files can be
+    // skipped without opening them, regardless of the filter in use.
+    var indexedProtoFiles = archiveScanIndex.lookup(rootPath);
+
+    if (indexedProtoFiles.filter(List::isEmpty).isPresent()) {
+      log.trace("Skipping archive \"{}\" as it is known to contain no proto files", rootPath);
+      return Optional.empty();
+    }
+
+    // We only read the central directory of the archive to find proto files, rather than
+    // mounting it as a file system, as the latter creates a Path for every entry in the
+    // archive. The source files are then extracted to a shared store on the root file system,
+    // and linked into the build, so that protoc is able to see their contents.
+    try (var zipFile = openZipFile(rootPath)) {
+      var protoEntries = indexedProtoFiles.isPresent()
+          ? indexedProtoFiles.get()
+              .stream()
+              .map(zipFile::getEntry)
+              .filter(Objects::nonNull)
+              .toList()
+          : scanArchiveForProtoEntries(rootPath, zipFile);
+
+      var sourceEntries = protoEntries.stream()
+          .filter(protoEntry -> filter.matches(protoEntry.getName()))
+          .toList();
 
-      if (sourceFiles.isEmpty()) {
+      if (sourceEntries.isEmpty()) {
         return Optional.empty();
       }
 
       var extractionRoot = getArchiveExtractionRoot().resolve(generateUniqueName(rootPath));
-      var relocatedSourceFiles = FileUtils.rebaseFileTree(
-          vfsRoot,
-          extractionRoot,
-          sourceFiles.get().getSourceFiles().stream()
+      var relocatedSourceFiles = archiveExtractionStore.extract(
+          rootPath,
+          zipFile,
+          sourceEntries,
+          extractionRoot
       );
 
-      return Optional.of(createSourceListing(relocatedSourceFiles, extractionRoot));
+      return Optional.of(ImmutableSourceListing.builder()
+          .addAllSourceFiles(relocatedSourceFiles)
+          .sourceRoot(extractionRoot)
+          .originArchive(rootPath)
+          .build());
+    }
+  }
+
+  private List<ZipEntry> scanArchiveForProtoEntries(
+      Path rootPath,
+      ZipFile zipFile
+  ) {
+    var protoFileFilter = new ProtoFileFilter();
+
+    List<ZipEntry> protoEntries = zipFile.stream()
+        .<ZipEntry>map(entry -> entry)
+        .filter(not(ZipEntry::isDirectory))
+        .filter(entry -> protoFileFilter.matches(entry.getName()))
+        .toList();
+
+    archiveScanIndex.store(
+        rootPath,
+        protoEntries.stream()
+            .map(ZipEntry::getName)
+            .toList()
+    );
+
+    return protoEntries;
+  }
+
+  private static ZipFile openZipFile(Path rootPath) throws IOException {
+    try {
+      return new ZipFile(rootPath.toFile());
+    } catch (IOException ex) {
+      throw new IOException("Failed to open " + rootPath + " as a valid ZIP/JAR archive", ex);
     }
   }
 
@@ -221,16 +424,9 @@ final class ProtoSourceResolver {
       Path rootPath,
       FileFilter filter
   ) throws IOException {
-    try (var stream = Files.walk(rootPath)) {
-      return stream
-          .filter(filePath -> filter.matches(rootPath, filePath))
-          .collect(Collectors.collectingAndThen(
-              Collectors.toCollection(LinkedHashSet::new),
-              Optional::of
-          ))
-          .filter(not(Collection::isEmpty))
-          .map(protoFiles -> createSourceListing(protoFiles, rootPath));
-    }
+    return Optional.of(new LinkedHashSet<>(SourceTreeWalker.walk(rootPath, filter)))
+        .filter(not(Collection::isEmpty))
+        .map(protoFiles -> createSourceListing(protoFiles, rootPath));
   }
 
   private SourceListing createSourceListing(Collection<Path> sourceFiles, Path rootPath) {
@@ -251,4 +447,131 @@ final class ProtoSourceResolver {
     var digest = Digest.compute("SHA-1", name).toHexString();
     return FileUtils.getFileNameWithoutExtension(path) + "-" + digest;
   }
+
+  private static String readProtoFile(Path file) throws IOException {
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Location that imports can be resolved against, which remembers each import that was
+   * resolved within it.
+   */
+  private interface ImportRoot extends Closeable {
+
+    Optional<String> read(String importName) throws IOException;
+
+    Optional<SourceListing> createSourceListing() throws IOException;
+
+    @Override
+    default void close() throws IOException {
+      // Nothing to close by default.
+    }
+  }
+
+  private static final class DirectoryImportRoot implements ImportRoot {
+
+    private final Path rootPath;
+    private final Set<Path> resolvedFiles;
+
+    private DirectoryImportRoot(Path rootPath) {
+      this.rootPath = rootPath;
+      resolvedFiles = new LinkedHashSet<>();
+    }
+
+    @Override
+    public Optional<String> read(String importName) throws IOException {
+      var file = FileUtils.normalize(rootPath.resolve(importName));
+
+      if (!file.startsWith(FileUtils.normalize(rootPath)) || !Files.isRegularFile(file)) {
+        return Optional.empty();
+      }
+
+      resolvedFiles.add(file);
+      return Optional.of(readProtoFile(file));
+    }
+
+    @Override
+    public Optional<SourceListing> createSourceListing() {
+      if (resolvedFiles.isEmpty()) {
+        return Optional.empty();
+      }
+
+      return Optional.of(ImmutableSourceListing.builder()
+          .addAllSourceFiles(resolvedFiles)
+          .sourceRoot(rootPath)
+          .build());
+    }
+  }
+
+  private final class ArchiveImportRoot implements ImportRoot {
+
+    private final Path rootPath;
+    private final Set<String> protoEntryNames;
+    private final List<ZipEntry> resolvedEntries;
+    private @Nullable ZipFile zipFile;
+
+    private ArchiveImportRoot(Path rootPath, Set<String> protoEntryNames) {
+      this.rootPath = rootPath;
+      this.protoEntryNames = protoEntryNames;
+      resolvedEntries = new ArrayList<>();
+      zipFile = null;
+    }
+
+    @Override
+    public Optional<String> read(String importName) throws IOException {
+      if (!protoEntryNames.contains(importName)) {
+        return Optional.empty();
+      }
+
+      // Only opened once something is known to be imported from this archive.
+      if (zipFile == null) {
+        zipFile = openZipFile(rootPath);
+      }
+
+      var entry = zipFile.getEntry(importName);
+      if (entry == null) {
+        return Optional.empty();
+      }
+
+      resolvedEntries.add(entry);
+      try (var inputStream = zipFile.getInputStream(entry)) {
+        return Optional.of(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+      }
+    }
+
+    @Override
+    public Optional<SourceListing> createSourceListing() throws IOException {
+      if (resolvedEntries.isEmpty()) {
+        return Optional.empty();
+      }
+
+      log.debug(
+          "Extracting {} of {} proto file(s) from \"{}\" that are reachable from imports",
+          resolvedEntries.size(),
+          protoEntryNames.size(),
+          rootPath
+      );
+
+      var extractionRoot = getArchiveExtractionRoot().resolve(generateUniqueName(rootPath));
+      var relocatedSourceFiles = archiveExtractionStore.extract(
+          rootPath,
+          requireNonNull(zipFile),
+          resolvedEntries,
+          extractionRoot
+      );
+
+      return Optional.of(ImmutableSourceListing.builder()
+          .addAllSourceFiles(relocatedSourceFiles)
+          .sourceRoot(extractionRoot)
+          .originArchive(rootPath)
+          .build());
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (zipFile != null) {
+        zipFile.close();
+      }
+    }
+  }
 }
@@ -17,6 +17,7 @@ package io.github.ascopes.protobufmavenplugin.sources;
 
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Optional;
 import java.util.Set;
 import org.immutables.value.Value.Immutable;
 
@@ -32,6 +33,15 @@ public interface SourceListing {
 
   Set<Path> getSourceFiles();
 
+  /**
+   * The archive that the source files were extracted from, if they were extracted from
+   * an archive.
+   *
+   * @return the archive path, or an empty optional if the sources were not extracted.
+   * @since 5.2.0
+   */
+  Optional<Path> getOriginArchive();
+
   static Collection<Path> flatten(Collection<? extends SourceListing> listings) {
     return listings.stream()
         .map(SourceListing::getSourceFiles)
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources;
+
+import io.github.ascopes.protobufmavenplugin.sources.filter.FileFilter;
+import io.github.ascopes.protobufmavenplugin.utils.DeadCodeGenerated;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Walker that discovers files within a source directory tree, visiting each directory
+ * in parallel.
+ *
+ * <p>Each directory is listed by its own fork-join task, so large source roots fan out across
+ * the fork-join pool that the caller is running within. Directories that the filter reports
+ * cannot contain any matches are never descended into.
+ *
+ * <p>Results are returned in the same order that {@link Files#walk} would visit them.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+final class SourceTreeWalker {
+
+  @DeadCodeGenerated(reason = "static-only class")
+  private SourceTreeWalker() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Walk the given directory tree.
+   *
+   * @param rootPath the directory to walk.
+   * @param filter   the filter that paths must match to be returned.
+   * @return the matching paths, including directories if the filter matches them.
+   * @throws IOException if the tree could not be walked.
+   */
+  static List<Path> walk(Path rootPath, FileFilter filter) throws IOException {
+    var paths = new ArrayList<Path>();
+
+    if (filter.matches(rootPath, rootPath)) {
+      paths.add(rootPath);
+    }
+
+    try {
+      paths.addAll(new DirectoryTask(rootPath, rootPath, filter).invoke());
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+
+    return paths;
+  }
+
+  private static final class DirectoryTask extends RecursiveTask<List<Path>> {
+
+    private final Path rootPath;
+    private final Path directoryPath;
+    private final FileFilter filter;
+
+    private DirectoryTask(Path rootPath, Path directoryPath, FileFilter filter) {
+      this.rootPath = rootPath;
+      this.directoryPath = directoryPath;
+      this.filter = filter;
+    }
+
+    @Override
+    protected List<Path> compute() {
+      // Each child is followed by the results of its own subtree, if it has one, so that we
+      // retain the pre-order that Files.walk provides.
+      var children = new ArrayList<Path>();
+      var subtrees = new ArrayList<@Nullable DirectoryTask>();
+
+      try (var stream = Files.newDirectoryStream(directoryPath)) {
+        for (var childPath : stream) {
+          children.add(childPath);
+
+          if (Files.isDirectory(childPath, LinkOption.NOFOLLOW_LINKS)
+              && filter.mayMatchWithin(rootPath, childPath)) {
+            subtrees.add(new DirectoryTask(rootPath, childPath, filter));
+          } else {
+            subtrees.add(null);
+          }
+        }
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+
+      ForkJoinTask.invokeAll(subtrees.stream()
+          .filter(Objects::nonNull)
+          .toList());
+
+      var paths = new ArrayList<Path>();
+
+      for (var i = 0; i < children.size(); ++i) {
+        var childPath = children.get(i);
+
+        if (filter.matches(rootPath, childPath)) {
+          paths.add(childPath);
+        }
+
+        var subtree = subtrees.get(i);
+        if (subtree != null) {
+          paths.addAll(subtree.join());
+        }
+      }
+
+      return paths;
+    }
+  }
+}
@@ -40,7 +40,43 @@ public interface FileFilter {
     return matches(spoofedPathRoot, spoofedPath);
   }
 
+  /**
+   * Determine whether anything within the given directory could be matched by this filter,
+   * allowing directories that cannot contain any matches to be skipped without walking them.
+   *
+   * <p>Implementations must never return {@code false} for a directory that contains a path
+   * that {@link #matches(Path, Path)} would match. Returning {@code true} is always safe.
+   *
+   * @param rootPath the root path being walked.
+   * @param directoryPath the directory within the root path.
+   * @return {@code false} if nothing within the directory can match.
+   * @since 5.2.0
+   */
+  default boolean mayMatchWithin(Path rootPath, Path directoryPath) {
+    return true;
+  }
+
   default FileFilter and(FileFilter other) {
-    return (rootPath, filePath) -> matches(rootPath, filePath) && other.matches(rootPath, filePath);
+    var self = this;
+
+    // Every method is delegated, so that filters overriding how relative paths are matched or
+    // how directories are pruned still behave the same way when combined.
+    return new FileFilter() {
+      @Override
+      public boolean matches(Path rootPath, Path filePath) {
+        return self.matches(rootPath, filePath) && other.matches(rootPath, filePath);
+      }
+
+      @Override
+      public boolean matches(String relativeFilePath) {
+        return self.matches(relativeFilePath) && other.matches(relativeFilePath);
+      }
+
+      @Override
+      public boolean mayMatchWithin(Path rootPath, Path directoryPath) {
+        return self.mayMatchWithin(rootPath, directoryPath)
+            && other.mayMatchWithin(rootPath, directoryPath);
+      }
+    };
   }
 }
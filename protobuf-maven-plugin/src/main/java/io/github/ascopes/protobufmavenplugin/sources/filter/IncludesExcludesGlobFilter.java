@@ -15,9 +15,13 @@
  */
 package io.github.ascopes.protobufmavenplugin.sources.filter;
 
+import static java.util.function.Predicate.not;
+
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -29,12 +33,27 @@ import java.util.function.Predicate;
  */
 public final class IncludesExcludesGlobFilter implements FileFilter {
 
+  private static final String ANY_DESCENDANT = "/**";
+  private static final String GLOB_META_CHARACTERS = "*?[]{}\\";
+
   private final List<PathMatcher> includes;
   private final List<PathMatcher> excludes;
+  private final List<IncludePrefix> includePrefixes;
+  private final List<PathMatcher> excludedDirectories;
 
   public IncludesExcludesGlobFilter(List<String> includes, List<String> excludes) {
     this.includes = compile(includes);
     this.excludes = compile(excludes);
+    includePrefixes = includes.stream()
+        .map(IncludePrefix::new)
+        .toList();
+    // Excludes such as "**/node_modules/**" exclude everything within any directory that
+    // matches the part before the trailing "/**".
+    excludedDirectories = compile(excludes.stream()
+        .filter(exclude -> exclude.endsWith(ANY_DESCENDANT))
+        .map(exclude -> exclude.substring(0, exclude.length() - ANY_DESCENDANT.length()))
+        .filter(not(String::isEmpty))
+        .toList());
   }
 
   @Override
@@ -51,6 +70,23 @@ public final class IncludesExcludesGlobFilter implements FileFilter {
     return includes.isEmpty() || includes.stream().anyMatch(path(relativePath));
   }
 
+  @Override
+  public boolean mayMatchWithin(Path rootPath, Path directoryPath) {
+    if (rootPath.equals(directoryPath)) {
+      return true;
+    }
+
+    var relativePath = rootPath.relativize(directoryPath);
+
+    if (excludedDirectories.stream().anyMatch(path(relativePath))) {
+      // Everything within the directory was explicitly excluded.
+      return false;
+    }
+
+    return includePrefixes.isEmpty()
+        || includePrefixes.stream().anyMatch(prefix -> prefix.mayMatchWithin(relativePath));
+  }
+
   private static List<PathMatcher> compile(List<String> globs) {
     return globs.stream()
         .map("glob:"::concat)
@@ -61,4 +97,48 @@ public final class IncludesExcludesGlobFilter implements FileFilter {
   private static Predicate<PathMatcher> path(Path path) {
     return pathMatcher -> pathMatcher.matches(path);
   }
+
+  /**
+   * The literal leading directories of an include glob, which any matching path must be
+   * within.
+   */
+  private static final class IncludePrefix {
+
+    private final List<PathMatcher> prefixMatchers;
+    private final boolean literal;
+
+    private IncludePrefix(String include) {
+      var segments = include.split("/", -1);
+      var prefixMatchers = new ArrayList<PathMatcher>();
+      var prefix = new StringBuilder();
+
+      for (var segment : segments) {
+        if (segment.chars().anyMatch(c -> GLOB_META_CHARACTERS.indexOf(c) >= 0)) {
+          break;
+        }
+        if (prefix.length() > 0) {
+          prefix.append('/');
+        }
+        prefix.append(segment);
+        // Still matched as a glob, so that case sensitivity follows the platform.
+        prefixMatchers.add(FileSystems.getDefault().getPathMatcher("glob:" + prefix));
+      }
+
+      this.prefixMatchers = Collections.unmodifiableList(prefixMatchers);
+      literal = prefixMatchers.size() == segments.length;
+    }
+
+    private boolean mayMatchWithin(Path relativeDirectoryPath) {
+      var depth = relativeDirectoryPath.getNameCount();
+
+      if (literal && depth >= prefixMatchers.size()) {
+        // The include names a single file, which cannot be this deep.
+        return false;
+      }
+
+      var comparableDepth = Math.min(depth, prefixMatchers.size());
+      return comparableDepth == 0 || prefixMatchers.get(comparableDepth - 1)
+          .matches(relativeDirectoryPath.subpath(0, comparableDepth));
+    }
+  }
 }
@@ -34,4 +34,23 @@ public final class ProtoFileFilter implements FileFilter {
         .filter(".proto"::equalsIgnoreCase)
         .isPresent();
   }
+
+  /**
+   * Determine if a relative path, such as the name of an archive entry, refers to a proto file.
+   *
+   * <p>Relative paths are not resolved against any file system, so only the name is checked.
+   * Paths ending in a {@code /} are treated as directories.
+   *
+   * @param relativeFilePath the relative path, using {@code /} as the separator.
+   * @return {@code true} if the path refers to a proto file.
+   * @since 5.2.0
+   */
+  @Override
+  public boolean matches(String relativeFilePath) {
+    var fileName = relativeFilePath.substring(relativeFilePath.lastIndexOf('/') + 1);
+    var lastDotIndex = fileName.lastIndexOf('.');
+
+    // Mirrors FileUtils#getFileExtension, so names such as `.proto' have no extension.
+    return lastDotIndex > 0 && fileName.substring(lastDotIndex).equalsIgnoreCase(".proto");
+  }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources.incremental;
+
+import org.immutables.value.Value.Immutable;
+
+/**
+ * Fingerprint of the effective build configuration and the local inputs to a build, which
+ * can be computed without resolving anything.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Immutable
+public interface BuildFingerprint {
+
+  /**
+   * Digest of the effective configuration, including the plugin version, the generation
+   * request, and the project dependency coordinates.
+   *
+   * @return the hex-encoded digest.
+   */
+  String getConfigurationDigest();
+
+  /**
+   * Digest of the file system metadata for all local inputs.
+   *
+   * @return the hex-encoded digest.
+   */
+  String getInputsDigest();
+
+  /**
+   * Whether an identical fingerprint in a later build guarantees identical outputs.
+   *
+   * <p>This will be {@code false} if the build relies on anything that may change without
+   * the fingerprint changing, such as {@code SNAPSHOT} dependencies, executables on the
+   * system path that have no digest, or files that were modified too recently to trust
+   * their metadata.
+   *
+   * @return {@code true} if the fingerprint can be used to skip later builds.
+   */
+  boolean isReproducible();
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources.incremental;
+
+import io.github.ascopes.protobufmavenplugin.dependencies.MavenArtifact;
+import io.github.ascopes.protobufmavenplugin.dependencies.MavenDependency;
+import io.github.ascopes.protobufmavenplugin.digests.DigestDescription;
+import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
+import io.github.ascopes.protobufmavenplugin.generation.GenerationRequest;
+import io.github.ascopes.protobufmavenplugin.plugins.distributions.BinaryMavenProtocPlugin;
+import io.github.ascopes.protobufmavenplugin.plugins.distributions.JvmMavenProtocPlugin;
+import io.github.ascopes.protobufmavenplugin.plugins.distributions.PathProtocPlugin;
+import io.github.ascopes.protobufmavenplugin.plugins.distributions.ProtocPlugin;
+import io.github.ascopes.protobufmavenplugin.plugins.distributions.UriProtocPlugin;
+import io.github.ascopes.protobufmavenplugin.protoc.distributions.BinaryMavenProtocDistribution;
+import io.github.ascopes.protobufmavenplugin.protoc.distributions.PathProtocDistribution;
+import io.github.ascopes.protobufmavenplugin.protoc.distributions.ProtocDistribution;
+import io.github.ascopes.protobufmavenplugin.protoc.distributions.UriProtocDistribution;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.sisu.Description;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Factory that computes {@link BuildFingerprint}s.
+ *
+ * <p>This deliberately avoids resolving anything, as the point of the fingerprint is to
+ * let us skip resolution entirely when nothing has changed. Where something may change
+ * without us being able to tell without resolving it, the fingerprint is marked as not
+ * being reproducible.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Computes fingerprints of the build configuration and inputs")
+@MojoExecutionScoped
+@Named
+public final class BuildFingerprintFactory {
+
+  private static final Logger log = LoggerFactory.getLogger(BuildFingerprintFactory.class);
+
+  private final MavenSession mavenSession;
+  private final MojoExecution mojoExecution;
+
+  @Inject
+  BuildFingerprintFactory(MavenSession mavenSession, MojoExecution mojoExecution) {
+    this.mavenSession = mavenSession;
+    this.mojoExecution = mojoExecution;
+  }
+
+  public BuildFingerprint createFingerprint(GenerationRequest request) throws IOException {
+    var description = new FingerprintDescription();
+    describeConfiguration(request, description);
+    var configurationDigest = description.digest();
+
+    description = new FingerprintDescription(description);
+    describeInputs(request, description);
+    var inputsDigest = description.digest();
+
+    return ImmutableBuildFingerprint.builder()
+        .configurationDigest(configurationDigest)
+        .inputsDigest(inputsDigest)
+        .reproducible(description.reproducible)
+        .build();
+  }
+
+  private void describeConfiguration(GenerationRequest request, FingerprintDescription desc) {
+    desc.add("pluginVersion", mojoExecution.getVersion());
+    desc.add("arguments", request.getArguments());
+    desc.add("dependencyResolutionDepth", request.getDependencyResolutionDepth());
+    desc.add("dependencyScopes", request.getDependencyScopes());
+    desc.add("enabledLanguages", request.getEnabledLanguages());
+    desc.add("environmentVariables", new TreeMap<>(request.getEnvironmentVariables()));
+    desc.add("excludes", request.getExcludes());
+    desc.add("includes", request.getIncludes());
+    desc.add("importPaths", request.getImportPaths());
+    desc.add("sourceDirectories", request.getSourceDirectories());
+    desc.add("sourceDescriptorPaths", request.getSourceDescriptorPaths());
+    desc.add("outputDirectory", request.getOutputDirectory());
+    desc.add("outputDescriptorFile", request.getOutputDescriptorFile());
+    desc.add("outputDescriptorIncludeImports", request.isOutputDescriptorIncludeImports());
+    desc.add("outputDescriptorIncludeSourceInfo", request.isOutputDescriptorIncludeSourceInfo());
+    desc.add("outputDescriptorRetainOptions", request.isOutputDescriptorRetainOptions());
+    desc.add("fatalWarnings", request.isFatalWarnings());
+    desc.add("liteEnabled", request.isLiteEnabled());
+    desc.add("ignoreProjectDependencies", request.isIgnoreProjectDependencies());
+    desc.add("lazyImports", request.isLazyImports());
+    desc.add("sanctionedExecutablePath", request.getSanctionedExecutablePath());
+    desc.add("protocDigest", request.getProtocDigest());
+
+    describeProtoc(request.getProtoc(), request, desc);
+    request.getProtocPlugins().forEach(plugin -> describePlugin(plugin, desc));
+
+    describeArtifacts("importDependency", request.getImportDependencies(), desc);
+    describeArtifacts("sourceDependency", request.getSourceDependencies(), desc);
+    describeArtifacts(
+        "sourceDescriptorDependency",
+        request.getSourceDescriptorDependencies(),
+        desc
+    );
+
+    if (!request.isIgnoreProjectDependencies()) {
+      var mavenProject = mavenSession.getCurrentProject();
+      mavenProject.getDependencies()
+          .forEach(dependency -> describeDependency("projectDependency", dependency, desc));
+
+      var dependencyManagement = mavenProject.getDependencyManagement();
+      if (dependencyManagement != null) {
+        dependencyManagement.getDependencies()
+            .forEach(dependency -> describeDependency("managedDependency", dependency, desc));
+      }
+
+      describeProjectArtifacts(mavenProject, desc);
+    }
+  }
+
+  private void describeProtoc(
+      ProtocDistribution protoc,
+      GenerationRequest request,
+      FingerprintDescription desc
+  ) {
+    if (protoc instanceof BinaryMavenProtocDistribution protocImpl) {
+      desc.add("protoc", protocImpl);
+      desc.requireStableVersion("protoc", protocImpl.getVersion());
+    } else if (protoc instanceof PathProtocDistribution protocImpl) {
+      desc.add("protoc", "path:" + protocImpl.getName());
+      desc.add("protocPathDigest", protocImpl.getDigest());
+      desc.requireDigest("protoc", protocImpl.getDigest(), request.getProtocDigest());
+    } else if (protoc instanceof UriProtocDistribution protocImpl) {
+      desc.add("protoc", protocImpl.getUrl());
+      desc.add("protocUrlDigest", protocImpl.getDigest());
+      desc.requireDigest("protoc", protocImpl.getDigest(), request.getProtocDigest());
+    } else {
+      desc.add("protoc", protoc);
+      desc.markUnreproducible("protoc distribution " + protoc + " is not supported");
+    }
+  }
+
+  private void describePlugin(ProtocPlugin plugin, FingerprintDescription desc) {
+    if (plugin instanceof BinaryMavenProtocPlugin pluginImpl) {
+      desc.add("plugin", pluginImpl);
+      desc.requireStableVersion("plugin " + pluginImpl, pluginImpl.getVersion());
+    } else if (plugin instanceof JvmMavenProtocPlugin pluginImpl) {
+      desc.add("plugin", pluginImpl);
+      desc.add("pluginJvmArgs", pluginImpl.getJvmArgs());
+      desc.add("pluginJvmConfigArgs", pluginImpl.getJvmConfigArgs());
+      desc.add("pluginMainClass", pluginImpl.getMainClass());
+      desc.requireStableVersion("plugin " + pluginImpl, pluginImpl.getVersion());
+    } else if (plugin instanceof PathProtocPlugin pluginImpl) {
+      desc.add("plugin", "path:" + pluginImpl.getName());
+      desc.add("pluginDigest", pluginImpl.getDigest());
+      desc.add("pluginOptional", pluginImpl.isOptional());
+      desc.requireDigest("plugin " + pluginImpl.getName(), pluginImpl.getDigest(), null);
+    } else if (plugin instanceof UriProtocPlugin pluginImpl) {
+      desc.add("plugin", pluginImpl.getUrl());
+      desc.add("pluginDigest", pluginImpl.getDigest());
+      desc.add("pluginOptional", pluginImpl.isOptional());
+      desc.requireDigest("plugin " + pluginImpl.getUrl(), pluginImpl.getDigest(), null);
+    }
+
+    desc.add("pluginOptions", plugin.getOptions());
+    desc.add("pluginOutputDirectory", plugin.getOutputDirectory());
+    desc.add("pluginAggregating", plugin.isAggregating());
+    desc.add("pluginOrder", plugin.getOrder());
+    desc.add("pluginSkip", plugin.isSkip());
+  }
+
+  private void describeArtifacts(
+      String kind,
+      Collection<? extends MavenArtifact> artifacts,
+      FingerprintDescription desc
+  ) {
+    for (var artifact : artifacts) {
+      desc.add(kind, artifact);
+      desc.requireStableVersion(kind + " " + artifact, artifact.getVersion());
+      requireNotInReactor(
+          kind + " " + artifact,
+          artifact.getGroupId(),
+          artifact.getArtifactId(),
+          desc
+      );
+
+      if (artifact instanceof MavenDependency dependency) {
+        desc.add(kind + "Depth", dependency.getDependencyResolutionDepth());
+        dependency.getExclusions().forEach(exclusion -> desc.add(
+            kind + "Exclusion",
+            String.join(
+                ":",
+                exclusion.getGroupId(),
+                exclusion.getArtifactId(),
+                exclusion.getType(),
+                exclusion.getClassifier()
+            )
+        ));
+      }
+    }
+  }
+
+  private void describeDependency(
+      String kind,
+      Dependency dependency,
+      FingerprintDescription desc
+  ) {
+    desc.add(kind, dependency.getManagementKey() + ":" + dependency.getVersion());
+    desc.add(kind + "Scope", dependency.getScope());
+    desc.add(kind + "Optional", dependency.isOptional());
+    dependency.getExclusions().forEach(exclusion -> desc.add(
+        kind + "Exclusion",
+        exclusion.getGroupId() + ":" + exclusion.getArtifactId()
+    ));
+    desc.requireStableVersion(kind + " " + dependency.getManagementKey(), dependency.getVersion());
+    requireNotInReactor(
+        kind + " " + dependency.getManagementKey(),
+        dependency.getGroupId(),
+        dependency.getArtifactId(),
+        desc
+    );
+  }
+
+  // Transitive dependencies can change without any of the declarations above changing, such as
+  // when they are snapshots or are selected from a version range. Maven has already collected
+  // them by the time we run, so we can describe them without resolving anything ourselves.
+  private void describeProjectArtifacts(MavenProject mavenProject, FingerprintDescription desc) {
+    var artifacts = mavenProject.getArtifacts()
+        .stream()
+        .sorted(Comparator.comparing(Artifact::getId))
+        .toList();
+
+    if (artifacts.isEmpty() && !mavenProject.getDependencies().isEmpty()) {
+      desc.markUnreproducible("the transitive dependencies of the project were not collected");
+      return;
+    }
+
+    for (var artifact : artifacts) {
+      desc.add("projectArtifact", artifact.getId());
+      desc.add("projectArtifactScope", artifact.getScope());
+      desc.requireStableVersion("projectArtifact " + artifact.getId(), artifact.getBaseVersion());
+      requireNotInReactor(
+          "projectArtifact " + artifact.getId(),
+          artifact.getGroupId(),
+          artifact.getArtifactId(),
+          desc
+      );
+    }
+  }
+
+  // Dependencies on other projects in the reactor may be rebuilt with different contents
+  // without their coordinates changing.
+  private void requireNotInReactor(
+      String name,
+      String groupId,
+      String artifactId,
+      FingerprintDescription desc
+  ) {
+    var inReactor = mavenSession.getProjects()
+        .stream()
+        .anyMatch(project -> project.getGroupId().equals(groupId)
+            && project.getArtifactId().equals(artifactId));
+
+    if (inReactor) {
+      desc.markUnreproducible(name + " is built within the current reactor");
+    }
+  }
+
+  private void describeInputs(
+      GenerationRequest request,
+      FingerprintDescription desc
+  ) throws IOException {
+    var racyThreshold = Instant.now().minus(IncrementalCacheManager.RACY_MODIFICATION_WINDOW);
+    var roots = Stream
+        .of(
+            request.getSourceDirectories(),
+            request.getSourceDescriptorPaths(),
+            request.getImportPaths()
+        )
+        .flatMap(Collection::stream)
+        .map(FileUtils::normalize)
+        .distinct()
+        .toList();
+
+    for (var root : roots) {
+      if (!Files.exists(root)) {
+        desc.add("missing", root.toUri());
+        continue;
+      }
+
+      List<Path> files;
+      try (var stream = Files.walk(root)) {
+        files = stream.filter(Files::isRegularFile).sorted().toList();
+      }
+
+      for (var file : files) {
+        var stat = FileStat.of(file);
+        desc.add("file", file.toUri());
+        desc.add("stat", stat);
+
+        if (!stat.isModifiedBefore(racyThreshold)) {
+          desc.markUnreproducible("\"" + file + "\" was modified too recently to be trusted");
+        }
+      }
+    }
+  }
+
+  // Accumulates a textual description of the build that we can compute a digest from, and
+  // keeps track of whether the build is reproducible given the same description.
+  private static final class FingerprintDescription {
+    private final DigestDescription text;
+    private boolean reproducible;
+
+    private FingerprintDescription() {
+      text = new DigestDescription("SHA-512");
+      reproducible = true;
+    }
+
+    private FingerprintDescription(FingerprintDescription previous) {
+      text = new DigestDescription("SHA-512");
+      reproducible = previous.reproducible;
+    }
+
+    private void add(String key, @Nullable Object value) {
+      text.add(key, value);
+    }
+
+    private void requireStableVersion(String name, @Nullable String version) {
+      if (version != null && (version.endsWith("SNAPSHOT")
+          || version.startsWith("[")
+          || version.startsWith("("))) {
+        markUnreproducible(name + " has a version that may change between builds");
+      }
+    }
+
+    private void requireDigest(
+        String name,
+        @Nullable Object digest,
+        @Nullable Object fallbackDigest
+    ) {
+      if (digest == null && fallbackDigest == null) {
+        markUnreproducible(name + " may change between builds, as it has no digest");
+      }
+    }
+
+    private void markUnreproducible(String reason) {
+      if (reproducible) {
+        log.debug("Builds cannot be skipped, even if nothing changes, as {}", reason);
+      }
+      reproducible = false;
+    }
+
+    private String digest() {
+      return text.digest().toHexString();
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources.incremental;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.immutables.value.Value.Immutable;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * File system metadata for a file, as stored in the {@link IncrementalCache}.
+ *
+ * <p>If this is unchanged between two builds, we assume the file content is also
+ * unchanged, and avoid rehashing it.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Immutable
+interface FileStat {
+
+  long getSize();
+
+  long getLastModifiedNanos();
+
+  /**
+   * The file key, if the file system provides one (e.g. the device and inode on POSIX
+   * systems).
+   *
+   * @return the file key, or {@code null} if unavailable.
+   */
+  @Nullable String getFileKey();
+
+  /**
+   * Determine whether the file was last modified before the given instant.
+   *
+   * @param instant the instant to compare against.
+   * @return {@code true} if the file was modified strictly before the instant.
+   */
+  default boolean isModifiedBefore(Instant instant) {
+    var instantNanos = TimeUnit.SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+    return getLastModifiedNanos() < instantNanos;
+  }
+
+  static FileStat of(Path file) throws IOException {
+    var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    var fileKey = attributes.fileKey();
+
+    return ImmutableFileStat.builder()
+        .size(attributes.size())
+        .lastModifiedNanos(attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS))
+        .fileKey(fileKey == null ? null : fileKey.toString())
+        .build();
+  }
+}
@@ -17,6 +17,7 @@ package io.github.ascopes.protobufmavenplugin.sources.incremental;
 
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.Set;
 import org.immutables.value.Value.Immutable;
 
 /**
@@ -36,4 +37,44 @@ interface IncrementalCache {
   Map<Path, String> getProtoSources();
 
   Map<Path, String> getDescriptorFiles();
+
+  /**
+   * Digests of the output descriptor files written by the last successful build.
+   *
+   * <p>Protoc cannot partially update an existing descriptor, so if any of these are missing
+   * or have changed, everything must be recompiled.
+   *
+   * @return the output descriptor digests, keyed by path.
+   * @since 5.2.0
+   */
+  Map<Path, String> getOutputDescriptorFiles();
+
+  /**
+   * The import names declared by each compilable proto source.
+   *
+   * @return the imports, keyed by the path of the proto source declaring them.
+   * @since 5.2.0
+   */
+  Map<Path, ProtoSourceImports> getProtoSourceImports();
+
+  /**
+   * Files generated by previous successful builds, which should be removed if their sources
+   * are deleted.
+   *
+   * @return the generated files.
+   * @since 5.2.0
+   */
+  Set<Path> getGeneratedFiles();
+
+  /**
+   * File system metadata for each file that was digested, used to avoid rehashing files that
+   * have not been touched since the previous build.
+   *
+   * <p>Files modified too recently to be trusted are omitted, which forces them to be
+   * rehashed next time.
+   *
+   * @return the file metadata, keyed by path.
+   * @since 5.2.0
+   */
+  Map<Path, FileStat> getFileStats();
 }
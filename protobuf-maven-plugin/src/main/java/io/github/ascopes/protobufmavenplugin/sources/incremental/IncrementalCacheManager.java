@@ -15,23 +15,39 @@
  */
 package io.github.ascopes.protobufmavenplugin.sources.incremental;
 
+import static java.util.function.Predicate.not;
+
 import io.github.ascopes.protobufmavenplugin.digests.Digest;
 import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
 import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
 import io.github.ascopes.protobufmavenplugin.sources.DescriptorListing;
 import io.github.ascopes.protobufmavenplugin.sources.FilesToCompile;
+import io.github.ascopes.protobufmavenplugin.sources.ImmutableFilesToCompile;
 import io.github.ascopes.protobufmavenplugin.sources.ProjectInputListing;
+import io.github.ascopes.protobufmavenplugin.sources.ProtoImportScanner;
 import io.github.ascopes.protobufmavenplugin.sources.SourceListing;
 import io.github.ascopes.protobufmavenplugin.system.ConcurrentExecutor;
+import io.github.ascopes.protobufmavenplugin.utils.StringUtils;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.FutureTask;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -41,6 +57,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import org.apache.maven.execution.scope.MojoExecutionScoped;
 import org.eclipse.sisu.Description;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,13 +74,24 @@ public final class IncrementalCacheManager {
 
   // If we make breaking changes to the format of the cache, increment this value. This prevents
   // builds failing for users between versions if they do not perform a clean install first.
-  private static final String SPEC_VERSION = "3.0";
+  private static final String SPEC_VERSION = "8.0";
+  // Files modified within this window of us reading them may be modified again without their
+  // size or modification time appearing to change, so we never trust their metadata.
+  static final Duration RACY_MODIFICATION_WINDOW = Duration.ofSeconds(2);
+  private static final String CONFIGURATION_DIGEST = "configuration.digest";
+  private static final String INPUTS_DIGEST = "inputs.digest";
   private static final Logger log = LoggerFactory.getLogger(IncrementalCacheManager.class);
 
   private final ConcurrentExecutor concurrentExecutor;
   private final TemporarySpace temporarySpace;
   private final IncrementalCacheSerializer incrementalCacheSerializer;
 
+  // Whether the configuration changed since the previous build.
+  private boolean configurationChanged;
+  // Files in the output directories before generating directly into them.
+  private Collection<Path> snapshotDirectories;
+  private Map<Path, FileStat> outputSnapshot;
+
   @Inject
   IncrementalCacheManager(
       ConcurrentExecutor concurrentExecutor,
@@ -73,6 +101,157 @@ public final class IncrementalCacheManager {
     this.concurrentExecutor = concurrentExecutor;
     this.temporarySpace = temporarySpace;
     this.incrementalCacheSerializer = incrementalCacheSerializer;
+    configurationChanged = false;
+    snapshotDirectories = List.of();
+    outputSnapshot = Map.of();
+  }
+
+  /**
+   * Determine whether the given fingerprint matches that of the last successful build, and
+   * whether everything that build generated still exists.
+   *
+   * <p>If this returns {@code true}, the build can be skipped without resolving anything.
+   *
+   * @param fingerprint the fingerprint of the current build.
+   * @return {@code true} if the outputs of the last successful build are up-to-date.
+   * @throws IOException if an IO error occurs.
+   * @since 5.2.0
+   */
+  public boolean isUpToDate(BuildFingerprint fingerprint) throws IOException {
+    if (!fingerprint.isReproducible()) {
+      return false;
+    }
+
+    var maybePreviousFingerprint = readBuildFingerprint();
+    if (maybePreviousFingerprint.isEmpty()) {
+      log.debug("No previous build fingerprint was found");
+      return false;
+    }
+
+    // The inputs digest is only recorded for reproducible builds, so is missing if the last
+    // build was not reproducible.
+    var previousFingerprint = maybePreviousFingerprint.get();
+    if (!fingerprint.getConfigurationDigest()
+        .equals(previousFingerprint.getProperty(CONFIGURATION_DIGEST))
+        || !fingerprint.getInputsDigest().equals(previousFingerprint.getProperty(INPUTS_DIGEST))) {
+      log.debug("Build fingerprint has changed since the last build");
+      return false;
+    }
+
+    var maybePreviousCache = readIncrementalCache(getPreviousIncrementalCachePath());
+    if (maybePreviousCache.isEmpty()) {
+      log.debug("No previous incremental cache was found");
+      return false;
+    }
+
+    var previousCache = maybePreviousCache.get();
+    var missingFileCount = previousCache.getGeneratedFiles()
+        .stream()
+        .filter(not(Files::exists))
+        .count();
+
+    if (missingFileCount > 0) {
+      log.info(
+          "Detected that {} from the previous build no longer exist",
+          StringUtils.pluralize(missingFileCount, "generated file")
+      );
+      return false;
+    }
+
+    for (var outputDescriptorFile : previousCache.getOutputDescriptorFiles().keySet()) {
+      if (!isOutputDescriptorUnchanged(previousCache, outputDescriptorFile)) {
+        log.info("Detected that the output descriptor file from the previous build has changed");
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Prepare to run a build with the given fingerprint.
+   *
+   * <p>The inputs digest of the previous build is discarded, so that we do not incorrectly skip
+   * later builds if this build fails. The configuration digest is kept, so that configuration
+   * changes are still detected after a failed build.
+   *
+   * <p>If the configuration has changed since the previous build, all sources get recompiled.
+   * When outputs are not staged, everything generated by the previous build is removed, and
+   * the previous incremental cache is discarded. When outputs are staged, anything from the
+   * previous build that is not generated again is instead reported by
+   * {@link #getSupersededGeneratedFiles()}, so that files with unchanged content are left
+   * untouched. In this case, the previous configuration digest is retained until
+   * {@link #completeBuild(BuildFingerprint)} is called, as the previous outputs still exist.
+   *
+   * @param fingerprint the fingerprint of the current build.
+   * @param stagingOutputs whether outputs are staged before being promoted.
+   * @throws IOException if an IO error occurs.
+   * @since 5.2.0
+   */
+  public void beginBuild(BuildFingerprint fingerprint, boolean stagingOutputs) throws IOException {
+    var maybeChangedConfigurationDigest = readBuildFingerprint()
+        .map(properties -> properties.getProperty(CONFIGURATION_DIGEST))
+        .filter(not(fingerprint.getConfigurationDigest()::equals));
+
+    configurationChanged = maybeChangedConfigurationDigest.isPresent();
+
+    if (!configurationChanged) {
+      writeBuildFingerprint(fingerprint.getConfigurationDigest(), null);
+      return;
+    }
+
+    log.info("Detected a change in the build configuration, all sources will be recompiled");
+
+    if (stagingOutputs) {
+      writeBuildFingerprint(maybeChangedConfigurationDigest.orElseThrow(), null);
+      return;
+    }
+
+    writeBuildFingerprint(fingerprint.getConfigurationDigest(), null);
+    var previousCachePath = getPreviousIncrementalCachePath();
+    var maybePreviousCache = readIncrementalCache(previousCachePath);
+    if (maybePreviousCache.isPresent()) {
+      deleteGeneratedFiles(maybePreviousCache.get().getGeneratedFiles());
+    }
+    Files.deleteIfExists(previousCachePath);
+  }
+
+  /**
+   * Record the fingerprint of a successful build, so that future builds can be skipped if
+   * nothing changes.
+   *
+   * <p>The configuration digest is always recorded, so that later builds can detect
+   * configuration changes. The inputs digest is only recorded if the fingerprint is
+   * reproducible, as only then can later builds be skipped.
+   *
+   * <p>This must be called after {@link #updateIncrementalCache()}.
+   *
+   * @param fingerprint the fingerprint of the current build.
+   * @throws IOException if an IO error occurs.
+   * @since 5.2.0
+   */
+  public void completeBuild(BuildFingerprint fingerprint) throws IOException {
+    if (!fingerprint.isReproducible()) {
+      log.debug("Build fingerprint is not reproducible, so later builds will not be skipped");
+    }
+
+    writeBuildFingerprint(
+        fingerprint.getConfigurationDigest(),
+        fingerprint.isReproducible() ? fingerprint.getInputsDigest() : null
+    );
+  }
+
+  /**
+   * Forget the fingerprint of the previous build, if known.
+   *
+   * <p>This should be called for builds that do not use incremental compilation, as their
+   * outputs are not reflected by any previously recorded fingerprint.
+   *
+   * @throws IOException if an IO error occurs.
+   * @since 5.2.0
+   */
+  public void forgetBuildFingerprint() throws IOException {
+    Files.deleteIfExists(getBuildFingerprintPath());
   }
 
   public void updateIncrementalCache() throws IOException {
@@ -90,23 +269,235 @@ public final class IncrementalCacheManager {
     }
   }
 
+  /**
+   * Take a snapshot of the files in the given output directories, so that
+   * {@link #recordGeneratedFilesSinceSnapshot()} can later tell which files were produced by
+   * generating directly into them.
+   *
+   * <p>This must be called immediately before generating.
+   *
+   * @param outputDirectories the directories that generated files will be written to.
+   * @throws IOException if an IO error occurs.
+   * @since 5.2.0
+   */
+  public void snapshotOutputDirectories(Collection<Path> outputDirectories) throws IOException {
+    snapshotDirectories = List.copyOf(outputDirectories);
+    outputSnapshot = statRegularFiles(snapshotDirectories);
+  }
+
+  /**
+   * Record any files in the output directories passed to
+   * {@link #snapshotOutputDirectories(Collection)} that were created or modified since the
+   * snapshot was taken, so that they can be removed if their sources are later deleted.
+   *
+   * <p>Files that already existed and were left alone are never recorded, so files written by
+   * anything other than this build are not removed later.
+   *
+   * <p>This must be called after a successful generation, and before
+   * {@link #updateIncrementalCache()}.
+   *
+   * @throws IOException if an IO error occurs.
+   * @since 5.2.0
+   */
+  public void recordGeneratedFilesSinceSnapshot() throws IOException {
+    var generatedFiles = new ArrayList<Path>();
+    statRegularFiles(snapshotDirectories).forEach((file, stat) -> {
+      if (!stat.equals(outputSnapshot.get(file))) {
+        generatedFiles.add(file);
+      }
+    });
+
+    recordGeneratedFiles(generatedFiles);
+  }
+
+  /**
+   * Record the given generated files, so that they can be removed if their sources are later
+   * deleted.
+   *
+   * <p>This must be called after a successful generation, and before
+   * {@link #updateIncrementalCache()}.
+   *
+   * @param generatedFiles the files that were generated.
+   * @throws IOException if an IO error occurs.
+   * @since 5.2.0
+   */
+  public void recordGeneratedFiles(Collection<Path> generatedFiles) throws IOException {
+    var nextCachePath = getNextIncrementalCachePath();
+    var maybeNextCache = readIncrementalCache(nextCachePath);
+    if (maybeNextCache.isEmpty()) {
+      log.debug("No new incremental cache was created, so no generated files will be recorded");
+      return;
+    }
+
+    var nextCache = maybeNextCache.get();
+    var allGeneratedFiles = new LinkedHashSet<Path>();
+    nextCache.getGeneratedFiles()
+        .stream()
+        .filter(Files::exists)
+        .forEach(allGeneratedFiles::add);
+    generatedFiles.stream()
+        .map(FileUtils::normalize)
+        .forEach(allGeneratedFiles::add);
+
+    log.debug(
+        "Recording {} in the incremental cache",
+        StringUtils.pluralize(allGeneratedFiles.size(), "generated file")
+    );
+
+    nextCache = ImmutableIncrementalCache.builder()
+        .from(nextCache)
+        .generatedFiles(allGeneratedFiles)
+        .build();
+
+    writeIncrementalCache(nextCachePath, nextCache);
+  }
+
+  /**
+   * Record the digest of an output descriptor file that was written, so that later builds can
+   * detect if it has been modified or removed.
+   *
+   * <p>This must be called after a successful generation, and before
+   * {@link #updateIncrementalCache()}.
+   *
+   * @param outputDescriptorFile the output descriptor file.
+   * @throws IOException if an IO error occurs.
+   * @since 5.2.0
+   */
+  public void recordOutputDescriptor(Path outputDescriptorFile) throws IOException {
+    var nextCachePath = getNextIncrementalCachePath();
+    var maybeNextCache = readIncrementalCache(nextCachePath);
+    if (maybeNextCache.isEmpty()) {
+      log.debug("No new incremental cache was created, so no output descriptor will be recorded");
+      return;
+    }
+
+    var file = FileUtils.normalize(outputDescriptorFile);
+    log.debug("Recording output descriptor \"{}\" in the incremental cache", file);
+
+    var nextCache = ImmutableIncrementalCache.builder()
+        .from(maybeNextCache.get())
+        .outputDescriptorFiles(Map.of(file, digestFile(file)))
+        .build();
+
+    writeIncrementalCache(nextCachePath, nextCache);
+  }
+
+  /**
+   * Get the files generated by the previous build that the current build no longer keeps
+   * track of.
+   *
+   * <p>These are only present when sources were deleted or the configuration changed and
+   * outputs are staged, in which case they must be removed once the staged outputs have been
+   * promoted, unless they were generated again.
+   *
+   * <p>This must be called before {@link #recordGeneratedFiles(Collection)}.
+   *
+   * @return the superseded files.
+   * @throws IOException if an IO error occurs.
+   * @since 5.2.0
+   */
+  public Collection<Path> getSupersededGeneratedFiles() throws IOException {
+    var maybePreviousCache = readIncrementalCache(getPreviousIncrementalCachePath());
+    var maybeNextCache = readIncrementalCache(getNextIncrementalCachePath());
+    if (maybePreviousCache.isEmpty() || maybeNextCache.isEmpty()) {
+      return List.of();
+    }
+
+    var nextGeneratedFiles = new HashSet<>(maybeNextCache.get().getGeneratedFiles());
+    return maybePreviousCache.get().getGeneratedFiles()
+        .stream()
+        .filter(not(nextGeneratedFiles::contains))
+        .toList();
+  }
+
   public FilesToCompile determineSourcesToCompile(
       ProjectInputListing listing
   ) throws IOException {
-    // Always update the cache to catch changes in the next builds.
-    var nextCache = buildIncrementalCache(listing);
-    writeIncrementalCache(getNextIncrementalCachePath(), nextCache);
+    return determineSourcesToCompile(listing, null, false, false);
+  }
+
+  /**
+   * Determine the sources to compile.
+   *
+   * <p>If an output descriptor file is being generated, then either everything or nothing
+   * is compiled, as protoc cannot partially update an existing descriptor. Nothing is compiled
+   * only if nothing has changed and the descriptor from the previous build is unmodified.
+   *
+   * <p>The same applies if any outputs aggregate every input, as passing only the changed
+   * sources would overwrite those outputs with partial content.
+   *
+   * <p>When outputs are staged, files generated by the previous build are never deleted here.
+   * Instead, any that are not generated again are reported by
+   * {@link #getSupersededGeneratedFiles()}, so that they can be removed once the staged
+   * outputs have been promoted, leaving files with unchanged content untouched.
+   *
+   * @param listing the project inputs.
+   * @param outputDescriptorFile the output descriptor file, or {@code null} if not generating
+   *     a descriptor.
+   * @param aggregatingOutputs whether any outputs aggregate every input.
+   * @param stagingOutputs whether outputs are staged before being promoted.
+   * @return the files to compile.
+   * @throws IOException if an IO error occurs.
+   * @since 5.2.0
+   */
+  public FilesToCompile determineSourcesToCompile(
+      ProjectInputListing listing,
+      @Nullable Path outputDescriptorFile,
+      boolean aggregatingOutputs,
+      boolean stagingOutputs
+  ) throws IOException {
     var maybePreviousBuildCache = readIncrementalCache(getPreviousIncrementalCachePath());
+    var nextCache = buildIncrementalCache(listing, maybePreviousBuildCache);
 
     // If we lack a cache from a previous build, then we cannot determine what we should compile
     // and what we should ignore, so we'll have to rebuild everything anyway.
     if (maybePreviousBuildCache.isEmpty()) {
+      writeIncrementalCache(getNextIncrementalCachePath(), nextCache);
       log.info("All sources will be compiled, as no previous build data was detected");
       return FilesToCompile.allOf(listing);
     }
 
     var previousCache = maybePreviousBuildCache.get();
 
+    // If the configuration changed and the previous outputs were kept, they will be replaced
+    // by whatever this build generates, so we start from scratch without inheriting them.
+    if (configurationChanged) {
+      writeIncrementalCache(getNextIncrementalCachePath(), nextCache);
+      return FilesToCompile.allOf(listing);
+    }
+
+    // If sources were deleted, we cannot tell which generated files belonged to them, so
+    // we remove everything that previous builds generated and start from scratch.
+    var deletedFileCount = Stream
+        .concat(
+            previousCache.getProtoSources().keySet().stream()
+                .filter(not(nextCache.getProtoSources()::containsKey)),
+            previousCache.getDescriptorFiles().keySet().stream()
+                .filter(not(nextCache.getDescriptorFiles()::containsKey))
+        )
+        .count();
+
+    if (deletedFileCount > 0) {
+      log.info(
+          "Detected that {} have been deleted, all previously generated files will be removed "
+              + "and all sources will be recompiled",
+          StringUtils.pluralize(deletedFileCount, "source file")
+      );
+      if (!stagingOutputs) {
+        deleteGeneratedFiles(previousCache.getGeneratedFiles());
+      }
+      writeIncrementalCache(getNextIncrementalCachePath(), nextCache);
+      return FilesToCompile.allOf(listing);
+    }
+
+    // Always update the cache to catch changes in the next builds.
+    nextCache = ImmutableIncrementalCache.builder()
+        .from(nextCache)
+        .generatedFiles(previousCache.getGeneratedFiles())
+        .outputDescriptorFiles(previousCache.getOutputDescriptorFiles())
+        .build();
+    writeIncrementalCache(getNextIncrementalCachePath(), nextCache);
+
     // If dependencies change, we should recompile everything so that we can spot any compilation
     // failures that have been created by changes to imported messages.
     if (!previousCache.getProtoDependencies().equals(nextCache.getProtoDependencies())) {
@@ -114,20 +505,156 @@ public final class IncrementalCacheManager {
       return FilesToCompile.allOf(listing);
     }
 
-    var protoSourceFilesChanged = nextCache.getProtoSources().keySet()
-        .stream()
-        .anyMatch(isFileUpdated(IncrementalCache::getProtoSources, previousCache, nextCache));
-
     var descriptorSourceFilesChanged = nextCache.getDescriptorFiles().keySet()
         .stream()
         .anyMatch(isFileUpdated(IncrementalCache::getDescriptorFiles, previousCache, nextCache));
 
-    if (protoSourceFilesChanged || descriptorSourceFilesChanged) {
-      log.info("Detected that source files have changed, all sources will be recompiled.");
+    if (descriptorSourceFilesChanged) {
+      log.info("Detected that descriptor files have changed, all sources will be recompiled");
       return FilesToCompile.allOf(listing);
     }
 
-    return FilesToCompile.empty();
+    var changedProtoSources = nextCache.getProtoSources().keySet()
+        .stream()
+        .filter(isFileUpdated(IncrementalCache::getProtoSources, previousCache, nextCache))
+        .toList();
+
+    if (changedProtoSources.isEmpty()) {
+      if (outputDescriptorFile != null && !isOutputDescriptorUnchanged(
+          previousCache,
+          FileUtils.normalize(outputDescriptorFile)
+      )) {
+        log.info("Detected a change to the output descriptor file, all sources will be recompiled");
+        return FilesToCompile.allOf(listing);
+      }
+
+      return FilesToCompile.empty();
+    }
+
+    if (outputDescriptorFile != null) {
+      log.info(
+          "Detected that {} have changed, all sources will be recompiled as an output "
+              + "descriptor file is being generated",
+          StringUtils.pluralize(changedProtoSources.size(), "source file")
+      );
+      return FilesToCompile.allOf(listing);
+    }
+
+    if (aggregatingOutputs) {
+      log.info(
+          "Detected that {} have changed, all sources will be recompiled as a plugin that "
+              + "aggregates all sources is being used",
+          StringUtils.pluralize(changedProtoSources.size(), "source file")
+      );
+      return FilesToCompile.allOf(listing);
+    }
+
+    // Anything importing a changed file, directly or transitively, may be affected by the
+    // change, so must also be recompiled.
+    var protoSourcesToCompile = determineImportingSources(
+        listing,
+        nextCache,
+        changedProtoSources
+    );
+
+    log.info(
+        "Detected that {} have changed, {} will be recompiled",
+        StringUtils.pluralize(changedProtoSources.size(), "source file"),
+        StringUtils.pluralize(protoSourcesToCompile.size(), "source file")
+    );
+
+    return ImmutableFilesToCompile.builder()
+        .protoSources(protoSourcesToCompile)
+        .descriptorFiles(List.of())
+        .build();
+  }
+
+  private List<Path> determineImportingSources(
+      ProjectInputListing listing,
+      IncrementalCache cache,
+      Collection<Path> changedSources
+  ) {
+    // Determine which compilable source files each import name can refer to. A name may refer
+    // to more than one file if it exists in more than one source root, in which case we assume
+    // the worst and consider all of them.
+    var sourcesByImportName = new HashMap<String, List<Path>>();
+    for (var sourceListing : listing.getCompilableProtoSources()) {
+      for (var sourceFile : sourceListing.getSourceFiles()) {
+        var importName = ProtoImportScanner.importNameOf(sourceListing.getSourceRoot(), sourceFile);
+        sourcesByImportName.computeIfAbsent(importName, name -> new ArrayList<>()).add(sourceFile);
+      }
+    }
+
+    // Invert the import graph, so we can find everything that imports each file.
+    var importersBySource = new HashMap<Path, List<Path>>();
+    cache.getProtoSourceImports().forEach((importer, imports) -> {
+      for (var importName : imports.getImportNames()) {
+        for (var imported : sourcesByImportName.getOrDefault(importName, List.of())) {
+          importersBySource.computeIfAbsent(imported, file -> new ArrayList<>()).add(importer);
+        }
+      }
+    });
+
+    var affectedSources = new HashSet<Path>(changedSources);
+    var queue = new ArrayDeque<Path>(changedSources);
+    while (!queue.isEmpty()) {
+      for (var importer : importersBySource.getOrDefault(queue.remove(), List.of())) {
+        if (affectedSources.add(importer)) {
+          queue.add(importer);
+        }
+      }
+    }
+
+    // Retain the original discovery order so that protoc invocations are reproducible.
+    return SourceListing.flatten(listing.getCompilableProtoSources())
+        .stream()
+        .filter(affectedSources::contains)
+        .toList();
+  }
+
+  private boolean isOutputDescriptorUnchanged(
+      IncrementalCache previousCache,
+      Path outputDescriptorFile
+  ) throws IOException {
+    var previousDigest = previousCache.getOutputDescriptorFiles().get(outputDescriptorFile);
+    return previousDigest != null
+        && Files.isRegularFile(outputDescriptorFile)
+        && previousDigest.equals(digestFile(outputDescriptorFile));
+  }
+
+  private String digestFile(Path file) throws IOException {
+    try (var inputStream = FileUtils.newBufferedInputStream(file)) {
+      return Digest.compute("SHA-512", inputStream).toHexString();
+    }
+  }
+
+  private Map<Path, FileStat> statRegularFiles(
+      Collection<Path> directories
+  ) throws IOException {
+    var stats = new HashMap<Path, FileStat>();
+
+    for (var directory : directories) {
+      if (!Files.isDirectory(directory)) {
+        continue;
+      }
+
+      try (var files = Files.walk(directory)) {
+        var iterator = files.filter(Files::isRegularFile).iterator();
+        while (iterator.hasNext()) {
+          var file = iterator.next();
+          stats.put(file, FileStat.of(file));
+        }
+      }
+    }
+
+    return stats;
+  }
+
+  private void deleteGeneratedFiles(Collection<Path> generatedFiles) throws IOException {
+    for (var generatedFile : generatedFiles) {
+      log.debug("Deleting previously generated file \"{}\"", generatedFile);
+      Files.deleteIfExists(generatedFile);
+    }
   }
 
   private Predicate<Path> isFileUpdated(
@@ -141,11 +668,50 @@ public final class IncrementalCacheManager {
     );
   }
 
+  private Optional<Properties> readBuildFingerprint() throws IOException {
+    var path = getBuildFingerprintPath();
+    log.debug("Reading build fingerprint in from \"{}\"", path);
+
+    var properties = new Properties();
+    try (var inputStream = FileUtils.newBufferedInputStream(path)) {
+      properties.load(inputStream);
+    } catch (NoSuchFileException ex) {
+      log.debug("No file found at \"{}\"", path);
+      return Optional.empty();
+    }
+
+    if (properties.getProperty(CONFIGURATION_DIGEST) == null) {
+      log.debug("Ignoring incomplete build fingerprint at \"{}\"", path);
+      return Optional.empty();
+    }
+
+    return Optional.of(properties);
+  }
+
+  private void writeBuildFingerprint(
+      String configurationDigest,
+      @Nullable String inputsDigest
+  ) throws IOException {
+    var path = getBuildFingerprintPath();
+    log.debug("Writing build fingerprint out to \"{}\"", path);
+
+    var properties = new Properties();
+    properties.setProperty(CONFIGURATION_DIGEST, configurationDigest);
+    if (inputsDigest != null) {
+      properties.setProperty(INPUTS_DIGEST, inputsDigest);
+    }
+
+    try (var outputStream = FileUtils.newBufferedOutputStream(path)) {
+      properties.store(outputStream, null);
+    }
+  }
+
+
   private Optional<IncrementalCache> readIncrementalCache(Path path) throws IOException {
     log.debug("Reading incremental cache in from \"{}\"", path);
 
-    try (var reader = Files.newBufferedReader(path)) {
-      return Optional.of(incrementalCacheSerializer.deserialize(reader));
+    try (var inputStream = FileUtils.newBufferedInputStream(path)) {
+      return Optional.of(incrementalCacheSerializer.deserialize(inputStream));
     } catch (NoSuchFileException ex) {
       log.debug("No file found at \"{}\"", path);
       return Optional.empty();
@@ -158,15 +724,32 @@ public final class IncrementalCacheManager {
   ) throws IOException {
     log.debug("Writing incremental cache out to \"{}\"", path);
 
-    try (var writer = Files.newBufferedWriter(path)) {
-      incrementalCacheSerializer.serialize(cache, writer);
+    try (var outputStream = FileUtils.newBufferedOutputStream(path)) {
+      incrementalCacheSerializer.serialize(cache, outputStream);
     }
   }
 
-  private IncrementalCache buildIncrementalCache(ProjectInputListing listing) {
-    var importFutures = generateProtoFileDigests(listing.getDependencyProtoSources());
-    var sourceFutures = generateProtoFileDigests(listing.getCompilableProtoSources());
-    var descriptorFutures = generateDescriptorDigests(listing.getCompilableDescriptorFiles());
+  private IncrementalCache buildIncrementalCache(
+      ProjectInputListing listing,
+      Optional<IncrementalCache> maybePreviousCache
+  ) {
+    var digester = new FileDigester(
+        maybePreviousCache.orElseGet(() -> ImmutableIncrementalCache.builder().build()),
+        Instant.now().minus(RACY_MODIFICATION_WINDOW)
+    );
+
+    var importFutures = listing.getDependencyProtoSources()
+        .stream()
+        .flatMap(digester::digestDependency);
+    var sourceFutures = listing.getCompilableProtoSources()
+        .stream()
+        .map(SourceListing::getSourceFiles)
+        .flatMap(Collection::stream)
+        .map(digester::digestProtoSource);
+    var descriptorFutures = listing.getCompilableDescriptorFiles()
+        .stream()
+        .map(DescriptorListing::getDescriptorFilePath)
+        .map(file -> digester.digestFile(file, IncrementalCache::getDescriptorFiles));
 
     var results = Stream
         .of(importFutures, sourceFutures, descriptorFutures)
@@ -181,45 +764,128 @@ public final class IncrementalCacheManager {
         .protoDependencies(results.next())
         .protoSources(results.next())
         .descriptorFiles(results.next())
+        .protoSourceImports(digester.sourceImports)
+        .fileStats(digester.fileStats)
         .build();
   }
 
-  private Stream<FutureTask<Map.Entry<Path, String>>> generateProtoFileDigests(
-      Collection<SourceListing> listings
-  ) {
-    return listings.stream()
-        .map(SourceListing::getSourceFiles)
-        .flatMap(Collection::stream)
-        .map(this::generateFileDigest);
+  private Path getIncrementalCacheRoot() {
+    return temporarySpace.createTemporarySpace("incremental-build-cache", SPEC_VERSION);
   }
 
-  private Stream<FutureTask<Map.Entry<Path, String>>> generateDescriptorDigests(
-      Collection<DescriptorListing> listings
-  ) {
-    return listings.stream()
-        .map(DescriptorListing::getDescriptorFilePath)
-        .map(this::generateFileDigest);
+  private Path getBuildFingerprintPath() {
+    return getIncrementalCacheRoot().resolve("fingerprint.properties");
   }
 
-  private FutureTask<Map.Entry<Path, String>> generateFileDigest(Path file) {
-    return concurrentExecutor.submit(() -> {
-      log.trace("Generating digest for \"{}\"", file);
-      try (var inputStream = FileUtils.newBufferedInputStream(file)) {
-        var digest = Digest.compute("SHA-512", inputStream).toHexString();
-        return Map.entry(file, digest);
-      }
-    });
+  private Path getPreviousIncrementalCachePath() {
+    return getIncrementalCacheRoot().resolve("previous.bin");
   }
 
-  private Path getIncrementalCacheRoot() {
-    return temporarySpace.createTemporarySpace("incremental-build-cache", SPEC_VERSION);
+  private Path getNextIncrementalCachePath() {
+    return getIncrementalCacheRoot().resolve("next.bin");
   }
 
-  private Path getPreviousIncrementalCachePath() {
-    return getIncrementalCacheRoot().resolve("previous.json");
-  }
+  // Computes file digests, reusing those from the previous build where the file metadata
+  // indicates that the file has not been touched since. This avoids reading and hashing every
+  // file on every build, which dominates the cost of no-op builds in large projects.
+  private final class FileDigester {
+    private final IncrementalCache previousCache;
+    private final Instant racyThreshold;
+    private final Map<Path, ProtoSourceImports> sourceImports;
+    private final Map<Path, FileStat> fileStats;
 
-  private Path getNextIncrementalCachePath() {
-    return getIncrementalCacheRoot().resolve("next.json");
+    private FileDigester(IncrementalCache previousCache, Instant racyThreshold) {
+      this.previousCache = previousCache;
+      this.racyThreshold = racyThreshold;
+      sourceImports = new ConcurrentHashMap<>();
+      fileStats = new ConcurrentHashMap<>();
+    }
+
+    // Dependencies extracted from archives are tracked by the archive itself rather than by
+    // each extracted file, which avoids reading any extracted files at all when the archive
+    // is unchanged. We also track the names of the extracted files, so that changes to
+    // the files we pull out of the archive are still noticed.
+    private Stream<FutureTask<Map.Entry<Path, String>>> digestDependency(SourceListing listing) {
+      return listing.getOriginArchive()
+          .map(archive -> Stream.of(
+              digestFile(archive, IncrementalCache::getProtoDependencies),
+              digestFileNames(listing)
+          ))
+          .orElseGet(() -> listing.getSourceFiles()
+              .stream()
+              .map(file -> digestFile(file, IncrementalCache::getProtoDependencies)));
+    }
+
+    private FutureTask<Map.Entry<Path, String>> digestFileNames(SourceListing listing) {
+      return concurrentExecutor.submit(() -> {
+        var fileNames = listing.getSourceFiles()
+            .stream()
+            .map(file -> ProtoImportScanner.importNameOf(listing.getSourceRoot(), file))
+            .sorted()
+            .collect(Collectors.joining("\n"));
+        var digest = Digest.compute("SHA-512", fileNames).toHexString();
+        return Map.entry(listing.getSourceRoot(), digest);
+      });
+    }
+
+    private FutureTask<Map.Entry<Path, String>> digestFile(
+        Path file,
+        Function<IncrementalCache, Map<Path, String>> cacheAccessor
+    ) {
+      return concurrentExecutor.submit(() -> {
+        var stat = statFile(file);
+        var previousDigest = cacheAccessor.apply(previousCache).get(file);
+
+        if (previousDigest != null && isUnchanged(file, stat)) {
+          log.trace("Reusing previous digest for unchanged file \"{}\"", file);
+          return Map.entry(file, previousDigest);
+        }
+
+        log.trace("Generating digest for \"{}\"", file);
+        try (var inputStream = FileUtils.newBufferedInputStream(file)) {
+          var digest = Digest.compute("SHA-512", inputStream).toHexString();
+          return Map.entry(file, digest);
+        }
+      });
+    }
+
+    // Compilable sources are read in full once, so that we can both compute the digest and
+    // discover the imports without reading the file twice.
+    private FutureTask<Map.Entry<Path, String>> digestProtoSource(Path file) {
+      return concurrentExecutor.submit(() -> {
+        var stat = statFile(file);
+        var previousDigest = previousCache.getProtoSources().get(file);
+        var previousImports = previousCache.getProtoSourceImports().get(file);
+
+        if (previousDigest != null && previousImports != null && isUnchanged(file, stat)) {
+          log.trace("Reusing previous digest and imports for unchanged file \"{}\"", file);
+          sourceImports.put(file, previousImports);
+          return Map.entry(file, previousDigest);
+        }
+
+        log.trace("Generating digest and discovering imports for \"{}\"", file);
+        var content = Files.readAllBytes(file);
+        var imports = ProtoImportScanner.scanImports(new String(content, StandardCharsets.UTF_8));
+        sourceImports.put(file, ProtoSourceImports.of(imports));
+        var digest = Digest.compute("SHA-512", content).toHexString();
+        return Map.entry(file, digest);
+      });
+    }
+
+    private FileStat statFile(Path file) throws IOException {
+      var stat = FileStat.of(file);
+
+      // If the file was modified very recently, it could be modified again before the
+      // timestamp ticks over, so we avoid recording anything to force a rehash next time.
+      if (stat.isModifiedBefore(racyThreshold)) {
+        fileStats.put(file, stat);
+      }
+
+      return stat;
+    }
+
+    private boolean isUnchanged(Path file, FileStat stat) {
+      return stat.equals(previousCache.getFileStats().get(file));
+    }
   }
 }
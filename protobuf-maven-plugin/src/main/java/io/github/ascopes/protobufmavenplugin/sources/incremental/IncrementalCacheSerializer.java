@@ -15,23 +15,45 @@
  */
 package io.github.ascopes.protobufmavenplugin.sources.incremental;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HexFormat;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
 import javax.inject.Named;
 import org.apache.maven.execution.scope.MojoExecutionScoped;
 import org.eclipse.sisu.Description;
-import org.json.JSONObject;
-import org.json.JSONTokener;
 
 /**
  * Serializer for {@link IncrementalCache} objects.
  *
+ * <p>Caches are stored in a compact binary format, as projects with many dependencies can
+ * produce caches that are slow to parse otherwise. The format consists of:
+ *
+ * <ol>
+ *   <li>A header, consisting of a magic number and a format version;</li>
+ *   <li>A table of distinct parent directories;</li>
+ *   <li>A table of distinct paths, each referencing a parent directory and holding the file
+ *       name;</li>
+ *   <li>Each section of the cache, referencing paths by their index in the path table, and
+ *       holding digests as raw bytes.</li>
+ * </ol>
+ *
+ * <p>All of this can be read in a single buffered pass.
+ *
  * @author Ashley Scopes
  * @since 2.10.5
  */
@@ -39,66 +61,221 @@ import org.json.JSONTokener;
 @MojoExecutionScoped
 @Named
 final class IncrementalCacheSerializer {
-  private static final String PROTO_DEPENDENCIES = "proto_dependencies";
-  private static final String PROTO_SOURCES = "proto_sources";
-  private static final String DESCRIPTOR_FILES = "descriptor_files";
+  // "PMPC", for "protobuf-maven-plugin cache".
+  private static final int MAGIC = 0x504D5043;
+  private static final int FORMAT_VERSION = 2;
+  private static final HexFormat HEX = HexFormat.of();
 
-  void serialize(IncrementalCache cache, Writer writer) throws IOException {
+  void serialize(IncrementalCache cache, OutputStream outputStream) throws IOException {
     try {
-      cacheToJson(cache).write(writer, 2, 2);
+      var output = new DataOutputStream(outputStream);
+      writeCache(cache, output);
+      output.flush();
     } catch (Exception ex) {
-      throw new IOException("Failed to write JSON file", ex);
+      throw new IOException("Failed to write incremental cache file", ex);
     }
   }
 
-  IncrementalCache deserialize(Reader reader) throws IOException {
+  IncrementalCache deserialize(InputStream inputStream) throws IOException {
     try {
-      var object = new JSONObject(new JSONTokener(reader));
-      return jsonToCache(object);
+      return readCache(new DataInputStream(inputStream));
     } catch (Exception ex) {
-      throw new IOException("Failed to read JSON file", ex);
+      throw new IOException("Failed to read incremental cache file", ex);
+    }
+  }
+
+  private void writeCache(IncrementalCache cache, DataOutputStream output) throws IOException {
+    output.writeInt(MAGIC);
+    output.writeInt(FORMAT_VERSION);
+
+    var pathTable = writePathTable(cache, output);
+
+    writeDigestMapping(cache.getProtoDependencies(), pathTable, output);
+    writeDigestMapping(cache.getProtoSources(), pathTable, output);
+    writeDigestMapping(cache.getDescriptorFiles(), pathTable, output);
+    writeDigestMapping(cache.getOutputDescriptorFiles(), pathTable, output);
+
+    output.writeInt(cache.getProtoSourceImports().size());
+    for (var entry : cache.getProtoSourceImports().entrySet()) {
+      output.writeInt(indexOf(pathTable, entry.getKey()));
+      var importNames = entry.getValue().getImportNames();
+      output.writeInt(importNames.size());
+      for (var importName : importNames) {
+        writeString(importName, output);
+      }
+    }
+
+    output.writeInt(cache.getGeneratedFiles().size());
+    for (var generatedFile : cache.getGeneratedFiles()) {
+      output.writeInt(indexOf(pathTable, generatedFile));
+    }
+
+    output.writeInt(cache.getFileStats().size());
+    for (var entry : cache.getFileStats().entrySet()) {
+      var stat = entry.getValue();
+      var fileKey = stat.getFileKey();
+      output.writeInt(indexOf(pathTable, entry.getKey()));
+      output.writeLong(stat.getSize());
+      output.writeLong(stat.getLastModifiedNanos());
+      output.writeBoolean(fileKey != null);
+      if (fileKey != null) {
+        writeString(fileKey, output);
+      }
+    }
+  }
+
+  private IncrementalCache readCache(DataInputStream input) throws IOException {
+    var magic = input.readInt();
+    if (magic != MAGIC) {
+      throw new IOException("File is not an incremental cache file");
+    }
+
+    var formatVersion = input.readInt();
+    if (formatVersion != FORMAT_VERSION) {
+      throw new IOException("Unsupported incremental cache format version " + formatVersion);
+    }
+
+    var pathTable = readPathTable(input);
+    var builder = ImmutableIncrementalCache.builder()
+        .protoDependencies(readDigestMapping(pathTable, input))
+        .protoSources(readDigestMapping(pathTable, input))
+        .descriptorFiles(readDigestMapping(pathTable, input))
+        .outputDescriptorFiles(readDigestMapping(pathTable, input));
+
+    var importCount = input.readInt();
+    for (var index = 0; index < importCount; ++index) {
+      var path = pathTable.get(input.readInt());
+      var importNameCount = input.readInt();
+      var importNames = new LinkedHashSet<String>();
+      for (var nameIndex = 0; nameIndex < importNameCount; ++nameIndex) {
+        importNames.add(readString(input));
+      }
+      builder.putProtoSourceImports(path, ProtoSourceImports.of(importNames));
     }
+
+    var generatedFileCount = input.readInt();
+    for (var index = 0; index < generatedFileCount; ++index) {
+      builder.addGeneratedFiles(pathTable.get(input.readInt()));
+    }
+
+    var statCount = input.readInt();
+    for (var index = 0; index < statCount; ++index) {
+      var path = pathTable.get(input.readInt());
+      var stat = ImmutableFileStat.builder()
+          .size(input.readLong())
+          .lastModifiedNanos(input.readLong())
+          .fileKey(input.readBoolean() ? readString(input) : null)
+          .build();
+      builder.putFileStats(path, stat);
+    }
+
+    return builder.build();
   }
 
-  private JSONObject cacheToJson(IncrementalCache cache) {
-    return new JSONObject()
-        .put(PROTO_DEPENDENCIES, pathMappingToJson(cache.getProtoDependencies()))
-        .put(PROTO_SOURCES, pathMappingToJson(cache.getProtoSources()))
-        .put(DESCRIPTOR_FILES, pathMappingToJson(cache.getDescriptorFiles()));
+  // Most paths share a small number of parent directories, so we only store each directory
+  // once, and store the file names relative to those.
+  private Map<Path, Integer> writePathTable(
+      IncrementalCache cache,
+      DataOutputStream output
+  ) throws IOException {
+    var paths = new LinkedHashMap<Path, Integer>();
+    var directories = new LinkedHashMap<String, Integer>();
+
+    Stream
+        .of(
+            cache.getProtoDependencies().keySet(),
+            cache.getProtoSources().keySet(),
+            cache.getDescriptorFiles().keySet(),
+            cache.getOutputDescriptorFiles().keySet(),
+            cache.getProtoSourceImports().keySet(),
+            cache.getGeneratedFiles(),
+            cache.getFileStats().keySet()
+        )
+        .flatMap(Collection::stream)
+        .forEach(path -> {
+          paths.putIfAbsent(path, paths.size());
+          directories.putIfAbsent(directoryToString(path), directories.size());
+        });
+
+    output.writeInt(directories.size());
+    for (var directory : directories.keySet()) {
+      writeString(directory, output);
+    }
+
+    output.writeInt(paths.size());
+    for (var path : paths.keySet()) {
+      output.writeInt(indexOf(directories, directoryToString(path)));
+      writeString(Objects.requireNonNull(path.getFileName()).toString(), output);
+    }
+
+    return paths;
   }
 
-  private IncrementalCache jsonToCache(JSONObject object) {
-    return ImmutableIncrementalCache.builder()
-        .protoDependencies(jsonToPathMapping(object.getJSONObject(PROTO_DEPENDENCIES)))
-        .protoSources(jsonToPathMapping(object.getJSONObject(PROTO_SOURCES)))
-        .descriptorFiles(jsonToPathMapping(object.getJSONObject(DESCRIPTOR_FILES)))
-        .build();
+  private List<Path> readPathTable(DataInputStream input) throws IOException {
+    var directoryCount = input.readInt();
+    var directories = new ArrayList<Path>(directoryCount);
+    for (var index = 0; index < directoryCount; ++index) {
+      directories.add(Path.of(URI.create(readString(input))));
+    }
+
+    var pathCount = input.readInt();
+    var paths = new ArrayList<Path>(pathCount);
+    for (var index = 0; index < pathCount; ++index) {
+      var directory = directories.get(input.readInt());
+      paths.add(directory.resolve(readString(input)));
+    }
+
+    return paths;
   }
 
-  private JSONObject pathMappingToJson(Map<Path, String> mapping) {
-    var object = new JSONObject();
-    mapping.forEach((path, hash) -> {
-      var key = pathToJson(path);
-      object.put(key, hash);
-    });
-    return object;
+  private void writeDigestMapping(
+      Map<Path, String> mapping,
+      Map<Path, Integer> pathTable,
+      DataOutputStream output
+  ) throws IOException {
+    output.writeInt(mapping.size());
+    for (var entry : mapping.entrySet()) {
+      var digest = HEX.parseHex(entry.getValue());
+      output.writeInt(indexOf(pathTable, entry.getKey()));
+      output.writeInt(digest.length);
+      output.write(digest);
+    }
   }
 
-  private Map<Path, String> jsonToPathMapping(JSONObject object) {
+  private Map<Path, String> readDigestMapping(
+      List<Path> pathTable,
+      DataInputStream input
+  ) throws IOException {
+    var count = input.readInt();
     var mapping = new LinkedHashMap<Path, String>();
-    object.keys().forEachRemaining(key -> {
-      var path = jsonToPath(key);
-      var hash = object.getString(key);
-      mapping.put(path, hash);
-    });
+    for (var index = 0; index < count; ++index) {
+      var path = pathTable.get(input.readInt());
+      var digest = new byte[input.readInt()];
+      input.readFully(digest);
+      mapping.put(path, HEX.formatHex(digest));
+    }
     return Collections.unmodifiableMap(mapping);
   }
 
-  private String pathToJson(Path path) {
-    return path.toUri().toString();
+  private <T> int indexOf(Map<T, Integer> table, T value) {
+    return Objects.requireNonNull(table.get(value), "table entry");
+  }
+
+  private String directoryToString(Path path) {
+    return Objects.requireNonNull(path.getParent()).toUri().toString();
+  }
+
+  // DataOutputStream#writeUTF is limited to 64 KiB and uses a modified encoding, so we
+  // write plain length-prefixed UTF-8 instead.
+  private void writeString(String value, DataOutputStream output) throws IOException {
+    var bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
   }
 
-  private Path jsonToPath(String value) {
-    return Path.of(URI.create(value));
+  private String readString(DataInputStream input) throws IOException {
+    var bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
   }
 }
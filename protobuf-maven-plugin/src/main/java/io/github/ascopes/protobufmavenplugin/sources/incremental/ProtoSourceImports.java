@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources.incremental;
+
+import java.util.Set;
+import org.immutables.value.Value.Immutable;
+
+/**
+ * The imports declared by a single compilable proto source, as stored in the
+ * {@link IncrementalCache}.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Immutable
+interface ProtoSourceImports {
+
+  Set<String> getImportNames();
+
+  static ProtoSourceImports of(Set<String> importNames) {
+    return ImmutableProtoSourceImports.builder()
+        .importNames(importNames)
+        .build();
+  }
+}
@@ -17,6 +17,7 @@ package io.github.ascopes.protobufmavenplugin.system;
 
 import io.github.ascopes.protobufmavenplugin.utils.VisibleForTestingOnly;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -25,6 +26,8 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import javax.annotation.PreDestroy;
@@ -84,12 +87,24 @@ public final class ConcurrentExecutor {
   }
 
   public <R> FutureTask<R> submit(Callable<R> task) {
-    var futureTask = new FutureTask<>(task);
+    var futureTask = new CompletionNotifyingTask<>(task);
     var future = executorService.submit(futureTask);
     log.trace("Scheduled future task {} for callable {} as {}", futureTask, task, future);
     return futureTask;
   }
 
+  // Runs the task on a new thread outside the pool. This is meant for long-running stages that
+  // fan their own work out across the pool and block until it completes. Running those on pool
+  // workers instead would park the workers, and could occupy all of them and deadlock.
+  public <R> FutureTask<R> submitOnDedicatedThread(String name, Callable<R> task) {
+    var futureTask = new CompletionNotifyingTask<>(task);
+    var thread = new Thread(futureTask, name);
+    thread.setDaemon(true);
+    thread.start();
+    log.trace("Started future task {} for callable {} on thread {}", futureTask, task, thread);
+    return futureTask;
+  }
+
   public <R> Collector<FutureTask<R>, ?, List<R>> awaiting() {
     return Collectors.collectingAndThen(Collectors.toUnmodifiableList(), this::await);
   }
@@ -126,6 +141,44 @@ public final class ConcurrentExecutor {
     }
   }
 
+  // Awaits all tasks in whatever order they complete. As soon as any task fails, all other
+  // tasks are cancelled, rather than waiting for tasks scheduled before it to complete first.
+  // Tasks report their own completion, so we never have to poll them.
+  public void awaitAllOrCancel(Collection<? extends FutureTask<?>> scheduledTasks) {
+    var completedTasks = new LinkedBlockingQueue<FutureTask<?>>();
+
+    for (var task : scheduledTasks) {
+      if (!(task instanceof CompletionNotifyingTask<?> notifyingTask)) {
+        throw new IllegalArgumentException(
+            "Task " + task + " was not scheduled by this executor"
+        );
+      }
+      notifyingTask.whenDone(completedTasks::add);
+    }
+
+    try {
+      for (var remaining = scheduledTasks.size(); remaining > 0; --remaining) {
+        var task = completedTasks.take();
+        try {
+          task.get();
+        } catch (ExecutionException ex) {
+          throw MultipleFailuresException.create(List.of(ex.getCause()));
+        } catch (CancellationException ex) {
+          throw MultipleFailuresException.create(List.of(ex));
+        }
+        log.trace("Task {} completed successfully", task);
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw MultipleFailuresException.create(List.of(ex));
+    } finally {
+      // Cancel anything still running if we failed, were interrupted, or were cancelled.
+      for (var task : scheduledTasks) {
+        task.cancel(true);
+      }
+    }
+  }
+
   @VisibleForTestingOnly
   static int determineConcurrency(int cpuCount) {
     var defaultConcurrency = Math.min(
@@ -161,4 +214,41 @@ public final class ConcurrentExecutor {
 
     return concurrency;
   }
+
+  /**
+   * Future task that notifies listeners once it completes, fails, or is cancelled.
+   *
+   * @param <R> the result type.
+   */
+  private static final class CompletionNotifyingTask<R> extends FutureTask<R> {
+
+    private final List<Consumer<FutureTask<R>>> listeners;
+
+    private CompletionNotifyingTask(Callable<R> callable) {
+      super(callable);
+      listeners = new ArrayList<>();
+    }
+
+    private void whenDone(Consumer<FutureTask<R>> listener) {
+      synchronized (listeners) {
+        if (!isDone()) {
+          listeners.add(listener);
+          return;
+        }
+      }
+
+      // Already done, so done() will never see this listener.
+      listener.accept(this);
+    }
+
+    @Override
+    protected void done() {
+      List<Consumer<FutureTask<R>>> listenersToNotify;
+      synchronized (listeners) {
+        listenersToNotify = List.copyOf(listeners);
+        listeners.clear();
+      }
+      listenersToNotify.forEach(listener -> listener.accept(this));
+    }
+  }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.system;
+
+import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import javax.inject.Inject;
+import javax.inject.Named;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.execution.scope.MojoExecutionScoped;
+import org.eclipse.aether.SessionData;
+import org.eclipse.sisu.Description;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of resolution results that is shared between every execution of this plugin within the
+ * same Maven session.
+ *
+ * <p>Components are scoped to a single mojo execution, so without this, each goal in each module
+ * would resolve and prepare the same protoc distributions and plugins again. Entries live in the
+ * repository session data, which Maven keeps for the lifetime of the session.
+ *
+ * <p>Concurrent requests for the same key, such as those made by parallel module builds, are
+ * deduplicated so that only one of them performs the resolution. Failures are never cached.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+@Description("Shares resolution results between executions within the same Maven session")
+@MojoExecutionScoped
+@Named
+public final class SessionResolutionCache {
+
+  private static final Logger log = LoggerFactory.getLogger(SessionResolutionCache.class);
+
+  private final ConcurrentMap<Object, FutureTask<Object>> entries;
+
+  @Inject
+  public SessionResolutionCache(MavenSession mavenSession) {
+    entries = getOrCreateEntries(mavenSession.getRepositorySession().getData());
+  }
+
+  /**
+   * Get the cached result for the given key, or compute it if no other execution has done so yet.
+   *
+   * @param key the key. This must implement equality by value, and should capture everything that
+   *     the result depends on.
+   * @param loader the loader to compute the result with.
+   * @param <T> the result type. This must be immutable, as it may be shared between threads.
+   * @return the result.
+   * @throws ResolutionException if the loader fails.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T computeIfAbsent(Object key, Loader<T> loader) throws ResolutionException {
+    var task = new FutureTask<Object>(loader::load);
+    var existingTask = entries.putIfAbsent(key, task);
+
+    if (existingTask == null) {
+      log.trace("Computing session-scoped result for {}", key);
+      task.run();
+    } else {
+      log.debug("Reusing session-scoped result for {}", key);
+      task = existingTask;
+    }
+
+    try {
+      return (T) task.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ResolutionException("Interrupted while resolving " + key, ex);
+    } catch (ExecutionException ex) {
+      // Allow later executions to try again, as the failure may have been transient.
+      entries.remove(key, task);
+
+      var cause = ex.getCause();
+      if (cause instanceof ResolutionException resolutionException) {
+        throw resolutionException;
+      } else if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      } else if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new ResolutionException("Failed to resolve " + key + ": " + cause, cause);
+    }
+  }
+
+  // Keyed by our own class so that different versions of this plugin used within the same
+  // session, which are loaded by different class realms, never see each other's entries.
+  @SuppressWarnings("unchecked")
+  private static ConcurrentMap<Object, FutureTask<Object>> getOrCreateEntries(
+      SessionData sessionData
+  ) {
+    var dataKey = SessionResolutionCache.class;
+
+    while (true) {
+      var existingEntries = sessionData.get(dataKey);
+      if (existingEntries != null) {
+        return (ConcurrentMap<Object, FutureTask<Object>>) existingEntries;
+      }
+
+      var newEntries = new ConcurrentHashMap<Object, FutureTask<Object>>();
+      if (sessionData.set(dataKey, null, newEntries)) {
+        return newEntries;
+      }
+    }
+  }
+
+  /**
+   * Loader for a cache entry.
+   *
+   * @param <T> the result type.
+   */
+  @FunctionalInterface
+  public interface Loader<T> {
+
+    T load() throws ResolutionException;
+  }
+}
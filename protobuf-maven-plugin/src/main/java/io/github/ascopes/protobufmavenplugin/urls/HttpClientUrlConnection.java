@@ -17,40 +17,56 @@ package io.github.ascopes.protobufmavenplugin.urls;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
-import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
 import org.jspecify.annotations.Nullable;
 
 /**
  * URL connection for HTTP and HTTPS requests
  * that wraps HttpClient
  *
+ * <p>Requests are sent as {@code GET} requests, unless {@link #setDoOutput} is enabled, in which
+ * case anything written to {@link #getOutputStream} is sent as the body of a {@code PUT} request
+ * once the connection is connected.
+ *
+ * <p>The read timeout applies to each read of the response body, as well as to receiving the
+ * response headers.
+ *
+ * <p>Request properties are sent as request headers, with the exception of
+ * {@code Accept-Encoding}. Response bodies are never decoded here, and nested connections read
+ * them as-is, so we never ask for a compressed representation.
+ *
  * @author Ilja Kanstanczuk
  * @since 3.10.2
  */
 final class HttpClientUrlConnection extends URLConnection {
 
+  private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
   private final HttpClient client;
-  private final HttpRequest request;
+  private final URI uri;
+  private @Nullable RequestBodyOutputStream requestBody;
   private @Nullable HttpResponse<InputStream> response;
 
   HttpClientUrlConnection(URL url, HttpClient client) throws URISyntaxException {
     super(url);
     this.client = client;
-    request = HttpRequest
-        .newBuilder()
-        .uri(url.toURI())
-        .GET()
-        .build();
+    uri = url.toURI();
   }
 
   @Override
@@ -59,7 +75,11 @@ final class HttpClientUrlConnection extends URLConnection {
       return;
     }
     try {
-      response = client.send(request, BodyHandlers.ofInputStream());
+      var readTimeout = getReadTimeout();
+      response = client.send(
+          createRequest(),
+          responseInfo -> new ReadTimeoutBodySubscriber(readTimeout)
+      );
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
       var newEx = new InterruptedIOException("HTTP request interrupted for " + url);
@@ -77,6 +97,39 @@ final class HttpClientUrlConnection extends URLConnection {
     }
   }
 
+  @Override
+  public @Nullable String getHeaderField(String name) {
+    return response == null
+        ? null
+        : response.headers().firstValue(name).orElse(null);
+  }
+
+  /**
+   * Get the HTTP status code of the response, connecting first if needed.
+   *
+   * @return the status code.
+   * @throws IOException if connecting fails.
+   * @since 5.2.0
+   */
+  int getResponseCode() throws IOException {
+    connect();
+    return requireNonNull(response).statusCode();
+  }
+
+  @Override
+  public OutputStream getOutputStream() throws IOException {
+    if (!doOutput) {
+      throw new ProtocolException("Output is not enabled for this connection");
+    }
+    if (connected) {
+      throw new ProtocolException("Cannot write to a connection that is already connected");
+    }
+    if (requestBody == null) {
+      requestBody = new RequestBodyOutputStream();
+    }
+    return requestBody;
+  }
+
   @Override
   public InputStream getInputStream() throws IOException {
     if (!connected) {
@@ -84,4 +137,39 @@ final class HttpClientUrlConnection extends URLConnection {
     }
     return requireNonNull(response).body();
   }
+
+  private HttpRequest createRequest() {
+    var builder = HttpRequest.newBuilder().uri(uri);
+
+    getRequestProperties().forEach((name, values) -> {
+      if (!ACCEPT_ENCODING.equalsIgnoreCase(name)) {
+        values.forEach(value -> builder.header(name, value));
+      }
+    });
+
+    // The request timeout covers everything up to receiving the response headers, which
+    // includes establishing the connection.
+    var timeout = Math.max(getConnectTimeout(), getReadTimeout());
+    if (timeout > 0) {
+      builder.timeout(Duration.ofMillis(timeout));
+    }
+
+    if (doOutput) {
+      builder.PUT(requestBody == null
+          ? BodyPublishers.noBody()
+          : requestBody.toBodyPublisher());
+    } else {
+      builder.GET();
+    }
+
+    return builder.build();
+  }
+
+  // Buffers the request body, and hands the buffer over to the request without copying it.
+  private static final class RequestBodyOutputStream extends ByteArrayOutputStream {
+
+    private synchronized BodyPublisher toBodyPublisher() {
+      return BodyPublishers.ofByteArray(buf, 0, count);
+    }
+  }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.urls;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Body subscriber that exposes an HTTP response body as an input stream, failing any read that
+ * waits longer than the read timeout for more data.
+ *
+ * <p>HttpClient request timeouts only cover the wait for the response headers, so without this,
+ * a server that stalls part way through the body would block the reader forever. This mirrors
+ * how {@link java.net.URLConnection#setReadTimeout(int)} behaves for other connections.
+ *
+ * @author Ashley Scopes
+ * @since 5.2.0
+ */
+final class ReadTimeoutBodySubscriber
+    extends InputStream
+    implements BodySubscriber<InputStream> {
+
+  // Marks the end of the body, whether it completed successfully or not. Compared by identity.
+  private static final List<ByteBuffer> END_OF_BODY = Collections.unmodifiableList(
+      new ArrayList<>()
+  );
+
+  private final long readTimeoutMillis;
+  private final BlockingQueue<List<ByteBuffer>> items;
+  private volatile Flow.@Nullable Subscription subscription;
+  private volatile @Nullable Throwable failure;
+  private volatile boolean closed;
+  private @Nullable Iterator<ByteBuffer> currentItem;
+  private @Nullable ByteBuffer currentBuffer;
+  private boolean endOfBody;
+
+  /**
+   * Initialise the subscriber.
+   *
+   * @param readTimeoutMillis the read timeout in milliseconds, or zero to wait indefinitely.
+   */
+  ReadTimeoutBodySubscriber(long readTimeoutMillis) {
+    this.readTimeoutMillis = readTimeoutMillis;
+    items = new LinkedBlockingQueue<>();
+  }
+
+  @Override
+  public CompletionStage<InputStream> getBody() {
+    // The body is available as soon as the headers have been received, and is then streamed.
+    return CompletableFuture.completedStage(this);
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (closed) {
+      subscription.cancel();
+      return;
+    }
+    this.subscription = subscription;
+    subscription.request(1);
+  }
+
+  @Override
+  public void onNext(List<ByteBuffer> item) {
+    items.add(item);
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    failure = throwable;
+    items.add(END_OF_BODY);
+  }
+
+  @Override
+  public void onComplete() {
+    items.add(END_OF_BODY);
+  }
+
+  @Override
+  public int read() throws IOException {
+    var buffer = nextBuffer();
+    return buffer == null ? -1 : buffer.get() & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) throws IOException {
+    Objects.checkFromIndexSize(offset, length, bytes.length);
+    if (length == 0) {
+      return 0;
+    }
+
+    var buffer = nextBuffer();
+    if (buffer == null) {
+      return -1;
+    }
+
+    var count = Math.min(buffer.remaining(), length);
+    buffer.get(bytes, offset, count);
+    return count;
+  }
+
+  @Override
+  public int available() {
+    var buffer = currentBuffer;
+    return buffer == null ? 0 : buffer.remaining();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    cancel();
+    items.clear();
+  }
+
+  // Returns the buffer to read from next, blocking until more of the body arrives, or null
+  // once the end of the body has been reached.
+  @SuppressWarnings("ReferenceEquality")
+  private @Nullable ByteBuffer nextBuffer() throws IOException {
+    while (currentBuffer == null || !currentBuffer.hasRemaining()) {
+      if (closed) {
+        throw new IOException("Stream closed");
+      }
+
+      if (endOfBody) {
+        var failure = this.failure;
+        if (failure != null) {
+          throw new IOException("Failed to read the response body: " + failure, failure);
+        }
+        return null;
+      }
+
+      if (currentItem != null && currentItem.hasNext()) {
+        currentBuffer = currentItem.next();
+        continue;
+      }
+
+      var item = takeItem();
+      if (item == END_OF_BODY) {
+        endOfBody = true;
+      } else {
+        currentItem = item.iterator();
+        requireNonNull(subscription).request(1);
+      }
+    }
+
+    return currentBuffer;
+  }
+
+  private List<ByteBuffer> takeItem() throws IOException {
+    try {
+      var item = readTimeoutMillis > 0
+          ? items.poll(readTimeoutMillis, TimeUnit.MILLISECONDS)
+          : items.take();
+
+      if (item == null) {
+        cancel();
+        throw new SocketTimeoutException(
+            "Timed out after " + readTimeoutMillis + "ms waiting for the response body"
+        );
+      }
+
+      return item;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      cancel();
+      var newEx = new InterruptedIOException("Interrupted while reading the response body");
+      newEx.initCause(ex);
+      throw newEx;
+    }
+  }
+
+  private void cancel() {
+    var subscription = this.subscription;
+    if (subscription != null) {
+      subscription.cancel();
+    }
+  }
+}
@@ -18,6 +18,7 @@ package io.github.ascopes.protobufmavenplugin.urls;
 import static java.util.Objects.requireNonNullElse;
 
 import io.github.ascopes.protobufmavenplugin.digests.Digest;
+import io.github.ascopes.protobufmavenplugin.digests.DigestException;
 import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
 import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
 import io.github.ascopes.protobufmavenplugin.system.HostSystem;
@@ -29,10 +30,14 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.Properties;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 import javax.inject.Inject;
@@ -69,6 +74,14 @@ public final class UriResourceFetcher {
 
   private static final String USER_AGENT = "User-Agent";
 
+  private static final String ETAG = "ETag";
+  private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+  private static final String IF_NONE_MATCH = "If-None-Match";
+  private static final String LAST_MODIFIED = "Last-Modified";
+  private static final int HTTP_NOT_MODIFIED = 304;
+  private static final String DOWNLOAD_LOCK_FILE = ".lock";
+  private static final String DOWNLOAD_METADATA_FILE = ".metadata.properties";
+
   // Fetch our version from our JAR when it is available. For unit tests, etc., this will usually
   // be null as no MANIFEST.MF will have been created yet.
   private static final String USER_AGENT_VALUE = String.format(
@@ -120,6 +133,35 @@ public final class UriResourceFetcher {
       URI uri,
       String extension,
       boolean setExecutable
+  ) throws ResolutionException {
+    return fetchFileFromUri(uri, extension, setExecutable, null);
+  }
+
+  /**
+   * Fetch a file from the given URL, possibly downloading it to the
+   * local file system in a temporary location if it is not on the
+   * root file system.
+   *
+   * <p>HTTP and HTTPS resources are kept in a persistent download cache. If an expected
+   * digest is provided and the cached copy matches it, the cached copy is used without
+   * contacting the server. Otherwise, the server is only asked to send the resource again
+   * if it has changed since it was cached.
+   *
+   * @param uri the URI of the resource to fetch.
+   * @param extension a hint pointing to the potential file extension to use for the resource.
+   *     This may be ignored if the URL points to a resource that is already
+   *     on the root file system.
+   * @param digest the expected digest of the resource, if known.
+   * @return the URL, or an empty optional if it points to a non-existent
+   *     resource.
+   * @throws ResolutionException if resolution fails for any other reason.
+   * @since 5.2.0
+   */
+  public Optional<Path> fetchFileFromUri(
+      URI uri,
+      String extension,
+      boolean setExecutable,
+      @Nullable Digest digest
   ) throws ResolutionException {
     if (mavenSession.isOffline()) {
       if (!OFFLINE_PROTOCOLS.matcher(uri.toString()).matches()) {
@@ -135,13 +177,14 @@ public final class UriResourceFetcher {
     // a copy on each invocation. This has been simplified to be treated in the same way as any
     // other URI so we can correctly enforce executable bits on the file if required without
     // modifying files outside the current build.
-    return fetchFileFromUriOnline(uri, extension, setExecutable);
+    return fetchFileFromUriOnline(uri, extension, setExecutable, digest);
   }
 
   private Optional<Path> fetchFileFromUriOnline(
       URI uri,
       String extension,
-      boolean setExecutable
+      boolean setExecutable,
+      @Nullable Digest digest
   ) throws ResolutionException {
     URL url;
 
@@ -153,11 +196,24 @@ public final class UriResourceFetcher {
 
     // We have to pass a URL in here, since URIs do not parse the !/ fragments at the ends of
     // strings correctly...
-    var targetFile = targetFile(url, extension);
+    var fileName = targetFileName(url, extension);
+    var targetFile = temporarySpace
+        .createTemporarySpace("url", url.getProtocol())
+        .resolve(fileName);
 
     try {
       var conn = openConnection(url);
 
+      if (conn instanceof HttpClientUrlConnection httpConn) {
+        // Keep plain HTTP downloads outside the build directory, so that they survive
+        // mvn clean, and can be revalidated rather than downloaded again.
+        targetFile = getDownloadCacheDirectory()
+            .resolve(Digest.compute("SHA-256", url.toExternalForm()).toHexString())
+            .resolve(fileName);
+        fetchCachedHttpResource(uri, httpConn, targetFile, setExecutable, digest);
+        return Optional.of(targetFile);
+      }
+
       log.debug("Connecting to \"{}\", will transfer contents to \"{}\"", uri, targetFile);
       conn.connect();
 
@@ -219,7 +275,140 @@ public final class UriResourceFetcher {
     return conn;
   }
 
-  private Path targetFile(URL url, String extension) {
+  private void fetchCachedHttpResource(
+      URI uri,
+      HttpClientUrlConnection conn,
+      Path targetFile,
+      boolean setExecutable,
+      @Nullable Digest digest
+  ) throws IOException {
+    var entryDirectory = targetFile.getParent();
+    var metadataFile = targetFile.resolveSibling(DOWNLOAD_METADATA_FILE);
+    Files.createDirectories(entryDirectory);
+
+    FileUtils.withFileLock(targetFile.resolveSibling(DOWNLOAD_LOCK_FILE), () -> {
+      var isCached = Files.isRegularFile(targetFile);
+
+      // Resources with a known digest are immutable, so there is nothing to revalidate.
+      if (isCached && digest != null && matchesDigest(targetFile, digest)) {
+        log.debug("Using cached \"{}\" for \"{}\" as its digest matches", targetFile, uri);
+        finishCachedHttpResource(targetFile, setExecutable);
+        return;
+      }
+
+      if (isCached && digest == null) {
+        var metadata = readDownloadMetadata(metadataFile);
+        var etag = metadata.getProperty(ETAG);
+        var lastModified = metadata.getProperty(LAST_MODIFIED);
+        if (etag != null) {
+          conn.setRequestProperty(IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null) {
+          conn.setRequestProperty(IF_MODIFIED_SINCE, lastModified);
+        }
+      }
+
+      log.debug("Connecting to \"{}\", will transfer contents to \"{}\"", uri, targetFile);
+      conn.connect();
+
+      if (conn.getResponseCode() == HTTP_NOT_MODIFIED) {
+        conn.getInputStream().close();
+        log.info("\"{}\" is unchanged since it was cached at \"{}\"", uri, targetFile);
+        finishCachedHttpResource(targetFile, setExecutable);
+        return;
+      }
+
+      // Move the complete file into place, so that concurrent builds never see a partially
+      // written file.
+      var temporaryFile = Files.createTempFile(
+          entryDirectory,
+          targetFile.getFileName().toString(),
+          ".tmp"
+      );
+
+      try {
+        try (
+            var responseInputStream = getDecodedResponseBody(conn);
+            var fileOutputStream = FileUtils.newBufferedOutputStream(temporaryFile)
+        ) {
+          responseInputStream.transferTo(fileOutputStream);
+        }
+
+        if (setExecutable) {
+          FileUtils.makeExecutable(temporaryFile);
+        }
+
+        Files.move(temporaryFile, targetFile, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temporaryFile);
+      }
+
+      log.info(
+          "Transferred \"{}\" to \"{}\" ({})",
+          uri,
+          targetFile,
+          StringUtils.pluralize(Files.size(targetFile), "byte")
+      );
+
+      writeDownloadMetadata(metadataFile, conn);
+    });
+  }
+
+  private static void finishCachedHttpResource(
+      Path targetFile,
+      boolean setExecutable
+  ) throws IOException {
+    if (setExecutable && !Files.isExecutable(targetFile)) {
+      FileUtils.makeExecutable(targetFile);
+    }
+  }
+
+  private static boolean matchesDigest(Path file, Digest digest) throws IOException {
+    try (var inputStream = FileUtils.newBufferedInputStream(file)) {
+      digest.verify(inputStream);
+      return true;
+    } catch (DigestException ex) {
+      log.debug("Cached \"{}\" does not match the expected digest: {}", file, ex.getMessage());
+      return false;
+    }
+  }
+
+  private static Properties readDownloadMetadata(Path metadataFile) throws IOException {
+    var metadata = new Properties();
+    try (var reader = Files.newBufferedReader(metadataFile, StandardCharsets.UTF_8)) {
+      metadata.load(reader);
+    } catch (NoSuchFileException ex) {
+      log.trace("No download metadata exists at \"{}\"", metadataFile);
+    }
+    return metadata;
+  }
+
+  private static void writeDownloadMetadata(
+      Path metadataFile,
+      URLConnection conn
+  ) throws IOException {
+    var metadata = new Properties();
+    Optional.ofNullable(conn.getHeaderField(ETAG))
+        .ifPresent(etag -> metadata.setProperty(ETAG, etag));
+    Optional.ofNullable(conn.getHeaderField(LAST_MODIFIED))
+        .ifPresent(lastModified -> metadata.setProperty(LAST_MODIFIED, lastModified));
+
+    try (var writer = Files.newBufferedWriter(metadataFile, StandardCharsets.UTF_8)) {
+      metadata.store(writer, null);
+    }
+  }
+
+  private Path getDownloadCacheDirectory() {
+    return mavenSession.getRepositorySession()
+        .getLocalRepository()
+        .getBasedir()
+        .toPath()
+        .resolve(".cache")
+        .resolve("protobuf-maven-plugin")
+        .resolve("downloads");
+  }
+
+  private String targetFileName(URL url, String extension) {
     var digest = Digest.compute("SHA-1", url.toExternalForm()).toHexString();
     var path = url.getPath();
     var lastSlash = path.lastIndexOf('/');
@@ -235,9 +424,7 @@ public final class UriResourceFetcher {
         .anyMatch(lowerCasePath::endsWith)) {
       extension = path.substring(path.lastIndexOf('.'));
     }
-    return temporarySpace
-        .createTemporarySpace("url", url.getProtocol())
-        .resolve(fileName + extension);
+    return fileName + extension;
   }
 
   private BufferedInputStream getDecodedResponseBody(URLConnection conn) throws IOException {
@@ -30,11 +30,10 @@ import static org.mockito.Mockito.when;
 
 import io.github.ascopes.protobufmavenplugin.dependencies.DependencyResolutionDepth;
 import io.github.ascopes.protobufmavenplugin.dependencies.MavenArtifact;
-import io.github.ascopes.protobufmavenplugin.digests.Digest;
-import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
+import io.github.ascopes.protobufmavenplugin.fs.ExecutableStore;
+import io.github.ascopes.protobufmavenplugin.system.SessionResolutionCache;
 import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -52,11 +51,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
-import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mock.Strictness;
@@ -71,11 +68,6 @@ import org.mockito.stubbing.Answer;
 @ExtendWith(MockitoExtension.class)
 class AetherMavenArtifactPathResolverTest {
 
-  @TempDir
-  Path tempDir;
-
-  Path temporarySpacePath;
-
   @Mock
   MavenSession mavenSession;
 
@@ -88,18 +80,19 @@ class AetherMavenArtifactPathResolverTest {
   @Mock
   AetherResolver aetherResolver;
 
+  @Mock
+  ExecutableStore executableStore;
+
   @Mock(strictness = Strictness.LENIENT)
-  TemporarySpace temporarySpace;
+  SessionResolutionCache sessionResolutionCache;
 
   @InjectMocks
   AetherMavenArtifactPathResolver resolver;
 
   @BeforeEach
-  void setUp() throws IOException {
-    temporarySpacePath = tempDir.resolve("temporary-space");
-    when(temporarySpace.createTemporarySpace(any(String[].class)))
-        .thenReturn(temporarySpacePath);
-    Files.createDirectories(temporarySpacePath);
+  void setUp() throws ResolutionException {
+    when(sessionResolutionCache.computeIfAbsent(any(), any()))
+        .then(ctx -> ctx.<SessionResolutionCache.Loader<?>>getArgument(1).load());
   }
 
   @DisplayName(".resolveArtifact(...) resolves the artifact")
@@ -110,10 +103,8 @@ class AetherMavenArtifactPathResolverTest {
     var inputArtifact = mock(MavenArtifact.class, "SomeArtifact-" + someBasicString());
     var unresolvedArtifact = mock(Artifact.class);
     var resolvedArtifact = mock(Artifact.class);
-    var originalPath = Files.writeString(
-        tempDir.resolve("some-artifact.exe"),
-        "Some expected binary content here " + someBasicString()
-    );
+    var originalPath = mock(Path.class, "original path");
+    var storedPath = mock(Path.class, "stored path");
 
     when(inputArtifact.getArtifactId())
         .thenReturn(artifactId);
@@ -123,40 +114,33 @@ class AetherMavenArtifactPathResolverTest {
         .thenReturn(resolvedArtifact);
     when(aetherArtifactMapper.mapEclipseArtifactToPath(any()))
         .thenReturn(originalPath);
-
-    var expectedFileName = artifactId
-        + "-"
-        + Digest.compute("SHA-1", inputArtifact.toString())
-        .toHexString()
-        + ".exe";
+    when(executableStore.store(any(), any()))
+        .thenReturn(storedPath);
 
     // When
     var resolvedPath = resolver.resolveArtifact(inputArtifact);
 
     // Then
-    assertThat(resolvedPath)
-        .isEqualTo(temporarySpacePath.resolve(expectedFileName))
-        .hasSameBinaryContentAs(originalPath)
-        .isExecutable();
+    assertThat(resolvedPath).isSameAs(storedPath);
 
     verify(aetherArtifactMapper).mapPmpArtifactToEclipseArtifact(inputArtifact);
     verify(aetherResolver).resolveArtifact(unresolvedArtifact);
     verify(aetherArtifactMapper).mapEclipseArtifactToPath(resolvedArtifact);
-    verifyNoMoreInteractions(aetherArtifactMapper, aetherResolver);
+    verify(aetherResolver).computeRemoteRepositories();
+    verify(executableStore).store(originalPath, artifactId + ".exe");
+    verifyNoMoreInteractions(aetherArtifactMapper, aetherResolver, executableStore);
   }
 
-  @DisplayName(".resolveArtifact(...) resolves the artifact if already present")
+  @DisplayName(".resolveArtifact(...) raises a ResolutionException if an IOException is raised.")
   @Test
-  void resolveArtifactResolvesTheArtifactWhenAlreadyPresent() throws Exception {
+  void resolveArtifactRaisesResolutionExceptionIfIoExceptionRaised() throws Exception {
     // Given
+    var expectedCause = new IOException("bang");
     var artifactId = "someArtifactId-" + someBasicString();
     var inputArtifact = mock(MavenArtifact.class, "SomeArtifact-" + someBasicString());
     var unresolvedArtifact = mock(Artifact.class);
     var resolvedArtifact = mock(Artifact.class);
-    var originalPath = Files.writeString(
-        tempDir.resolve("some-artifact.exe"),
-        "Some expected binary content here " + someBasicString()
-    );
+    var originalPath = mock(Path.class, "original path");
 
     when(inputArtifact.getArtifactId())
         .thenReturn(artifactId);
@@ -166,66 +150,16 @@ class AetherMavenArtifactPathResolverTest {
         .thenReturn(resolvedArtifact);
     when(aetherArtifactMapper.mapEclipseArtifactToPath(any()))
         .thenReturn(originalPath);
-
-    var expectedFileName = artifactId
-        + "-"
-        + Digest.compute("SHA-1", inputArtifact.toString())
-        .toHexString()
-        + ".exe";
-
-    // Given some file is already in the location... we don't expect this to fail.
-    Files.writeString(temporarySpacePath.resolve(expectedFileName), "some garbage I don't want");
-
-    // When
-    var resolvedPath = resolver.resolveArtifact(inputArtifact);
+    when(executableStore.store(any(), any()))
+        .thenThrow(expectedCause);
 
     // Then
-    assertThat(resolvedPath)
-        .isEqualTo(temporarySpacePath.resolve(expectedFileName))
-        .hasSameBinaryContentAs(originalPath)
-        .isExecutable();
-
-    verify(aetherArtifactMapper).mapPmpArtifactToEclipseArtifact(inputArtifact);
-    verify(aetherResolver).resolveArtifact(unresolvedArtifact);
-    verify(aetherArtifactMapper).mapEclipseArtifactToPath(resolvedArtifact);
-    verifyNoMoreInteractions(aetherArtifactMapper, aetherResolver);
-  }
-
-  @DisplayName(".resolveArtifact(...) raises a ResolutionException if an IOException is raised.")
-  @Test
-  void resolveArtifactRaisesResolutionExceptionIfIoExceptionRaised() throws Exception {
-    // Given
-    try (var staticMocked = mockStatic(Files.class, Answers.CALLS_REAL_METHODS)) {
-      var expectedCause = new IOException("bang");
-      staticMocked.when(() -> Files.copy(any(Path.class), any(Path.class), any()))
-          .thenThrow(expectedCause);
-
-      var artifactId = "someArtifactId-" + someBasicString();
-      var inputArtifact = mock(MavenArtifact.class, "SomeArtifact-" + someBasicString());
-      var unresolvedArtifact = mock(Artifact.class);
-      var resolvedArtifact = mock(Artifact.class);
-      var originalPath = Files.writeString(
-          tempDir.resolve("some-artifact.exe"),
-          "Some expected binary content here " + someBasicString()
-      );
-
-      when(inputArtifact.getArtifactId())
-          .thenReturn(artifactId);
-      when(aetherArtifactMapper.mapPmpArtifactToEclipseArtifact(any()))
-          .thenReturn(unresolvedArtifact);
-      when(aetherResolver.resolveArtifact(any()))
-          .thenReturn(resolvedArtifact);
-      when(aetherArtifactMapper.mapEclipseArtifactToPath(any()))
-          .thenReturn(originalPath);
-
-      // Then
-      assertThatExceptionOfType(ResolutionException.class)
-          .isThrownBy(() -> resolver.resolveArtifact(inputArtifact))
-          .withMessage(
-              "Failed to process downloaded artifact %s: %s", inputArtifact, expectedCause
-          )
-          .withCause(expectedCause);
-    }
+    assertThatExceptionOfType(ResolutionException.class)
+        .isThrownBy(() -> resolver.resolveArtifact(inputArtifact))
+        .withMessage(
+            "Failed to process downloaded artifact %s: %s", inputArtifact, expectedCause
+        )
+        .withCause(expectedCause);
   }
 
   @DisplayName(".resolveDependencies(...) without project artifacts resolves the dependencies")
@@ -362,6 +296,7 @@ class AetherMavenArtifactPathResolverTest {
           )
           .forEach(arg -> verify(aetherArtifactMapper).mapEclipseArtifactToPath(arg));
 
+      verify(aetherResolver).computeRemoteRepositories();
       verifyNoMoreInteractions(aetherArtifactMapper, aetherResolver, aetherDependencyManagement);
       verifyNoInteractions(mavenSession);
     }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.digests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("DigestDescription tests")
+class DigestDescriptionTest {
+
+  @DisplayName(".digest computes the digest of each value on its own line")
+  @Test
+  void digestComputesTheDigestOfEachValueOnItsOwnLine() {
+    // Given
+    var description = new DigestDescription("SHA-256");
+    description.add("foo", "bar");
+    description.add("baz", (Object) null);
+    description.add("qux", 123);
+
+    // When
+    var digest = description.digest();
+
+    // Then
+    assertThat(digest).isEqualTo(Digest.compute("SHA-256", "foo=bar\nbaz=null\nqux=123\n"));
+  }
+
+  @DisplayName(".digest computes the digest of each map entry on its own line")
+  @Test
+  void digestComputesTheDigestOfEachMapEntryOnItsOwnLine() {
+    // Given
+    var description = new DigestDescription("SHA-512");
+    description.add("env", new TreeMap<>(Map.of("FOO", "1", "BAR", "2")));
+
+    // When
+    var digest = description.digest();
+
+    // Then
+    assertThat(digest).isEqualTo(Digest.compute("SHA-512", "env=BAR=2\nenv=FOO=1\n"));
+  }
+
+  @DisplayName(".digest differs when values are added in a different order")
+  @Test
+  void digestDiffersWhenValuesAreAddedInDifferentOrder() {
+    // Given
+    var first = new DigestDescription("SHA-256");
+    first.add("foo", "bar");
+    first.add("baz", "qux");
+    var second = new DigestDescription("SHA-256");
+    second.add("baz", "qux");
+    second.add("foo", "bar");
+
+    // When
+    var firstDigest = first.digest();
+    var secondDigest = second.digest();
+
+    // Then
+    assertThat(firstDigest).isNotEqualTo(secondDigest);
+  }
+}
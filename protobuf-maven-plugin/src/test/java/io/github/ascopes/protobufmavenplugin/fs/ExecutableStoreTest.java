@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.fs;
+
+import static io.github.ascopes.protobufmavenplugin.fixtures.RandomFixtures.someBasicString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("ExecutableStore tests")
+class ExecutableStoreTest {
+
+  @TempDir Path tempDir;
+  Path storeDir;
+  ExecutableStore executableStore;
+
+  @BeforeEach
+  void setUp() {
+    storeDir = tempDir.resolve("store");
+    executableStore = new ExecutableStore(storeDir);
+  }
+
+  @DisplayName(".store(...) stores an executable copy of the file")
+  @Test
+  void storeStoresAnExecutableCopyOfTheFile() throws IOException {
+    // Given
+    var file = Files.writeString(tempDir.resolve("some-file"), "content " + someBasicString());
+
+    // When
+    var result = executableStore.store(file, "protoc.exe");
+
+    // Then
+    assertThat(result)
+        .startsWith(storeDir)
+        .hasFileName("protoc.exe")
+        .hasSameBinaryContentAs(file)
+        .isExecutable();
+  }
+
+  @DisplayName(".store(...) does not make the original file executable")
+  @Test
+  void storeDoesNotMakeTheOriginalFileExecutable() throws IOException {
+    assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+    // Given
+    var file = Files.writeString(tempDir.resolve("some-file"), "content " + someBasicString());
+
+    // When
+    executableStore.store(file, "protoc.exe");
+
+    // Then
+    assertThat(Files.isExecutable(file)).isFalse();
+  }
+
+  @DisplayName(".store(...) reuses the same entry for the same content")
+  @Test
+  void storeReusesTheSameEntryForTheSameContent() throws IOException {
+    // Given
+    var content = "content " + someBasicString();
+    var firstFile = Files.writeString(tempDir.resolve("first-file"), content);
+    var secondFile = Files.writeString(tempDir.resolve("second-file"), content);
+    var firstResult = executableStore.store(firstFile, "protoc.exe");
+    var firstModified = Files.getLastModifiedTime(firstResult);
+
+    // When
+    var secondResult = executableStore.store(secondFile, "protoc.exe");
+
+    // Then
+    assertThat(secondResult).isEqualTo(firstResult);
+    assertThat(Files.getLastModifiedTime(secondResult)).isEqualTo(firstModified);
+  }
+
+  @DisplayName(".store(...) uses different entries for different content")
+  @Test
+  void storeUsesDifferentEntriesForDifferentContent() throws IOException {
+    // Given
+    var firstFile = Files.writeString(tempDir.resolve("first-file"), "foo " + someBasicString());
+    var secondFile = Files.writeString(tempDir.resolve("second-file"), "bar " + someBasicString());
+
+    // When
+    var firstResult = executableStore.store(firstFile, "protoc.exe");
+    var secondResult = executableStore.store(secondFile, "protoc.exe");
+
+    // Then
+    assertThat(firstResult).isNotEqualTo(secondResult);
+    assertThat(firstResult).hasSameBinaryContentAs(firstFile);
+    assertThat(secondResult).hasSameBinaryContentAs(secondFile);
+  }
+
+  @DisplayName(".store(...) replaces incomplete entries")
+  @Test
+  void storeReplacesIncompleteEntries() throws IOException {
+    // Given
+    var file = Files.writeString(tempDir.resolve("some-file"), "content " + someBasicString());
+    var entry = executableStore.store(file, "protoc.exe");
+    Files.writeString(entry, "truncated");
+
+    // When
+    var result = executableStore.store(file, "protoc.exe");
+
+    // Then
+    assertThat(result)
+        .isEqualTo(entry)
+        .hasSameBinaryContentAs(file)
+        .isExecutable();
+  }
+
+  @DisplayName(".store(...) does not digest files again if their size and modification time match")
+  @Test
+  void storeDoesNotDigestFilesAgainIfTheirSizeAndModificationTimeMatch() throws IOException {
+    // Given
+    var file = Files.writeString(tempDir.resolve("some-file"), "foo " + someBasicString());
+    var modified = Files.getLastModifiedTime(file);
+    var entry = executableStore.store(file, "protoc.exe");
+
+    // Replace the content without changing the size or modification time, which is only
+    // noticed if the file is digested again.
+    Files.writeString(file, "bar" + Files.readString(file).substring(3));
+    Files.setLastModifiedTime(file, modified);
+
+    // When
+    var result = executableStore.store(file, "protoc.exe");
+
+    // Then
+    assertThat(result).isEqualTo(entry);
+  }
+
+  @DisplayName(".store(...) digests files again if their modification time changes")
+  @Test
+  void storeDigestsFilesAgainIfTheirModificationTimeChanges() throws IOException {
+    // Given
+    var file = Files.writeString(tempDir.resolve("some-file"), "foo " + someBasicString());
+    var modified = Files.getLastModifiedTime(file);
+    var entry = executableStore.store(file, "protoc.exe");
+
+    Files.writeString(file, "bar" + Files.readString(file).substring(3));
+    Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 10_000));
+
+    // When
+    var result = executableStore.store(file, "protoc.exe");
+
+    // Then
+    assertThat(result)
+        .isNotEqualTo(entry)
+        .hasSameBinaryContentAs(file);
+  }
+
+  @DisplayName(".contains(...) returns true for entries in the store")
+  @Test
+  void containsReturnsTrueForEntriesInTheStore() throws IOException {
+    // Given
+    var file = Files.writeString(tempDir.resolve("some-file"), "content " + someBasicString());
+    var entry = executableStore.store(file, "protoc.exe");
+
+    // Then
+    assertThat(executableStore.contains(entry)).isTrue();
+  }
+
+  @DisplayName(".contains(...) returns false for files outside the store")
+  @Test
+  void containsReturnsFalseForFilesOutsideTheStore() throws IOException {
+    // Given
+    var file = Files.writeString(tempDir.resolve("some-file"), "content " + someBasicString());
+    executableStore.store(file, "protoc.exe");
+
+    // Then
+    assertThat(executableStore.contains(file)).isFalse();
+  }
+}
@@ -30,7 +30,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 import org.jspecify.annotations.Nullable;
 import org.junit.jupiter.api.DisplayName;
@@ -256,6 +258,79 @@ class FileUtilsTest {
     }
   }
 
+  @DisplayName(".extractZipEntries(...) extracts the given entries")
+  @Test
+  void extractZipEntriesExtractsTheGivenEntries(@TempDir Path tempDir) throws IOException {
+    // Given
+    var zipPath = tempDir.resolve("test.zip");
+    try (
+        var os = Files.newOutputStream(zipPath, StandardOpenOption.CREATE_NEW);
+        var zipOs = new ZipOutputStream(os);
+    ) {
+      zipOs.putNextEntry(new ZipEntry("foo/bar/baz.proto"));
+      zipOs.write("Hello, World!".getBytes(StandardCharsets.UTF_8));
+      zipOs.closeEntry();
+      zipOs.putNextEntry(new ZipEntry("foo/bork.txt"));
+      zipOs.write("Goodbye, World!".getBytes(StandardCharsets.UTF_8));
+      zipOs.closeEntry();
+    }
+
+    var newRoot = tempDir.resolve("extracted");
+
+    // When
+    List<Path> result;
+    try (var zipFile = new ZipFile(zipPath.toFile())) {
+      result = FileUtils.extractZipEntries(
+          zipFile,
+          Stream.of(zipFile.getEntry("foo/bar/baz.proto")),
+          newRoot
+      );
+    }
+
+    // Then
+    assertThat(result)
+        .containsExactly(newRoot.resolve("foo").resolve("bar").resolve("baz.proto"));
+    assertThat(result.get(0))
+        .isRegularFile()
+        .hasContent("Hello, World!");
+    assertThat(newRoot.resolve("foo").resolve("bork.txt"))
+        .doesNotExist();
+  }
+
+  @DisplayName(".extractZipEntries(...) refuses to extract entries outside the new root")
+  @Test
+  void extractZipEntriesRefusesToExtractEntriesOutsideTheNewRoot(
+      @TempDir Path tempDir
+  ) throws IOException {
+    // Given
+    var zipPath = tempDir.resolve("test.zip");
+    try (
+        var os = Files.newOutputStream(zipPath, StandardOpenOption.CREATE_NEW);
+        var zipOs = new ZipOutputStream(os);
+    ) {
+      zipOs.putNextEntry(new ZipEntry("../escaped.proto"));
+      zipOs.write("Hello, World!".getBytes(StandardCharsets.UTF_8));
+      zipOs.closeEntry();
+    }
+
+    var newRoot = tempDir.resolve("extracted");
+
+    // Then
+    try (var zipFile = new ZipFile(zipPath.toFile())) {
+      assertThatException()
+          .isThrownBy(() -> FileUtils.extractZipEntries(
+              zipFile,
+              Stream.of(zipFile.getEntry("../escaped.proto")),
+              newRoot
+          ))
+          .isInstanceOf(IOException.class)
+          .withMessageContaining("../escaped.proto");
+    }
+
+    assertThat(tempDir.resolve("escaped.proto"))
+        .doesNotExist();
+  }
+
   @DisplayName(".newBufferedInputStream(Path, OpenOption... reads a file with a buffer")
   @Test
   void newBufferedInputStreamReadsFileWithBuffer(@TempDir Path dir) throws IOException {
@@ -351,4 +426,36 @@ class FileUtilsTest {
     assertThat(allFilesAndDirectoriesToKeep)
         .allSatisfy(file -> assertThat(file).exists());
   }
+
+  @DisplayName(".withFileLock(Path, LockedOperation) only keeps the lock monitor while locked")
+  @Test
+  void withFileLockOnlyKeepsTheLockMonitorWhileLocked(@TempDir Path tempDir) throws IOException {
+    // Given
+    var lockFile = tempDir.resolve("some.lock");
+
+    // When
+    var heldDuringOperation = FileUtils.withFileLock(
+        lockFile,
+        () -> FileUtils.hasLockMonitor(lockFile)
+    );
+
+    // Then
+    assertThat(heldDuringOperation).isTrue();
+    assertThat(FileUtils.hasLockMonitor(lockFile)).isFalse();
+  }
+
+  @DisplayName(".withFileLock(Path, LockedOperation) releases the lock monitor on failure")
+  @Test
+  void withFileLockReleasesTheLockMonitorOnFailure(@TempDir Path tempDir) {
+    // Given
+    var lockFile = tempDir.resolve("some.lock");
+
+    // Then
+    assertThatException()
+        .isThrownBy(() -> FileUtils.withFileLock(lockFile, () -> {
+          throw new IOException("something went wrong");
+        }))
+        .isInstanceOf(IOException.class);
+    assertThat(FileUtils.hasLockMonitor(lockFile)).isFalse();
+  }
 }
@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.ascopes.protobufmavenplugin.fs.FileUtils;
+import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
+import io.github.ascopes.protobufmavenplugin.generation.cache.GenerationCacheKeyFactory;
+import io.github.ascopes.protobufmavenplugin.generation.cache.LocalGenerationCache;
+import io.github.ascopes.protobufmavenplugin.generation.cache.RemoteGenerationCache;
+import io.github.ascopes.protobufmavenplugin.generation.driver.PluginDriver;
+import io.github.ascopes.protobufmavenplugin.plugins.ProtocPluginResolver;
+import io.github.ascopes.protobufmavenplugin.protoc.ProtocExecutor;
+import io.github.ascopes.protobufmavenplugin.protoc.ProtocInvocation;
+import io.github.ascopes.protobufmavenplugin.protoc.ProtocInvocationPartitioner;
+import io.github.ascopes.protobufmavenplugin.protoc.ProtocResolver;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.LanguageProtocTarget;
+import io.github.ascopes.protobufmavenplugin.sources.FilesToCompile;
+import io.github.ascopes.protobufmavenplugin.sources.ImmutableProjectInputListing;
+import io.github.ascopes.protobufmavenplugin.sources.ImmutableSourceListing;
+import io.github.ascopes.protobufmavenplugin.sources.ProjectInputListing;
+import io.github.ascopes.protobufmavenplugin.sources.ProjectInputResolver;
+import io.github.ascopes.protobufmavenplugin.sources.incremental.BuildFingerprint;
+import io.github.ascopes.protobufmavenplugin.sources.incremental.BuildFingerprintFactory;
+import io.github.ascopes.protobufmavenplugin.sources.incremental.ImmutableBuildFingerprint;
+import io.github.ascopes.protobufmavenplugin.sources.incremental.IncrementalCacheManager;
+import io.github.ascopes.protobufmavenplugin.system.ConcurrentExecutor;
+import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.apache.maven.execution.MavenSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("ProtobufBuildOrchestrator tests")
+class ProtobufBuildOrchestratorTest {
+
+  @TempDir
+  Path tempDir;
+
+  Path sourceDirectory;
+  Path outputDirectory;
+  GenerationRequest request;
+  BuildFingerprint fingerprint;
+  ProtocResolver protocResolver;
+  ProjectInputResolver projectInputResolver;
+  IncrementalCacheManager incrementalCacheManager;
+  ProtocExecutor protocExecutor;
+  ConcurrentExecutor concurrentExecutor;
+  ProtobufBuildOrchestrator orchestrator;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    sourceDirectory = Files.createDirectories(tempDir.resolve("src"));
+    outputDirectory = Files.createDirectories(tempDir.resolve("out"));
+    final var stagingRoot = tempDir.resolve("staging");
+
+    request = mock();
+    when(request.getSourceDirectories()).thenReturn(List.of(sourceDirectory));
+    when(request.getEnabledLanguages()).thenReturn(List.of(Language.JAVA));
+    when(request.getOutputDirectory()).thenReturn(outputDirectory);
+    when(request.getSourceRootRegistrar()).thenReturn(mock());
+    when(request.isIncrementalCompilationEnabled()).thenReturn(true);
+    when(request.isPreserveUnchangedOutputs()).thenReturn(true);
+
+    TemporarySpace temporarySpace = mock();
+    when(temporarySpace.createTemporarySpace(any(String[].class)))
+        .thenAnswer(ctx -> Files.createDirectories(Stream.of(ctx.getArguments())
+            .map(String::valueOf)
+            .reduce(stagingRoot, Path::resolve, (a, b) -> b)));
+
+    protocResolver = mock();
+    when(protocResolver.resolve(any(), any()))
+        .thenReturn(Optional.of(tempDir.resolve("protoc")));
+
+    ProtocPluginResolver protocPluginResolver = mock();
+    when(protocPluginResolver.resolvePlugins(request)).thenReturn(List.of());
+
+    fingerprint = ImmutableBuildFingerprint.builder()
+        .configurationDigest("configuration")
+        .inputsDigest("inputs")
+        .reproducible(true)
+        .build();
+    BuildFingerprintFactory buildFingerprintFactory = mock();
+    when(buildFingerprintFactory.createFingerprint(request)).thenReturn(fingerprint);
+
+    ProtocInvocationPartitioner protocInvocationPartitioner = mock();
+    when(protocInvocationPartitioner.partitionBySources(any(), anyInt()))
+        .thenAnswer(ctx -> List.of(ctx.getArgument(0, ProtocInvocation.class)));
+
+    projectInputResolver = mock();
+    incrementalCacheManager = mock();
+    protocExecutor = mock();
+    concurrentExecutor = new ConcurrentExecutor();
+
+    orchestrator = new ProtobufBuildOrchestrator(
+        mock(MavenSession.class),
+        protocResolver,
+        projectInputResolver,
+        protocPluginResolver,
+        incrementalCacheManager,
+        protocExecutor,
+        concurrentExecutor,
+        buildFingerprintFactory,
+        new StagedOutputManager(temporarySpace),
+        mock(GenerationCacheKeyFactory.class),
+        mock(LocalGenerationCache.class),
+        mock(RemoteGenerationCache.class),
+        protocInvocationPartitioner,
+        mock(PluginDriver.class)
+    );
+  }
+
+  @AfterEach
+  void tearDown() {
+    concurrentExecutor.destroy();
+  }
+
+  @DisplayName("deleting a source leaves unchanged outputs untouched when staging outputs")
+  @Test
+  void deletingSourceLeavesUnchangedOutputsUntouchedWhenStagingOutputs() throws Exception {
+    // Given
+    var foo = Files.writeString(sourceDirectory.resolve("foo.proto"), "syntax = \"proto3\";");
+    var listing = listing(foo);
+    when(projectInputResolver.resolveProjectInputs(request)).thenReturn(listing);
+
+    var lastModified = FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS));
+    var generatedFoo = Files.writeString(outputDirectory.resolve("Foo.java"), "foo");
+    Files.setLastModifiedTime(generatedFoo, lastModified);
+    var generatedBar = Files.writeString(outputDirectory.resolve("Bar.java"), "bar");
+
+    // The previous build generated both files, but bar.proto has since been deleted.
+    when(incrementalCacheManager.determineSourcesToCompile(
+        eq(listing),
+        any(),
+        anyBoolean(),
+        eq(true)
+    ))
+        .thenReturn(FilesToCompile.allOf(listing));
+    when(incrementalCacheManager.getSupersededGeneratedFiles())
+        .thenReturn(List.of(FileUtils.normalize(generatedFoo), FileUtils.normalize(generatedBar)));
+
+    when(protocExecutor.invokeAll(any(), anyInt())).thenAnswer(ctx -> {
+      List<ProtocInvocation> invocations = ctx.getArgument(0);
+      for (var invocation : invocations) {
+        for (var target : invocation.getTargets()) {
+          if (target instanceof LanguageProtocTarget languageTarget) {
+            Files.writeString(languageTarget.getOutputPath().resolve("Foo.java"), "foo");
+          }
+        }
+      }
+      return true;
+    });
+
+    // When
+    var result = orchestrator.generate(request);
+
+    // Then
+    assertThat(result).isEqualTo(GenerationResult.PROTOC_SUCCEEDED);
+    assertThat(generatedFoo).hasContent("foo");
+    assertThat(Files.getLastModifiedTime(generatedFoo)).isEqualTo(lastModified);
+    assertThat(generatedBar).doesNotExist();
+    verify(incrementalCacheManager).recordGeneratedFiles(List.of(generatedFoo));
+    verify(incrementalCacheManager, never()).determineSourcesToCompile(
+        any(),
+        any(),
+        anyBoolean(),
+        eq(false)
+    );
+  }
+
+  @DisplayName("changing the configuration leaves unchanged outputs untouched when staging outputs")
+  @Test
+  void changingConfigurationLeavesUnchangedOutputsUntouchedWhenStagingOutputs() throws Exception {
+    // Given
+    var foo = Files.writeString(sourceDirectory.resolve("foo.proto"), "syntax = \"proto3\";");
+    var listing = listing(foo);
+    when(projectInputResolver.resolveProjectInputs(request)).thenReturn(listing);
+
+    var lastModified = FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS));
+    var generatedFoo = Files.writeString(outputDirectory.resolve("Foo.java"), "foo");
+    Files.setLastModifiedTime(generatedFoo, lastModified);
+    var generatedOldFoo = Files.writeString(outputDirectory.resolve("OldFoo.java"), "old foo");
+
+    // The previous build used a different configuration that generated an extra file that
+    // the new configuration no longer generates, so everything is superseded.
+    when(incrementalCacheManager.determineSourcesToCompile(
+        eq(listing),
+        any(),
+        anyBoolean(),
+        eq(true)
+    ))
+        .thenReturn(FilesToCompile.allOf(listing));
+    when(incrementalCacheManager.getSupersededGeneratedFiles())
+        .thenReturn(List.of(
+            FileUtils.normalize(generatedFoo),
+            FileUtils.normalize(generatedOldFoo)
+        ));
+
+    when(protocExecutor.invokeAll(any(), anyInt())).thenAnswer(ctx -> {
+      List<ProtocInvocation> invocations = ctx.getArgument(0);
+      for (var invocation : invocations) {
+        for (var target : invocation.getTargets()) {
+          if (target instanceof LanguageProtocTarget languageTarget) {
+            Files.writeString(languageTarget.getOutputPath().resolve("Foo.java"), "foo");
+            Files.writeString(languageTarget.getOutputPath().resolve("NewFoo.java"), "new foo");
+          }
+        }
+      }
+      return true;
+    });
+
+    // When
+    var result = orchestrator.generate(request);
+
+    // Then
+    assertThat(result).isEqualTo(GenerationResult.PROTOC_SUCCEEDED);
+    verify(incrementalCacheManager).beginBuild(fingerprint, true);
+    assertThat(generatedFoo).hasContent("foo");
+    assertThat(Files.getLastModifiedTime(generatedFoo)).isEqualTo(lastModified);
+    assertThat(outputDirectory.resolve("NewFoo.java")).hasContent("new foo");
+    assertThat(generatedOldFoo).doesNotExist();
+  }
+
+  @DisplayName("protoc resolution failures are reported without waiting for other resolution")
+  @Timeout(value = 5_000, unit = TimeUnit.MILLISECONDS)
+  @Test
+  void protocResolutionFailuresAreReportedWithoutWaitingForOtherResolution() throws Exception {
+    // Given
+    var projectInputsStarted = new CountDownLatch(1);
+    var projectInputsCancelled = new CountDownLatch(1);
+    when(projectInputResolver.resolveProjectInputs(request)).thenAnswer(ctx -> {
+      projectInputsStarted.countDown();
+      try {
+        Thread.sleep(60_000);
+        throw new IllegalStateException("project input resolution was not cancelled");
+      } catch (InterruptedException ex) {
+        projectInputsCancelled.countDown();
+        throw ex;
+      }
+    });
+    // Only fail once project input resolution is underway, so there is something to cancel.
+    when(protocResolver.resolve(any(), any())).thenAnswer(ctx -> {
+      projectInputsStarted.await();
+      return Optional.empty();
+    });
+
+    // Then
+    assertThatException()
+        .isThrownBy(() -> orchestrator.generate(request))
+        .havingCause()
+        .isInstanceOf(ResolutionException.class)
+        .withMessage("Protoc binary was not found");
+    assertThat(projectInputsCancelled.await(1, TimeUnit.SECONDS)).isTrue();
+  }
+
+  private ProjectInputListing listing(Path... sourceFiles) {
+    return ImmutableProjectInputListing.builder()
+        .compilableProtoSources(List.of(ImmutableSourceListing.builder()
+            .sourceRoot(sourceDirectory)
+            .addAllSourceFiles(List.of(sourceFiles))
+            .build()))
+        .dependencyProtoSources(List.of())
+        .compilableDescriptorFiles(List.of())
+        .build();
+  }
+}
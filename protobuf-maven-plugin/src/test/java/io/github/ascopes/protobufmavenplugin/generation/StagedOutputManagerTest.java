@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation;
+
+import static java.util.Objects.requireNonNull;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("StagedOutputManager tests")
+class StagedOutputManagerTest {
+
+  @TempDir
+  Path tempDir;
+
+  Path outputDirectory;
+  StagedOutputManager manager;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    outputDirectory = Files.createDirectories(tempDir.resolve("out"));
+    var stagingRoot = tempDir.resolve("staging");
+
+    TemporarySpace temporarySpace = mock();
+    when(temporarySpace.createTemporarySpace(any(String[].class)))
+        .thenAnswer(ctx -> Files.createDirectories(Stream.of(ctx.getArguments())
+            .map(String::valueOf)
+            .reduce(stagingRoot, Path::resolve, (a, b) -> b)));
+
+    manager = new StagedOutputManager(temporarySpace);
+  }
+
+  @DisplayName("staging directories are created empty")
+  @Test
+  void stagingDirectoriesAreCreatedEmpty() throws IOException {
+    // Given
+    var stagingDirectory = requireNonNull(
+        manager.createStagingDirectories(List.of(outputDirectory)).get(outputDirectory)
+    );
+    Files.writeString(stagingDirectory.resolve("Leftover.java"), "leftover");
+
+    // When
+    var stagingDirectories = manager.createStagingDirectories(List.of(outputDirectory));
+
+    // Then
+    assertThat(stagingDirectories.get(outputDirectory))
+        .isEmptyDirectory()
+        .isNotEqualTo(outputDirectory);
+  }
+
+  @DisplayName("files with unchanged content are left untouched")
+  @Test
+  void filesWithUnchangedContentAreLeftUntouched() throws IOException {
+    // Given
+    var existingFile = givenOutputFile("com/example/Foo.java", "class Foo {}");
+    final var existingModifiedTime = Files.getLastModifiedTime(existingFile);
+    var stagingDirectories = manager.createStagingDirectories(List.of(outputDirectory));
+    givenStagedFile(stagingDirectories, "com/example/Foo.java", "class Foo {}");
+
+    // When
+    var generatedFiles = manager.promoteStagedFiles(stagingDirectories, false, List.of());
+
+    // Then
+    assertThat(generatedFiles).containsExactly(existingFile);
+    assertThat(existingFile).hasContent("class Foo {}");
+    assertThat(Files.getLastModifiedTime(existingFile)).isEqualTo(existingModifiedTime);
+  }
+
+  @DisplayName("files with changed content are replaced")
+  @Test
+  void filesWithChangedContentAreReplaced() throws IOException {
+    // Given
+    var existingFile = givenOutputFile("com/example/Foo.java", "class Foo {}");
+    var stagingDirectories = manager.createStagingDirectories(List.of(outputDirectory));
+    givenStagedFile(stagingDirectories, "com/example/Foo.java", "class Foo {x}");
+    givenStagedFile(stagingDirectories, "com/example/Bar.java", "class Bar {}");
+
+    // When
+    var generatedFiles = manager.promoteStagedFiles(stagingDirectories, false, List.of());
+
+    // Then
+    var newFile = outputDirectory.resolve("com/example/Bar.java");
+    assertThat(generatedFiles).containsExactlyInAnyOrder(existingFile, newFile);
+    assertThat(existingFile).hasContent("class Foo {x}");
+    assertThat(newFile).hasContent("class Bar {}");
+    assertThat(stagingDirectories.get(outputDirectory)).doesNotExist();
+  }
+
+  @DisplayName("stale files are only deleted when requested")
+  @Test
+  void staleFilesAreOnlyDeletedWhenRequested() throws IOException {
+    // Given
+    var staleFile = givenOutputFile("com/example/Stale.java", "class Stale {}");
+    var stagingDirectories = manager.createStagingDirectories(List.of(outputDirectory));
+    givenStagedFile(stagingDirectories, "com/example/Foo.java", "class Foo {}");
+    manager.promoteStagedFiles(stagingDirectories, false, List.of());
+    assertThat(staleFile).exists();
+
+    stagingDirectories = manager.createStagingDirectories(List.of(outputDirectory));
+    givenStagedFile(stagingDirectories, "com/example/Foo.java", "class Foo {}");
+
+    // When
+    manager.promoteStagedFiles(stagingDirectories, true, List.of());
+
+    // Then
+    assertThat(staleFile).doesNotExist();
+    assertThat(outputDirectory.resolve("com/example/Foo.java")).exists();
+  }
+
+  private Path givenOutputFile(String name, String content) throws IOException {
+    var file = outputDirectory.resolve(name);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content);
+    Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+    return file;
+  }
+
+  private void givenStagedFile(
+      Map<Path, Path> stagingDirectories,
+      String name,
+      String content
+  ) throws IOException {
+    var file = requireNonNull(stagingDirectories.get(outputDirectory)).resolve(name);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content);
+  }
+}
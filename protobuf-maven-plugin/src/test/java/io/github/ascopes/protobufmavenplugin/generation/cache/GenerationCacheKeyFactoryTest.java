@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.ascopes.protobufmavenplugin.generation.Language;
+import io.github.ascopes.protobufmavenplugin.protoc.ImmutableProtocInvocation;
+import io.github.ascopes.protobufmavenplugin.protoc.ProtocInvocation;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.ImmutableLanguageProtocTarget;
+import io.github.ascopes.protobufmavenplugin.system.ConcurrentExecutor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.TreeSet;
+import org.apache.maven.plugin.MojoExecution;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("GenerationCacheKeyFactory tests")
+class GenerationCacheKeyFactoryTest {
+
+  @TempDir
+  Path tempDir;
+
+  ConcurrentExecutor concurrentExecutor;
+  GenerationCacheKeyFactory factory;
+
+  @BeforeEach
+  void setUp() {
+    MojoExecution mojoExecution = mock();
+    when(mojoExecution.getVersion()).thenReturn("1.2.3");
+
+    concurrentExecutor = new ConcurrentExecutor();
+    factory = new GenerationCacheKeyFactory(concurrentExecutor, mojoExecution);
+  }
+
+  @AfterEach
+  void tearDown() {
+    concurrentExecutor.destroy();
+  }
+
+  @DisplayName("identical invocations produce identical keys")
+  @Test
+  void identicalInvocationsProduceIdenticalKeys() throws IOException {
+    // Given
+    var root = givenProject(tempDir.resolve("project"), "message Foo {}");
+    var invocation = createInvocation(root);
+
+    // When
+    var firstKey = factory.createKey(invocation, List.of(root.resolve("out")));
+    var secondKey = factory.createKey(invocation, List.of(root.resolve("out")));
+
+    // Then
+    assertThat(firstKey).isEqualTo(secondKey).hasSize(64);
+  }
+
+  @DisplayName("keys do not depend on the location of the project")
+  @Test
+  void keysDoNotDependOnTheLocationOfTheProject() throws IOException {
+    // Given
+    var firstRoot = givenProject(tempDir.resolve("first"), "message Foo {}");
+    var secondRoot = givenProject(tempDir.resolve("second"), "message Foo {}");
+
+    // When
+    var firstKey = factory.createKey(
+        createInvocation(firstRoot),
+        List.of(firstRoot.resolve("out"))
+    );
+    var secondKey = factory.createKey(
+        createInvocation(secondRoot),
+        List.of(secondRoot.resolve("out"))
+    );
+
+    // Then
+    assertThat(firstKey).isEqualTo(secondKey);
+  }
+
+  @DisplayName("keys change when the content of an input changes")
+  @Test
+  void keysChangeWhenTheContentOfAnInputChanges() throws IOException {
+    // Given
+    var firstRoot = givenProject(tempDir.resolve("first"), "message Foo {}");
+    var secondRoot = givenProject(tempDir.resolve("second"), "message Bar {}");
+
+    // When
+    var firstKey = factory.createKey(
+        createInvocation(firstRoot),
+        List.of(firstRoot.resolve("out"))
+    );
+    var secondKey = factory.createKey(
+        createInvocation(secondRoot),
+        List.of(secondRoot.resolve("out"))
+    );
+
+    // Then
+    assertThat(firstKey).isNotEqualTo(secondKey);
+  }
+
+  @DisplayName("keys change when the arguments change")
+  @Test
+  void keysChangeWhenTheArgumentsChange() throws IOException {
+    // Given
+    var root = givenProject(tempDir.resolve("project"), "message Foo {}");
+    var invocation = createInvocation(root);
+    var otherInvocation = ImmutableProtocInvocation.builder()
+        .from(invocation)
+        .addArguments("--experimental_allow_proto3_optional")
+        .build();
+
+    // When
+    var firstKey = factory.createKey(invocation, List.of(root.resolve("out")));
+    var secondKey = factory.createKey(otherInvocation, List.of(root.resolve("out")));
+
+    // Then
+    assertThat(firstKey).isNotEqualTo(secondKey);
+  }
+
+  private Path givenProject(Path root, String content) throws IOException {
+    Files.createDirectories(root.resolve("src/com/example"));
+    Files.writeString(root.resolve("src/com/example/foo.proto"), content);
+    Files.writeString(root.resolve("protoc"), "protoc binary");
+    return root;
+  }
+
+  private ProtocInvocation createInvocation(Path root) {
+    return ImmutableProtocInvocation.builder()
+        .protocPath(root.resolve("protoc"))
+        .fatalWarnings(false)
+        .addImportPaths(root.resolve("src"))
+        .addSourcePaths(root.resolve("src/com/example/foo.proto"))
+        .targets(new TreeSet<>(List.of(ImmutableLanguageProtocTarget.builder()
+            .language(Language.JAVA)
+            .outputPath(root.resolve("out"))
+            .lite(false)
+            .build())))
+        .sanctionedExecutablePath(null)
+        .build();
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("LocalGenerationCache tests")
+class LocalGenerationCacheTest {
+
+  @TempDir
+  Path tempDir;
+
+  Path cacheDirectory;
+  GenerationCacheArchiver archiver;
+  LocalGenerationCache cache;
+
+  @BeforeEach
+  void setUp() {
+    cacheDirectory = tempDir.resolve("cache");
+    archiver = new GenerationCacheArchiver();
+    cache = new LocalGenerationCache(archiver);
+  }
+
+  @DisplayName("missing entries are reported as misses")
+  @Test
+  void missingEntriesAreReportedAsMisses() throws IOException {
+    // Given
+    var outputDirectory = Files.createDirectories(tempDir.resolve("out"));
+
+    // When
+    var restored = cache.restore(cacheDirectory, "abc", List.of(outputDirectory), null);
+
+    // Then
+    assertThat(restored).isFalse();
+    assertThat(outputDirectory).isEmptyDirectory();
+  }
+
+  @DisplayName("stored outputs are restored into different locations")
+  @Test
+  void storedOutputsAreRestoredIntoDifferentLocations() throws IOException {
+    // Given
+    var firstOutputs = Files.createDirectories(tempDir.resolve("first/java"));
+    var secondOutputs = Files.createDirectories(tempDir.resolve("first/kotlin"));
+    givenFile(firstOutputs.resolve("com/example/Foo.java"), "class Foo {}");
+    givenFile(secondOutputs.resolve("com/example/Foo.kt"), "class Foo");
+    var descriptor = givenFile(tempDir.resolve("first/descriptor.binpb"), "descriptor");
+
+    cache.store(cacheDirectory, 1024, "abc", List.of(firstOutputs, secondOutputs), descriptor);
+
+    var restoredFirstOutputs = Files.createDirectories(tempDir.resolve("second/java"));
+    var restoredSecondOutputs = Files.createDirectories(tempDir.resolve("second/kotlin"));
+    var restoredDescriptor = tempDir.resolve("second/target/descriptor.binpb");
+
+    // When
+    var restored = cache.restore(
+        cacheDirectory,
+        "abc",
+        List.of(restoredFirstOutputs, restoredSecondOutputs),
+        restoredDescriptor
+    );
+
+    // Then
+    assertThat(restored).isTrue();
+    assertThat(restoredFirstOutputs.resolve("com/example/Foo.java")).hasContent("class Foo {}");
+    assertThat(restoredSecondOutputs.resolve("com/example/Foo.kt")).hasContent("class Foo");
+    assertThat(restoredDescriptor).hasContent("descriptor");
+  }
+
+  @DisplayName("least recently used entries are evicted when the cache is too large")
+  @Test
+  void leastRecentlyUsedEntriesAreEvictedWhenTheCacheIsTooLarge() throws IOException {
+    // Given
+    var outputDirectory = Files.createDirectories(tempDir.resolve("out"));
+    givenFile(outputDirectory.resolve("Foo.java"), "x".repeat(1_000));
+
+    cache.store(cacheDirectory, 10_000, "old", List.of(outputDirectory), null);
+    var oldEntry = cacheDirectory.resolve("old.zip");
+    Files.setLastModifiedTime(oldEntry, FileTime.from(Instant.now().minus(1, ChronoUnit.DAYS)));
+    var entrySize = Files.size(oldEntry);
+
+    // When
+    cache.store(cacheDirectory, entrySize + 1, "new", List.of(outputDirectory), null);
+
+    // Then
+    assertThat(oldEntry).doesNotExist();
+    assertThat(cacheDirectory.resolve("new.zip")).exists();
+  }
+
+  @DisplayName("corrupt entries are discarded and reported as misses")
+  @Test
+  void corruptEntriesAreDiscardedAndReportedAsMisses() throws IOException {
+    // Given
+    var outputDirectory = Files.createDirectories(tempDir.resolve("out"));
+    var entry = givenFile(cacheDirectory.resolve("abc.zip"), "this is not a zip file");
+    givenFile(outputDirectory.resolve("Partial.java"), "class Partial {}");
+
+    // When
+    var restored = cache.restore(cacheDirectory, "abc", List.of(outputDirectory), null);
+
+    // Then
+    assertThat(restored).isFalse();
+    assertThat(entry).doesNotExist();
+    assertThat(outputDirectory).isEmptyDirectory();
+  }
+
+  @DisplayName("entries cannot escape the output directories")
+  @Test
+  void entriesCannotEscapeTheOutputDirectories() throws IOException {
+    // Given
+    var outputDirectory = Files.createDirectories(tempDir.resolve("out"));
+    var archive = new ByteArrayOutputStream();
+    try (var zipOutputStream = new ZipOutputStream(archive)) {
+      zipOutputStream.putNextEntry(new ZipEntry("outputs/0/../escaped.txt"));
+      zipOutputStream.write("escaped".getBytes(StandardCharsets.UTF_8));
+      zipOutputStream.closeEntry();
+    }
+
+    // Then
+    assertThatThrownBy(() -> archiver.unpack(
+        new ByteArrayInputStream(archive.toByteArray()),
+        List.of(outputDirectory),
+        null
+    ))
+        .isInstanceOf(IOException.class)
+        .hasMessage("Unexpected entry \"outputs/0/../escaped.txt\" in generation cache archive");
+
+    assertThat(tempDir.resolve("escaped.txt")).doesNotExist();
+  }
+
+  private Path givenFile(Path file, String content) throws IOException {
+    Files.createDirectories(file.getParent());
+    return Files.writeString(file, content);
+  }
+}
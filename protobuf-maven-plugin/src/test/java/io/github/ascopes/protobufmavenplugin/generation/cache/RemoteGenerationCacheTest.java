@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.cache;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import io.github.ascopes.protobufmavenplugin.urls.UrlFactory;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("RemoteGenerationCache tests")
+@WireMockTest
+class RemoteGenerationCacheTest {
+
+  static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+  @TempDir
+  Path tempDir;
+
+  WireMock wireMockClient;
+  URI baseUri;
+  RemoteGenerationCache cache;
+
+  @BeforeEach
+  void setUp(WireMockRuntimeInfo wireMock) throws ReflectiveOperationException {
+    wireMockClient = wireMock.getWireMock();
+    baseUri = URI.create(wireMock.getHttpBaseUrl() + "/cache");
+
+    // The factory is normally initialised by the container.
+    var urlFactory = new UrlFactory();
+    var init = UrlFactory.class.getDeclaredMethod("init");
+    init.setAccessible(true);
+    init.invoke(urlFactory);
+
+    cache = new RemoteGenerationCache(urlFactory, new GenerationCacheArchiver());
+  }
+
+  @DisplayName("missing entries are reported as misses")
+  @Test
+  void missingEntriesAreReportedAsMisses() throws IOException {
+    // Given
+    var outputDirectory = Files.createDirectories(tempDir.resolve("out"));
+    wireMockClient.register(get(urlEqualTo("/cache/abc.zip"))
+        .willReturn(aResponse().withStatus(404)));
+
+    // When
+    var restored = cache.restore(baseUri, TIMEOUT, "abc", List.of(outputDirectory), null);
+
+    // Then
+    assertThat(restored).isFalse();
+    assertThat(outputDirectory).isEmptyDirectory();
+  }
+
+  @DisplayName("uploaded outputs can be restored elsewhere")
+  @Test
+  void uploadedOutputsCanBeRestoredElsewhere() throws IOException {
+    // Given
+    var outputDirectory = Files.createDirectories(tempDir.resolve("first"));
+    Files.createDirectories(outputDirectory.resolve("com/example"));
+    Files.writeString(outputDirectory.resolve("com/example/Foo.java"), "class Foo {}");
+    wireMockClient.register(put(urlEqualTo("/cache/abc.zip"))
+        .willReturn(aResponse().withStatus(201)));
+
+    cache.store(baseUri, TIMEOUT, "abc", List.of(outputDirectory), null);
+
+    var uploads = wireMockClient.find(putRequestedFor(urlEqualTo("/cache/abc.zip")));
+    assertThat(uploads).hasSize(1);
+    wireMockClient.register(get(urlEqualTo("/cache/abc.zip"))
+        .willReturn(aResponse().withStatus(200).withBody(uploads.get(0).getBody())));
+
+    var restoredOutputDirectory = Files.createDirectories(tempDir.resolve("second"));
+
+    // When
+    var restored = cache.restore(
+        baseUri,
+        TIMEOUT,
+        "abc",
+        List.of(restoredOutputDirectory),
+        null
+    );
+
+    // Then
+    assertThat(restored).isTrue();
+    assertThat(restoredOutputDirectory.resolve("com/example/Foo.java"))
+        .hasContent("class Foo {}");
+  }
+
+  @DisplayName("server errors are reported as misses")
+  @Test
+  void serverErrorsAreReportedAsMisses() throws IOException {
+    // Given
+    var outputDirectory = Files.createDirectories(tempDir.resolve("out"));
+    wireMockClient.register(get(urlEqualTo("/cache/abc.zip"))
+        .willReturn(aResponse().withStatus(503)));
+
+    // When
+    var restored = cache.restore(baseUri, TIMEOUT, "abc", List.of(outputDirectory), null);
+
+    // Then
+    assertThat(restored).isFalse();
+  }
+
+  @DisplayName("slow responses time out and are reported as misses")
+  @Test
+  void slowResponsesTimeOutAndAreReportedAsMisses() throws IOException {
+    // Given
+    var outputDirectory = Files.createDirectories(tempDir.resolve("out"));
+    wireMockClient.register(get(urlEqualTo("/cache/abc.zip"))
+        .willReturn(aResponse().withStatus(200).withFixedDelay(5_000)));
+
+    // When
+    var restored = cache.restore(
+        baseUri,
+        Duration.ofMillis(250),
+        "abc",
+        List.of(outputDirectory),
+        null
+    );
+
+    // Then
+    assertThat(restored).isFalse();
+    assertThat(outputDirectory).isEmptyDirectory();
+  }
+
+  @DisplayName("responses that stall while sending the body time out and are reported as misses")
+  @Test
+  void responsesThatStallWhileSendingTheBodyTimeOutAndAreReportedAsMisses() throws IOException {
+    // Given
+    var outputDirectory = Files.createDirectories(tempDir.resolve("out"));
+    wireMockClient.register(get(urlEqualTo("/cache/abc.zip"))
+        .willReturn(aResponse()
+            .withStatus(200)
+            .withBody(new byte[4_096])
+            .withChunkedDribbleDelay(4, 5_000)));
+
+    // When
+    var startTime = System.nanoTime();
+    var restored = cache.restore(
+        baseUri,
+        Duration.ofMillis(250),
+        "abc",
+        List.of(outputDirectory),
+        null
+    );
+
+    // Then
+    assertThat(restored).isFalse();
+    assertThat(Duration.ofNanos(System.nanoTime() - startTime)).isLessThan(TIMEOUT);
+    assertThat(outputDirectory).isEmptyDirectory();
+  }
+
+  @DisplayName("failed uploads are ignored")
+  @Test
+  void failedUploadsAreIgnored() throws IOException {
+    // Given
+    var outputDirectory = Files.createDirectories(tempDir.resolve("out"));
+    wireMockClient.register(put(urlEqualTo("/cache/abc.zip"))
+        .willReturn(aResponse().withStatus(403)));
+
+    // Then
+    assertThatNoException()
+        .isThrownBy(() -> cache.store(baseUri, TIMEOUT, "abc", List.of(outputDirectory), null));
+  }
+}
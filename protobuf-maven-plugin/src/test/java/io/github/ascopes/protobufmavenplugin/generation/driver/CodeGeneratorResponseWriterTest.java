@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.driver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("CodeGeneratorResponseWriter tests")
+class CodeGeneratorResponseWriterTest {
+
+  @TempDir
+  Path tempDir;
+
+  CodeGeneratorResponseWriter writer;
+
+  @BeforeEach
+  void setUp() {
+    writer = new CodeGeneratorResponseWriter();
+  }
+
+  @DisplayName("files are written relative to the output directory")
+  @Test
+  void filesAreWrittenRelativeToTheOutputDirectory() throws IOException {
+    // Given
+    var response = CodeGeneratorResponse.newBuilder()
+        .addFile(file("org/example/Foo.java", "class Foo {}\n"))
+        .addFile(file("Bar.java", "class Bar {}\n"))
+        .build();
+
+    // When
+    writer.write(response, tempDir);
+
+    // Then
+    assertThat(tempDir.resolve("org").resolve("example").resolve("Foo.java"))
+        .hasContent("class Foo {}\n");
+    assertThat(tempDir.resolve("Bar.java"))
+        .hasContent("class Bar {}\n");
+  }
+
+  @DisplayName("files without a name are appended to the previous file")
+  @Test
+  void filesWithoutNameAreAppendedToThePreviousFile() throws IOException {
+    // Given
+    var response = CodeGeneratorResponse.newBuilder()
+        .addFile(file("foo.txt", "first\n"))
+        .addFile(File.newBuilder().setContent("second\n"))
+        .build();
+
+    // When
+    writer.write(response, tempDir);
+
+    // Then
+    assertThat(tempDir.resolve("foo.txt"))
+        .usingCharset(StandardCharsets.UTF_8)
+        .hasContent("first\nsecond\n");
+  }
+
+  @DisplayName("content is inserted above insertion points with matching indentation")
+  @Test
+  void contentIsInsertedAboveInsertionPointsWithMatchingIndentation() throws IOException {
+    // Given
+    Files.writeString(
+        tempDir.resolve("Foo.java"),
+        "class Foo {\n  // @@protoc_insertion_point(class_scope:Foo)\n}\n",
+        StandardCharsets.UTF_8
+    );
+    var response = CodeGeneratorResponse.newBuilder()
+        .addFile(File.newBuilder()
+            .setName("Foo.java")
+            .setInsertionPoint("class_scope:Foo")
+            .setContent("int bar;\n\nint baz;\n"))
+        .build();
+
+    // When
+    writer.write(response, tempDir);
+
+    // Then
+    assertThat(tempDir.resolve("Foo.java"))
+        .usingCharset(StandardCharsets.UTF_8)
+        .hasContent("""
+            class Foo {
+              int bar;
+
+              int baz;
+              // @@protoc_insertion_point(class_scope:Foo)
+            }
+            """);
+  }
+
+  @DisplayName("missing insertion points are reported")
+  @Test
+  void missingInsertionPointsAreReported() throws IOException {
+    // Given
+    Files.writeString(tempDir.resolve("Foo.java"), "class Foo {}\n", StandardCharsets.UTF_8);
+    var response = CodeGeneratorResponse.newBuilder()
+        .addFile(File.newBuilder()
+            .setName("Foo.java")
+            .setInsertionPoint("class_scope:Foo")
+            .setContent("int bar;\n"))
+        .build();
+
+    // Then
+    assertThatThrownBy(() -> writer.write(response, tempDir))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("class_scope:Foo");
+  }
+
+  @DisplayName("files outside the output directory are rejected")
+  @Test
+  void filesOutsideTheOutputDirectoryAreRejected() {
+    // Given
+    var outputDirectory = tempDir.resolve("out");
+    var response = CodeGeneratorResponse.newBuilder()
+        .addFile(file("../escaped.txt", "boo"))
+        .build();
+
+    // Then
+    assertThatThrownBy(() -> writer.write(response, outputDirectory))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("invalid location");
+    assertThat(tempDir.resolve("escaped.txt")).doesNotExist();
+  }
+
+  private static File file(String name, String content) {
+    return File.newBuilder().setName(name).setContent(content).build();
+  }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.driver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.DescriptorProtos.FileOptions;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorRequest;
+import com.google.protobuf.compiler.PluginProtos.CodeGeneratorResponse;
+import com.google.protobuf.compiler.PluginProtos.Version;
+import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
+import io.github.ascopes.protobufmavenplugin.generation.Language;
+import io.github.ascopes.protobufmavenplugin.generation.cache.GenerationCacheKeyFactory;
+import io.github.ascopes.protobufmavenplugin.java.ImmutableJavaApp;
+import io.github.ascopes.protobufmavenplugin.java.InProcessJavaAppRunner;
+import io.github.ascopes.protobufmavenplugin.plugins.ImmutableResolvedProtocPlugin;
+import io.github.ascopes.protobufmavenplugin.protoc.ImmutableProtocInvocation;
+import io.github.ascopes.protobufmavenplugin.protoc.ProtocInvocation;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.DescriptorFileProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.ImmutableLanguageProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.ImmutablePluginProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.LanguageProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.PluginProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.ProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.SanctionedExecutableTransformer;
+import io.github.ascopes.protobufmavenplugin.system.ConcurrentExecutor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("PluginDriver tests")
+class PluginDriverTest {
+
+  @TempDir
+  Path tempDir;
+
+  Path driverDirectory;
+  ConcurrentExecutor concurrentExecutor;
+  InProcessJavaAppRunner inProcessJavaAppRunner;
+  SanctionedExecutableTransformer sanctionedExecutableTransformer;
+  ProtocVersionReader protocVersionReader;
+  PluginDriver driver;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    driverDirectory = Files.createDirectories(tempDir.resolve("plugin-driver"));
+
+    TemporarySpace temporarySpace = mock();
+    when(temporarySpace.createTemporarySpace(any(String[].class)))
+        .thenAnswer(ctx -> Files.createDirectories(Stream.of(ctx.getArguments())
+            .map(String::valueOf)
+            .reduce(tempDir, Path::resolve, (a, b) -> b)));
+
+    GenerationCacheKeyFactory generationCacheKeyFactory = mock();
+    when(generationCacheKeyFactory.createKey(any(), any()))
+        .thenReturn("some-key");
+
+    concurrentExecutor = new ConcurrentExecutor();
+    inProcessJavaAppRunner = mock();
+    sanctionedExecutableTransformer = mock();
+    when(sanctionedExecutableTransformer.transform(any()))
+        .then(returnsFirstArg());
+    protocVersionReader = mock();
+    when(protocVersionReader.readVersion(any()))
+        .thenReturn(Optional.empty());
+    driver = new PluginDriver(
+        temporarySpace,
+        concurrentExecutor,
+        generationCacheKeyFactory,
+        new CodeGeneratorResponseWriter(),
+        inProcessJavaAppRunner,
+        sanctionedExecutableTransformer,
+        protocVersionReader
+    );
+  }
+
+  @AfterEach
+  void tearDown() {
+    concurrentExecutor.destroy();
+  }
+
+  @DisplayName("protoc parses the sources when no parse result is available")
+  @Test
+  void protocParsesTheSourcesWhenNoParseResultIsAvailable() throws IOException {
+    // Given
+    var invocation = createInvocation(languageTarget(), pluginTarget("foo"));
+
+    // When
+    var plan = driver.plan(invocation);
+
+    // Then
+    var pendingFile = driverDirectory.resolve("some-key.pending");
+    assertThat(plan.getDescriptorSetFile()).isEqualTo(driverDirectory.resolve("some-key.binpb"));
+    assertThat(plan.getPendingDescriptorSetFile()).contains(pendingFile);
+    assertThat(plan.getPluginTargets()).singleElement()
+        .extracting(target -> target.getPlugin().getId())
+        .isEqualTo("foo");
+    assertThat(plan.getProtocInvocation()).get()
+        .extracting(ProtocInvocation::getTargets)
+        .satisfies(targets -> assertThat(targets)
+            .noneMatch(PluginProtocTarget.class::isInstance)
+            .anyMatch(LanguageProtocTarget.class::isInstance)
+            .filteredOn(DescriptorFileProtocTarget.class::isInstance)
+            .map(DescriptorFileProtocTarget.class::cast)
+            .singleElement()
+            .satisfies(target -> {
+              assertThat(target.getOutputFile()).isEqualTo(pendingFile);
+              assertThat(target.isIncludeImports()).isTrue();
+              assertThat(target.isIncludeSourceInfo()).isTrue();
+            }));
+  }
+
+  @DisplayName("protoc is not invoked when only plugins use a cached parse result")
+  @Test
+  void protocIsNotInvokedWhenOnlyPluginsUseCachedParseResult() throws IOException {
+    // Given
+    Files.createFile(driverDirectory.resolve("some-key.binpb"));
+    var invocation = createInvocation(pluginTarget("foo"), pluginTarget("bar"));
+
+    // When
+    var plan = driver.plan(invocation);
+
+    // Then
+    assertThat(plan.getProtocInvocation()).isEmpty();
+    assertThat(plan.getPendingDescriptorSetFile()).isEmpty();
+    assertThat(plan.getPluginTargets()).hasSize(2);
+  }
+
+  @DisplayName("protoc only generates other targets when using a cached parse result")
+  @Test
+  void protocOnlyGeneratesOtherTargetsWhenUsingCachedParseResult() throws IOException {
+    // Given
+    Files.createFile(driverDirectory.resolve("some-key.binpb"));
+    var invocation = createInvocation(languageTarget(), pluginTarget("foo"));
+
+    // When
+    var plan = driver.plan(invocation);
+
+    // Then
+    assertThat(plan.getPendingDescriptorSetFile()).isEmpty();
+    assertThat(plan.getProtocInvocation()).get()
+        .extracting(ProtocInvocation::getTargets)
+        .satisfies(targets -> assertThat(targets).singleElement()
+            .isInstanceOf(LanguageProtocTarget.class));
+  }
+
+  @DisplayName("plugins are invoked from any sanctioned executable location")
+  @Test
+  void pluginsAreInvokedFromAnySanctionedExecutableLocation() throws IOException {
+    // Given
+    var invocation = createInvocation(languageTarget(), pluginTarget("foo"));
+    var sanctionedProtocPath = tempDir.resolve("sanctioned").resolve("protoc");
+    var sanctionedPluginPath = tempDir.resolve("sanctioned").resolve("protoc-gen-foo");
+    when(sanctionedExecutableTransformer.transform(any()))
+        .thenAnswer(ctx -> {
+          var pluginInvocation = ctx.<ProtocInvocation>getArgument(0);
+          assertThat(pluginInvocation.getTargets()).singleElement()
+              .isInstanceOf(PluginProtocTarget.class);
+          var pluginTarget = (PluginProtocTarget) pluginInvocation.getTargets().first();
+          return ImmutableProtocInvocation.builder()
+              .from(pluginInvocation)
+              .protocPath(sanctionedProtocPath)
+              .targets(new TreeSet<>(List.of(ImmutablePluginProtocTarget.builder()
+                  .plugin(ImmutableResolvedProtocPlugin.builder()
+                      .from(pluginTarget.getPlugin())
+                      .path(sanctionedPluginPath)
+                      .build())
+                  .build())))
+              .build();
+        });
+
+    // When
+    var plan = driver.plan(invocation);
+
+    // Then
+    assertThat(plan.getPluginTargets()).singleElement()
+        .extracting(target -> target.getPlugin().getPath())
+        .isEqualTo(sanctionedPluginPath);
+    assertThat(plan.getProtocInvocation()).get()
+        .extracting(ProtocInvocation::getProtocPath)
+        .isEqualTo(invocation.getProtocPath());
+    verify(protocVersionReader).readVersion(sanctionedProtocPath);
+  }
+
+  @DisplayName("the protoc version is reported to plugins")
+  @Test
+  void theProtocVersionIsReportedToPlugins() throws IOException {
+    // Given
+    var version = Version.newBuilder().setMajor(5).setMinor(28).setPatch(2).build();
+    when(protocVersionReader.readVersion(any()))
+        .thenReturn(Optional.of(version));
+    var plan = driver.plan(createInvocation(pluginTarget("foo")));
+
+    // When
+    var request = driver.createRequest(
+        FileDescriptorSet.getDefaultInstance(),
+        FileDescriptorSet.getDefaultInstance(),
+        plan.getFilesToGenerate(),
+        plan.getCompilerVersion(),
+        plan.getPluginTargets().get(0).getPlugin()
+    );
+
+    // Then
+    assertThat(plan.getCompilerVersion()).contains(version);
+    assertThat(request.getCompilerVersion()).isEqualTo(version);
+  }
+
+  @DisplayName("files to generate are the import names of the sources")
+  @Test
+  void filesToGenerateAreTheImportNamesOfTheSources() throws IOException {
+    // Given
+    var invocation = createInvocation(pluginTarget("foo"));
+
+    // When
+    var plan = driver.plan(invocation);
+
+    // Then
+    assertThat(plan.getFilesToGenerate())
+        .containsExactly("org/example/foo.proto", "bar.proto", "baz.proto");
+  }
+
+  @DisplayName("requests describe the files to generate and the plugin options")
+  @Test
+  void requestsDescribeTheFilesToGenerateAndThePluginOptions() {
+    // Given
+    var imported = FileDescriptorProto.newBuilder().setName("imported.proto").build();
+    var generated = FileDescriptorProto.newBuilder()
+        .setName("generated.proto")
+        .addDependency("imported.proto")
+        .build();
+    var descriptorSet = FileDescriptorSet.newBuilder()
+        .addFile(imported)
+        .addFile(generated)
+        .build();
+    var plugin = ImmutableResolvedProtocPlugin.builder()
+        .from(pluginTarget("foo").getPlugin())
+        .options("some-option=true")
+        .build();
+
+    // When
+    var request = driver.createRequest(
+        descriptorSet,
+        descriptorSet,
+        List.of("generated.proto"),
+        Optional.empty(),
+        plugin
+    );
+
+    // Then
+    assertThat(request.getFileToGenerateList()).containsExactly("generated.proto");
+    assertThat(request.getProtoFileList()).containsExactly(imported, generated);
+    assertThat(request.getSourceFileDescriptorsList()).containsExactly(generated);
+    assertThat(request.getParameter()).isEqualTo("some-option=true");
+    assertThat(request.hasCompilerVersion()).isFalse();
+  }
+
+  @DisplayName("only source file descriptors retain options with source retention")
+  @Test
+  void onlySourceFileDescriptorsRetainOptionsWithSourceRetention() {
+    // Given
+    var retained = FileDescriptorProto.newBuilder()
+        .setName("generated.proto")
+        .setOptions(FileOptions.newBuilder().setJavaPackage("org.example.retained"))
+        .build();
+    var stripped = FileDescriptorProto.newBuilder()
+        .setName("generated.proto")
+        .setOptions(FileOptions.newBuilder().setJavaPackage("org.example.stripped"))
+        .build();
+
+    // When
+    var request = driver.createRequest(
+        FileDescriptorSet.newBuilder().addFile(retained).build(),
+        FileDescriptorSet.newBuilder().addFile(stripped).build(),
+        List.of("generated.proto"),
+        Optional.empty(),
+        pluginTarget("foo").getPlugin()
+    );
+
+    // Then
+    assertThat(request.getProtoFileList()).containsExactly(stripped);
+    assertThat(request.getSourceFileDescriptorsList()).containsExactly(retained);
+  }
+
+  @DisplayName("in-process plugins are invoked with the request and their response is written")
+  @Test
+  void inProcessPluginsAreInvokedWithTheRequestAndTheirResponseIsWritten() throws IOException {
+    // Given
+    var descriptorSet = FileDescriptorSet.newBuilder()
+        .addFile(FileDescriptorProto.newBuilder().setName("bar.proto"))
+        .build();
+    Files.write(driverDirectory.resolve("some-key.pending"), descriptorSet.toByteArray());
+
+    var javaApp = ImmutableJavaApp.builder()
+        .addDependencies(tempDir.resolve("plugin.jar"))
+        .uniqueName("foo")
+        .build();
+    var target = ImmutablePluginProtocTarget.builder()
+        .plugin(ImmutableResolvedProtocPlugin.builder()
+            .from(pluginTarget("foo").getPlugin())
+            .inProcess(true)
+            .javaApp(javaApp)
+            .build())
+        .build();
+
+    var requests = new ArrayList<CodeGeneratorRequest>();
+    when(inProcessJavaAppRunner.run(eq(javaApp), any(), any(), any()))
+        .thenAnswer(ctx -> {
+          requests.add(CodeGeneratorRequest.parseFrom(ctx.<InputStream>getArgument(1)));
+          CodeGeneratorResponse.newBuilder()
+              .addFile(CodeGeneratorResponse.File.newBuilder()
+                  .setName("org/example/Bar.java")
+                  .setContent("class Bar {}\n"))
+              .build()
+              .writeTo(ctx.<OutputStream>getArgument(2));
+          return true;
+        });
+
+    var plan = driver.plan(createInvocation(target));
+
+    // When
+    var result = driver.invokePlugins(plan, 1);
+
+    // Then
+    assertThat(result).isTrue();
+    assertThat(requests).singleElement()
+        .satisfies(request -> assertThat(request.getProtoFileList())
+            .containsExactlyElementsOf(descriptorSet.getFileList()));
+    assertThat(tempDir.resolve("out").resolve("org").resolve("example").resolve("Bar.java"))
+        .hasContent("class Bar {}\n");
+    assertThat(driverDirectory.resolve("some-key.binpb")).exists();
+    assertThat(driverDirectory.resolve("some-key.pending")).doesNotExist();
+  }
+
+  @DisplayName("plugins that fail in-process are reported as failures")
+  @Test
+  void pluginsThatFailInProcessAreReportedAsFailures() throws IOException {
+    // Given
+    Files.write(
+        driverDirectory.resolve("some-key.pending"),
+        FileDescriptorSet.getDefaultInstance().toByteArray()
+    );
+    var target = ImmutablePluginProtocTarget.builder()
+        .plugin(ImmutableResolvedProtocPlugin.builder()
+            .from(pluginTarget("foo").getPlugin())
+            .inProcess(true)
+            .javaApp(ImmutableJavaApp.builder()
+                .addDependencies(tempDir.resolve("plugin.jar"))
+                .uniqueName("foo")
+                .build())
+            .build())
+        .build();
+    when(inProcessJavaAppRunner.run(any(), any(), any(), any()))
+        .thenReturn(false);
+
+    var plan = driver.plan(createInvocation(target));
+
+    // When
+    var result = driver.invokePlugins(plan, 1);
+
+    // Then
+    assertThat(result).isFalse();
+  }
+
+  private ProtocInvocation createInvocation(ProtocTarget... targets) {
+    var importPath = tempDir.resolve("src");
+    return ImmutableProtocInvocation.builder()
+        .protocPath(tempDir.resolve("protoc"))
+        .fatalWarnings(false)
+        .importPaths(List.of(importPath))
+        .sourcePaths(List.of(
+            importPath.resolve("org").resolve("example").resolve("foo.proto"),
+            importPath.resolve("bar.proto")
+        ))
+        .descriptorSourceFiles(List.of("baz.proto"))
+        .targets(new TreeSet<>(List.of(targets)))
+        .build();
+  }
+
+  private ProtocTarget languageTarget() {
+    return ImmutableLanguageProtocTarget.builder()
+        .language(Language.JAVA)
+        .lite(false)
+        .outputPath(tempDir.resolve("out"))
+        .build();
+  }
+
+  private PluginProtocTarget pluginTarget(String id) {
+    return ImmutablePluginProtocTarget.builder()
+        .plugin(ImmutableResolvedProtocPlugin.builder()
+            .id(id)
+            .order(0)
+            .outputDirectory(tempDir.resolve("out"))
+            .path(tempDir.resolve("protoc-gen-" + id))
+            .build())
+        .build();
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.driver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.protobuf.compiler.PluginProtos.Version;
+import java.nio.file.Path;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+@DisplayName("ProtocVersionReader tests")
+class ProtocVersionReaderTest {
+
+  @DisplayName("versions are parsed from the protoc output")
+  @CsvSource({
+      "libprotoc 3.21.12,    3, 21, 12, ''",
+      "libprotoc 3.20.0-rc2, 3, 20,  0, -rc2",
+      "libprotoc 22.0,       4, 22,  0, ''",
+      "libprotoc 25.5,       4, 25,  5, ''",
+      "libprotoc 26.1,       5, 26,  1, ''",
+      "libprotoc 28.2,       5, 28,  2, ''",
+      "libprotoc 29.0-rc3,   5, 29,  0, -rc3",
+      "libprotoc 30.2,       6, 30,  2, ''",
+  })
+  @ParameterizedTest(name = "\"{0}\" is parsed as {1}.{2}.{3}{4}")
+  void versionsAreParsedFromTheProtocOutput(
+      String output,
+      int major,
+      int minor,
+      int patch,
+      String suffix
+  ) {
+    // When
+    var version = ProtocVersionReader.parseVersion(output);
+
+    // Then
+    assertThat(version).contains(Version.newBuilder()
+        .setMajor(major)
+        .setMinor(minor)
+        .setPatch(patch)
+        .setSuffix(suffix)
+        .build());
+  }
+
+  @DisplayName("unrecognised output is ignored")
+  @Test
+  void unrecognisedOutputIsIgnored() {
+    // When
+    var version = ProtocVersionReader.parseVersion("protoc version unknown");
+
+    // Then
+    assertThat(version).isEmpty();
+  }
+
+  @DisplayName("no version is returned if protoc cannot be invoked")
+  @Test
+  void noVersionIsReturnedIfProtocCannotBeInvoked(@TempDir Path tempDir) throws Exception {
+    // When
+    var version = new ProtocVersionReader().readVersion(tempDir.resolve("does-not-exist"));
+
+    // Then
+    assertThat(version).isEmpty();
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.generation.driver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FeatureSet;
+import com.google.protobuf.DescriptorProtos.FeatureSet.EnforceNamingStyle;
+import com.google.protobuf.DescriptorProtos.FeatureSet.FieldPresence;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto.Label;
+import com.google.protobuf.DescriptorProtos.FieldOptions;
+import com.google.protobuf.DescriptorProtos.FieldOptions.OptionRetention;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
+import com.google.protobuf.DescriptorProtos.FileOptions;
+import com.google.protobuf.DescriptorProtos.MessageOptions;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnknownFieldSet;
+import java.util.List;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("SourceRetentionOptionStripper tests")
+class SourceRetentionOptionStripperTest {
+
+  static final int SOURCE_OPTION = 50000;
+  static final int RUNTIME_OPTION = 50001;
+  static final int NESTED_OPTION = 50002;
+  static final FieldDescriptorProto.Type INT32 = FieldDescriptorProto.Type.TYPE_INT32;
+  static final FieldDescriptorProto.Type MESSAGE = FieldDescriptorProto.Type.TYPE_MESSAGE;
+
+  @DisplayName("custom options with source retention are stripped")
+  @Test
+  void customOptionsWithSourceRetentionAreStripped() throws InvalidProtocolBufferException {
+    // Given
+    var options = MessageOptions.newBuilder()
+        .setUnknownFields(UnknownFieldSet.newBuilder()
+            .addField(SOURCE_OPTION, varint(1))
+            .addField(RUNTIME_OPTION, varint(2))
+            .build())
+        .build();
+    var descriptorSet = descriptorSet(usingFile(options));
+
+    // When
+    var stripped = SourceRetentionOptionStripper.strip(descriptorSet);
+
+    // Then
+    var strippedFields = messageOptionsOf(stripped).getUnknownFields();
+    assertThat(strippedFields.hasField(SOURCE_OPTION)).isFalse();
+    assertThat(strippedFields.getField(RUNTIME_OPTION).getVarintList()).containsExactly(2L);
+    assertThat(stripped.getFile(0)).isEqualTo(descriptorSet.getFile(0));
+  }
+
+  @DisplayName("message-typed custom options are stripped recursively")
+  @Test
+  void messageTypedCustomOptionsAreStrippedRecursively() throws InvalidProtocolBufferException {
+    // Given
+    var nestedValue = UnknownFieldSet.newBuilder()
+        .addField(1, varint(1))
+        .addField(2, varint(2))
+        .build();
+    var options = MessageOptions.newBuilder()
+        .setUnknownFields(UnknownFieldSet.newBuilder()
+            .addField(NESTED_OPTION, UnknownFieldSet.Field.newBuilder()
+                .addLengthDelimited(nestedValue.toByteString())
+                .build())
+            .build())
+        .build();
+
+    // When
+    var stripped = SourceRetentionOptionStripper.strip(descriptorSet(usingFile(options)));
+
+    // Then
+    var strippedValue = UnknownFieldSet.parseFrom(messageOptionsOf(stripped)
+        .getUnknownFields()
+        .getField(NESTED_OPTION)
+        .getLengthDelimitedList()
+        .get(0));
+    assertThat(strippedValue.hasField(1)).isFalse();
+    assertThat(strippedValue.getField(2).getVarintList()).containsExactly(2L);
+  }
+
+  @DisplayName("built-in options with source retention are stripped")
+  @Test
+  void builtInOptionsWithSourceRetentionAreStripped() throws InvalidProtocolBufferException {
+    // Given
+    var file = FileDescriptorProto.newBuilder()
+        .setName("editions.proto")
+        .setOptions(FileOptions.newBuilder()
+            .setJavaPackage("org.example")
+            .setFeatures(FeatureSet.newBuilder()
+                .setEnforceNamingStyle(EnforceNamingStyle.STYLE2024)
+                .setFieldPresence(FieldPresence.IMPLICIT)))
+        .build();
+
+    // When
+    var stripped = SourceRetentionOptionStripper.strip(descriptorSet(file));
+
+    // Then
+    var strippedOptions = stripped.getFile(1).getOptions();
+    assertThat(strippedOptions.getJavaPackage()).isEqualTo("org.example");
+    assertThat(strippedOptions.getFeatures().hasEnforceNamingStyle()).isFalse();
+    assertThat(strippedOptions.getFeatures().getFieldPresence())
+        .isEqualTo(FieldPresence.IMPLICIT);
+  }
+
+  @DisplayName("descriptors without options with source retention are unchanged")
+  @Test
+  void descriptorsWithoutOptionsWithSourceRetentionAreUnchanged()
+      throws InvalidProtocolBufferException {
+    // Given
+    var options = MessageOptions.newBuilder()
+        .setDeprecated(true)
+        .setUnknownFields(UnknownFieldSet.newBuilder()
+            .addField(RUNTIME_OPTION, varint(2))
+            .build())
+        .build();
+    var descriptorSet = descriptorSet(usingFile(options));
+
+    // When
+    var stripped = SourceRetentionOptionStripper.strip(descriptorSet);
+
+    // Then
+    assertThat(stripped).isEqualTo(descriptorSet);
+  }
+
+  static FileDescriptorSet descriptorSet(FileDescriptorProto... usingFiles) {
+    var nestedOption = DescriptorProto.newBuilder()
+        .setName("NestedOption")
+        .addField(field("source", 1, INT32, OptionRetention.RETENTION_SOURCE))
+        .addField(field("runtime", 2, INT32, OptionRetention.RETENTION_RUNTIME));
+
+    var optionsFile = FileDescriptorProto.newBuilder()
+        .setName("options.proto")
+        .setPackage("org.example")
+        .addDependency("google/protobuf/descriptor.proto")
+        .addMessageType(nestedOption)
+        .addExtension(extension(
+            field("source_option", SOURCE_OPTION, INT32, OptionRetention.RETENTION_SOURCE)
+        ))
+        .addExtension(extension(
+            field("runtime_option", RUNTIME_OPTION, INT32, null)
+        ))
+        .addExtension(extension(
+            field("nested_option", NESTED_OPTION, MESSAGE, null)
+                .setTypeName(".org.example.NestedOption")
+        ));
+
+    return FileDescriptorSet.newBuilder()
+        .addFile(optionsFile)
+        .addAllFile(List.of(usingFiles))
+        .build();
+  }
+
+  static FileDescriptorProto usingFile(MessageOptions options) {
+    return FileDescriptorProto.newBuilder()
+        .setName("using.proto")
+        .addDependency("options.proto")
+        .addMessageType(DescriptorProto.newBuilder()
+            .setName("Using")
+            .setOptions(options))
+        .build();
+  }
+
+  static MessageOptions messageOptionsOf(FileDescriptorSet descriptorSet) {
+    return descriptorSet.getFile(1).getMessageType(0).getOptions();
+  }
+
+  static FieldDescriptorProto.Builder field(
+      String name,
+      int number,
+      FieldDescriptorProto.Type type,
+      @Nullable OptionRetention retention
+  ) {
+    var field = FieldDescriptorProto.newBuilder()
+        .setName(name)
+        .setNumber(number)
+        .setLabel(Label.LABEL_OPTIONAL)
+        .setType(type);
+
+    if (retention != null) {
+      field.setOptions(FieldOptions.newBuilder().setRetention(retention));
+    }
+
+    return field;
+  }
+
+  static FieldDescriptorProto.Builder extension(FieldDescriptorProto.Builder field) {
+    return field.setExtendee(".google.protobuf.MessageOptions");
+  }
+
+  static UnknownFieldSet.Field varint(long value) {
+    return UnknownFieldSet.Field.newBuilder().addVarint(value).build();
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("InProcessJavaAppRunner tests")
+class InProcessJavaAppRunnerTest {
+
+  InProcessJavaAppRunner runner;
+
+  @BeforeEach
+  void setUp() {
+    runner = new InProcessJavaAppRunner(new JavaAppMainClassResolver());
+  }
+
+  @DisplayName("the standard streams of the app are redirected")
+  @Test
+  void theStandardStreamsOfTheAppAreRedirected() throws IOException {
+    // Given
+    var app = createApp(UppercaseApp.class, List.of("--some-arg"));
+    var stdout = new ByteArrayOutputStream();
+    var stderr = new ByteArrayOutputStream();
+
+    // When
+    var result = runner.run(app, stdin("hello, world"), stdout, stderr);
+
+    // Then
+    assertThat(result).isTrue();
+    assertThat(stdout.toString(StandardCharsets.UTF_8)).isEqualTo("HELLO, WORLD");
+    assertThat(stderr.toString(StandardCharsets.UTF_8)).isEqualTo("--some-arg");
+  }
+
+  @DisplayName("the app is loaded in an isolated classloader")
+  @Test
+  void theAppIsLoadedInAnIsolatedClassloader() throws IOException {
+    // Given
+    var app = createApp(ClassLoaderApp.class, null);
+    var stdout = new ByteArrayOutputStream();
+
+    // When
+    var result = runner.run(app, stdin(""), stdout, new ByteArrayOutputStream());
+
+    // Then
+    assertThat(result).isTrue();
+    assertThat(stdout.toString(StandardCharsets.UTF_8))
+        .isEqualTo("in-process-" + ClassLoaderApp.class.getSimpleName());
+  }
+
+  @DisplayName("the original standard streams are restored afterwards")
+  @Test
+  void theOriginalStandardStreamsAreRestoredAfterwards() throws IOException {
+    // Given
+    var app = createApp(UppercaseApp.class, null);
+    final var originalIn = System.in;
+    final var originalOut = System.out;
+    final var originalErr = System.err;
+
+    // When
+    runner.run(app, stdin("foo"), new ByteArrayOutputStream(), new ByteArrayOutputStream());
+
+    // Then
+    assertThat(System.in).isSameAs(originalIn);
+    assertThat(System.out).isSameAs(originalOut);
+    assertThat(System.err).isSameAs(originalErr);
+  }
+
+  @DisplayName("apps that raise exceptions are reported as failures")
+  @Test
+  void appsThatRaiseExceptionsAreReportedAsFailures() throws IOException {
+    // Given
+    var app = createApp(FailingApp.class, null);
+
+    // When
+    var result = runner.run(
+        app,
+        stdin(""),
+        new ByteArrayOutputStream(),
+        new ByteArrayOutputStream()
+    );
+
+    // Then
+    assertThat(result).isFalse();
+  }
+
+  @DisplayName("apps with missing main classes are reported as failures")
+  @Test
+  void appsWithMissingMainClassesAreReportedAsFailures() throws IOException {
+    // Given
+    var app = ImmutableJavaApp.builder()
+        .from(createApp(UppercaseApp.class, null))
+        .mainClass("org.example.DoesNotExist")
+        .build();
+
+    // When
+    var result = runner.run(
+        app,
+        stdin(""),
+        new ByteArrayOutputStream(),
+        new ByteArrayOutputStream()
+    );
+
+    // Then
+    assertThat(result).isFalse();
+  }
+
+  private static InputStream stdin(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static JavaApp createApp(Class<?> mainClass, @Nullable List<String> args) {
+    try {
+      var classpath = Path.of(
+          mainClass.getProtectionDomain().getCodeSource().getLocation().toURI()
+      );
+      return ImmutableJavaApp.builder()
+          .addDependencies(classpath)
+          .jvmArgs(args)
+          .mainClass(mainClass.getName())
+          .uniqueName(mainClass.getSimpleName())
+          .build();
+    } catch (URISyntaxException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  public static final class UppercaseApp {
+    public static void main(String[] args) throws IOException {
+      var input = new String(System.in.readAllBytes(), StandardCharsets.UTF_8);
+      System.out.write(input.toUpperCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+      System.err.print(String.join(" ", args));
+    }
+  }
+
+  public static final class ClassLoaderApp {
+    public static void main(String[] args) {
+      PrintStream out = System.out;
+      out.print(ClassLoaderApp.class.getClassLoader().getName());
+    }
+  }
+
+  public static final class FailingApp {
+    public static void main(String[] args) {
+      if (args.length == 0) {
+        throw new IllegalStateException("Something went wrong");
+      }
+    }
+  }
+}
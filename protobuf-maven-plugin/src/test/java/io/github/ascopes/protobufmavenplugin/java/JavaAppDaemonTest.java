@@ -0,0 +1,327 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("JavaAppDaemon and JavaAppDaemonClient tests")
+class JavaAppDaemonTest {
+
+  static final int IDLE_TIMEOUT_SECONDS = 2;
+  static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+  @TempDir
+  Path stateDir;
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    // Let any daemon we started shut down before the state directory is deleted.
+    awaitShutdown();
+  }
+
+  @DisplayName("the client starts the daemon and relays the result of the app")
+  @Test
+  void theClientStartsTheDaemonAndRelaysTheResultOfTheApp() throws Exception {
+    // Given
+    writeStateFiles(UppercaseApp.class, "--some-arg");
+
+    // When
+    var result = runClient("hello, world");
+
+    // Then
+    assertThat(result.exitCode()).isZero();
+    assertThat(result.stdout()).isEqualTo("HELLO, WORLD");
+    assertThat(result.stderr()).isEqualTo("--some-arg");
+    assertThat(stateDir.resolve(JavaAppDaemon.PORT_FILE)).isRegularFile();
+  }
+
+  @DisplayName("subsequent clients reuse the running daemon")
+  @Test
+  void subsequentClientsReuseTheRunningDaemon() throws Exception {
+    // Given
+    writeStateFiles(CounterApp.class);
+    var firstResult = runClient("");
+    var portFileContent = Files.readString(stateDir.resolve(JavaAppDaemon.PORT_FILE));
+
+    // When
+    var secondResult = runClient("");
+
+    // Then
+    assertThat(firstResult.stdout()).isEqualTo("1");
+    assertThat(secondResult.stdout()).isEqualTo("2");
+    assertThat(stateDir.resolve(JavaAppDaemon.PORT_FILE)).hasContent(portFileContent);
+  }
+
+  @DisplayName("apps that raise exceptions exit with a non-zero exit code")
+  @Test
+  void appsThatRaiseExceptionsExitWithNonZeroExitCode() throws Exception {
+    // Given
+    writeStateFiles(FailingApp.class);
+
+    // When
+    var result = runClient("");
+
+    // Then
+    assertThat(result.exitCode()).isEqualTo(1);
+    assertThat(result.stderr()).contains("Something went wrong");
+  }
+
+  @DisplayName("the daemon shuts down once it is idle")
+  @Test
+  void theDaemonShutsDownOnceItIsIdle() throws Exception {
+    // Given
+    writeStateFiles(UppercaseApp.class);
+    runClient("");
+
+    // When
+    var shutDown = awaitShutdown();
+
+    // Then
+    assertThat(shutDown).isTrue();
+    assertThat(stateDir.resolve(JavaAppDaemon.LOG_FILE))
+        .content()
+        .contains("Shutting down after being idle");
+  }
+
+  @DisplayName("the client retries once when the daemon asks it to")
+  @Test
+  void theClientRetriesOnceWhenTheDaemonAsksItTo() throws Exception {
+    // Given
+    try (var daemon = new FakeDaemon()) {
+      daemon.respond(output -> output.writeInt(JavaAppDaemon.RETRY_STATUS));
+      daemon.respond(output -> writeResponse(output, 0, "retried"));
+
+      // When
+      var result = runClient("");
+
+      // Then
+      assertThat(result.exitCode()).isZero();
+      assertThat(result.stdout()).isEqualTo("retried");
+      assertThat(daemon.requests()).isEqualTo(2);
+    }
+  }
+
+  @DisplayName("the client retries once when the connection drops before a response")
+  @Test
+  void theClientRetriesOnceWhenTheConnectionDropsBeforeResponse() throws Exception {
+    // Given
+    try (var daemon = new FakeDaemon()) {
+      daemon.respond(output -> { });
+      daemon.respond(output -> writeResponse(output, 0, "retried"));
+
+      // When
+      var result = runClient("");
+
+      // Then
+      assertThat(result.exitCode()).isZero();
+      assertThat(result.stdout()).isEqualTo("retried");
+      assertThat(daemon.requests()).isEqualTo(2);
+    }
+  }
+
+  @DisplayName("the client fails if the daemon asks it to retry more than once")
+  @Test
+  void theClientFailsIfTheDaemonAsksItToRetryMoreThanOnce() throws Exception {
+    // Given
+    try (var daemon = new FakeDaemon()) {
+      daemon.respond(output -> output.writeInt(JavaAppDaemon.RETRY_STATUS));
+      daemon.respond(output -> output.writeInt(JavaAppDaemon.RETRY_STATUS));
+
+      // When
+      var result = runClient("");
+
+      // Then
+      assertThat(result.exitCode()).isEqualTo(1);
+      assertThat(result.stderr()).contains("Daemon shut down before responding to the request");
+      assertThat(daemon.requests()).isEqualTo(2);
+    }
+  }
+
+  private static void writeResponse(
+      DataOutputStream output,
+      int exitCode,
+      String stdout
+  ) throws IOException {
+    var stdoutBytes = stdout.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(exitCode);
+    output.writeInt(stdoutBytes.length);
+    output.write(stdoutBytes);
+    output.writeInt(0);
+  }
+
+  private boolean awaitShutdown() throws InterruptedException {
+    var portFile = stateDir.resolve(JavaAppDaemon.PORT_FILE);
+    var deadline = System.nanoTime() + SHUTDOWN_TIMEOUT.toNanos();
+    while (Files.exists(portFile) && System.nanoTime() < deadline) {
+      Thread.sleep(100);
+    }
+    return !Files.exists(portFile);
+  }
+
+  private void writeStateFiles(Class<?> mainClass, String... args) throws IOException {
+    var command = new ArrayList<String>();
+    command.add(javaExecutable());
+    command.add("-classpath");
+    command.add(codeLocationOf(JavaAppDaemon.class));
+    command.add(JavaAppDaemon.class.getName());
+    command.add(stateDir.toString());
+    command.add(Integer.toString(IDLE_TIMEOUT_SECONDS));
+    command.add("1");
+    command.add(mainClass.getName());
+    command.addAll(List.of(args));
+
+    Files.write(
+        stateDir.resolve(JavaAppDaemon.CLASSPATH_FILE),
+        List.of(codeLocationOf(mainClass)),
+        StandardCharsets.UTF_8
+    );
+    Files.write(stateDir.resolve(JavaAppDaemon.COMMAND_FILE), command, StandardCharsets.UTF_8);
+  }
+
+  private ClientResult runClient(String stdin) throws IOException, InterruptedException {
+    var process = new ProcessBuilder(
+        javaExecutable(),
+        "-classpath",
+        codeLocationOf(JavaAppDaemonClient.class),
+        JavaAppDaemonClient.class.getName(),
+        stateDir.toString()
+    ).start();
+
+    try (var outputStream = process.getOutputStream()) {
+      outputStream.write(stdin.getBytes(StandardCharsets.UTF_8));
+    }
+
+    var stdout = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    var stderr = new String(process.getErrorStream().readAllBytes(), StandardCharsets.UTF_8);
+    return new ClientResult(process.waitFor(), stdout, stderr);
+  }
+
+  private static String javaExecutable() {
+    return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+  }
+
+  private static String codeLocationOf(Class<?> type) {
+    try {
+      return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    } catch (URISyntaxException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  record ClientResult(int exitCode, String stdout, String stderr) {
+  }
+
+  @FunctionalInterface
+  interface FakeResponse {
+    void writeTo(DataOutputStream output) throws IOException;
+  }
+
+  // Stands in for a daemon so that we can control how it responds to each request.
+  final class FakeDaemon implements AutoCloseable {
+    private final ServerSocket serverSocket;
+    private final List<FakeResponse> responses;
+    private final AtomicInteger requests;
+
+    FakeDaemon() throws IOException {
+      serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+      responses = new CopyOnWriteArrayList<>();
+      requests = new AtomicInteger();
+      Files.writeString(
+          stateDir.resolve(JavaAppDaemon.PORT_FILE),
+          serverSocket.getLocalPort() + " some-token\n",
+          StandardCharsets.UTF_8
+      );
+      var thread = new Thread(this::serve);
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    void respond(FakeResponse response) {
+      responses.add(response);
+    }
+
+    int requests() {
+      return requests.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+      serverSocket.close();
+      Files.deleteIfExists(stateDir.resolve(JavaAppDaemon.PORT_FILE));
+    }
+
+    private void serve() {
+      try {
+        while (true) {
+          try (var socket = serverSocket.accept()) {
+            var input = new DataInputStream(socket.getInputStream());
+            var output = new DataOutputStream(socket.getOutputStream());
+            assertThat(input.readUTF()).isEqualTo("some-token");
+            input.skipNBytes(input.readInt());
+            responses.get(requests.getAndIncrement()).writeTo(output);
+            output.flush();
+          }
+        }
+      } catch (IOException ex) {
+        // The server socket was closed.
+      }
+    }
+  }
+
+  public static final class UppercaseApp {
+    public static void main(String[] args) throws IOException {
+      var input = new String(System.in.readAllBytes(), StandardCharsets.UTF_8);
+      System.out.write(input.toUpperCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+      System.err.print(String.join(" ", args));
+    }
+  }
+
+  public static final class CounterApp {
+    private static int count;
+
+    public static void main(String[] args) {
+      System.out.print(++count);
+    }
+  }
+
+  public static final class FailingApp {
+    public static void main(String[] args) {
+      if (args.length == 0) {
+        throw new IllegalStateException("Something went wrong");
+      }
+    }
+  }
+}
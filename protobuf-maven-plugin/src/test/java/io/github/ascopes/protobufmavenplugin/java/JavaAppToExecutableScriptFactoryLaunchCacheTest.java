@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
+import io.github.ascopes.protobufmavenplugin.system.HostSystem;
+import io.github.ascopes.protobufmavenplugin.system.SystemPathBinaryResolver;
+import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("JavaAppToExecutableScriptFactory launch script cache tests")
+class JavaAppToExecutableScriptFactoryLaunchCacheTest {
+
+  @TempDir
+  Path tempDir;
+
+  Path appDirectory;
+  Path dependency;
+  JavaAppMainClassResolver mainClassResolver;
+  JavaAppToExecutableScriptFactory factory;
+
+  @BeforeEach
+  void setUp() throws IOException, ResolutionException {
+    appDirectory = tempDir.resolve("java-apps").resolve("some-app");
+    dependency = writeJar(tempDir.resolve("some-app.jar"), "org/example/Main.class");
+
+    HostSystem hostSystem = mock();
+    when(hostSystem.getJavaExecutablePath()).thenReturn(tempDir.resolve("java"));
+    when(hostSystem.getPathSeparator()).thenReturn(":");
+    when(hostSystem.isProbablyWindows()).thenReturn(false);
+
+    TemporarySpace temporarySpace = mock();
+    when(temporarySpace.createTemporarySpace(any(String[].class)))
+        .thenAnswer(ctx -> Files.createDirectories(Stream.of(ctx.getArguments())
+            .map(String::valueOf)
+            .reduce(tempDir, Path::resolve, (a, b) -> b)));
+
+    SystemPathBinaryResolver pathResolver = mock();
+    when(pathResolver.resolve("sh")).thenReturn(Optional.of(Path.of("/bin/sh")));
+
+    mainClassResolver = mock();
+    when(mainClassResolver.determineMainClass(any())).thenReturn("org.example.Main");
+
+    factory = new JavaAppToExecutableScriptFactory(
+        hostSystem,
+        temporarySpace,
+        pathResolver,
+        mainClassResolver,
+        tempDir.resolve("daemons")
+    );
+  }
+
+  @DisplayName("launch scripts are reused when nothing has changed")
+  @Test
+  void launchScriptsAreReusedWhenNothingHasChanged() throws ResolutionException {
+    // Given
+    var app = app();
+    var firstScript = factory.toExecutable(app);
+
+    // When
+    var secondScript = factory.toExecutable(app);
+
+    // Then
+    assertThat(secondScript).isEqualTo(firstScript);
+    verify(mainClassResolver, times(1)).determineMainClass(app);
+  }
+
+  @DisplayName("launch scripts are rewritten when a dependency changes")
+  @Test
+  void launchScriptsAreRewrittenWhenDependencyChanges() throws Exception {
+    // Given
+    var app = app();
+    factory.toExecutable(app);
+    writeJar(dependency, "org/example/Main.class", "org/example/Other.class");
+
+    // When
+    factory.toExecutable(app);
+
+    // Then
+    verify(mainClassResolver, times(2)).determineMainClass(app);
+  }
+
+  @DisplayName("launch scripts are rewritten when a file they use is missing")
+  @Test
+  void launchScriptsAreRewrittenWhenFileTheyUseIsMissing() throws Exception {
+    // Given
+    var app = app();
+    factory.toExecutable(app);
+    Files.delete(appDirectory.resolve("args.txt"));
+
+    // When
+    factory.toExecutable(app);
+
+    // Then
+    verify(mainClassResolver, times(2)).determineMainClass(app);
+    assertThat(appDirectory.resolve("args.txt")).isRegularFile();
+  }
+
+  @DisplayName("launch scripts are not reused when the classpath contains directories")
+  @Test
+  void launchScriptsAreNotReusedWhenClasspathContainsDirectories() throws Exception {
+    // Given
+    var app = ImmutableJavaApp.builder()
+        .addDependencies(Files.createDirectories(tempDir.resolve("classes")))
+        .uniqueName("some-app")
+        .build();
+    factory.toExecutable(app);
+
+    // When
+    factory.toExecutable(app);
+
+    // Then
+    verify(mainClassResolver, times(2)).determineMainClass(app);
+  }
+
+  private JavaApp app() {
+    return ImmutableJavaApp.builder()
+        .addDependencies(dependency)
+        .uniqueName("some-app")
+        .build();
+  }
+
+  private static Path writeJar(Path path, String... entryNames) throws IOException {
+    try (var jar = new JarOutputStream(Files.newOutputStream(path))) {
+      for (var entryName : entryNames) {
+        jar.putNextEntry(new ZipEntry(entryName));
+        jar.write(entryName.getBytes(StandardCharsets.UTF_8));
+        jar.closeEntry();
+      }
+    }
+    return path;
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
+import io.github.ascopes.protobufmavenplugin.system.HostSystem;
+import io.github.ascopes.protobufmavenplugin.system.SystemPathBinaryResolver;
+import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("JavaAppToExecutableScriptFactory tests")
+class JavaAppToExecutableScriptFactoryTest {
+
+  @TempDir
+  Path tempDir;
+
+  Path appDirectory;
+  Path archiveDirectory;
+  Path dependency;
+  JavaAppMainClassResolver mainClassResolver;
+  JavaAppToExecutableScriptFactory factory;
+
+  @BeforeEach
+  void setUp() throws IOException, ResolutionException {
+    appDirectory = tempDir.resolve("java-apps").resolve("some-app");
+    archiveDirectory = appDirectory.resolve("cds");
+    dependency = writeJar(tempDir.resolve("some-app.jar"), "org/example/Main.class");
+
+    // A stand-in for java that records the archive it was asked to create, if any.
+    var java = tempDir.resolve("java");
+    Files.writeString(
+        java,
+        """
+            #!/bin/sh
+            for arg in "$@"; do
+              case "$arg" in
+                -XX:ArchiveClassesAtExit=*) echo archive > "${arg#*=}" ;;
+              esac
+            done
+            exit 3
+            """
+    );
+    java.toFile().setExecutable(true);
+
+    HostSystem hostSystem = mock();
+    when(hostSystem.getJavaExecutablePath()).thenReturn(java);
+    when(hostSystem.getPathSeparator()).thenReturn(":");
+    when(hostSystem.isProbablyWindows()).thenReturn(false);
+
+    TemporarySpace temporarySpace = mock();
+    when(temporarySpace.createTemporarySpace(any(String[].class)))
+        .thenAnswer(ctx -> Files.createDirectories(Stream.of(ctx.getArguments())
+            .map(String::valueOf)
+            .reduce(tempDir, Path::resolve, (a, b) -> b)));
+
+    SystemPathBinaryResolver pathResolver = mock();
+    when(pathResolver.resolve("sh")).thenReturn(Optional.of(Path.of("/bin/sh")));
+
+    mainClassResolver = mock();
+    when(mainClassResolver.determineMainClass(any())).thenReturn("org.example.Main");
+
+    factory = new JavaAppToExecutableScriptFactory(
+        hostSystem,
+        temporarySpace,
+        pathResolver,
+        mainClassResolver,
+        tempDir.resolve("daemons")
+    );
+  }
+
+  @DisplayName("the first run of an app creates its class data sharing archive")
+  @Test
+  void theFirstRunOfAnAppCreatesItsClassDataSharingArchive() throws ResolutionException {
+    // When
+    var script = factory.toExecutable(classDataSharingApp());
+
+    // Then
+    assertThat(script).content().contains("-XX:ArchiveClassesAtExit=${pending}");
+    assertThat(appDirectory.resolve("args.txt")).content()
+        .doesNotContain("ArchiveClassesAtExit")
+        .doesNotContain("SharedArchiveFile");
+  }
+
+  @DisabledOnOs(OS.WINDOWS)
+  @DisplayName("runs promote the class data sharing archive that they create")
+  @Test
+  void runsPromoteTheClassDataSharingArchiveThatTheyCreate() throws Exception {
+    // Given
+    var script = factory.toExecutable(classDataSharingApp());
+
+    // When
+    var exitCode = new ProcessBuilder(script.toString()).start().waitFor();
+
+    // Then
+    assertThat(exitCode).isEqualTo(3);
+    assertThat(archiveDirectory).isDirectoryContaining("glob:**.jsa")
+        .isDirectoryNotContaining("glob:**.tmp");
+  }
+
+  @DisabledOnOs(OS.WINDOWS)
+  @DisplayName("existing class data sharing archives are reused")
+  @Test
+  void existingClassDataSharingArchivesAreReused() throws Exception {
+    // Given
+    var app = classDataSharingApp();
+    new ProcessBuilder(factory.toExecutable(app).toString()).start().waitFor();
+
+    // When
+    var script = factory.toExecutable(app);
+
+    // Then
+    assertThat(script).content().doesNotContain("ArchiveClassesAtExit");
+    assertThat(appDirectory.resolve("args.txt")).content()
+        .contains("-XX:SharedArchiveFile=" + archiveDirectory);
+  }
+
+  private JavaApp app() {
+    return ImmutableJavaApp.builder()
+        .addDependencies(dependency)
+        .uniqueName("some-app")
+        .build();
+  }
+
+  private JavaApp classDataSharingApp() {
+    return ImmutableJavaApp.builder()
+        .from(app())
+        .classDataSharing(true)
+        .build();
+  }
+
+  private static Path writeJar(Path path, String... entryNames) throws IOException {
+    try (var jar = new JarOutputStream(Files.newOutputStream(path))) {
+      for (var entryName : entryNames) {
+        jar.putNextEntry(new ZipEntry(entryName));
+        jar.write(entryName.getBytes(StandardCharsets.UTF_8));
+        jar.closeEntry();
+      }
+    }
+    return path;
+  }
+}
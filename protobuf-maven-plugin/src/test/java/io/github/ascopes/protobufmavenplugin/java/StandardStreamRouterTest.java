@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.java;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+@DisplayName("StandardStreamRouter tests")
+class StandardStreamRouterTest {
+
+  @DisplayName("the action runs on its own thread")
+  @Test
+  void theActionRunsOnItsOwnThread() throws Exception {
+    // Given
+    var stdout = new ByteArrayOutputStream();
+
+    // When
+    StandardStreamRouter.route(
+        stdin(),
+        printStream(stdout),
+        printStream(new ByteArrayOutputStream()),
+        () -> System.out.print(Thread.currentThread().getId())
+    );
+
+    // Then
+    assertThat(stdout.toString(StandardCharsets.UTF_8))
+        .isNotEqualTo(Long.toString(Thread.currentThread().getId()));
+  }
+
+  @DisplayName("exceptions raised by the action are rethrown")
+  @Test
+  void exceptionsRaisedByTheActionAreRethrown() {
+    // Given
+    var expectedException = new ClassNotFoundException("org.example.Main");
+
+    // Then
+    assertThatException()
+        .isThrownBy(() -> StandardStreamRouter.route(
+            stdin(),
+            printStream(new ByteArrayOutputStream()),
+            printStream(new ByteArrayOutputStream()),
+            () -> {
+              throw expectedException;
+            }
+        ))
+        .isSameAs(expectedException);
+  }
+
+  @DisplayName("pool workers started while an action is routed do not keep its streams")
+  @Timeout(value = 10_000, unit = TimeUnit.MILLISECONDS)
+  @Test
+  void poolWorkersStartedWhileAnActionIsRoutedDoNotKeepItsStreams() throws Exception {
+    var pool = new ForkJoinPool(2);
+    try {
+      // Given
+      var firstStdout = new ByteArrayOutputStream();
+
+      // Route from a pool worker, like plugins are run, and fork work from within the action,
+      // which starts a new worker.
+      pool.submit(() -> {
+        StandardStreamRouter.route(
+            stdin(),
+            printStream(firstStdout),
+            printStream(new ByteArrayOutputStream()),
+            () -> ForkJoinTask.adapt(() -> { }).fork().join()
+        );
+        return null;
+      }).get();
+
+      // When
+      // Make every worker write to the standard output while another action is routed.
+      StandardStreamRouter.route(
+          stdin(),
+          printStream(new ByteArrayOutputStream()),
+          printStream(new ByteArrayOutputStream()),
+          () -> {
+            var barrier = new CyclicBarrier(pool.getParallelism());
+            var tasks = new ArrayList<Future<?>>();
+            for (var i = 0; i < pool.getParallelism(); ++i) {
+              tasks.add(pool.submit(() -> {
+                barrier.await();
+                System.out.print("written by a pool worker");
+                return null;
+              }));
+            }
+            for (var task : tasks) {
+              try {
+                task.get();
+              } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+              }
+            }
+          }
+      );
+
+      // Then
+      assertThat(firstStdout.toString(StandardCharsets.UTF_8)).isEmpty();
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @DisplayName("threads started by an action stop using its streams once it completes")
+  @Timeout(value = 10_000, unit = TimeUnit.MILLISECONDS)
+  @Test
+  void threadsStartedByAnActionStopUsingItsStreamsOnceItCompletes() throws Exception {
+    // Given
+    var firstStdout = new ByteArrayOutputStream();
+    var firstActionCompleted = new CountDownLatch(1);
+    var threadHolder = new Thread[1];
+
+    StandardStreamRouter.route(
+        stdin(),
+        printStream(firstStdout),
+        printStream(new ByteArrayOutputStream()),
+        () -> {
+          threadHolder[0] = new Thread(() -> {
+            try {
+              firstActionCompleted.await();
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+              return;
+            }
+            System.out.print("written after the action completed");
+          });
+          threadHolder[0].start();
+        }
+    );
+
+    // When
+    StandardStreamRouter.route(
+        stdin(),
+        printStream(new ByteArrayOutputStream()),
+        printStream(new ByteArrayOutputStream()),
+        () -> {
+          firstActionCompleted.countDown();
+          try {
+            threadHolder[0].join();
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
+        }
+    );
+
+    // Then
+    assertThat(firstStdout.toString(StandardCharsets.UTF_8)).isEmpty();
+  }
+
+  private static ByteArrayInputStream stdin() {
+    return new ByteArrayInputStream(new byte[0]);
+  }
+
+  private static PrintStream printStream(ByteArrayOutputStream outputStream) {
+    return new PrintStream(outputStream, true, StandardCharsets.UTF_8);
+  }
+}
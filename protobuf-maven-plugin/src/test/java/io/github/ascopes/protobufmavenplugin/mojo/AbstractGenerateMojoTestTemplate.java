@@ -37,6 +37,7 @@ import io.github.ascopes.protobufmavenplugin.generation.GenerationResult;
 import io.github.ascopes.protobufmavenplugin.generation.Language;
 import io.github.ascopes.protobufmavenplugin.generation.ProtobufBuildOrchestrator;
 import io.github.ascopes.protobufmavenplugin.generation.SourceRootRegistrar;
+import io.github.ascopes.protobufmavenplugin.generation.cache.RemoteGenerationCacheMode;
 import io.github.ascopes.protobufmavenplugin.plugins.distributions.BinaryMavenProtocPlugin;
 import io.github.ascopes.protobufmavenplugin.plugins.distributions.JvmMavenProtocPluginBean;
 import io.github.ascopes.protobufmavenplugin.plugins.distributions.PathProtocPlugin;
@@ -45,6 +46,7 @@ import io.github.ascopes.protobufmavenplugin.plugins.distributions.UriProtocPlug
 import io.github.ascopes.protobufmavenplugin.protoc.distributions.ImmutableBinaryMavenProtocDistribution;
 import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
@@ -269,6 +271,26 @@ abstract class AbstractGenerateMojoTestTemplate<A extends AbstractGenerateMojo>
         .isEqualTo(cleanOutputDirectories);
   }
 
+  @DisplayName("preserveUnchangedOutputs is set on the request")
+  @ValueSource(booleans = {true, false})
+  @ParameterizedTest(name = "when {0}")
+  void preserveUnchangedOutputsIsSetOnTheRequest(
+      boolean preserveUnchangedOutputs
+  ) throws Throwable {
+    // Given
+    mojo.preserveUnchangedOutputs = preserveUnchangedOutputs;
+
+    // When
+    mojo.execute();
+
+    // Then
+    var captor = ArgumentCaptor.forClass(GenerationRequest.class);
+    verify(mojo.sourceCodeGenerator).generate(captor.capture());
+    var actualRequest = captor.getValue();
+    assertThat(actualRequest.isPreserveUnchangedOutputs())
+        .isEqualTo(preserveUnchangedOutputs);
+  }
+
   @DisplayName("the dependencyResolutionDepth is set to the specified value")
   @EnumSource(DependencyResolutionDepth.class)
   @ParameterizedTest(name = "for {0}")
@@ -375,6 +397,178 @@ abstract class AbstractGenerateMojoTestTemplate<A extends AbstractGenerateMojo>
     assertThat(actualRequest.isFatalWarnings()).isEqualTo(value);
   }
 
+  @DisplayName("generationCacheDirectory is set to the specified value")
+  @Test
+  void generationCacheDirectoryIsSetToSpecifiedValue() throws Throwable {
+    // Given
+    var expectedGenerationCacheDirectory = tempDir.resolve("generation-cache");
+    mojo.generationCacheDirectory = expectedGenerationCacheDirectory;
+
+    // When
+    mojo.execute();
+
+    // Then
+    var captor = ArgumentCaptor.forClass(GenerationRequest.class);
+    verify(mojo.sourceCodeGenerator).generate(captor.capture());
+    var actualRequest = captor.getValue();
+    assertThat(actualRequest.getGenerationCacheDirectory())
+        .isEqualTo(expectedGenerationCacheDirectory);
+  }
+
+  @DisplayName("generationCacheDirectory is null when unspecified")
+  @Test
+  void generationCacheDirectoryIsNullWhenUnspecified() throws Throwable {
+    // Given
+    mojo.generationCacheDirectory = null;
+
+    // When
+    mojo.execute();
+
+    // Then
+    var captor = ArgumentCaptor.forClass(GenerationRequest.class);
+    verify(mojo.sourceCodeGenerator).generate(captor.capture());
+    var actualRequest = captor.getValue();
+    assertThat(actualRequest.getGenerationCacheDirectory()).isNull();
+  }
+
+  @DisplayName("generationCacheMaxSize is set to the specified value")
+  @ValueSource(longs = {0, 1, 1024})
+  @ParameterizedTest(name = "for {0}")
+  void generationCacheMaxSizeIsSetToSpecifiedValue(long value) throws Throwable {
+    // Given
+    mojo.generationCacheMaxSize = value;
+
+    // When
+    mojo.execute();
+
+    // Then
+    var captor = ArgumentCaptor.forClass(GenerationRequest.class);
+    verify(mojo.sourceCodeGenerator).generate(captor.capture());
+    var actualRequest = captor.getValue();
+    assertThat(actualRequest.getGenerationCacheMaxSize()).isEqualTo(value);
+  }
+
+  @DisplayName("protocDirectPluginInvocation is set to the specified value")
+  @ValueSource(booleans = {true, false})
+  @ParameterizedTest(name = "for {0}")
+  void protocDirectPluginInvocationIsSetToSpecifiedValue(boolean value) throws Throwable {
+    // Given
+    mojo.protocDirectPluginInvocation = value;
+
+    // When
+    mojo.execute();
+
+    // Then
+    var captor = ArgumentCaptor.forClass(GenerationRequest.class);
+    verify(mojo.sourceCodeGenerator).generate(captor.capture());
+    var actualRequest = captor.getValue();
+    assertThat(actualRequest.isProtocDirectPluginInvocation()).isEqualTo(value);
+  }
+
+  @DisplayName("protocMaxProcesses is set to the specified value")
+  @ValueSource(ints = {0, 1, 8})
+  @ParameterizedTest(name = "for {0}")
+  void protocMaxProcessesIsSetToSpecifiedValue(int value) throws Throwable {
+    // Given
+    mojo.protocMaxProcesses = value;
+
+    // When
+    mojo.execute();
+
+    // Then
+    var captor = ArgumentCaptor.forClass(GenerationRequest.class);
+    verify(mojo.sourceCodeGenerator).generate(captor.capture());
+    var actualRequest = captor.getValue();
+    assertThat(actualRequest.getProtocMaxProcesses()).isEqualTo(value);
+  }
+
+  @DisplayName("protocParallelTargets is set to the specified value")
+  @ValueSource(booleans = {true, false})
+  @ParameterizedTest(name = "for {0}")
+  void protocParallelTargetsIsSetToSpecifiedValue(boolean value) throws Throwable {
+    // Given
+    mojo.protocParallelTargets = value;
+
+    // When
+    mojo.execute();
+
+    // Then
+    var captor = ArgumentCaptor.forClass(GenerationRequest.class);
+    verify(mojo.sourceCodeGenerator).generate(captor.capture());
+    var actualRequest = captor.getValue();
+    assertThat(actualRequest.isProtocParallelTargets()).isEqualTo(value);
+  }
+
+  @DisplayName("protocShardSize is set to the specified value")
+  @ValueSource(ints = {0, 1, 500})
+  @ParameterizedTest(name = "for {0}")
+  void protocShardSizeIsSetToSpecifiedValue(int value) throws Throwable {
+    // Given
+    mojo.protocShardSize = value;
+
+    // When
+    mojo.execute();
+
+    // Then
+    var captor = ArgumentCaptor.forClass(GenerationRequest.class);
+    verify(mojo.sourceCodeGenerator).generate(captor.capture());
+    var actualRequest = captor.getValue();
+    assertThat(actualRequest.getProtocShardSize()).isEqualTo(value);
+  }
+
+  @DisplayName("remoteGenerationCacheMode is set to the specified value")
+  @EnumSource(RemoteGenerationCacheMode.class)
+  @ParameterizedTest(name = "for {0}")
+  void remoteGenerationCacheModeIsSetToSpecifiedValue(
+      RemoteGenerationCacheMode remoteGenerationCacheMode
+  ) throws Throwable {
+    // Given
+    mojo.remoteGenerationCacheMode = remoteGenerationCacheMode;
+
+    // When
+    mojo.execute();
+
+    // Then
+    var captor = ArgumentCaptor.forClass(GenerationRequest.class);
+    verify(mojo.sourceCodeGenerator).generate(captor.capture());
+    var actualRequest = captor.getValue();
+    assertThat(actualRequest.getRemoteGenerationCacheMode()).isSameAs(remoteGenerationCacheMode);
+  }
+
+  @DisplayName("remoteGenerationCacheTimeout is set to the specified value")
+  @ValueSource(ints = {1, 10, 60})
+  @ParameterizedTest(name = "for {0}")
+  void remoteGenerationCacheTimeoutIsSetToSpecifiedValue(int value) throws Throwable {
+    // Given
+    mojo.remoteGenerationCacheTimeout = value;
+
+    // When
+    mojo.execute();
+
+    // Then
+    var captor = ArgumentCaptor.forClass(GenerationRequest.class);
+    verify(mojo.sourceCodeGenerator).generate(captor.capture());
+    var actualRequest = captor.getValue();
+    assertThat(actualRequest.getRemoteGenerationCacheTimeout()).isEqualTo(value);
+  }
+
+  @DisplayName("remoteGenerationCacheUrl is set to the specified value")
+  @ValueSource(strings = {"https://cache.example.com/protobuf", "http://localhost:8080/"})
+  @ParameterizedTest(name = "for {0}")
+  void remoteGenerationCacheUrlIsSetToSpecifiedValue(String value) throws Throwable {
+    // Given
+    mojo.remoteGenerationCacheUrl = URI.create(value);
+
+    // When
+    mojo.execute();
+
+    // Then
+    var captor = ArgumentCaptor.forClass(GenerationRequest.class);
+    verify(mojo.sourceCodeGenerator).generate(captor.capture());
+    var actualRequest = captor.getValue();
+    assertThat(actualRequest.getRemoteGenerationCacheUrl()).isEqualTo(URI.create(value));
+  }
+
   @DisplayName("ignoreProjectDependencies is set to the specified value")
   @ValueSource(booleans = {true, false})
   @ParameterizedTest(name = "for {0}")
@@ -484,6 +678,23 @@ abstract class AbstractGenerateMojoTestTemplate<A extends AbstractGenerateMojo>
     assertThat(actualRequest.isIncrementalCompilationEnabled()).isEqualTo(value);
   }
 
+  @DisplayName("lazyImports is set to the specified value")
+  @ValueSource(booleans = {true, false})
+  @ParameterizedTest(name = "for {0}")
+  void lazyImportsIsSetToSpecifiedValue(boolean value) throws Throwable {
+    // Given
+    mojo.lazyImports = value;
+
+    // When
+    mojo.execute();
+
+    // Then
+    var captor = ArgumentCaptor.forClass(GenerationRequest.class);
+    verify(mojo.sourceCodeGenerator).generate(captor.capture());
+    var actualRequest = captor.getValue();
+    assertThat(actualRequest.isLazyImports()).isEqualTo(value);
+  }
+
   @DisplayName("liteOnly is set to the specified value")
   @ValueSource(booleans = {true, false})
   @ParameterizedTest(name = "for {0}")
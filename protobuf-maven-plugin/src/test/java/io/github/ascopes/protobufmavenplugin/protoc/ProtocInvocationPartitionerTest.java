@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.protoc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.ascopes.protobufmavenplugin.generation.Language;
+import io.github.ascopes.protobufmavenplugin.plugins.ImmutableResolvedProtocPlugin;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.DescriptorFileProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.ImmutableDescriptorFileProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.ImmutableLanguageProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.ImmutablePluginProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.LanguageProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.PluginProtocTarget;
+import io.github.ascopes.protobufmavenplugin.protoc.targets.ProtocTarget;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("ProtocInvocationPartitioner tests")
+class ProtocInvocationPartitionerTest {
+
+  @TempDir
+  Path tempDir;
+
+  Path sourceRoot;
+  ProtocInvocationPartitioner partitioner;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    sourceRoot = Files.createDirectories(tempDir.resolve("src"));
+    partitioner = new ProtocInvocationPartitioner();
+  }
+
+  @DisplayName("invocations are not split when sharding is disabled")
+  @Test
+  void invocationsAreNotSplitWhenShardingIsDisabled() throws IOException {
+    // Given
+    var invocation = createInvocation(
+        List.of(givenSource("a.proto"), givenSource("b.proto")),
+        false
+    );
+
+    // When
+    var invocations = partitioner.partitionBySources(invocation, 0);
+
+    // Then
+    assertThat(invocations).containsExactly(invocation);
+  }
+
+  @DisplayName("invocations are not split when they fit in one shard")
+  @Test
+  void invocationsAreNotSplitWhenTheyFitInOneShard() throws IOException {
+    // Given
+    var invocation = createInvocation(
+        List.of(givenSource("a.proto"), givenSource("b.proto")),
+        false
+    );
+
+    // When
+    var invocations = partitioner.partitionBySources(invocation, 2);
+
+    // Then
+    assertThat(invocations).containsExactly(invocation);
+  }
+
+  @DisplayName("sources are split into shards of the given size")
+  @Test
+  void sourcesAreSplitIntoShardsOfTheGivenSize() throws IOException {
+    // Given
+    var sources = new ArrayList<Path>();
+    for (var i = 0; i < 5; ++i) {
+      sources.add(givenSource("file" + i + ".proto"));
+    }
+    var invocation = createInvocation(sources, false);
+
+    // When
+    var invocations = partitioner.partitionBySources(invocation, 2);
+
+    // Then
+    assertThat(invocations)
+        .extracting(ProtocInvocation::getSourcePaths)
+        .containsExactly(
+            List.of(sources.get(0), sources.get(1)),
+            List.of(sources.get(2), sources.get(3)),
+            List.of(sources.get(4))
+        );
+    assertThat(invocations)
+        .allSatisfy(shard -> assertThat(shard.getTargets()).isEqualTo(invocation.getTargets()));
+  }
+
+  @DisplayName("sources that import each other are kept in the same shard")
+  @Test
+  void sourcesThatImportEachOtherAreKeptInTheSameShard() throws IOException {
+    // Given
+    var first = givenSource("first.proto", "dir/third.proto");
+    var second = givenSource("second.proto");
+    var third = givenSource("dir/third.proto");
+    var fourth = givenSource("fourth.proto");
+    var invocation = createInvocation(List.of(first, second, third, fourth), false);
+
+    // When
+    var invocations = partitioner.partitionBySources(invocation, 2);
+
+    // Then
+    assertThat(invocations)
+        .extracting(ProtocInvocation::getSourcePaths)
+        .containsExactly(
+            List.of(first, third),
+            List.of(second, fourth)
+        );
+  }
+
+  @DisplayName("descriptor files are produced by a separate invocation with all sources")
+  @Test
+  void descriptorFilesAreProducedBySeparateInvocationWithAllSources() throws IOException {
+    // Given
+    var sources = List.of(givenSource("a.proto"), givenSource("b.proto"), givenSource("c.proto"));
+    var invocation = createInvocation(sources, true);
+
+    // When
+    var invocations = partitioner.partitionBySources(invocation, 2);
+
+    // Then
+    assertThat(invocations).hasSize(3);
+    assertThat(invocations.subList(0, 2))
+        .flatExtracting(ProtocInvocation::getTargets)
+        .allMatch(LanguageProtocTarget.class::isInstance);
+    assertThat(invocations.get(2).getSourcePaths()).isEqualTo(sources);
+    assertThat(invocations.get(2).getTargets())
+        .singleElement()
+        .isInstanceOf(DescriptorFileProtocTarget.class);
+  }
+
+  @DisplayName("aggregating plugins are run by a separate invocation with all sources")
+  @Test
+  void aggregatingPluginsAreRunBySeparateInvocationWithAllSources() throws IOException {
+    // Given
+    var sources = List.of(givenSource("a.proto"), givenSource("b.proto"), givenSource("c.proto"));
+    var aggregatingPlugin = ImmutablePluginProtocTarget.builder()
+        .plugin(ImmutableResolvedProtocPlugin.builder()
+            .id("docs")
+            .aggregating(true)
+            .order(0)
+            .outputDirectory(tempDir.resolve("docs"))
+            .path(tempDir.resolve("protoc-gen-docs"))
+            .build())
+        .build();
+    var baseInvocation = createInvocation(sources, false);
+    var targets = new TreeSet<>(baseInvocation.getTargets());
+    targets.add(aggregatingPlugin);
+    var invocation = ImmutableProtocInvocation.builder()
+        .from(baseInvocation)
+        .targets(targets)
+        .build();
+
+    // When
+    var invocations = partitioner.partitionBySources(invocation, 2);
+
+    // Then
+    assertThat(invocations).hasSize(3);
+    assertThat(invocations.subList(0, 2))
+        .flatExtracting(ProtocInvocation::getTargets)
+        .allMatch(LanguageProtocTarget.class::isInstance);
+    assertThat(invocations.get(2).getSourcePaths()).isEqualTo(sources);
+    assertThat(invocations.get(2).getTargets())
+        .containsExactly(aggregatingPlugin);
+  }
+
+  @DisplayName("languages and explicitly ordered plugins are kept in the same invocation")
+  @Test
+  void languagesAndExplicitlyOrderedPluginsAreKeptInTheSameInvocation() throws IOException {
+    // Given
+    var orderedPlugin = createPluginTarget("ordered", 1);
+    var firstPlugin = createPluginTarget("first", 0);
+    var secondPlugin = createPluginTarget("second", 0);
+    var baseInvocation = createInvocation(List.of(givenSource("a.proto")), true);
+    var targets = new TreeSet<>(baseInvocation.getTargets());
+    targets.addAll(List.of(orderedPlugin, firstPlugin, secondPlugin));
+    var invocation = ImmutableProtocInvocation.builder()
+        .from(baseInvocation)
+        .targets(targets)
+        .build();
+
+    // When
+    var invocations = partitioner.partitionByTargets(invocation);
+
+    // Then
+    assertThat(invocations).hasSize(4);
+    assertThat(invocations.get(0).getTargets())
+        .hasSize(2)
+        .first()
+        .isInstanceOf(LanguageProtocTarget.class);
+    assertThat(invocations.get(0).getTargets())
+        .last()
+        .isEqualTo(orderedPlugin);
+    assertThat(invocations.subList(1, 4))
+        .allSatisfy(each -> assertThat(each.getTargets()).hasSize(1))
+        .flatExtracting(ProtocInvocation::getTargets)
+        .hasSize(3)
+        .contains(firstPlugin, secondPlugin)
+        .anyMatch(DescriptorFileProtocTarget.class::isInstance);
+    assertThat(invocations)
+        .allSatisfy(each -> assertThat(each.getSourcePaths())
+            .isEqualTo(invocation.getSourcePaths()));
+  }
+
+  @DisplayName("invocations with only built-in languages are not split by target")
+  @Test
+  void invocationsWithOnlyBuiltInLanguagesAreNotSplitByTarget() throws IOException {
+    // Given
+    var invocation = createInvocation(List.of(givenSource("a.proto")), false);
+
+    // When
+    var invocations = partitioner.partitionByTargets(invocation);
+
+    // Then
+    assertThat(invocations).containsExactly(invocation);
+  }
+
+  private PluginProtocTarget createPluginTarget(String id, int order) {
+    return ImmutablePluginProtocTarget.builder()
+        .plugin(ImmutableResolvedProtocPlugin.builder()
+            .id(id)
+            .order(order)
+            .outputDirectory(tempDir.resolve("out"))
+            .path(tempDir.resolve("protoc-gen-" + id))
+            .build())
+        .build();
+  }
+
+  private Path givenSource(String name, String... imports) throws IOException {
+    var file = sourceRoot.resolve(name);
+    Files.createDirectories(file.getParent());
+    var content = new StringBuilder("syntax = \"proto3\";\n");
+    for (var importName : imports) {
+      content.append("import \"").append(importName).append("\";\n");
+    }
+    return Files.writeString(file, content);
+  }
+
+  private ProtocInvocation createInvocation(List<Path> sources, boolean descriptor) {
+    var targets = new TreeSet<ProtocTarget>();
+    targets.add(ImmutableLanguageProtocTarget.builder()
+        .language(Language.JAVA)
+        .outputPath(tempDir.resolve("out"))
+        .lite(false)
+        .build());
+
+    if (descriptor) {
+      targets.add(ImmutableDescriptorFileProtocTarget.builder()
+          .outputFile(tempDir.resolve("descriptor.binpb"))
+          .includeImports(false)
+          .includeSourceInfo(false)
+          .retainOptions(false)
+          .build());
+    }
+
+    return ImmutableProtocInvocation.builder()
+        .protocPath(tempDir.resolve("protoc"))
+        .fatalWarnings(false)
+        .addImportPaths(sourceRoot)
+        .sourcePaths(sources)
+        .targets(targets)
+        .sanctionedExecutablePath(null)
+        .build();
+  }
+}
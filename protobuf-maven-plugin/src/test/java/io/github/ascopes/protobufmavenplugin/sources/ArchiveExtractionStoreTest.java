@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("ArchiveExtractionStore tests")
+class ArchiveExtractionStoreTest {
+
+  @TempDir Path tempDir;
+  Path localRepository;
+  Path archive;
+  Path storeDir;
+  ArchiveExtractionStore archiveExtractionStore;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    localRepository = tempDir.resolve("repository");
+    archive = givenArchive(
+        localRepository.resolve("org/example/some-archive/1.0.0/some-archive-1.0.0.jar")
+    );
+
+    storeDir = tempDir.resolve("store");
+    archiveExtractionStore = new ArchiveExtractionStore(localRepository, storeDir);
+  }
+
+  @DisplayName(".extract(...) makes the extracted files visible in the link root")
+  @Test
+  void extractMakesTheExtractedFilesVisibleInTheLinkRoot() throws IOException {
+    // Given
+    var linkRoot = tempDir.resolve("build").resolve("some-archive");
+
+    // When
+    List<Path> result;
+    try (var zipFile = new ZipFile(archive.toFile())) {
+      result = archiveExtractionStore.extract(
+          archive,
+          zipFile,
+          List.of(zipFile.getEntry("foo/bar.proto")),
+          linkRoot
+      );
+    }
+
+    // Then
+    assertThat(result)
+        .containsExactly(linkRoot.resolve("foo").resolve("bar.proto"));
+    assertThat(result.get(0))
+        .isRegularFile()
+        .hasContent("syntax = \"proto3\";");
+    assertThat(linkRoot.resolve("baz.proto"))
+        .doesNotExist();
+  }
+
+  @DisplayName(".extract(...) extracts archives outside the local repository into the link root")
+  @Test
+  void extractExtractsArchivesOutsideTheLocalRepositoryIntoTheLinkRoot() throws IOException {
+    // Given
+    var reactorArchive = givenArchive(tempDir.resolve("module/target/some-archive.jar"));
+    var linkRoot = tempDir.resolve("build").resolve("some-archive");
+
+    // When
+    List<Path> result;
+    try (var zipFile = new ZipFile(reactorArchive.toFile())) {
+      result = archiveExtractionStore.extract(
+          reactorArchive,
+          zipFile,
+          List.of(zipFile.getEntry("baz.proto")),
+          linkRoot
+      );
+    }
+
+    // Then
+    assertThat(result).containsExactly(linkRoot.resolve("baz.proto"));
+    assertThat(Files.isSymbolicLink(linkRoot)).isFalse();
+    assertThat(linkRoot.resolve("baz.proto")).hasContent("syntax = \"proto2\";");
+    assertThat(storeDir).doesNotExist();
+  }
+
+  @DisplayName(".extract(...) extracts snapshot archives into the link root")
+  @Test
+  void extractExtractsSnapshotArchivesIntoTheLinkRoot() throws IOException {
+    // Given
+    var snapshotArchive = givenArchive(localRepository.resolve(
+        "org/example/some-archive/1.0.0-SNAPSHOT/some-archive-1.0.0-SNAPSHOT.jar"
+    ));
+    var linkRoot = tempDir.resolve("build").resolve("some-archive");
+
+    // When
+    try (var zipFile = new ZipFile(snapshotArchive.toFile())) {
+      archiveExtractionStore.extract(
+          snapshotArchive,
+          zipFile,
+          List.of(zipFile.getEntry("baz.proto")),
+          linkRoot
+      );
+    }
+
+    // Then
+    assertThat(Files.isSymbolicLink(linkRoot)).isFalse();
+    assertThat(linkRoot.resolve("baz.proto")).hasContent("syntax = \"proto2\";");
+    assertThat(storeDir).doesNotExist();
+  }
+
+  @DisplayName(".extract(...) reuses a previous extraction of the same entries")
+  @Test
+  void extractReusesPreviousExtractionOfTheSameEntries() throws IOException {
+    // Given
+    var firstLinkRoot = tempDir.resolve("first-build").resolve("some-archive");
+    var secondLinkRoot = tempDir.resolve("second-build").resolve("some-archive");
+
+    // When
+    try (var zipFile = new ZipFile(archive.toFile())) {
+      var entries = List.of(zipFile.getEntry("foo/bar.proto"), zipFile.getEntry("baz.proto"));
+      archiveExtractionStore.extract(archive, zipFile, entries, firstLinkRoot);
+      archiveExtractionStore.extract(archive, zipFile, entries, secondLinkRoot);
+    }
+
+    // Then
+    try (var storeEntries = Files.list(storeDir)) {
+      assertThat(storeEntries).hasSize(1);
+    }
+    assertThat(secondLinkRoot.resolve("baz.proto"))
+        .hasContent("syntax = \"proto2\";");
+  }
+
+  @DisplayName(".extract(...) stores different selections of entries separately")
+  @Test
+  void extractStoresDifferentSelectionsOfEntriesSeparately() throws IOException {
+    // Given
+    var firstLinkRoot = tempDir.resolve("first-build").resolve("some-archive");
+    var secondLinkRoot = tempDir.resolve("second-build").resolve("some-archive");
+
+    // When
+    try (var zipFile = new ZipFile(archive.toFile())) {
+      archiveExtractionStore.extract(
+          archive,
+          zipFile,
+          List.of(zipFile.getEntry("foo/bar.proto")),
+          firstLinkRoot
+      );
+      archiveExtractionStore.extract(
+          archive,
+          zipFile,
+          List.of(zipFile.getEntry("baz.proto")),
+          secondLinkRoot
+      );
+    }
+
+    // Then
+    try (var storeEntries = Files.list(storeDir)) {
+      assertThat(storeEntries).hasSize(2);
+    }
+    assertThat(firstLinkRoot.resolve("baz.proto"))
+        .doesNotExist();
+    assertThat(secondLinkRoot.resolve("foo").resolve("bar.proto"))
+        .doesNotExist();
+  }
+
+  @DisplayName(".extract(...) replaces stale contents of the link root")
+  @Test
+  void extractReplacesStaleContentsOfTheLinkRoot() throws IOException {
+    // Given
+    var linkRoot = tempDir.resolve("build").resolve("some-archive");
+    Files.createDirectories(linkRoot);
+    Files.writeString(linkRoot.resolve("stale.proto"), "stale");
+
+    // When
+    try (var zipFile = new ZipFile(archive.toFile())) {
+      archiveExtractionStore.extract(
+          archive,
+          zipFile,
+          List.of(zipFile.getEntry("baz.proto")),
+          linkRoot
+      );
+    }
+
+    // Then
+    assertThat(linkRoot.resolve("stale.proto"))
+        .doesNotExist();
+    assertThat(linkRoot.resolve("baz.proto"))
+        .hasContent("syntax = \"proto2\";");
+  }
+
+  @DisplayName(".extract(...) replaces incomplete entries")
+  @Test
+  void extractReplacesIncompleteEntries() throws IOException {
+    // Given
+    var firstLinkRoot = tempDir.resolve("first-build").resolve("some-archive");
+    var secondLinkRoot = tempDir.resolve("second-build").resolve("some-archive");
+
+    try (var zipFile = new ZipFile(archive.toFile())) {
+      var entries = List.of(zipFile.getEntry("foo/bar.proto"), zipFile.getEntry("baz.proto"));
+      archiveExtractionStore.extract(archive, zipFile, entries, firstLinkRoot);
+
+      try (var storeEntries = Files.list(storeDir)) {
+        Files.delete(storeEntries.findFirst().orElseThrow().resolve("baz.proto"));
+      }
+
+      // When
+      archiveExtractionStore.extract(archive, zipFile, entries, secondLinkRoot);
+    }
+
+    // Then
+    assertThat(secondLinkRoot.resolve("foo").resolve("bar.proto"))
+        .hasContent("syntax = \"proto3\";");
+    assertThat(secondLinkRoot.resolve("baz.proto"))
+        .hasContent("syntax = \"proto2\";");
+  }
+
+  @DisplayName(".extract(...) extracts archives again once they change")
+  @Test
+  void extractExtractsArchivesAgainOnceTheyChange() throws IOException {
+    // Given
+    var firstLinkRoot = tempDir.resolve("first-build").resolve("some-archive");
+    var secondLinkRoot = tempDir.resolve("second-build").resolve("some-archive");
+
+    try (var zipFile = new ZipFile(archive.toFile())) {
+      archiveExtractionStore.extract(
+          archive,
+          zipFile,
+          List.of(zipFile.getEntry("baz.proto")),
+          firstLinkRoot
+      );
+    }
+
+    var modified = Files.getLastModifiedTime(archive);
+    try (var zipOs = new ZipOutputStream(Files.newOutputStream(archive))) {
+      zipOs.putNextEntry(new ZipEntry("baz.proto"));
+      zipOs.write("syntax = \"proto3\";".getBytes(StandardCharsets.UTF_8));
+      zipOs.closeEntry();
+    }
+    Files.setLastModifiedTime(archive, FileTime.fromMillis(modified.toMillis() + 10_000));
+
+    // When
+    try (var zipFile = new ZipFile(archive.toFile())) {
+      archiveExtractionStore.extract(
+          archive,
+          zipFile,
+          List.of(zipFile.getEntry("baz.proto")),
+          secondLinkRoot
+      );
+    }
+
+    // Then
+    try (var storeEntries = Files.list(storeDir)) {
+      assertThat(storeEntries).hasSize(2);
+    }
+    assertThat(firstLinkRoot.resolve("baz.proto"))
+        .hasContent("syntax = \"proto2\";");
+    assertThat(secondLinkRoot.resolve("baz.proto"))
+        .hasContent("syntax = \"proto3\";");
+  }
+
+  private static Path givenArchive(Path path) throws IOException {
+    Files.createDirectories(path.getParent());
+    try (var zipOs = new ZipOutputStream(Files.newOutputStream(path))) {
+      zipOs.putNextEntry(new ZipEntry("foo/bar.proto"));
+      zipOs.write("syntax = \"proto3\";".getBytes(StandardCharsets.UTF_8));
+      zipOs.closeEntry();
+      zipOs.putNextEntry(new ZipEntry("baz.proto"));
+      zipOs.write("syntax = \"proto2\";".getBytes(StandardCharsets.UTF_8));
+      zipOs.closeEntry();
+    }
+    return path;
+  }
+}
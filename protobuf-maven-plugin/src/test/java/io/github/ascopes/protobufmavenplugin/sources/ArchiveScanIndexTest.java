@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("ArchiveScanIndex tests")
+class ArchiveScanIndexTest {
+
+  @TempDir Path tempDir;
+  Path archive;
+  ArchiveScanIndex archiveScanIndex;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    archive = Files.writeString(tempDir.resolve("some-archive.jar"), "archive content");
+    archiveScanIndex = new ArchiveScanIndex(tempDir.resolve("index"));
+  }
+
+  @DisplayName(".lookup(...) returns an empty optional for archives that were not indexed")
+  @Test
+  void lookupReturnsAnEmptyOptionalForArchivesThatWereNotIndexed() {
+    // When
+    var result = archiveScanIndex.lookup(archive);
+
+    // Then
+    assertThat(result).isEmpty();
+  }
+
+  @DisplayName(".lookup(...) returns the stored proto files")
+  @Test
+  void lookupReturnsTheStoredProtoFiles() {
+    // Given
+    archiveScanIndex.store(archive, List.of("foo/bar.proto", "baz.proto"));
+
+    // When
+    var result = archiveScanIndex.lookup(archive);
+
+    // Then
+    assertThat(result).hasValue(List.of("foo/bar.proto", "baz.proto"));
+  }
+
+  @DisplayName(".lookup(...) remembers archives that contain no proto files")
+  @Test
+  void lookupRemembersArchivesThatContainNoProtoFiles() {
+    // Given
+    archiveScanIndex.store(archive, List.of());
+
+    // When
+    var result = archiveScanIndex.lookup(archive);
+
+    // Then
+    assertThat(result).hasValue(List.of());
+  }
+
+  @DisplayName(".lookup(...) returns an empty optional if the archive changed")
+  @Test
+  void lookupReturnsAnEmptyOptionalIfTheArchiveChanged() throws IOException {
+    // Given
+    archiveScanIndex.store(archive, List.of());
+    Files.writeString(archive, "some different archive content");
+    Files.setLastModifiedTime(archive, FileTime.from(Instant.now().plusSeconds(60)));
+
+    // When
+    var result = archiveScanIndex.lookup(archive);
+
+    // Then
+    assertThat(result).isEmpty();
+  }
+
+  @DisplayName(".store(...) overwrites the entry of an archive that changed")
+  @Test
+  void storeOverwritesTheEntryOfAnArchiveThatChanged() throws IOException {
+    // Given
+    archiveScanIndex.store(archive, List.of("foo.proto"));
+    Files.writeString(archive, "some different archive content");
+    Files.setLastModifiedTime(archive, FileTime.from(Instant.now().plusSeconds(60)));
+
+    // When
+    archiveScanIndex.store(archive, List.of("bar.proto"));
+
+    // Then
+    assertThat(archiveScanIndex.lookup(archive)).hasValue(List.of("bar.proto"));
+    try (var entries = Files.list(tempDir.resolve("index"))) {
+      assertThat(entries).hasSize(1);
+    }
+  }
+
+  @DisplayName(".lookup(...) returns an empty optional if the archive does not exist")
+  @Test
+  void lookupReturnsAnEmptyOptionalIfTheArchiveDoesNotExist() {
+    // When
+    var result = archiveScanIndex.lookup(tempDir.resolve("does-not-exist.jar"));
+
+    // Then
+    assertThat(result).isEmpty();
+  }
+}
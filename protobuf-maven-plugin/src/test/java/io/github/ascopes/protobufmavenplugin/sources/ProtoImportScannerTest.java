@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.ascopes.protobufmavenplugin.fixtures.TestFileSystem;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("ProtoImportScanner tests")
+class ProtoImportScannerTest {
+
+  @DisplayName("all import styles are discovered in declaration order")
+  @Test
+  void allImportStylesAreDiscoveredInDeclarationOrder() {
+    // Given
+    var source = """
+        syntax = "proto3";
+        package foo.bar;
+        import "foo/bar/baz.proto";
+        import public "google/protobuf/any.proto";
+        import weak 'legacy/thing.proto' ;
+        import
+          "spread/over/lines.proto";
+        import option "options/custom.proto";
+        message Foo {}
+        """;
+
+    // When
+    var imports = ProtoImportScanner.scanImports(source);
+
+    // Then
+    assertThat(imports).containsExactly(
+        "foo/bar/baz.proto",
+        "google/protobuf/any.proto",
+        "legacy/thing.proto",
+        "spread/over/lines.proto",
+        "options/custom.proto"
+    );
+  }
+
+  @DisplayName("imports within comments are ignored")
+  @Test
+  void importsWithinCommentsAreIgnored() {
+    // Given
+    var source = """
+        syntax = "proto3";
+        // import "commented/out.proto";
+        /*
+         * import "block/commented.proto";
+         */
+        import /* inline */ "real/import.proto";
+        """;
+
+    // When
+    var imports = ProtoImportScanner.scanImports(source);
+
+    // Then
+    assertThat(imports).containsExactly("real/import.proto");
+  }
+
+  @DisplayName("comment markers within strings are not treated as comments")
+  @Test
+  void commentMarkersWithinStringsAreNotTreatedAsComments() {
+    // Given
+    var source = """
+        syntax = "proto3";
+        option java_package = "http://example.com/*";
+        import "after/string.proto";
+        option go_package = "*/";
+        """;
+
+    // When
+    var imports = ProtoImportScanner.scanImports(source);
+
+    // Then
+    assertThat(imports).containsExactly("after/string.proto");
+  }
+
+  @DisplayName("no imports are discovered in a file without imports")
+  @Test
+  void noImportsAreDiscoveredInFileWithoutImports() {
+    // Given
+    var source = "syntax = \"proto3\";\nmessage Important { string imported = 1; }\n";
+
+    // When
+    var imports = ProtoImportScanner.scanImports(source);
+
+    // Then
+    assertThat(imports).isEmpty();
+  }
+
+  @DisplayName("import names use forward slashes regardless of the platform")
+  @Test
+  void importNamesUseForwardSlashesRegardlessOfPlatform() {
+    try (var fs = TestFileSystem.windows()) {
+      // Given
+      var root = fs.givenDirectoryExists("src", "main", "protobuf");
+      var file = fs.givenFileExists(root, "foo", "bar", "baz.proto");
+
+      // When
+      var importName = ProtoImportScanner.importNameOf(root, file);
+
+      // Then
+      assertThat(importName).isEqualTo("foo/bar/baz.proto");
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
+import io.github.ascopes.protobufmavenplugin.system.ConcurrentExecutor;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("ProtoSourceResolver tests")
+class ProtoSourceResolverTest {
+
+  @TempDir Path tempDir;
+  Path sourceRoot;
+  ConcurrentExecutor concurrentExecutor;
+  ProtoSourceResolver resolver;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    sourceRoot = Files.createDirectories(tempDir.resolve("src"));
+
+    TemporarySpace temporarySpace = mock();
+    when(temporarySpace.createTemporarySpace(any(String[].class)))
+        .thenReturn(Files.createDirectories(tempDir.resolve("target")));
+
+    concurrentExecutor = new ConcurrentExecutor();
+    resolver = new ProtoSourceResolver(
+        new ArchiveExtractionStore(tempDir.resolve("repository"), tempDir.resolve("store")),
+        new ArchiveScanIndex(tempDir.resolve("index")),
+        concurrentExecutor,
+        temporarySpace
+    );
+  }
+
+  @AfterEach
+  void tearDown() {
+    concurrentExecutor.destroy();
+  }
+
+  @DisplayName(".resolveImportClosure(...) only resolves sources reachable from imports")
+  @Test
+  void resolveImportClosureOnlyResolvesSourcesReachableFromImports() throws IOException {
+    // Given
+    var compilableFile = Files.writeString(
+        sourceRoot.resolve("main.proto"),
+        "syntax = \"proto3\";\nimport \"lib/a.proto\";\n"
+    );
+    var compilableSources = List.<SourceListing>of(ImmutableSourceListing.builder()
+        .sourceRoot(sourceRoot)
+        .addSourceFiles(compilableFile)
+        .build());
+
+    var archive = someArchive(Map.of(
+        "lib/a.proto", "import \"lib/b.proto\";",
+        "lib/b.proto", "// import \"lib/c.proto\";",
+        "lib/c.proto", "syntax = \"proto3\";"
+    ));
+    var unusedDirectory = Files.createDirectories(tempDir.resolve("unused"));
+    Files.writeString(unusedDirectory.resolve("unused.proto"), "syntax = \"proto3\";");
+
+    // When
+    var result = resolver.resolveImportClosure(
+        compilableSources,
+        List.of(archive, unusedDirectory)
+    );
+
+    // Then
+    assertThat(result).singleElement().satisfies(listing -> {
+      assertThat(listing.getOriginArchive()).hasValue(archive);
+      assertThat(listing.getSourceFiles())
+          .containsExactlyInAnyOrder(
+              listing.getSourceRoot().resolve("lib").resolve("a.proto"),
+              listing.getSourceRoot().resolve("lib").resolve("b.proto")
+          );
+      assertThat(listing.getSourceRoot().resolve("lib").resolve("c.proto"))
+          .doesNotExist();
+    });
+  }
+
+  @DisplayName(".resolveImportClosure(...) resolves imports against the earliest root")
+  @Test
+  void resolveImportClosureResolvesImportsAgainstTheEarliestRoot() throws IOException {
+    // Given
+    var compilableFile = Files.writeString(
+        sourceRoot.resolve("main.proto"),
+        "import \"shared.proto\";"
+    );
+    var compilableSources = List.<SourceListing>of(ImmutableSourceListing.builder()
+        .sourceRoot(sourceRoot)
+        .addSourceFiles(compilableFile)
+        .build());
+
+    var firstDirectory = Files.createDirectories(tempDir.resolve("first"));
+    var firstFile = Files.writeString(firstDirectory.resolve("shared.proto"), "");
+    var secondDirectory = Files.createDirectories(tempDir.resolve("second"));
+    Files.writeString(secondDirectory.resolve("shared.proto"), "import \"other.proto\";");
+    Files.writeString(secondDirectory.resolve("other.proto"), "");
+
+    // When
+    var result = resolver.resolveImportClosure(
+        compilableSources,
+        List.of(firstDirectory, secondDirectory)
+    );
+
+    // Then
+    assertThat(result).singleElement().satisfies(listing -> {
+      assertThat(listing.getSourceRoot()).isEqualTo(firstDirectory.toAbsolutePath());
+      assertThat(listing.getSourceFiles()).containsExactly(firstFile.toAbsolutePath());
+    });
+  }
+
+  Path someArchive(Map<String, String> entries) throws IOException {
+    var archive = tempDir.resolve("some-archive.jar");
+    try (var zipOs = new ZipOutputStream(Files.newOutputStream(archive))) {
+      for (var entry : entries.entrySet()) {
+        zipOs.putNextEntry(new ZipEntry(entry.getKey()));
+        zipOs.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+        zipOs.closeEntry();
+      }
+    }
+    return archive;
+  }
+}
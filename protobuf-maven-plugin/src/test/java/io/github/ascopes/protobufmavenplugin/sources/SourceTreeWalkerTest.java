@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import io.github.ascopes.protobufmavenplugin.sources.filter.FileFilter;
+import io.github.ascopes.protobufmavenplugin.sources.filter.IncludesExcludesGlobFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("SourceTreeWalker tests")
+class SourceTreeWalkerTest {
+
+  @TempDir Path tempDir;
+
+  @DisplayName(".walk(...) returns the same paths in the same order as Files.walk(...)")
+  @Test
+  void walkReturnsTheSamePathsInTheSameOrderAsFilesWalk() throws IOException {
+    // Given
+    for (var i = 0; i < 5; ++i) {
+      for (var j = 0; j < 5; ++j) {
+        var directory = Files.createDirectories(tempDir.resolve("dir" + i).resolve("dir" + j));
+        Files.writeString(directory.resolve("file.proto"), "");
+      }
+      Files.writeString(tempDir.resolve("dir" + i).resolve("file.proto"), "");
+    }
+    FileFilter filter = (rootPath, filePath) -> true;
+
+    List<Path> expected;
+    try (var stream = Files.walk(tempDir)) {
+      expected = stream.toList();
+    }
+
+    // When
+    var actual = SourceTreeWalker.walk(tempDir, filter);
+
+    // Then
+    assertThat(actual).containsExactlyElementsOf(expected);
+  }
+
+  @DisplayName(".walk(...) only returns paths that match the filter")
+  @Test
+  void walkOnlyReturnsPathsThatMatchTheFilter() throws IOException {
+    // Given
+    var included = Files.writeString(
+        Files.createDirectories(tempDir.resolve("foo").resolve("bar")).resolve("baz.proto"),
+        ""
+    );
+    Files.writeString(tempDir.resolve("foo").resolve("bar").resolve("baz.txt"), "");
+    Files.writeString(tempDir.resolve("bork.txt"), "");
+    FileFilter filter = (rootPath, filePath) -> filePath.toString().endsWith(".proto");
+
+    // When
+    var actual = SourceTreeWalker.walk(tempDir, filter);
+
+    // Then
+    assertThat(actual).containsExactly(included);
+  }
+
+  @DisplayName(".walk(...) does not descend into directories that cannot contain matches")
+  @Test
+  void walkDoesNotDescendIntoDirectoriesThatCannotContainMatches() throws IOException {
+    // Given
+    var included = Files.writeString(
+        Files.createDirectories(tempDir.resolve("foo")).resolve("bar.proto"),
+        ""
+    );
+    var excludedDirectory = Files.createDirectories(tempDir.resolve("foo").resolve("build"));
+    Files.writeString(excludedDirectory.resolve("baz.proto"), "");
+
+    var visited = new ArrayList<Path>();
+    var delegate = new IncludesExcludesGlobFilter(List.of(), List.of("**/build/**"));
+    var filter = new FileFilter() {
+      @Override
+      public boolean matches(Path rootPath, Path filePath) {
+        synchronized (visited) {
+          visited.add(filePath);
+        }
+        return Files.isRegularFile(filePath) && delegate.matches(rootPath, filePath);
+      }
+
+      @Override
+      public boolean mayMatchWithin(Path rootPath, Path directoryPath) {
+        return delegate.mayMatchWithin(rootPath, directoryPath);
+      }
+    };
+
+    // When
+    var actual = SourceTreeWalker.walk(tempDir, filter);
+
+    // Then
+    assertThat(actual).containsExactly(included);
+    assertThat(visited)
+        .contains(excludedDirectory)
+        .doesNotContain(excludedDirectory.resolve("baz.proto"));
+  }
+
+  @DisplayName(".walk(...) propagates any IOException that is raised")
+  @Test
+  void walkPropagatesAnyIoExceptionThatIsRaised() {
+    // Given
+    var missingDirectory = tempDir.resolve("does-not-exist");
+    FileFilter filter = (rootPath, filePath) -> true;
+
+    // Then
+    assertThatExceptionOfType(NoSuchFileException.class)
+        .isThrownBy(() -> SourceTreeWalker.walk(missingDirectory, filter));
+  }
+}
@@ -51,6 +51,62 @@ class FileFilterTest {
         .isEqualTo(expected);
   }
 
+  @CsvSource({
+      "false, false, false",
+      "false,  true, false",
+      " true, false, false",
+      " true,  true,  true",
+  })
+  @DisplayName(".and() returns a filter that delegates .matches(String) to both filters")
+  @ParameterizedTest(name = "when predicates return {0} and {1}, expect an overall result of {2}")
+  void andDelegatesMatchesStringToBothFilters(boolean left, boolean right, boolean expected) {
+    // Given
+    var leftMatcher = relativePathFilter(left);
+    var rightMatcher = relativePathFilter(right);
+
+    // Then
+    assertThat(leftMatcher.and(rightMatcher).matches("foo/bar.proto"))
+        .isEqualTo(expected);
+    assertThat(rightMatcher.and(leftMatcher).matches("foo/bar.proto"))
+        .isEqualTo(expected);
+  }
+
+  @CsvSource({
+      "false, false, false",
+      "false,  true, false",
+      " true, false, false",
+      " true,  true,  true",
+  })
+  @DisplayName(".and() returns a filter that delegates .mayMatchWithin(...) to both filters")
+  @ParameterizedTest(name = "when predicates return {0} and {1}, expect an overall result of {2}")
+  void andDelegatesMayMatchWithinToBothFilters(boolean left, boolean right, boolean expected) {
+    // Given
+    var leftMatcher = directoryFilter(left);
+    var rightMatcher = directoryFilter(right);
+    var root = Path.of(RandomFixtures.someBasicString());
+    var directory = root.resolve(RandomFixtures.someBasicString());
+
+    // Then
+    assertThat(leftMatcher.and(rightMatcher).mayMatchWithin(root, directory))
+        .isEqualTo(expected);
+    assertThat(rightMatcher.and(leftMatcher).mayMatchWithin(root, directory))
+        .isEqualTo(expected);
+  }
+
+  @DisplayName(".mayMatchWithin(...) allows every directory by default")
+  @ValueSource(booleans = {true, false})
+  @ParameterizedTest(name = "when .matches(Path, Path) returns {0}")
+  void mayMatchWithinAllowsEveryDirectoryByDefault(boolean result) {
+    // Given
+    var filter = fileFilter(result);
+    var root = Path.of(RandomFixtures.someBasicString());
+    var directory = root.resolve(RandomFixtures.someBasicString());
+
+    // Then
+    assertThat(filter.mayMatchWithin(root, directory))
+        .isTrue();
+  }
+
   @DisplayName(".matches(String) performs the expected call on .matches(Path, Path)")
   @ValueSource(booleans = {true, false})
   @ParameterizedTest(name = "when .matches(Path, Path) returns {0}")
@@ -78,4 +134,32 @@ class FileFilterTest {
   static FileFilter fileFilter(boolean result) {
     return fileFilter((a, b) -> result);
   }
+
+  static FileFilter relativePathFilter(boolean result) {
+    return new FileFilter() {
+      @Override
+      public boolean matches(Path rootPath, Path filePath) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean matches(String relativeFilePath) {
+        return result;
+      }
+    };
+  }
+
+  static FileFilter directoryFilter(boolean result) {
+    return new FileFilter() {
+      @Override
+      public boolean matches(Path rootPath, Path filePath) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean mayMatchWithin(Path rootPath, Path directoryPath) {
+        return result;
+      }
+    };
+  }
 }
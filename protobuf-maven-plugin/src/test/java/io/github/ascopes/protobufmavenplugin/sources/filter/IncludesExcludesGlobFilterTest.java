@@ -150,6 +150,97 @@ class IncludesExcludesGlobFilterTest {
     );
   }
 
+  @DisplayName("only directories that may contain matches are descended into")
+  @MethodSource("directoryTestCases")
+  @ParameterizedTest(name = "{argumentSetName}")
+  void onlyDirectoriesThatMayContainMatchesAreDescendedInto(
+      IncludesExcludesGlobFilter filter,
+      Function<Path, Path> pathSupplier,
+      boolean expectedResult,
+      @TempDir Path dir
+  ) {
+    // Given
+    var path = pathSupplier.apply(dir);
+
+    // Then
+    assertThat(filter.mayMatchWithin(dir, path))
+        .isEqualTo(expectedResult);
+  }
+
+  static Stream<Arguments> directoryTestCases() {
+    return Stream.of(
+        argumentSet(
+            "directories are descended into when no includes or excludes are present",
+            new IncludesExcludesGlobFilter(List.of(), List.of()),
+            pathSupplier("foo", "bar"),
+            true
+        ),
+        argumentSet(
+            "the root directory is always descended into",
+            new IncludesExcludesGlobFilter(List.of("foo/*.proto"), List.of("**")),
+            pathSupplier(),
+            true
+        ),
+        argumentSet(
+            "directories matching an exclusion of all descendants are not descended into",
+            new IncludesExcludesGlobFilter(List.of(), List.of("**/node_modules/**")),
+            pathSupplier("foo", "node_modules"),
+            false
+        ),
+        argumentSet(
+            "directories not matching an exclusion of all descendants are descended into",
+            new IncludesExcludesGlobFilter(List.of(), List.of("**/node_modules/**")),
+            pathSupplier("foo", "bar"),
+            true
+        ),
+        argumentSet(
+            "directories matching exclusions of individual files are descended into",
+            new IncludesExcludesGlobFilter(List.of(), List.of("foo/*/bar.proto")),
+            pathSupplier("foo", "baz"),
+            true
+        ),
+        argumentSet(
+            "parents of the literal prefix of an inclusion are descended into",
+            new IncludesExcludesGlobFilter(List.of("foo/bar/*.proto"), List.of()),
+            pathSupplier("foo"),
+            true
+        ),
+        argumentSet(
+            "the literal prefix of an inclusion is descended into",
+            new IncludesExcludesGlobFilter(List.of("foo/bar/*.proto"), List.of()),
+            pathSupplier("foo", "bar"),
+            true
+        ),
+        argumentSet(
+            "children of the literal prefix of an inclusion are descended into",
+            new IncludesExcludesGlobFilter(List.of("foo/bar/**/*.proto"), List.of()),
+            pathSupplier("foo", "bar", "baz", "bork"),
+            true
+        ),
+        argumentSet(
+            "directories outside the literal prefix of an inclusion are not descended into",
+            new IncludesExcludesGlobFilter(List.of("foo/bar/*.proto"), List.of()),
+            pathSupplier("foo", "baz"),
+            false
+        ),
+        argumentSet(
+            "directories below a fully literal inclusion are not descended into",
+            new IncludesExcludesGlobFilter(List.of("foo/bar.proto"), List.of()),
+            pathSupplier("foo", "bar.proto"),
+            false
+        ),
+        argumentSet(
+            "directories are descended into when an inclusion has no literal prefix",
+            new IncludesExcludesGlobFilter(
+                List.of("foo/bar/*.proto", "**/baz.proto"),
+                List.of()
+            ),
+            pathSupplier("bork", "qux"),
+            true
+        )
+    );
+  }
+
   static Function<Path, Path> pathSupplier(String... bits) {
     return path -> {
       for (var bit : bits) {
@@ -24,6 +24,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
 @DisplayName("ProtoFileFilter tests")
@@ -96,4 +97,26 @@ class ProtoFileFilterTest {
     // Then
     assertThat(filter.matches(dir, file)).isTrue();
   }
+
+  @DisplayName("expect relative paths to match only when they name a proto file")
+  @CsvSource({
+      "foo/bar/baz.proto,   true",
+      "foo/bar/baz.PROTO,   true",
+      "baz.proto,           true",
+      "foo/bar/baz.txt,    false",
+      "foo/bar/baz.proto/, false",
+      "foo/bar/.proto,     false",
+      "foo.proto/bar,      false",
+  })
+  @ParameterizedTest(name = "expect {1} for {0}")
+  void expectRelativePathsToMatchOnlyWhenTheyNameProtoFile(
+      String relativePath,
+      boolean expected
+  ) {
+    // Given
+    var filter = new ProtoFileFilter();
+
+    // Then
+    assertThat(filter.matches(relativePath)).isEqualTo(expected);
+  }
 }
@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources.incremental;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.ascopes.protobufmavenplugin.generation.GenerationRequest;
+import io.github.ascopes.protobufmavenplugin.generation.Language;
+import io.github.ascopes.protobufmavenplugin.protoc.distributions.ImmutableBinaryMavenProtocDistribution;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("BuildFingerprintFactory tests")
+class BuildFingerprintFactoryTest {
+
+  @TempDir
+  Path sourceDirectory;
+
+  MavenProject mavenProject;
+  GenerationRequest request;
+  BuildFingerprintFactory factory;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    givenSourceFile("foo.proto", "syntax = \"proto3\";");
+
+    mavenProject = new MavenProject();
+    MavenSession mavenSession = mock();
+    when(mavenSession.getCurrentProject()).thenReturn(mavenProject);
+    when(mavenSession.getProjects()).thenReturn(List.of(mavenProject));
+
+    MojoExecution mojoExecution = mock();
+    when(mojoExecution.getVersion()).thenReturn("1.2.3");
+
+    request = mock();
+    when(request.getSourceDirectories()).thenReturn(List.of(sourceDirectory));
+    when(request.getProtoc()).thenReturn(protocVersion("4.0.0"));
+    when(request.getEnabledLanguages()).thenReturn(List.of(Language.JAVA));
+
+    factory = new BuildFingerprintFactory(mavenSession, mojoExecution);
+  }
+
+  @DisplayName("identical builds produce identical fingerprints")
+  @Test
+  void identicalBuildsProduceIdenticalFingerprints() throws IOException {
+    // When
+    var first = factory.createFingerprint(request);
+    var second = factory.createFingerprint(request);
+
+    // Then
+    assertThat(second).isEqualTo(first);
+    assertThat(second.isReproducible()).isTrue();
+  }
+
+  @DisplayName("configuration changes only change the configuration digest")
+  @Test
+  void configurationChangesOnlyChangeTheConfigurationDigest() throws IOException {
+    // Given
+    var first = factory.createFingerprint(request);
+    when(request.getEnabledLanguages()).thenReturn(List.of(Language.JAVA, Language.KOTLIN));
+
+    // When
+    var second = factory.createFingerprint(request);
+
+    // Then
+    assertThat(second.getConfigurationDigest()).isNotEqualTo(first.getConfigurationDigest());
+    assertThat(second.getInputsDigest()).isEqualTo(first.getInputsDigest());
+  }
+
+  @DisplayName("input changes only change the inputs digest")
+  @Test
+  void inputChangesOnlyChangeTheInputsDigest() throws IOException {
+    // Given
+    var first = factory.createFingerprint(request);
+    givenSourceFile("bar.proto", "syntax = \"proto2\";");
+
+    // When
+    var second = factory.createFingerprint(request);
+
+    // Then
+    assertThat(second.getConfigurationDigest()).isEqualTo(first.getConfigurationDigest());
+    assertThat(second.getInputsDigest()).isNotEqualTo(first.getInputsDigest());
+  }
+
+  @DisplayName("recently modified inputs are not reproducible")
+  @Test
+  void recentlyModifiedInputsAreNotReproducible() throws IOException {
+    // Given
+    Files.writeString(sourceDirectory.resolve("baz.proto"), "syntax = \"proto3\";");
+
+    // When
+    var fingerprint = factory.createFingerprint(request);
+
+    // Then
+    assertThat(fingerprint.isReproducible()).isFalse();
+  }
+
+  @DisplayName("snapshot protoc versions are not reproducible")
+  @Test
+  void snapshotProtocVersionsAreNotReproducible() throws IOException {
+    // Given
+    when(request.getProtoc()).thenReturn(protocVersion("4.0.0-SNAPSHOT"));
+
+    // When
+    var fingerprint = factory.createFingerprint(request);
+
+    // Then
+    assertThat(fingerprint.isReproducible()).isFalse();
+  }
+
+  @DisplayName("snapshot project dependencies are not reproducible")
+  @Test
+  void snapshotProjectDependenciesAreNotReproducible() throws IOException {
+    // Given
+    var dependency = new Dependency();
+    dependency.setGroupId("org.example");
+    dependency.setArtifactId("example");
+    dependency.setVersion("1.0.0-SNAPSHOT");
+    mavenProject.getDependencies().add(dependency);
+
+    // When
+    var fingerprint = factory.createFingerprint(request);
+
+    // Then
+    assertThat(fingerprint.isReproducible()).isFalse();
+  }
+
+  @DisplayName("snapshot transitive project dependencies are not reproducible")
+  @Test
+  void snapshotTransitiveProjectDependenciesAreNotReproducible() throws IOException {
+    // Given
+    givenProjectDependency("org.example", "example", "1.0.0");
+    mavenProject.setArtifacts(Set.of(
+        artifact("org.example", "example", "1.0.0"),
+        artifact("org.example", "transitive", "2.0.0-SNAPSHOT")
+    ));
+
+    // When
+    var fingerprint = factory.createFingerprint(request);
+
+    // Then
+    assertThat(fingerprint.isReproducible()).isFalse();
+  }
+
+  @DisplayName("transitive project dependency changes change the configuration digest")
+  @Test
+  void transitiveProjectDependencyChangesChangeTheConfigurationDigest() throws IOException {
+    // Given
+    givenProjectDependency("org.example", "example", "1.0.0");
+    mavenProject.setArtifacts(Set.of(
+        artifact("org.example", "example", "1.0.0"),
+        artifact("org.example", "transitive", "2.0.0")
+    ));
+    var first = factory.createFingerprint(request);
+    mavenProject.setArtifacts(Set.of(
+        artifact("org.example", "example", "1.0.0"),
+        artifact("org.example", "transitive", "2.0.1")
+    ));
+
+    // When
+    var second = factory.createFingerprint(request);
+
+    // Then
+    assertThat(first.isReproducible()).isTrue();
+    assertThat(second.isReproducible()).isTrue();
+    assertThat(second.getConfigurationDigest()).isNotEqualTo(first.getConfigurationDigest());
+    assertThat(second.getInputsDigest()).isEqualTo(first.getInputsDigest());
+  }
+
+  @DisplayName("project dependencies that were not collected are not reproducible")
+  @Test
+  void projectDependenciesThatWereNotCollectedAreNotReproducible() throws IOException {
+    // Given
+    givenProjectDependency("org.example", "example", "1.0.0");
+
+    // When
+    var fingerprint = factory.createFingerprint(request);
+
+    // Then
+    assertThat(fingerprint.isReproducible()).isFalse();
+  }
+
+  private void givenProjectDependency(String groupId, String artifactId, String version) {
+    var dependency = new Dependency();
+    dependency.setGroupId(groupId);
+    dependency.setArtifactId(artifactId);
+    dependency.setVersion(version);
+    mavenProject.getDependencies().add(dependency);
+  }
+
+  private void givenSourceFile(String name, String content) throws IOException {
+    var file = Files.writeString(sourceDirectory.resolve(name), content);
+    Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+  }
+
+  private static Artifact artifact(String groupId, String artifactId, String version) {
+    return new DefaultArtifact(
+        groupId,
+        artifactId,
+        version,
+        "compile",
+        "jar",
+        null,
+        new DefaultArtifactHandler("jar")
+    );
+  }
+
+  private static ImmutableBinaryMavenProtocDistribution protocVersion(String version) {
+    return ImmutableBinaryMavenProtocDistribution.builder()
+        .version(version)
+        .build();
+  }
+}
@@ -0,0 +1,652 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.sources.incremental;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.ascopes.protobufmavenplugin.fs.TemporarySpace;
+import io.github.ascopes.protobufmavenplugin.sources.ImmutableProjectInputListing;
+import io.github.ascopes.protobufmavenplugin.sources.ImmutableSourceListing;
+import io.github.ascopes.protobufmavenplugin.sources.ProjectInputListing;
+import io.github.ascopes.protobufmavenplugin.sources.SourceListing;
+import io.github.ascopes.protobufmavenplugin.system.ConcurrentExecutor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("IncrementalCacheManager tests")
+class IncrementalCacheManagerTest {
+
+  @TempDir
+  Path tempDir;
+
+  Path sourceRoot;
+  Path outputDirectory;
+  ConcurrentExecutor concurrentExecutor;
+  IncrementalCacheManager manager;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    sourceRoot = Files.createDirectories(tempDir.resolve("src"));
+    outputDirectory = Files.createDirectories(tempDir.resolve("out"));
+
+    var cacheDirectory = Files.createDirectories(tempDir.resolve("cache"));
+    TemporarySpace temporarySpace = mock();
+    when(temporarySpace.createTemporarySpace(any(String[].class)))
+        .thenReturn(cacheDirectory);
+
+    concurrentExecutor = new ConcurrentExecutor();
+    manager = new IncrementalCacheManager(
+        concurrentExecutor,
+        temporarySpace,
+        new IncrementalCacheSerializer()
+    );
+  }
+
+  @AfterEach
+  void tearDown() {
+    concurrentExecutor.destroy();
+  }
+
+  @DisplayName("all sources are compiled if there is no previous build")
+  @Test
+  void allSourcesAreCompiledIfThereIsNoPreviousBuild() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var bar = givenProtoFile("bar.proto", "foo.proto");
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo, bar));
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo, bar);
+  }
+
+  @DisplayName("no sources are compiled if nothing has changed")
+  @Test
+  void noSourcesAreCompiledIfNothingHasChanged() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var bar = givenProtoFile("bar.proto", "foo.proto");
+    givenSuccessfulBuild(listing(foo, bar));
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo, bar));
+
+    // Then
+    assertThat(filesToCompile.isEmpty()).isTrue();
+  }
+
+  @DisplayName("changed sources and everything transitively importing them are compiled")
+  @Test
+  void changedSourcesAndTransitiveImportersAreCompiled() throws IOException {
+    // Given
+    var base = givenProtoFile("base.proto");
+    var middle = givenProtoFile("middle.proto", "base.proto");
+    var top = givenProtoFile("top.proto", "middle.proto");
+    var unrelated = givenProtoFile("unrelated.proto");
+    givenSuccessfulBuild(listing(base, middle, top, unrelated));
+
+    Files.writeString(base, "syntax = \"proto3\";\nmessage Changed {}\n");
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(
+        listing(base, middle, top, unrelated)
+    );
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(base, middle, top);
+  }
+
+  @DisplayName("deleting a source removes generated files and compiles everything")
+  @Test
+  void deletingSourceRemovesGeneratedFilesAndCompilesEverything() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var bar = givenProtoFile("bar.proto");
+    manager.snapshotOutputDirectories(List.of(outputDirectory));
+    manager.determineSourcesToCompile(listing(foo, bar));
+    final var generatedFoo = Files.writeString(outputDirectory.resolve("Foo.java"), "");
+    final var generatedBar = Files.writeString(outputDirectory.resolve("Bar.java"), "");
+    manager.recordGeneratedFilesSinceSnapshot();
+    manager.updateIncrementalCache();
+
+    Files.delete(bar);
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo));
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo);
+    assertThat(generatedFoo).doesNotExist();
+    assertThat(generatedBar).doesNotExist();
+  }
+
+  @DisplayName("files not written by generation are never recorded or removed")
+  @Test
+  void filesNotWrittenByGenerationAreNeverRecordedOrRemoved() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var bar = givenProtoFile("bar.proto");
+    final var handwritten = Files.writeString(outputDirectory.resolve("Handwritten.java"), "");
+    manager.snapshotOutputDirectories(List.of(outputDirectory));
+    manager.determineSourcesToCompile(listing(foo, bar));
+    final var generatedFoo = Files.writeString(outputDirectory.resolve("Foo.java"), "");
+    manager.recordGeneratedFilesSinceSnapshot();
+    manager.updateIncrementalCache();
+
+    Files.delete(bar);
+
+    // When
+    manager.determineSourcesToCompile(listing(foo));
+
+    // Then
+    assertThat(generatedFoo).doesNotExist();
+    assertThat(handwritten).exists();
+  }
+
+  @DisplayName("deleting a source defers removing generated files when outputs are staged")
+  @Test
+  void deletingSourceDefersRemovingGeneratedFilesWhenOutputsAreStaged() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var bar = givenProtoFile("bar.proto");
+    manager.snapshotOutputDirectories(List.of(outputDirectory));
+    manager.determineSourcesToCompile(listing(foo, bar));
+    final var generatedFoo = Files.writeString(outputDirectory.resolve("Foo.java"), "");
+    final var generatedBar = Files.writeString(outputDirectory.resolve("Bar.java"), "");
+    manager.recordGeneratedFilesSinceSnapshot();
+    manager.updateIncrementalCache();
+
+    Files.delete(bar);
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo), null, false, true);
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo);
+    assertThat(generatedFoo).exists();
+    assertThat(generatedBar).exists();
+    assertThat(manager.getSupersededGeneratedFiles())
+        .containsExactlyInAnyOrder(generatedFoo, generatedBar);
+  }
+
+  @DisplayName("no generated files are superseded by partial compilation")
+  @Test
+  void noGeneratedFilesAreSupersededByPartialCompilation() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var bar = givenProtoFile("bar.proto");
+    manager.snapshotOutputDirectories(List.of(outputDirectory));
+    manager.determineSourcesToCompile(listing(foo, bar));
+    Files.writeString(outputDirectory.resolve("Foo.java"), "");
+    Files.writeString(outputDirectory.resolve("Bar.java"), "");
+    manager.recordGeneratedFilesSinceSnapshot();
+    manager.updateIncrementalCache();
+
+    Files.writeString(foo, "syntax = \"proto3\";\nmessage Changed {}\n");
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo, bar), null, false, true);
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo);
+    assertThat(manager.getSupersededGeneratedFiles()).isEmpty();
+  }
+
+  @DisplayName("files with unchanged metadata are not rehashed")
+  @Test
+  void filesWithUnchangedMetadataAreNotRehashed() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var lastModified = FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS));
+    Files.setLastModifiedTime(foo, lastModified);
+    givenSuccessfulBuild(listing(foo));
+
+    // Overwrite the content without changing the size or modification time, which we
+    // should not be able to notice without hashing the file.
+    var content = Files.readString(foo).replace('M', 'N');
+    Files.writeString(foo, content);
+    Files.setLastModifiedTime(foo, lastModified);
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo));
+
+    // Then
+    assertThat(filesToCompile.isEmpty()).isTrue();
+  }
+
+  @DisplayName("files with changed metadata are rehashed")
+  @Test
+  void filesWithChangedMetadataAreRehashed() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    Files.setLastModifiedTime(foo, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+    givenSuccessfulBuild(listing(foo));
+
+    var content = Files.readString(foo).replace('M', 'N');
+    Files.writeString(foo, content);
+    Files.setLastModifiedTime(foo, FileTime.from(Instant.now().minus(1, ChronoUnit.MINUTES)));
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo));
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo);
+  }
+
+  @DisplayName("recently modified files are always rehashed")
+  @Test
+  void recentlyModifiedFilesAreAlwaysRehashed() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var lastModified = Files.getLastModifiedTime(foo);
+    givenSuccessfulBuild(listing(foo));
+
+    var content = Files.readString(foo).replace('M', 'N');
+    Files.writeString(foo, content);
+    Files.setLastModifiedTime(foo, lastModified);
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo));
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo);
+  }
+
+  @DisplayName("files extracted from unchanged archives are not read")
+  @Test
+  void filesExtractedFromUnchangedArchivesAreNotRead() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto", "dep.proto");
+    var archive = givenArchive("dep.jar", "archive content");
+    var extractionRoot = Files.createDirectories(tempDir.resolve("extracted"));
+    var dep = Files.writeString(extractionRoot.resolve("dep.proto"), "syntax = \"proto3\";");
+    givenSuccessfulBuild(listing(List.of(foo), archiveListing(archive, extractionRoot, dep)));
+
+    // Simulate something that we would only see if we read the extracted file.
+    Files.delete(dep);
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(
+        listing(List.of(foo), archiveListing(archive, extractionRoot, dep))
+    );
+
+    // Then
+    assertThat(filesToCompile.isEmpty()).isTrue();
+  }
+
+  @DisplayName("changes to archives compile everything")
+  @Test
+  void changesToArchivesCompileEverything() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto", "dep.proto");
+    var archive = givenArchive("dep.jar", "archive content");
+    var extractionRoot = Files.createDirectories(tempDir.resolve("extracted"));
+    var dep = Files.writeString(extractionRoot.resolve("dep.proto"), "syntax = \"proto3\";");
+    givenSuccessfulBuild(listing(List.of(foo), archiveListing(archive, extractionRoot, dep)));
+
+    givenArchive("dep.jar", "different archive content");
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(
+        listing(List.of(foo), archiveListing(archive, extractionRoot, dep))
+    );
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo);
+  }
+
+  @DisplayName("changes to the files extracted from archives compile everything")
+  @Test
+  void changesToFilesExtractedFromArchivesCompileEverything() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto", "dep.proto");
+    var archive = givenArchive("dep.jar", "archive content");
+    var extractionRoot = Files.createDirectories(tempDir.resolve("extracted"));
+    var dep = Files.writeString(extractionRoot.resolve("dep.proto"), "syntax = \"proto3\";");
+    var other = Files.writeString(extractionRoot.resolve("other.proto"), "syntax = \"proto3\";");
+    givenSuccessfulBuild(listing(List.of(foo), archiveListing(archive, extractionRoot, dep)));
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(
+        listing(List.of(foo), archiveListing(archive, extractionRoot, dep, other))
+    );
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo);
+  }
+
+  @DisplayName("nothing is compiled if nothing has changed when generating a descriptor")
+  @Test
+  void nothingIsCompiledIfNothingHasChangedWhenGeneratingDescriptor() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var bar = givenProtoFile("bar.proto");
+    var descriptor = outputDirectory.resolve("descriptor.binpb");
+    givenSuccessfulBuild(listing(foo, bar), descriptor);
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(
+        listing(foo, bar),
+        descriptor,
+        false,
+        false
+    );
+
+    // Then
+    assertThat(filesToCompile.isEmpty()).isTrue();
+  }
+
+  @DisplayName("everything is compiled if anything has changed when generating a descriptor")
+  @Test
+  void everythingIsCompiledIfAnythingHasChangedWhenGeneratingDescriptor() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var bar = givenProtoFile("bar.proto");
+    var descriptor = outputDirectory.resolve("descriptor.binpb");
+    givenSuccessfulBuild(listing(foo, bar), descriptor);
+
+    Files.writeString(foo, "syntax = \"proto3\";\nmessage Changed {}\n");
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(
+        listing(foo, bar),
+        descriptor,
+        false,
+        false
+    );
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo, bar);
+  }
+
+  @DisplayName("everything is compiled if anything has changed when outputs aggregate sources")
+  @Test
+  void everythingIsCompiledIfAnythingHasChangedWhenOutputsAggregateSources() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var bar = givenProtoFile("bar.proto");
+    givenSuccessfulBuild(listing(foo, bar));
+
+    Files.writeString(foo, "syntax = \"proto3\";\nmessage Changed {}\n");
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo, bar), null, true, false);
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo, bar);
+  }
+
+  @DisplayName("nothing is compiled if nothing has changed when outputs aggregate sources")
+  @Test
+  void nothingIsCompiledIfNothingHasChangedWhenOutputsAggregateSources() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var bar = givenProtoFile("bar.proto");
+    givenSuccessfulBuild(listing(foo, bar));
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo, bar), null, true, false);
+
+    // Then
+    assertThat(filesToCompile.isEmpty()).isTrue();
+  }
+
+  @DisplayName("everything is compiled if the descriptor was modified since the last build")
+  @Test
+  void everythingIsCompiledIfTheDescriptorWasModified() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var descriptor = outputDirectory.resolve("descriptor.binpb");
+    givenSuccessfulBuild(listing(foo), descriptor);
+
+    Files.writeString(descriptor, "tampered with");
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo), descriptor, false, false);
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo);
+  }
+
+  @DisplayName("everything is compiled if the descriptor was deleted since the last build")
+  @Test
+  void everythingIsCompiledIfTheDescriptorWasDeleted() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var descriptor = outputDirectory.resolve("descriptor.binpb");
+    givenSuccessfulBuild(listing(foo), descriptor);
+
+    Files.delete(descriptor);
+
+    // When
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo), descriptor, false, false);
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo);
+  }
+
+  @DisplayName("builds with unchanged reproducible fingerprints are up-to-date")
+  @Test
+  void buildsWithUnchangedReproducibleFingerprintsAreUpToDate() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var fingerprint = fingerprint("config", true);
+    givenSuccessfulBuild(listing(foo), fingerprint);
+
+    // Then
+    assertThat(manager.isUpToDate(fingerprint)).isTrue();
+  }
+
+  @DisplayName("builds with unreproducible fingerprints are never up-to-date")
+  @Test
+  void buildsWithUnreproducibleFingerprintsAreNeverUpToDate() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var fingerprint = fingerprint("config", false);
+    givenSuccessfulBuild(listing(foo), fingerprint);
+
+    // Then
+    assertThat(manager.isUpToDate(fingerprint)).isFalse();
+    assertThat(manager.isUpToDate(fingerprint("config", true))).isFalse();
+  }
+
+  @DisplayName("configuration changes after unreproducible builds compile everything")
+  @Test
+  void configurationChangesAfterUnreproducibleBuildsCompileEverything() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var bar = givenProtoFile("bar.proto");
+    manager.snapshotOutputDirectories(List.of(outputDirectory));
+    var previousFingerprint = fingerprint("previous config", false);
+    manager.beginBuild(previousFingerprint, false);
+    manager.determineSourcesToCompile(listing(foo, bar));
+    final var generatedFoo = Files.writeString(outputDirectory.resolve("Foo.java"), "");
+    manager.recordGeneratedFilesSinceSnapshot();
+    manager.updateIncrementalCache();
+    manager.completeBuild(previousFingerprint);
+
+    // When
+    manager.beginBuild(fingerprint("next config", false), false);
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo, bar));
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo, bar);
+    assertThat(generatedFoo).doesNotExist();
+  }
+
+  @DisplayName("configuration changes after failed builds compile everything")
+  @Test
+  void configurationChangesAfterFailedBuildsCompileEverything() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var bar = givenProtoFile("bar.proto");
+    givenSuccessfulBuild(listing(foo, bar), fingerprint("previous config", true));
+    Files.writeString(foo, "syntax = \"proto3\";\nmessage Changed {}\n");
+    manager.beginBuild(fingerprint("previous config", true), false);
+
+    // When
+    manager.beginBuild(fingerprint("next config", true), false);
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo, bar));
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo, bar);
+  }
+
+  @DisplayName("configuration changes defer removing generated files when outputs are staged")
+  @Test
+  void configurationChangesDeferRemovingGeneratedFilesWhenOutputsAreStaged() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var bar = givenProtoFile("bar.proto");
+    var generatedFoo = Files.writeString(outputDirectory.resolve("Foo.java"), "");
+    var generatedBar = Files.writeString(outputDirectory.resolve("Bar.java"), "");
+    givenSuccessfulStagedBuild(
+        listing(foo, bar),
+        fingerprint("previous config", true),
+        generatedFoo,
+        generatedBar
+    );
+
+    // When
+    manager.beginBuild(fingerprint("next config", true), true);
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo, bar), null, false, true);
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo, bar);
+    assertThat(generatedFoo).exists();
+    assertThat(generatedBar).exists();
+    assertThat(manager.getSupersededGeneratedFiles())
+        .containsExactlyInAnyOrder(generatedFoo, generatedBar);
+  }
+
+  @DisplayName("configuration changes after failed staged builds compile everything")
+  @Test
+  void configurationChangesAfterFailedStagedBuildsCompileEverything() throws IOException {
+    // Given
+    var foo = givenProtoFile("foo.proto");
+    var generatedFoo = Files.writeString(outputDirectory.resolve("Foo.java"), "");
+    givenSuccessfulStagedBuild(listing(foo), fingerprint("previous config", true), generatedFoo);
+    manager.beginBuild(fingerprint("next config", true), true);
+    manager.determineSourcesToCompile(listing(foo), null, false, true);
+
+    // When
+    manager.beginBuild(fingerprint("next config", true), true);
+    var filesToCompile = manager.determineSourcesToCompile(listing(foo), null, false, true);
+
+    // Then
+    assertThat(filesToCompile.getProtoSources()).containsExactly(foo);
+    assertThat(manager.getSupersededGeneratedFiles()).containsExactly(generatedFoo);
+  }
+
+  private void givenSuccessfulBuild(ProjectInputListing listing) throws IOException {
+    manager.determineSourcesToCompile(listing);
+    manager.updateIncrementalCache();
+  }
+
+  private void givenSuccessfulBuild(
+      ProjectInputListing listing,
+      Path outputDescriptorFile
+  ) throws IOException {
+    manager.determineSourcesToCompile(listing, outputDescriptorFile, false, false);
+    Files.writeString(outputDescriptorFile, "descriptor content");
+    manager.recordOutputDescriptor(outputDescriptorFile);
+    manager.updateIncrementalCache();
+  }
+
+  private void givenSuccessfulBuild(
+      ProjectInputListing listing,
+      BuildFingerprint fingerprint
+  ) throws IOException {
+    manager.beginBuild(fingerprint, false);
+    givenSuccessfulBuild(listing);
+    manager.completeBuild(fingerprint);
+  }
+
+  private void givenSuccessfulStagedBuild(
+      ProjectInputListing listing,
+      BuildFingerprint fingerprint,
+      Path... generatedFiles
+  ) throws IOException {
+    manager.beginBuild(fingerprint, true);
+    manager.determineSourcesToCompile(listing, null, false, true);
+    manager.recordGeneratedFiles(List.of(generatedFiles));
+    manager.updateIncrementalCache();
+    manager.completeBuild(fingerprint);
+  }
+
+  private BuildFingerprint fingerprint(String configurationDigest, boolean reproducible) {
+    return ImmutableBuildFingerprint.builder()
+        .configurationDigest(configurationDigest)
+        .inputsDigest("inputs")
+        .reproducible(reproducible)
+        .build();
+  }
+
+  private Path givenProtoFile(String name, String... imports) throws IOException {
+    var content = new StringBuilder("syntax = \"proto3\";\n");
+    for (var importName : imports) {
+      content.append("import \"").append(importName).append("\";\n");
+    }
+    content.append("message M").append(name.hashCode() & 0xFFFF).append(" {}\n");
+    return Files.writeString(sourceRoot.resolve(name), content);
+  }
+
+  private Path givenArchive(String name, String content) throws IOException {
+    var archive = Files.writeString(tempDir.resolve(name), content);
+    Files.setLastModifiedTime(archive, FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+    return archive;
+  }
+
+  private ProjectInputListing listing(Path... sourceFiles) {
+    return listing(List.of(sourceFiles));
+  }
+
+  private ProjectInputListing listing(
+      List<Path> sourceFiles,
+      SourceListing... dependencyListings
+  ) {
+    return ImmutableProjectInputListing.builder()
+        .compilableProtoSources(List.of(ImmutableSourceListing.builder()
+            .sourceRoot(sourceRoot)
+            .addAllSourceFiles(sourceFiles)
+            .build()))
+        .dependencyProtoSources(List.of(dependencyListings))
+        .compilableDescriptorFiles(List.of())
+        .build();
+  }
+
+  private SourceListing archiveListing(Path archive, Path extractionRoot, Path... sourceFiles) {
+    return ImmutableSourceListing.builder()
+        .sourceRoot(extractionRoot)
+        .addSourceFiles(sourceFiles)
+        .originArchive(archive)
+        .build();
+  }
+}
@@ -18,16 +18,18 @@ package io.github.ascopes.protobufmavenplugin.sources.incremental;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.params.provider.Arguments.argumentSet;
-import static org.skyscreamer.jsonassert.JSONAssert.assertEquals;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.StringReader;
-import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Stream;
-import net.minidev.json.JSONObject;
-import org.json.JSONException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -40,19 +42,65 @@ class IncrementalCacheSerializerTest {
 
   static @TempDir Path someDir;
 
-  @DisplayName("I can serialize caches into JSON")
+  @DisplayName("I can serialize and deserialize caches")
   @MethodSource("cacheExamples")
   @ParameterizedTest(name = "for {argumentSetName}")
-  void canSerializeCachesIntoJson(IncrementalCache cache, JSONObject object) throws IOException {
+  void canSerializeAndDeserializeCaches(IncrementalCache cache) throws IOException {
     // Given
     var serializer = new IncrementalCacheSerializer();
+    var outputStream = new ByteArrayOutputStream();
 
     // When
-    var writer = new StringWriter();
-    serializer.serialize(cache, writer);
+    serializer.serialize(cache, outputStream);
+    var actualCache = serializer.deserialize(
+        new ByteArrayInputStream(outputStream.toByteArray())
+    );
+
+    // Then
+    assertThat(actualCache).isEqualTo(cache);
+    assertThat(actualCache.getProtoDependencies())
+        .containsExactlyEntriesOf(cache.getProtoDependencies());
+    assertThat(actualCache.getProtoSources())
+        .containsExactlyEntriesOf(cache.getProtoSources());
+    assertThat(actualCache.getGeneratedFiles())
+        .containsExactlyElementsOf(cache.getGeneratedFiles());
+  }
+
+  @DisplayName("serialized caches start with the expected header")
+  @Test
+  void serializedCachesStartWithTheExpectedHeader() throws IOException {
+    // Given
+    var serializer = new IncrementalCacheSerializer();
+    var outputStream = new ByteArrayOutputStream();
+
+    // When
+    serializer.serialize(ImmutableIncrementalCache.builder().build(), outputStream);
+
+    // Then
+    var buffer = ByteBuffer.wrap(outputStream.toByteArray());
+    assertThat(buffer.getInt()).as("magic").isEqualTo(0x504D5043);
+    assertThat(buffer.getInt()).as("format version").isEqualTo(2);
+  }
+
+  @DisplayName("serialized caches only store each directory once")
+  @Test
+  void serializedCachesOnlyStoreEachDirectoryOnce() throws IOException {
+    // Given
+    var serializer = new IncrementalCacheSerializer();
+    var outputStream = new ByteArrayOutputStream();
+    var cache = ImmutableIncrementalCache.builder()
+        .putProtoSources(path(someDir, "dir", "foo.proto"), "1a2b3c4d")
+        .putProtoSources(path(someDir, "dir", "bar.proto"), "5e6f7a8b")
+        .putProtoSources(path(someDir, "dir", "baz.proto"), "9c0d1e2f")
+        .build();
+
+    // When
+    serializer.serialize(cache, outputStream);
 
     // Then
-    assertEquals(object.toJSONString(), writer.toString(), true);
+    var content = new String(outputStream.toByteArray(), StandardCharsets.ISO_8859_1);
+    var directory = path(someDir, "dir").toUri().toString();
+    assertThat(content.split(directory, -1)).hasSize(2);
   }
 
   @DisplayName("serialization rethrows any errors")
@@ -65,116 +113,141 @@ class IncrementalCacheSerializerTest {
     // Then
     assertThatThrownBy(() -> serializer.serialize(null, null))
         .isInstanceOf(IOException.class)
-        .hasMessage("Failed to write JSON file");
+        .hasMessage("Failed to write incremental cache file");
   }
 
-  @DisplayName("I can deserialize JSON into caches")
-  @MethodSource("cacheExamples")
-  @ParameterizedTest(name = "for {argumentSetName}")
-  void canDeserializeJsonIntoCaches(IncrementalCache cache, JSONObject object) throws IOException {
+  @DisplayName("deserialization rethrows any errors")
+  @Test
+  void deserializationRethrowsAnyErrors() throws IOException {
     // Given
     var serializer = new IncrementalCacheSerializer();
-    var reader = new StringReader(object.toJSONString());
-
-    // When
-    var actualObj = serializer.deserialize(reader);
+    var outputStream = new ByteArrayOutputStream();
+    serializer.serialize(ImmutableIncrementalCache.builder().build(), outputStream);
+    var input = Arrays.copyOf(outputStream.toByteArray(), 10);
 
     // Then
-    assertThat(actualObj).isEqualTo(cache);
+    assertThatThrownBy(() -> serializer.deserialize(new ByteArrayInputStream(input)))
+        .isInstanceOf(IOException.class)
+        .hasMessage("Failed to read incremental cache file")
+        .hasCauseInstanceOf(EOFException.class);
   }
 
-  @DisplayName("deserialization rethrows any errors")
+  @DisplayName("deserialization rejects files with the wrong magic number")
   @Test
-  void deserializationRethrowsAnyErrors() {
+  void deserializationRejectsFilesWithTheWrongMagicNumber() {
     // Given
     var serializer = new IncrementalCacheSerializer();
-    var input = "{";
+    var input = "{\"proto_sources\": {}}".getBytes(StandardCharsets.UTF_8);
 
     // Then
-    assertThatThrownBy(() -> serializer.deserialize(new StringReader(input)))
+    assertThatThrownBy(() -> serializer.deserialize(new ByteArrayInputStream(input)))
         .isInstanceOf(IOException.class)
-        .hasMessage("Failed to read JSON file")
-        .hasCauseInstanceOf(JSONException.class);
+        .hasMessage("Failed to read incremental cache file")
+        .cause()
+        .hasMessage("File is not an incremental cache file");
   }
 
+  @DisplayName("deserialization rejects files with an unsupported format version")
+  @Test
+  void deserializationRejectsFilesWithAnUnsupportedFormatVersion() {
+    // Given
+    var serializer = new IncrementalCacheSerializer();
+    var input = ByteBuffer.allocate(8)
+        .putInt(0x504D5043)
+        .putInt(999)
+        .array();
+
+    // Then
+    assertThatThrownBy(() -> serializer.deserialize(new ByteArrayInputStream(input)))
+        .isInstanceOf(IOException.class)
+        .hasMessage("Failed to read incremental cache file")
+        .cause()
+        .hasMessage("Unsupported incremental cache format version 999");
+  }
 
   static Stream<Arguments> cacheExamples() {
     return Stream.of(
         argumentSet(
             "empty object",
-            ImmutableIncrementalCache.builder().build(),
-            new JSONObject()
-                .appendField("proto_dependencies", new JSONObject())
-                .appendField("proto_sources", new JSONObject())
-                .appendField("descriptor_files", new JSONObject())
+            ImmutableIncrementalCache.builder().build()
         ),
         argumentSet(
             "only dependencies",
             ImmutableIncrementalCache.builder()
-                .protoDependencies(Map.of(
-                    path(someDir, "foo", "bar"), "1a2b3c4d",
-                    path(someDir, "eh", "nah"), "eh-nah-na!"
-                ))
-                .build(),
-            new JSONObject()
-                .appendField("proto_dependencies", new JSONObject()
-                    .appendField(uri(someDir, "foo", "bar"), "1a2b3c4d")
-                    .appendField(uri(someDir, "eh", "nah"), "eh-nah-na!"))
-                .appendField("proto_sources", new JSONObject())
-                .appendField("descriptor_files", new JSONObject())
+                .putProtoDependencies(path(someDir, "foo", "bar"), "1a2b3c4d")
+                .putProtoDependencies(path(someDir, "eh", "nah"), "deadbeef")
+                .build()
         ),
         argumentSet(
             "only sources",
             ImmutableIncrementalCache.builder()
-                .protoSources(Map.of(
-                    path(someDir, "foo", "bar"), "1a2b3c4d",
-                    path(someDir, "eh", "nah"), "eh-nah-na!"
-                ))
-                .build(),
-            new JSONObject()
-                .appendField("proto_dependencies", new JSONObject())
-                .appendField("proto_sources", new JSONObject()
-                    .appendField(uri(someDir, "foo", "bar"), "1a2b3c4d")
-                    .appendField(uri(someDir, "eh", "nah"), "eh-nah-na!"))
-                .appendField("descriptor_files", new JSONObject())
+                .putProtoSources(path(someDir, "foo", "bar"), "1a2b3c4d")
+                .putProtoSources(path(someDir, "eh", "nah"), "deadbeef")
+                .build()
         ),
         argumentSet(
             "only descriptors",
             ImmutableIncrementalCache.builder()
-                .descriptorFiles(Map.of(
-                    path(someDir, "meep", "bleep.binpb"), "6969420"
-                ))
-                .build(),
-            new JSONObject()
-                .appendField("proto_dependencies", new JSONObject())
-                .appendField("proto_sources", new JSONObject())
-                .appendField("descriptor_files", new JSONObject()
-                    .appendField(uri(someDir, "meep", "bleep.binpb"), "6969420"))
+                .putDescriptorFiles(path(someDir, "meep", "bleep.binpb"), "06969420")
+                .build()
+        ),
+        argumentSet(
+            "only output descriptors",
+            ImmutableIncrementalCache.builder()
+                .putOutputDescriptorFiles(path(someDir, "out", "api.binpb"), "cafebabe")
+                .build()
         ),
         argumentSet(
             "dependencies, sources, and descriptors",
             ImmutableIncrementalCache.builder()
-                .protoDependencies(Map.of(
-                    path(someDir, "kimi", "wa"), "sudeni shinde iru",
-                    path(someDir, "watashi", "wa"), "taikutsudesu"
-                ))
-                .protoSources(Map.of(
-                    path(someDir, "foo", "bar"), "1a2b3c4d",
-                    path(someDir, "eh", "nah"), "eh-nah-na!"
+                .putProtoDependencies(path(someDir, "kimi", "wa"), "0123456789abcdef")
+                .putProtoDependencies(path(someDir, "watashi", "wa"), "fedcba9876543210")
+                .putProtoSources(path(someDir, "foo", "bar"), "1a2b3c4d")
+                .putProtoSources(path(someDir, "eh", "nah"), "deadbeef")
+                .putDescriptorFiles(path(someDir, "meep", "bleep.binpb"), "06969420")
+                .build()
+        ),
+        argumentSet(
+            "sources with imports and generated files",
+            ImmutableIncrementalCache.builder()
+                .putProtoSources(path(someDir, "foo", "bar.proto"), "1a2b3c4d")
+                .putProtoSources(path(someDir, "foo", "baz.proto"), "deadbeef")
+                .protoSourceImports(Map.of(
+                    path(someDir, "foo", "bar.proto"), ProtoSourceImports.of(Set.of()),
+                    path(someDir, "foo", "baz.proto"), ProtoSourceImports.of(Set.of(
+                        "foo/bar.proto"
+                    ))
                 ))
-                .descriptorFiles(Map.of(
-                    path(someDir, "meep", "bleep.binpb"), "6969420"
+                .addGeneratedFiles(
+                    path(someDir, "out", "Bar.java"),
+                    path(someDir, "out", "Baz.java")
+                )
+                .build()
+        ),
+        argumentSet(
+            "sources with file stats",
+            ImmutableIncrementalCache.builder()
+                .putProtoSources(path(someDir, "foo", "bar.proto"), "1a2b3c4d")
+                .putProtoSources(path(someDir, "foo", "baz.proto"), "deadbeef")
+                .fileStats(Map.of(
+                    path(someDir, "foo", "bar.proto"), ImmutableFileStat.builder()
+                        .size(123)
+                        .lastModifiedNanos(1_700_000_000_123_456_789L)
+                        .fileKey("(dev=803,ino=1234)")
+                        .build(),
+                    path(someDir, "foo", "baz.proto"), ImmutableFileStat.builder()
+                        .size(456)
+                        .lastModifiedNanos(1_700_000_000_000_000_000L)
+                        .build()
                 ))
-                .build(),
-            new JSONObject()
-                .appendField("proto_dependencies", new JSONObject()
-                    .appendField(uri(someDir, "kimi", "wa"), "sudeni shinde iru")
-                    .appendField(uri(someDir, "watashi", "wa"), "taikutsudesu"))
-                .appendField("proto_sources", new JSONObject()
-                    .appendField(uri(someDir, "foo", "bar"), "1a2b3c4d")
-                    .appendField(uri(someDir, "eh", "nah"), "eh-nah-na!"))
-                .appendField("descriptor_files", new JSONObject()
-                    .appendField(uri(someDir, "meep", "bleep.binpb"), "6969420"))
+                .build()
+        ),
+        argumentSet(
+            "paths with spaces and reserved URI characters",
+            ImmutableIncrementalCache.builder()
+                .putProtoSources(path(someDir, "with spaces", "a b.proto"), "1a2b3c4d")
+                .putProtoSources(path(someDir, "100%", "#hash?.proto"), "deadbeef")
+                .build()
         )
     );
   }
@@ -186,8 +259,4 @@ class IncrementalCacheSerializerTest {
     }
     return path;
   }
-
-  static String uri(Path base, String... frags) {
-    return path(base, frags).toUri().toASCIIString();
-  }
 }
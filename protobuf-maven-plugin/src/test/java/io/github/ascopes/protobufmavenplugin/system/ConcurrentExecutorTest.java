@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -327,6 +328,46 @@ class ConcurrentExecutorTest {
     }
   }
 
+  @Timeout(value = 10_000, unit = TimeUnit.MILLISECONDS)
+  @DisplayName(".submitOnDedicatedThread(...) runs the callable outside the pool")
+  @Test
+  void submitOnDedicatedThreadRunsTheCallableOutsideThePool() throws Exception {
+    // When
+    var future = executor.submitOnDedicatedThread("dedicated", () -> {
+      // Blocking on pool tasks here must never park a pool worker.
+      var poolTask = executor.submit(ForkJoinTask::inForkJoinPool);
+      return List.of(
+          Thread.currentThread().getName(),
+          ForkJoinTask.inForkJoinPool(),
+          poolTask.get()
+      );
+    });
+
+    // Then
+    assertThat(future.get()).containsExactly("dedicated", false, true);
+  }
+
+  @Timeout(value = 10_000, unit = TimeUnit.MILLISECONDS)
+  @DisplayName(".submitOnDedicatedThread(...) tasks can be cancelled by .awaitAllOrCancel(...)")
+  @Test
+  void submitOnDedicatedThreadTasksCanBeCancelledByAwaitAllOrCancel() {
+    // Given
+    var expectedException = new Exception("welp");
+    FutureTask<Void> slowTask = executor.submitOnDedicatedThread("slow", () -> sleepWait(10_000));
+    FutureTask<Void> failingTask = executor.submitOnDedicatedThread("failing", () -> {
+      Thread.sleep(100);
+      throw expectedException;
+    });
+
+    // Then
+    assertThatExceptionOfType(MultipleFailuresException.class)
+        .isThrownBy(() -> executor.awaitAllOrCancel(List.of(slowTask, failingTask)))
+        .havingCause()
+        .isSameAs(expectedException);
+
+    assertThat(slowTask).isCancelled();
+  }
+
   @DisplayName(".awaiting() awaits all tasks and returns their results")
   @Timeout(value = 10_000, unit = TimeUnit.MILLISECONDS)
   @Test
@@ -415,6 +456,65 @@ class ConcurrentExecutorTest {
         .allSatisfy(task -> assertThat(task).isCancelled());
   }
 
+  @DisplayName(".awaitAllOrCancel(...) awaits all tasks when they succeed")
+  @Timeout(value = 10_000, unit = TimeUnit.MILLISECONDS)
+  @Test
+  void awaitAllOrCancelAwaitsAllTasksWhenTheySucceed() throws Exception {
+    // Given
+    List<FutureTask<Integer>> tasks = new ArrayList<>();
+    for (var i = 0; i < 4; ++i) {
+      // Local copy to prevent the lambda reading the mutable value from the closure.
+      final int index = i;
+      tasks.add(executor.submit(() -> {
+        Thread.sleep(100L * index);
+        return index;
+      }));
+    }
+
+    // When
+    executor.awaitAllOrCancel(tasks);
+
+    // Then
+    for (var i = 0; i < tasks.size(); ++i) {
+      assertThat(tasks.get(i)).isDone();
+      assertThat(tasks.get(i).get()).isEqualTo(i);
+    }
+  }
+
+  @DisplayName(".awaitAllOrCancel(...) cancels remaining tasks as soon as one fails")
+  @Timeout(value = 5_000, unit = TimeUnit.MILLISECONDS)
+  @Test
+  void awaitAllOrCancelCancelsRemainingTasksAsSoonAsOneFails() {
+    // Given
+    var expectedException = new Exception("welp");
+    FutureTask<Void> slowTask = executor.submit(() -> sleepWait(10_000));
+    FutureTask<Void> failingTask = executor.submit(() -> {
+      Thread.sleep(100);
+      throw expectedException;
+    });
+
+    // Then
+    assertThatExceptionOfType(MultipleFailuresException.class)
+        .isThrownBy(() -> executor.awaitAllOrCancel(List.of(slowTask, failingTask)))
+        .havingCause()
+        .isSameAs(expectedException);
+
+    assertThat(slowTask).isCancelled();
+  }
+
+  @DisplayName(".awaitAllOrCancel(...) rejects tasks that were not scheduled by the executor")
+  @Test
+  void awaitAllOrCancelRejectsTasksThatWereNotScheduledByTheExecutor() {
+    // Given
+    FutureTask<Integer> scheduledTask = executor.submit(() -> 1);
+    var foreignTask = new FutureTask<>(() -> 2);
+
+    // Then
+    assertThatExceptionOfType(IllegalArgumentException.class)
+        .isThrownBy(() -> executor.awaitAllOrCancel(List.of(scheduledTask, foreignTask)))
+        .withMessage("Task %s was not scheduled by this executor", foreignTask);
+  }
+
   // Sleep-based waits can consume thread interrupts and can be cancelled,
   // representing some IO-bound work that cancels gracefully.
   @SuppressWarnings({"BusyWait", "SameParameterValue"})
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.system;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.github.ascopes.protobufmavenplugin.utils.ResolutionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.DefaultSessionData;
+import org.eclipse.aether.RepositorySystemSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("SessionResolutionCache tests")
+class SessionResolutionCacheTest {
+
+  MavenSession mavenSession;
+
+  @BeforeEach
+  void setUp() {
+    var repositorySession = mock(RepositorySystemSession.class);
+    when(repositorySession.getData())
+        .thenReturn(new DefaultSessionData());
+    mavenSession = mock(MavenSession.class);
+    when(mavenSession.getRepositorySession())
+        .thenReturn(repositorySession);
+  }
+
+  @DisplayName(".computeIfAbsent(...) computes the result once for the same key")
+  @Test
+  void computeIfAbsentComputesTheResultOnceForTheSameKey() throws ResolutionException {
+    // Given
+    var cache = new SessionResolutionCache(mavenSession);
+    var calls = new AtomicInteger();
+
+    // When
+    var first = cache.computeIfAbsent(List.of("foo", 1), () -> "bar" + calls.incrementAndGet());
+    var second = cache.computeIfAbsent(List.of("foo", 1), () -> "bar" + calls.incrementAndGet());
+
+    // Then
+    assertThat(first).isEqualTo("bar1");
+    assertThat(second).isEqualTo("bar1");
+    assertThat(calls).hasValue(1);
+  }
+
+  @DisplayName(".computeIfAbsent(...) computes separate results for different keys")
+  @Test
+  void computeIfAbsentComputesSeparateResultsForDifferentKeys() throws ResolutionException {
+    // Given
+    var cache = new SessionResolutionCache(mavenSession);
+
+    // When
+    var first = cache.computeIfAbsent(List.of("foo", 1), () -> "bar");
+    var second = cache.computeIfAbsent(List.of("foo", 2), () -> "baz");
+
+    // Then
+    assertThat(first).isEqualTo("bar");
+    assertThat(second).isEqualTo("baz");
+  }
+
+  @DisplayName(".computeIfAbsent(...) shares results between instances in the same session")
+  @Test
+  void computeIfAbsentSharesResultsBetweenInstancesInTheSameSession()
+      throws ResolutionException {
+    // Given
+    var firstCache = new SessionResolutionCache(mavenSession);
+    var secondCache = new SessionResolutionCache(mavenSession);
+    firstCache.computeIfAbsent("foo", () -> "bar");
+
+    // When
+    var result = secondCache.computeIfAbsent("foo", () -> "baz");
+
+    // Then
+    assertThat(result).isEqualTo("bar");
+  }
+
+  @DisplayName(".computeIfAbsent(...) propagates failures without caching them")
+  @Test
+  void computeIfAbsentPropagatesFailuresWithoutCachingThem() throws ResolutionException {
+    // Given
+    var cache = new SessionResolutionCache(mavenSession);
+    var expectedException = new ResolutionException("something went wrong");
+
+    // Then
+    assertThatExceptionOfType(ResolutionException.class)
+        .isThrownBy(() -> cache.computeIfAbsent("foo", () -> {
+          throw expectedException;
+        }))
+        .isSameAs(expectedException);
+
+    assertThat(cache.computeIfAbsent("foo", () -> "bar"))
+        .isEqualTo("bar");
+  }
+
+  @DisplayName(".computeIfAbsent(...) deduplicates concurrent requests for the same key")
+  @Test
+  void computeIfAbsentDeduplicatesConcurrentRequestsForTheSameKey() throws Exception {
+    // Given
+    var cache = new SessionResolutionCache(mavenSession);
+    var calls = new AtomicInteger();
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var executor = Executors.newFixedThreadPool(4);
+
+    try {
+      var futures = new ArrayList<Future<String>>();
+      futures.add(executor.submit(() -> cache.computeIfAbsent("foo", () -> {
+        started.countDown();
+        awaitQuietly(release);
+        return "bar" + calls.incrementAndGet();
+      })));
+
+      started.await();
+
+      for (var i = 0; i < 3; ++i) {
+        futures.add(executor.submit(() -> cache.computeIfAbsent(
+            "foo",
+            () -> "bar" + calls.incrementAndGet()
+        )));
+      }
+
+      // When
+      release.countDown();
+
+      // Then
+      for (var future : futures) {
+        assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo("bar1");
+      }
+      assertThat(calls).hasValue(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -19,19 +19,23 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.net.ProtocolException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 public class HttpClientUrlConnectionTest {
 
@@ -113,4 +117,42 @@ public class HttpClientUrlConnectionTest {
         .isEqualTo("OK");
   }
 
+  @DisplayName("method getOutputStream throws ProtocolException if output is not enabled")
+  @Test
+  void methodGetOutputStreamThrowsProtocolExceptionIfOutputIsNotEnabled() throws Exception {
+    // Given
+    var url = new URL("http://whatever");
+    var connection = new HttpClientUrlConnection(url, mockHttpClient);
+
+    // Then
+    assertThatThrownBy(connection::getOutputStream)
+        .isInstanceOf(ProtocolException.class);
+  }
+
+  @DisplayName("method connect sends a PUT request with the body if output is enabled")
+  @SuppressWarnings("unchecked")
+  @Test
+  void methodConnectSendsPutRequestWithBodyIfOutputIsEnabled() throws Exception {
+    // Given
+    var url = new URL("http://whatever");
+    var mockResponse = mock(HttpResponse.class);
+    when(mockResponse.statusCode())
+        .thenReturn(201);
+    when(mockHttpClient.send(any(), any()))
+        .thenReturn(mockResponse);
+    var connection = new HttpClientUrlConnection(url, mockHttpClient);
+    connection.setDoOutput(true);
+    connection.getOutputStream().write("data".getBytes(StandardCharsets.UTF_8));
+
+    // When
+    connection.connect();
+
+    // Then
+    var captor = ArgumentCaptor.forClass(HttpRequest.class);
+    verify(mockHttpClient).send(captor.capture(), any());
+    assertThat(captor.getValue().method())
+        .isEqualTo("PUT");
+    assertThat(captor.getValue().bodyPublisher())
+        .hasValueSatisfying(body -> assertThat(body.contentLength()).isEqualTo(4));
+  }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2023 Ashley Scopes
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ascopes.protobufmavenplugin.urls;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Flow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("ReadTimeoutBodySubscriber tests")
+class ReadTimeoutBodySubscriberTest {
+
+  @DisplayName("the body stream returns everything that was received")
+  @Test
+  void theBodyStreamReturnsEverythingThatWasReceived() throws IOException {
+    // Given
+    var subscriber = new ReadTimeoutBodySubscriber(1_000);
+    subscriber.onSubscribe(mock(Flow.Subscription.class));
+    subscriber.onNext(List.of(buffer("Hello, "), buffer("World")));
+    subscriber.onNext(List.of(buffer("!")));
+    subscriber.onComplete();
+
+    // When
+    var body = subscriber.getBody().toCompletableFuture().join().readAllBytes();
+
+    // Then
+    assertThat(new String(body, StandardCharsets.UTF_8)).isEqualTo("Hello, World!");
+  }
+
+  @DisplayName("the body stream times out if nothing is received within the read timeout")
+  @Test
+  void theBodyStreamTimesOutIfNothingIsReceivedWithinTheReadTimeout() {
+    // Given
+    Flow.Subscription subscription = mock();
+    var subscriber = new ReadTimeoutBodySubscriber(100);
+    subscriber.onSubscribe(subscription);
+    subscriber.onNext(List.of(buffer("partial")));
+
+    // Then
+    assertThatExceptionOfType(SocketTimeoutException.class)
+        .isThrownBy(() -> subscriber.getBody().toCompletableFuture().join().readAllBytes())
+        .withMessage("Timed out after 100ms waiting for the response body");
+    verify(subscription).cancel();
+  }
+
+  @DisplayName("the body stream raises any error that occurred receiving the body")
+  @Test
+  void theBodyStreamRaisesAnyErrorThatOccurredReceivingTheBody() {
+    // Given
+    var error = new IOException("connection reset");
+    var subscriber = new ReadTimeoutBodySubscriber(1_000);
+    subscriber.onSubscribe(mock(Flow.Subscription.class));
+    subscriber.onNext(List.of(buffer("partial")));
+    subscriber.onError(error);
+
+    // Then
+    assertThatExceptionOfType(IOException.class)
+        .isThrownBy(() -> subscriber.getBody().toCompletableFuture().join().readAllBytes())
+        .withCause(error);
+  }
+
+  @DisplayName("closing the body stream cancels the subscription")
+  @Test
+  void closingTheBodyStreamCancelsTheSubscription() {
+    // Given
+    Flow.Subscription subscription = mock();
+    var subscriber = new ReadTimeoutBodySubscriber(1_000);
+    subscriber.onSubscribe(subscription);
+
+    // When
+    subscriber.close();
+
+    // Then
+    verify(subscription).cancel();
+  }
+
+  private static ByteBuffer buffer(String content) {
+    return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -44,14 +44,22 @@ import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.GZIPOutputStream;
 import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.LocalRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -61,6 +69,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mock.Strictness;
@@ -469,6 +478,148 @@ class UriResourceFetcherTest {
     assertThat(shResult.get().toString()).endsWith(".sh");
   }
 
+  @DisplayName("HTTP resources are cached and revalidated on subsequent fetches")
+  @Test
+  void httpResourcesAreCachedAndRevalidatedOnSubsequentFetches(
+      @TempDir Path localRepositoryDir
+  ) throws Exception {
+    // Given
+    givenLocalRepository(localRepositoryDir);
+    var uri = URI.create("https://example.com/foo/bar/baz.txt");
+    var httpClient = mock(HttpClient.class);
+    var url = someHttpUrl(uri, httpClient);
+    when(urlFactory.create(any()))
+        .thenReturn(url);
+
+    var firstResponse = someHttpResponse(200, "bazbork", Map.of("ETag", List.of("\"v1\"")));
+    var secondResponse = someHttpResponse(304, "", Map.of());
+    when(httpClient.<InputStream>send(any(), any()))
+        .thenReturn(firstResponse)
+        .thenReturn(secondResponse);
+
+    // When
+    var firstResult = uriResourceFetcher.fetchFileFromUri(uri, ".ext", false);
+    var secondResult = uriResourceFetcher.fetchFileFromUri(uri, ".ext", false);
+
+    // Then
+    assertThat(firstResult)
+        .get(PATH)
+        .startsWith(localRepositoryDir)
+        .hasBinaryContent("bazbork".getBytes(StandardCharsets.UTF_8));
+    assertThat(secondResult)
+        .isEqualTo(firstResult);
+
+    var requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+    verify(httpClient, times(2)).send(requestCaptor.capture(), any());
+    assertThat(requestCaptor.getAllValues().get(0).headers().firstValue("If-None-Match"))
+        .isEmpty();
+    assertThat(requestCaptor.getAllValues().get(1).headers().firstValue("If-None-Match"))
+        .hasValue("\"v1\"");
+  }
+
+  @DisplayName("HTTP resources matching the expected digest are reused without a request")
+  @Test
+  void httpResourcesMatchingTheExpectedDigestAreReusedWithoutRequest(
+      @TempDir Path localRepositoryDir
+  ) throws Exception {
+    // Given
+    givenLocalRepository(localRepositoryDir);
+    var uri = URI.create("https://example.com/foo/bar/baz.txt");
+    var httpClient = mock(HttpClient.class);
+    var url = someHttpUrl(uri, httpClient);
+    when(urlFactory.create(any()))
+        .thenReturn(url);
+
+    var response = someHttpResponse(200, "bazbork", Map.of());
+    when(httpClient.<InputStream>send(any(), any()))
+        .thenReturn(response);
+    var digest = Digest.compute("SHA-256", "bazbork");
+
+    // When
+    var firstResult = uriResourceFetcher.fetchFileFromUri(uri, ".ext", false, digest);
+    var secondResult = uriResourceFetcher.fetchFileFromUri(uri, ".ext", false, digest);
+
+    // Then
+    assertThat(firstResult)
+        .get(PATH)
+        .hasBinaryContent("bazbork".getBytes(StandardCharsets.UTF_8));
+    assertThat(secondResult)
+        .isEqualTo(firstResult);
+    verify(httpClient).send(any(), any());
+  }
+
+  @DisplayName("HTTP resources not matching the expected digest are downloaded again")
+  @Test
+  void httpResourcesNotMatchingTheExpectedDigestAreDownloadedAgain(
+      @TempDir Path localRepositoryDir
+  ) throws Exception {
+    // Given
+    givenLocalRepository(localRepositoryDir);
+    var uri = URI.create("https://example.com/foo/bar/baz.txt");
+    var httpClient = mock(HttpClient.class);
+    var url = someHttpUrl(uri, httpClient);
+    when(urlFactory.create(any()))
+        .thenReturn(url);
+
+    var firstResponse = someHttpResponse(200, "bazbork", Map.of());
+    var secondResponse = someHttpResponse(200, "foobar", Map.of());
+    when(httpClient.<InputStream>send(any(), any()))
+        .thenReturn(firstResponse)
+        .thenReturn(secondResponse);
+
+    // When
+    uriResourceFetcher.fetchFileFromUri(uri, ".ext", false);
+    var result = uriResourceFetcher.fetchFileFromUri(
+        uri,
+        ".ext",
+        false,
+        Digest.compute("SHA-256", "foobar")
+    );
+
+    // Then
+    assertThat(result)
+        .get(PATH)
+        .hasBinaryContent("foobar".getBytes(StandardCharsets.UTF_8));
+    verify(httpClient, times(2)).send(any(), any());
+  }
+
+  void givenLocalRepository(Path localRepositoryDir) {
+    var repositorySession = mock(RepositorySystemSession.class);
+    when(repositorySession.getLocalRepository())
+        .thenReturn(new LocalRepository(localRepositoryDir.toFile()));
+    when(session.getRepositorySession())
+        .thenReturn(repositorySession);
+  }
+
+  static URL someHttpUrl(URI uri, HttpClient httpClient) throws Exception {
+    var url = mock(URL.class);
+    lenient().when(url.openConnection())
+        .thenAnswer(ctx -> new HttpClientUrlConnection(uri.toURL(), httpClient));
+    lenient().when(url.toExternalForm())
+        .thenReturn(uri.toString());
+    lenient().when(url.getPath())
+        .thenReturn(uri.getPath());
+    lenient().when(url.getProtocol())
+        .thenReturn(uri.getScheme());
+    return url;
+  }
+
+  @SuppressWarnings("unchecked")
+  static HttpResponse<InputStream> someHttpResponse(
+      int statusCode,
+      String body,
+      Map<String, List<String>> headers
+  ) {
+    var response = (HttpResponse<InputStream>) mock(HttpResponse.class);
+    lenient().when(response.statusCode())
+        .thenReturn(statusCode);
+    lenient().when(response.body())
+        .thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    lenient().when(response.headers())
+        .thenReturn(HttpHeaders.of(headers, (name, value) -> true));
+    return response;
+  }
+
   static Stream<URI> fileUris() {
     return Stream
         .of(